@@ -99,7 +99,7 @@ public abstract class AbstractAccessEntity extends AbstractBaseComponent {
 		Element element = Util.buildElement(PropertyReader.getPrefix("ntk"), name, version.getNtkNamespace(), null);
 		setXOMElement(element, false);
 		if (systemName != null)
-			element.appendChild(systemName.getXOMElementCopy());
+			appendComponent(element, systemName);
 		_systemName = systemName;
 		_securityAttributes = SecurityAttributes.getNonNullInstance(securityAttributes);
 		_securityAttributes.addTo(element);
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -101,11 +102,48 @@ public abstract class AbstractAttributeGroup {
 	/**
 	 * Outputs to HTML or Text with a prefix at the beginning of each meta tag or line.
 	 * 
+	 * <p>Extending classes must override either this method or {@link #writeOutput(Appendable, boolean, String)}. The
+	 * default implementation collects the output of <code>writeOutput()</code> in a String, and fails with an
+	 * UnsupportedOperationException if neither method has been overridden.</p>
+	 * 
 	 * @param isHTML true for HTML, false for Text
 	 * @param prefix the prefix to add
 	 * @return the HTML or Text output
 	 */
-	public abstract String getOutput(boolean isHTML, String prefix);
+	public String getOutput(boolean isHTML, String prefix) {
+		StringBuilder text = new StringBuilder();
+		try {
+			writeOutput(text, isHTML, prefix);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Could not render the attributes: " + e.getMessage());
+		}
+		return (text.toString());
+	}
+
+	/**
+	 * Writes HTML or Text to an Appendable, with a prefix at the beginning of each meta tag or line.
+	 * 
+	 * <p>The default implementation appends the result of {@link #getOutput(boolean, String)}, so that extending
+	 * classes which only override <code>getOutput()</code> can still be rendered. If neither method has been
+	 * overridden, an UnsupportedOperationException is thrown rather than letting the two defaults call each other.</p>
+	 * 
+	 * @param text the Appendable to write to
+	 * @param isHTML true for HTML, false for Text
+	 * @param prefix the prefix to add
+	 */
+	public void writeOutput(Appendable text, boolean isHTML, String prefix) throws IOException {
+		try {
+			if (getClass().getMethod("getOutput", boolean.class, String.class).getDeclaringClass()
+				== AbstractAttributeGroup.class)
+				throw new UnsupportedOperationException(getClass().getName()
+					+ " must override either getOutput() or writeOutput().");
+		}
+		catch (NoSuchMethodException e) {
+			throw new IllegalStateException(e.getMessage());
+		}
+		text.append(getOutput(isHTML, prefix));
+	}
 
 	/**
 	 * Accessor for the XML namespace of these attributes
@@ -19,6 +19,11 @@
  */
 package buri.ddmsence;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -31,6 +36,7 @@ import buri.ddmsence.ddms.ValidationMessage;
 import buri.ddmsence.ddms.extensible.ExtensibleElement;
 import buri.ddmsence.ddms.security.ism.SecurityAttributes;
 import buri.ddmsence.util.DDMSVersion;
+import buri.ddmsence.util.DDMSWriter;
 import buri.ddmsence.util.PropertyReader;
 import buri.ddmsence.util.Util;
 
@@ -64,8 +70,17 @@ import buri.ddmsence.util.Util;
  */
 public abstract class AbstractBaseComponent implements IDDMSComponent {
 
-	private List<ValidationMessage> _warnings = null;
+	private List<Object> _warnings = null;
+	private volatile List<ValidationMessage> _renderedWarnings = null;
 	private Element _element = null;
+	private int _hashCode = 0;
+	private String _fingerprint = null;
+	private volatile byte[] _canonicalBytes = null;
+	private volatile String _contentFingerprint = null;
+	private DDMSVersion _ddmsVersion = null;
+
+	private static final String FINGERPRINT_ALGORITHM = "MD5";
+	private static final String CONTENT_FINGERPRINT_ALGORITHM = "SHA-256";
 
 	/**
 	 * Empty constructor
@@ -132,21 +147,39 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 	}
 
 	/**
+	 * Warnings from nested components are not copied into this component when it is validated. Instead, the nested
+	 * component is remembered, and the warnings are rendered with their full locators the first time this method is
+	 * called.
+	 * 
 	 * @see IDDMSComponent#getValidationWarnings()
 	 */
 	public List<ValidationMessage> getValidationWarnings() {
-		return (Collections.unmodifiableList(getWarnings()));
+		List<ValidationMessage> warnings = _renderedWarnings;
+		if (warnings == null) {
+			warnings = new ArrayList<ValidationMessage>();
+			renderWarnings("", warnings);
+			warnings = Collections.unmodifiableList(warnings);
+			_renderedWarnings = warnings;
+		}
+		return (warnings);
 	}
 
 	/**
 	 * Base case for validation. This method can be overridden for more in-depth validation. It is always assumed that
 	 * the subcomponents of a component are already valid.
+	 * 
+	 * <p>Because each subcomponent validated itself against the DDMS version resolved from its namespace when it was
+	 * built, a subcomponent which resolved to the same version as this component is already known to be compatible,
+	 * and only subcomponents from a different namespace are checked again.</p>
 	 */
 	protected void validate() throws InvalidDDMSException {
 		Util.requireDDMSValue("name", getName());
 		for (IDDMSComponent nested : getNestedComponents()) {
 			if (nested instanceof ExtensibleElement || nested == null)
 				continue;
+			if (nested instanceof AbstractBaseComponent
+				&& ((AbstractBaseComponent) nested).getDDMSVersion() == getDDMSVersion())
+				continue;
 			Util.requireCompatibleVersion(this, nested);
 		}
 		validateWarnings();
@@ -160,7 +193,7 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 		for (IDDMSComponent nested : getNestedComponents()) {
 			if (nested == null)
 				continue;
-			addWarnings(nested.getValidationWarnings(), false);
+			addWarnings(nested);
 		}
 		if (getSecurityAttributes() != null)
 			addWarnings(getSecurityAttributes().getValidationWarnings(), true);
@@ -196,16 +229,78 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 		return (getOutput(false, "", ""));
 	}
 
+	/**
+	 * @see IDDMSComponent#toHTML(Appendable)
+	 */
+	public void toHTML(Appendable output) throws IOException {
+		Util.requireValue("output", output);
+		writeOutput(output, true, "", "");
+	}
+
+	/**
+	 * @see IDDMSComponent#toText(Appendable)
+	 */
+	public void toText(Appendable output) throws IOException {
+		Util.requireValue("output", output);
+		writeOutput(output, false, "", "");
+	}
+
 	/**
 	 * Renders this component as HTML or Text, with an optional prefix to nest it.
 	 * 
+	 * <p>Extending classes must override either this method or
+	 * {@link #writeOutput(Appendable, boolean, String, String)}. The default implementation collects the output of
+	 * <code>writeOutput()</code> in a String, and fails with an UnsupportedOperationException if neither method has
+	 * been overridden.</p>
+	 * 
 	 * @param isHTML true for HTML, false for Text.
 	 * @param prefix an optional prefix to put on each name.
 	 * @param suffix an optional suffix to append to each name, such as an index.
 	 * 
 	 * @return the HTML or Text representation of this component
 	 */
-	public abstract String getOutput(boolean isHTML, String prefix, String suffix);
+	public String getOutput(boolean isHTML, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		try {
+			writeOutput(text, isHTML, prefix, suffix);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Could not render the component: " + e.getMessage());
+		}
+		return (text.toString());
+	}
+
+	/**
+	 * Writes this component as HTML or Text, with an optional prefix to nest it. Nested components write to the same
+	 * Appendable, so no intermediate Strings are built for each component.
+	 * 
+	 * <p>Each component computes its own prefix once, from the prefix of its parent, and hands it down to its nested
+	 * components. The prefixes in use at any time therefore form a stack that follows the nesting of the components,
+	 * and the names of individual values are written after the prefix rather than concatenated onto it (see
+	 * {@link #buildOutput(Appendable, boolean, String, String, String)}).</p>
+	 * 
+	 * <p>The default implementation appends the result of {@link #getOutput(boolean, String, String)}, so that
+	 * extending classes which only override <code>getOutput()</code> can still be rendered. The components in this
+	 * library override this method instead. If neither method has been overridden, an UnsupportedOperationException is
+	 * thrown rather than letting the two defaults call each other.</p>
+	 * 
+	 * @param text the Appendable to write to
+	 * @param isHTML true for HTML, false for Text.
+	 * @param prefix an optional prefix to put on each name.
+	 * @param suffix an optional suffix to append to each name, such as an index.
+	 */
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
+		try {
+			if (getClass().getMethod("getOutput", boolean.class, String.class, String.class).getDeclaringClass()
+				== AbstractBaseComponent.class)
+				throw new UnsupportedOperationException(getClass().getName()
+					+ " must override either getOutput() or writeOutput().");
+		}
+		catch (NoSuchMethodException e) {
+			throw new IllegalStateException(e.getMessage());
+		}
+		text.append(getOutput(isHTML, prefix, suffix));
+	}
 
 	/**
 	 * Accessor for a collection of nested components. A list such as this is useful for bulk actions, such as checking
@@ -226,15 +321,56 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 	public static String buildOutput(boolean isHTML, String name, String content) {
 		if (Util.isEmpty(content))
 			return ("");
-		StringBuffer tag = new StringBuffer();
-		tag.append(isHTML ? "<meta name=\"" : "");
-		tag.append(isHTML ? Util.xmlEscape(name) : name);
-		tag.append(isHTML ? "\" content=\"" : ": ");
-		tag.append(isHTML ? Util.xmlEscape(content) : content);
-		tag.append(isHTML ? "\" />\n" : "\n");
+		StringBuilder tag = new StringBuilder();
+		try {
+			buildOutput(tag, isHTML, name, content);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Could not render the component: " + e.getMessage());
+		}
 		return (tag.toString());
 	}
 
+	/**
+	 * Convenience method to write a meta tag for HTML output or a text line for Text output. Escaping is done as the
+	 * name and content are written.
+	 * 
+	 * @param text the Appendable to write to
+	 * @param isHTML true for HTML, false for Text
+	 * @param name the name of the name-value pairing (will be escaped in HTML)
+	 * @param content the value of the name-value pairing (will be escaped in HTML)
+	 */
+	public static void buildOutput(Appendable text, boolean isHTML, String name, String content) throws IOException {
+		buildOutput(text, isHTML, name, "", content);
+	}
+
+	/**
+	 * Convenience method to write a meta tag for HTML output or a text line for Text output, whose name is the prefix
+	 * of a component followed by the name of one of its values. The two parts are written one after the other, so the
+	 * full name is never built as a String.
+	 * 
+	 * @param text the Appendable to write to
+	 * @param isHTML true for HTML, false for Text
+	 * @param prefix the prefix of the enclosing component (will be escaped in HTML)
+	 * @param name the rest of the name of the name-value pairing (will be escaped in HTML)
+	 * @param content the value of the name-value pairing (will be escaped in HTML)
+	 */
+	public static void buildOutput(Appendable text, boolean isHTML, String prefix, String name, String content)
+		throws IOException {
+		if (Util.isEmpty(content))
+			return;
+		if (isHTML) {
+			text.append("<meta name=\"");
+			Util.xmlEscape(text, prefix);
+			Util.xmlEscape(text, name);
+			text.append("\" content=\"");
+			Util.xmlEscape(text, content);
+			text.append("\" />\n");
+		}
+		else
+			text.append(prefix).append(name).append(": ").append(content).append('\n');
+	}
+
 	/**
 	 * Convenience method to build a meta tag for HTML output or a text line for Text output for a list of multiple DDMS
 	 * components.
@@ -245,19 +381,56 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 	 * @return a string containing the output
 	 */
 	protected String buildOutput(boolean isHTML, String prefix, List<?> contents) {
-		StringBuffer values = new StringBuffer();
+		StringBuilder values = new StringBuilder();
+		try {
+			buildOutput(values, isHTML, prefix, contents);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Could not render the component: " + e.getMessage());
+		}
+		return (values.toString());
+	}
+
+	/**
+	 * Convenience method to write meta tags for HTML output or text lines for Text output for a list of multiple DDMS
+	 * components. The <code>output.indexLevel</code> property is only read once for the whole list.
+	 * 
+	 * @param text the Appendable to write to
+	 * @param isHTML true for HTML, false for Text
+	 * @param prefix the first part of the name in the name-value pairing (will be escaped in HTML)
+	 * @param contents a list of the values (will be escaped in HTML)
+	 */
+	protected void buildOutput(Appendable text, boolean isHTML, String prefix, List<?> contents) throws IOException {
+		buildOutput(text, isHTML, prefix, "", contents);
+	}
+
+	/**
+	 * Convenience method to write meta tags for HTML output or text lines for Text output for a list of multiple DDMS
+	 * components, whose names are the prefix of a component followed by the name of the list. The
+	 * <code>output.indexLevel</code> property is only read once for the whole list, and the prefix for the items is
+	 * only built once.
+	 * 
+	 * @param text the Appendable to write to
+	 * @param isHTML true for HTML, false for Text
+	 * @param prefix the prefix of the enclosing component (will be escaped in HTML)
+	 * @param name the rest of the name in the name-value pairing (will be escaped in HTML)
+	 * @param contents a list of the values (will be escaped in HTML)
+	 */
+	protected void buildOutput(Appendable text, boolean isHTML, String prefix, String name, List<?> contents)
+		throws IOException {
+		if (contents.isEmpty())
+			return;
+		String indexLevel = PropertyReader.getProperty("output.indexLevel");
+		String itemPrefix = (name.length() == 0 ? prefix : prefix + name);
 		for (int i = 0; i < contents.size(); i++) {
 			Object object = contents.get(i);
-			if (object instanceof AbstractBaseComponent) {
-				AbstractBaseComponent component = (AbstractBaseComponent) object;
-				values.append(component.getOutput(isHTML, prefix, buildIndex(i, contents.size())));
-			}
-			else if (object instanceof String)
-				values.append(buildOutput(isHTML, prefix + buildIndex(i, contents.size()), (String) object));
+			String index = buildIndex(i, contents.size(), indexLevel);
+			if (object instanceof AbstractBaseComponent)
+				((AbstractBaseComponent) object).writeOutput(text, isHTML, itemPrefix, index);
 			else
-				values.append(buildOutput(isHTML, prefix + buildIndex(i, contents.size()), String.valueOf(object)));
+				buildOutput(text, isHTML, itemPrefix, index, (object instanceof String ? (String) object
+					: String.valueOf(object)));
 		}
-		return (values.toString());
 	}
 
 	/**
@@ -287,8 +460,18 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 			throw new IllegalArgumentException("The total must be at least 1.");
 		if (index < 0 || index >= total)
 			throw new IllegalArgumentException("The index is not properly bounded between 0 and " + (total - 1));
+		return (buildIndex(index, total, PropertyReader.getProperty("output.indexLevel")));
+	}
 
-		String indexLevel = PropertyReader.getProperty("output.indexLevel");
+	/**
+	 * Constructs a braced 1-based index for a known value of the <code>output.indexLevel</code> property.
+	 * 
+	 * @param index the 0-based index of an item in a list
+	 * @param total the total number of items in that list
+	 * @param indexLevel the value of the property
+	 * @return a String containing the index text, if applicable
+	 */
+	private static String buildIndex(int index, int total, String indexLevel) {
 		if ("2".equals(indexLevel))
 			return ("[" + (index + 1) + "]");
 		if ("1".equals(indexLevel) && (total > 1))
@@ -299,10 +482,49 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 	/**
 	 * Will return an empty string if the name is not set, but this cannot occur after instantiation.
 	 * 
+	 * <p>The output always stands on its own: if the XOM element is nested inside a parent element, a detached copy
+	 * is serialized so that the namespace declarations inherited from the parent are included. A component therefore
+	 * produces the same XML whether or not its element has been adopted by a parent component (see
+	 * {@link #appendComponent(Element, IDDMSComponent)}).</p>
+	 * 
 	 * @see IDDMSComponent#toXML()
 	 */
 	public String toXML() {
-		return (getXOMElement() == null ? "" : getXOMElement().toXML());
+		Element element = getXOMElement();
+		if (element == null)
+			return ("");
+		if (element.getParent() instanceof Element)
+			element = new Element(element);
+		return (element.toXML());
+	}
+
+	/**
+	 * @see IDDMSComponent#writeXML(Writer)
+	 */
+	public void writeXML(Writer writer) throws IOException {
+		DDMSWriter ddmsWriter = new DDMSWriter(writer);
+		writeXML(ddmsWriter);
+		ddmsWriter.flush();
+	}
+
+	/**
+	 * @see IDDMSComponent#writeXML(OutputStream, Charset)
+	 */
+	public void writeXML(OutputStream outputStream, Charset charset) throws IOException {
+		DDMSWriter ddmsWriter = new DDMSWriter(outputStream, charset);
+		writeXML(ddmsWriter);
+		ddmsWriter.flush();
+	}
+
+	/**
+	 * Will write nothing if the name is not set, but this cannot occur after instantiation.
+	 * 
+	 * @see IDDMSComponent#writeXML(DDMSWriter)
+	 */
+	public void writeXML(DDMSWriter writer) throws IOException {
+		Util.requireValue("writer", writer);
+		if (getXOMElement() != null)
+			writer.write(getXOMElement());
 	}
 
 	/**
@@ -383,13 +605,15 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 	/**
 	 * Returns the most recent compatible DDMSVersion for this component, based on the XML Namespace. Depends on the XOM
 	 * Element being set. For DDMS versions that share the same namespace (4.0.1 and 4.1), the newer version is always
-	 * returned.
+	 * returned. The version is resolved once per element and cached.
 	 * 
 	 * @return a version
 	 * @throws UnsupportedVersionException if the XML namespace is not one of the supported DDMS namespaces.
 	 */
 	protected DDMSVersion getDDMSVersion() {
-		return (DDMSVersion.getVersionForNamespace(getNamespace()));
+		if (_ddmsVersion == null)
+			_ddmsVersion = DDMSVersion.getVersionForNamespace(getNamespace());
+		return (_ddmsVersion);
 	}
 
 	/**
@@ -407,6 +631,8 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 		if (!(obj instanceof AbstractBaseComponent) || !(getClass().equals(obj.getClass())))
 			return (false);
 		AbstractBaseComponent test = (AbstractBaseComponent) obj;
+		if (hashCode() != test.hashCode())
+			return (false);
 		return (getName().equals(test.getName()) && getNamespace().equals(test.getNamespace())
 			&& Util.listEquals(getNestedComponents(), test.getNestedComponents()) && Util.nullEquals(
 			getSecurityAttributes(), test.getSecurityAttributes()));
@@ -415,11 +641,28 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 	/**
 	 * Returns a hashcode for the component.
 	 * 
-	 * <p>This automatically includes any nested components or security attributes.</p>
+	 * <p>Because components are immutable, the hashcode is calculated once with <code>computeHashCode()</code> and
+	 * cached for subsequent calls. Unequal hashcodes also allow <code>equals()</code> to return false without walking
+	 * the component tree.</p>
 	 * 
 	 * @see Object#hashCode()
 	 */
-	public int hashCode() {
+	public final int hashCode() {
+		int result = _hashCode;
+		if (result == 0) {
+			result = computeHashCode();
+			_hashCode = result;
+		}
+		return (result);
+	}
+
+	/**
+	 * Calculates the hashcode for the component. Extending classes which add fields to <code>equals()</code> should
+	 * override this method and combine those fields with the base value.
+	 * 
+	 * <p>This automatically includes any nested components or security attributes.</p>
+	 */
+	protected int computeHashCode() {
 		int result = getName().hashCode();
 		result = 7 * result + getNamespace().hashCode();
 		for (IDDMSComponent nested : getNestedComponents()) {
@@ -463,6 +706,7 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 	 */
 	protected void addWarning(String text) {
 		getWarnings().add(ValidationMessage.newWarning(text, getQualifiedName() + getLocatorSuffix()));
+		_renderedWarnings = null;
 	}
 
 	/**
@@ -481,21 +725,139 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 			String newLocator = getQualifiedName() + (forAttributes ? "" : getLocatorSuffix()) + warning.getLocator();
 			getWarnings().add(ValidationMessage.newWarning(warning.getText(), newLocator));
 		}
+		_renderedWarnings = null;
+	}
+
+	/**
+	 * Claims the warnings of a nested component. The warnings are not copied: the nested component is remembered in
+	 * place, and its warnings are prefixed with the locator information of this component when they are rendered.
+	 * Nested components without any warnings are not remembered.
+	 * 
+	 * @param nested the nested component
+	 */
+	private void addWarnings(IDDMSComponent nested) {
+		boolean hasWarnings = (nested instanceof AbstractBaseComponent ? ((AbstractBaseComponent) nested).hasWarnings()
+			: !nested.getValidationWarnings().isEmpty());
+		if (hasWarnings) {
+			getWarnings().add(nested);
+			_renderedWarnings = null;
+		}
+	}
+
+	/**
+	 * Returns true if this component, or any nested component it claimed warnings from, has a warning. Only nested
+	 * components with warnings are claimed, so this does not need to render anything.
+	 */
+	private boolean hasWarnings() {
+		return (_warnings != null && !_warnings.isEmpty());
+	}
+
+	/**
+	 * Renders the warnings of this component, in the order they were added, with a locator prefix that identifies the
+	 * path from the component whose warnings were requested.
+	 * 
+	 * @param prefix the locator path of the ancestors of this component, or an empty string
+	 * @param warnings the list to add the rendered warnings to
+	 */
+	private void renderWarnings(String prefix, List<ValidationMessage> warnings) {
+		if (_warnings == null)
+			return;
+		String nestedPrefix = null;
+		for (Object entry : _warnings) {
+			if (entry instanceof ValidationMessage) {
+				ValidationMessage warning = (ValidationMessage) entry;
+				warnings.add(prefix.length() == 0 ? warning : ValidationMessage.newWarning(warning.getText(), prefix
+					+ warning.getLocator()));
+				continue;
+			}
+			if (nestedPrefix == null)
+				nestedPrefix = (prefix.length() == 0 ? "" : prefix + ValidationMessage.ELEMENT_PREFIX)
+					+ getQualifiedName() + getLocatorSuffix();
+			if (entry instanceof AbstractBaseComponent)
+				((AbstractBaseComponent) entry).renderWarnings(nestedPrefix, warnings);
+			else {
+				for (ValidationMessage warning : ((IDDMSComponent) entry).getValidationWarnings())
+					warnings.add(ValidationMessage.newWarning(warning.getText(), nestedPrefix + warning.getLocator()));
+			}
+		}
 	}
 
 	/**
 	 * Accessor for the list of validation warnings.
 	 * 
-	 * <p>This is the private copy that should be manipulated during validation. Lazy initialization.</p>
+	 * <p>This is the private copy that should be manipulated during validation. Lazy initialization. Each entry is
+	 * either a ValidationMessage which already has the locator for this component, or a nested IDDMSComponent whose
+	 * warnings are claimed by this component.</p>
 	 * 
 	 * @return an editable list of warnings
 	 */
-	private List<ValidationMessage> getWarnings() {
+	private List<Object> getWarnings() {
 		if (_warnings == null)
-			_warnings = new ArrayList<ValidationMessage>();
+			_warnings = new ArrayList<Object>();
 		return (_warnings);
 	}
 
+	/**
+	 * Returns a stable 128-bit fingerprint of this component, as a 32-character hex string. The fingerprint is an MD5
+	 * digest of the Exclusive Canonical XML form of the component, so it is the same across JVMs and runs, and is not
+	 * affected by attribute order or the tree the component is attached to. Namespace prefixes and whitespace are
+	 * part of the exact canonical form, so two components which differ only in those have different fingerprints; use
+	 * {@link #getContentFingerprint()} to ignore them. The fingerprint is calculated once and cached.
+	 * 
+	 * @return the fingerprint
+	 */
+	public String getFingerprint() {
+		if (_fingerprint == null)
+			_fingerprint = Util.getCanonicalDigest(getXOMElement(), FINGERPRINT_ALGORITHM);
+		return (_fingerprint);
+	}
+
+	/**
+	 * Returns the canonical content of this component as UTF-8 bytes. This is the Exclusive Canonical XML form, after
+	 * namespace prefixes have been renumbered in order of use and whitespace between elements has been dropped. Two
+	 * components with the same content therefore have the same canonical bytes, even if they were written with
+	 * different prefixes, attribute order or indentation. The bytes are calculated once and cached, and each call
+	 * returns a copy.
+	 * 
+	 * @see Util#writeCanonicalContent(Element, OutputStream)
+	 * @return a copy of the canonical bytes
+	 */
+	public byte[] getCanonicalBytes() {
+		byte[] bytes = _canonicalBytes;
+		if (bytes == null) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			try {
+				Util.writeCanonicalContent(getXOMElement(), out);
+			}
+			catch (IOException e) {
+				throw new IllegalStateException("Could not canonicalize the component: " + e.getMessage());
+			}
+			bytes = out.toByteArray();
+			_canonicalBytes = bytes;
+		}
+		return (bytes.clone());
+	}
+
+	/**
+	 * Returns a SHA-256 fingerprint of the canonical content of this component, as a 64-character hex string. Unlike
+	 * {@link #getFingerprint()}, it ignores the choice of namespace prefixes and whitespace between elements, so it is
+	 * suited to detecting duplicate or changed records. The canonical form is streamed straight into the digest unless
+	 * the canonical bytes have already been cached. The fingerprint is calculated once and cached.
+	 * 
+	 * @see #getCanonicalBytes()
+	 * @return the fingerprint
+	 */
+	public String getContentFingerprint() {
+		String fingerprint = _contentFingerprint;
+		if (fingerprint == null) {
+			byte[] bytes = _canonicalBytes;
+			fingerprint = (bytes != null ? Util.getDigest(bytes, CONTENT_FINGERPRINT_ALGORITHM)
+				: Util.getCanonicalContentDigest(getXOMElement(), CONTENT_FINGERPRINT_ALGORITHM));
+			_contentFingerprint = fingerprint;
+		}
+		return (fingerprint);
+	}
+
 	/**
 	 * Accessor for the XOM element representing this component
 	 */
@@ -510,6 +872,35 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 		return (new Element(_element));
 	}
 
+	/**
+	 * Appends the XOM element of a child component to an element under construction.
+	 * 
+	 * <p>Components built from raw data create elements with no parent. Rather than deep-copying such an element into
+	 * every ancestor, the parent adopts the element itself, so that a tree built from the bottom up holds a single
+	 * copy of its data and is built in linear time. The child component continues to read from the shared subtree,
+	 * just as a component loaded from an XML file reads from a subtree of the parsed document. If the child element
+	 * already belongs to another tree (for example, because the same component instance is reused in a second parent),
+	 * a copy is appended instead.</p>
+	 * 
+	 * <p>Adoption does not change the observable state of the child: its values, <code>toXML()</code> output, hash
+	 * code, and fingerprint are the same before and after it is appended.</p>
+	 * 
+	 * @param parent the element under construction
+	 * @param component the child component
+	 */
+	protected static void appendComponent(Element parent, IDDMSComponent component) {
+		if (component instanceof AbstractBaseComponent) {
+			Element element = ((AbstractBaseComponent) component).getXOMElement();
+			synchronized (element) {
+				if (element.getParent() == null) {
+					parent.appendChild(element);
+					return;
+				}
+			}
+		}
+		parent.appendChild(component.getXOMElementCopy());
+	}
+
 	/**
 	 * Accessor for the XOM element representing this component. When the element is set, the component is validated
 	 * again with <code>validate</code>.
@@ -520,6 +911,11 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 	protected void setXOMElement(Element element, boolean validateNow) throws InvalidDDMSException {
 		Util.requireDDMSValue("XOM Element", element);
 		_element = element;
+		_hashCode = 0;
+		_fingerprint = null;
+		_canonicalBytes = null;
+		_contentFingerprint = null;
+		_ddmsVersion = null;
 		if (validateNow)
 			validate();
 	}
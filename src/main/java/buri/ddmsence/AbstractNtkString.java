@@ -148,10 +148,10 @@ public abstract class AbstractNtkString extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getValue().hashCode();
 		result = 7 * result + getID().hashCode();
 		result = 7 * result + getIDReference().hashCode();
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -127,7 +128,7 @@ public abstract class AbstractProducerRole extends AbstractBaseComponent {
 			Util.requireDDMSValue("producer type", producerType);
 			Util.requireDDMSValue("entity", entity);
 			Element element = Util.buildDDMSElement(producerType, null);
-			element.appendChild(entity.getXOMElementCopy());
+			appendComponent(element, entity);
 			_entity = entity;
 			if (!pocTypes.isEmpty())
 				Util.addAttribute(element, PropertyReader.getPrefix("ism"), POC_TYPE_NAME,
@@ -171,24 +172,22 @@ public abstract class AbstractProducerRole extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getPocTypes().hashCode();
 		return (result);
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(((AbstractBaseComponent) getEntity()).getOutput(isHTML, localPrefix, ""));
-		text.append(buildOutput(isHTML, localPrefix + POC_TYPE_NAME, Util.getXsList(getPocTypes())));
-		text.append(getSecurityAttributes().getOutput(isHTML, localPrefix));
-		return (text.toString());
+		((AbstractBaseComponent) getEntity()).writeOutput(text, isHTML, localPrefix, "");
+		buildOutput(text, isHTML, localPrefix, POC_TYPE_NAME, Util.getXsList(getPocTypes()));
+		getSecurityAttributes().writeOutput(text, isHTML, localPrefix);
 	}
 
 	/**
@@ -126,10 +126,10 @@ public abstract class AbstractQualifierValue extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getQualifier().hashCode();
 		result = 7 * result + getValue().hashCode();
 		return (result);
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.List;
@@ -147,10 +148,10 @@ public abstract class AbstractRoleEntity extends AbstractBaseComponent implement
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getNames().hashCode();
 		result = 7 * result + getPhones().hashCode();
 		result = 7 * result + getEmails().hashCode();
@@ -159,17 +160,15 @@ public abstract class AbstractRoleEntity extends AbstractBaseComponent implement
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, "", suffix);
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix + "entityType", getName()));
-		text.append(buildOutput(isHTML, localPrefix + NAME_NAME, getNames()));
-		text.append(buildOutput(isHTML, localPrefix + PHONE_NAME, getPhones()));
-		text.append(buildOutput(isHTML, localPrefix + EMAIL_NAME, getEmails()));
-		text.append(getExtensibleAttributes().getOutput(isHTML, prefix));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, "entityType", getName());
+		buildOutput(text, isHTML, localPrefix, NAME_NAME, getNames());
+		buildOutput(text, isHTML, localPrefix, PHONE_NAME, getPhones());
+		buildOutput(text, isHTML, localPrefix, EMAIL_NAME, getEmails());
+		getExtensibleAttributes().writeOutput(text, isHTML, prefix);
 	}
 
 	/**
@@ -138,10 +138,10 @@ public abstract class AbstractSimpleString extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getValue().hashCode();
 		return (result);
 	}
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -110,7 +111,7 @@ public abstract class AbstractTaskingRole extends AbstractBaseComponent {
 		try {
 			Util.requireDDMSValue("entity", entity);
 			Element element = Util.buildDDMSElement(roleType, null);
-			element.appendChild(entity.getXOMElementCopy());
+			appendComponent(element, entity);
 			_entity = entity;
 			_securityAttributes = SecurityAttributes.getNonNullInstance(securityAttributes);
 			_securityAttributes.addTo(element);
@@ -147,14 +148,12 @@ public abstract class AbstractTaskingRole extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(((AbstractBaseComponent) getEntity()).getOutput(isHTML, localPrefix, ""));
-		text.append(getSecurityAttributes().getOutput(isHTML, localPrefix));
-		return (text.toString());
+		((AbstractBaseComponent) getEntity()).writeOutput(text, isHTML, localPrefix, "");
+		getSecurityAttributes().writeOutput(text, isHTML, localPrefix);
 	}
 
 	/**
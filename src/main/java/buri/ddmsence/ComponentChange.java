@@ -0,0 +1,197 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence;
+
+import java.util.Collections;
+import java.util.List;
+
+import buri.ddmsence.ddms.IDDMSComponent;
+import buri.ddmsence.util.Util;
+
+/**
+ * Simple class representing a single difference between two versions of a DDMS component tree.
+ * 
+ * <p> A change is either the addition of a component, the removal of a component, or the modification of a component
+ * which exists in both trees. A component is modified when its own attributes or values differ. Changes inside its
+ * nested components are reported as separate changes, so a modification never implies that the whole subtree was
+ * replaced. </p>
+ * 
+ * <p> The locator string follows the style of a ValidationMessage, such as
+ * "/ddms:resource/ddms:subjectCoverage/ddms:keyword". Because siblings share a locator, the old and new components are
+ * also available, so the exact item can be identified. </p>
+ * 
+ * @see ComponentDiff
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public class ComponentChange {
+
+	private String _type = null;
+	private String _locator = null;
+	private IDDMSComponent _oldComponent = null;
+	private IDDMSComponent _newComponent = null;
+	private List<String> _changedAttributes = null;
+
+	/** Constant type for a component which only exists in the new tree. */
+	public static final String ADDED_TYPE = "Added";
+
+	/** Constant type for a component which only exists in the old tree. */
+	public static final String REMOVED_TYPE = "Removed";
+
+	/** Constant type for a component whose own attributes or values changed. */
+	public static final String MODIFIED_TYPE = "Modified";
+
+	/**
+	 * Private constructor. Use factory methods to instantiate.
+	 * 
+	 * @param type the type of this change
+	 * @param locator a locator string, in XPath format
+	 * @param oldComponent the component in the old tree, or null if it was added
+	 * @param newComponent the component in the new tree, or null if it was removed
+	 * @param changedAttributes the qualified names of any attributes whose values changed
+	 */
+	private ComponentChange(String type, String locator, IDDMSComponent oldComponent, IDDMSComponent newComponent,
+		List<String> changedAttributes) {
+		Util.requireValue("locator", locator);
+		_type = type;
+		_locator = locator;
+		_oldComponent = oldComponent;
+		_newComponent = newComponent;
+		_changedAttributes = Collections.unmodifiableList(changedAttributes);
+	}
+
+	/**
+	 * Factory method to create an addition
+	 * 
+	 * @param component the added component
+	 * @param locator a locator string, in XPath format
+	 * @return a new change
+	 */
+	public static ComponentChange newAdded(IDDMSComponent component, String locator) {
+		Util.requireValue("component", component);
+		return (new ComponentChange(ADDED_TYPE, locator, null, component, Collections.<String> emptyList()));
+	}
+
+	/**
+	 * Factory method to create a removal
+	 * 
+	 * @param component the removed component
+	 * @param locator a locator string, in XPath format
+	 * @return a new change
+	 */
+	public static ComponentChange newRemoved(IDDMSComponent component, String locator) {
+		Util.requireValue("component", component);
+		return (new ComponentChange(REMOVED_TYPE, locator, component, null, Collections.<String> emptyList()));
+	}
+
+	/**
+	 * Factory method to create a modification
+	 * 
+	 * @param oldComponent the component in the old tree
+	 * @param newComponent the component in the new tree
+	 * @param locator a locator string, in XPath format
+	 * @param changedAttributes the qualified names of any attributes whose values changed
+	 * @return a new change
+	 */
+	public static ComponentChange newModified(IDDMSComponent oldComponent, IDDMSComponent newComponent,
+		String locator, List<String> changedAttributes) {
+		Util.requireValue("old component", oldComponent);
+		Util.requireValue("new component", newComponent);
+		Util.requireValue("changed attributes", changedAttributes);
+		return (new ComponentChange(MODIFIED_TYPE, locator, oldComponent, newComponent, changedAttributes));
+	}
+
+	/**
+	 * @see Object#toString()
+	 */
+	public String toString() {
+		StringBuffer text = new StringBuffer();
+		text.append(getType()).append(": ").append(getLocator());
+		if (!getChangedAttributes().isEmpty())
+			text.append(" ").append(getChangedAttributes());
+		return (text.toString());
+	}
+
+	/**
+	 * @see Object#equals(Object)
+	 */
+	public boolean equals(Object obj) {
+		if (obj == this)
+			return (true);
+		if (!(obj instanceof ComponentChange))
+			return (false);
+		ComponentChange test = (ComponentChange) obj;
+		return (getType().equals(test.getType())
+			&& getLocator().equals(test.getLocator())
+			&& Util.nullEquals(getOldComponent(), test.getOldComponent())
+			&& Util.nullEquals(getNewComponent(), test.getNewComponent())
+			&& getChangedAttributes().equals(test.getChangedAttributes()));
+	}
+
+	/**
+	 * @see Object#hashCode()
+	 */
+	public int hashCode() {
+		int result = getType().hashCode();
+		result = 7 * result + getLocator().hashCode();
+		if (getOldComponent() != null)
+			result = 7 * result + getOldComponent().hashCode();
+		if (getNewComponent() != null)
+			result = 7 * result + getNewComponent().hashCode();
+		result = 7 * result + getChangedAttributes().hashCode();
+		return (result);
+	}
+
+	/**
+	 * Accessor for the type
+	 */
+	public String getType() {
+		return _type;
+	}
+
+	/**
+	 * Accessor for the locator
+	 */
+	public String getLocator() {
+		return _locator;
+	}
+
+	/**
+	 * Accessor for the component in the old tree, which is null for an addition
+	 */
+	public IDDMSComponent getOldComponent() {
+		return _oldComponent;
+	}
+
+	/**
+	 * Accessor for the component in the new tree, which is null for a removal
+	 */
+	public IDDMSComponent getNewComponent() {
+		return _newComponent;
+	}
+
+	/**
+	 * Accessor for the qualified names of the attributes whose values changed, in name order. This is empty for
+	 * additions, removals, and modifications which only changed values.
+	 */
+	public List<String> getChangedAttributes() {
+		return _changedAttributes;
+	}
+}
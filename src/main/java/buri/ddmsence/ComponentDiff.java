@@ -0,0 +1,361 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import nu.xom.Attribute;
+import nu.xom.Element;
+import nu.xom.Node;
+import nu.xom.Text;
+import buri.ddmsence.ddms.IDDMSComponent;
+import buri.ddmsence.ddms.ValidationMessage;
+import buri.ddmsence.ddms.summary.Category;
+import buri.ddmsence.ddms.summary.Keyword;
+import buri.ddmsence.util.Util;
+
+/**
+ * Structural diff engine which compares two versions of a DDMS component tree, such as two revisions of a Resource.
+ * 
+ * <p>
+ * The trees are walked through their nested components rather than their XML, and each difference is reported as a
+ * {@link ComponentChange}. Identical subtrees are skipped as soon as they are found to be equal. Because components
+ * are immutable, their hashcodes are cached, so two subtrees with different hashcodes are known to differ without
+ * walking them, and a subtree shared by both trees is skipped by identity.
+ * </p>
+ * 
+ * <p>
+ * Nested components of the same class are paired before they are compared. Identical components are paired first,
+ * wherever they appear in the list. The remaining components are paired by a natural key, in order:
+ * </p>
+ * <ul>
+ * <li>Components with a qualifier, such as identifiers, are keyed by qualifier.</li>
+ * <li>Keywords are keyed by value, and categories by qualifier and code.</li>
+ * <li>Producers are keyed by the type and names of their entity.</li>
+ * <li>All other components are paired by position.</li>
+ * </ul>
+ * <p>
+ * A paired component whose own attributes or values differ is reported as modified, and its nested components are
+ * compared in turn. Unpaired components are reported as added or removed. A new keyword is therefore a single
+ * addition, while a changed classification is a modification which names the changed attribute.
+ * </p>
+ * 
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public final class ComponentDiff {
+
+	/**
+	 * Private to prevent instantiation
+	 */
+	private ComponentDiff() {}
+
+	/**
+	 * Compares two component trees.
+	 * 
+	 * @param oldComponent the original component, or null if the component is new
+	 * @param newComponent the changed component, or null if the component was removed
+	 * @return the changes, in document order, with any removals from a list following the rest of that list
+	 */
+	public static List<ComponentChange> diff(IDDMSComponent oldComponent, IDDMSComponent newComponent) {
+		List<ComponentChange> changes = new ArrayList<ComponentChange>();
+		if (oldComponent == null && newComponent == null)
+			return (changes);
+		if (oldComponent == null || newComponent == null || !oldComponent.getClass().equals(newComponent.getClass())) {
+			if (oldComponent != null)
+				changes.add(ComponentChange.newRemoved(oldComponent, getLocator("", oldComponent)));
+			if (newComponent != null)
+				changes.add(ComponentChange.newAdded(newComponent, getLocator("", newComponent)));
+			return (changes);
+		}
+		diff(oldComponent, newComponent, "", changes);
+		return (changes);
+	}
+
+	/**
+	 * Compares two components of the same class.
+	 * 
+	 * @param oldComponent the original component
+	 * @param newComponent the changed component
+	 * @param parentLocator the locator of the parent, including its locator suffix
+	 * @param changes the list to add changes to
+	 */
+	private static void diff(IDDMSComponent oldComponent, IDDMSComponent newComponent, String parentLocator,
+		List<ComponentChange> changes) {
+		// Unequal cached hashcodes end the equality check immediately.
+		if (oldComponent == newComponent || oldComponent.equals(newComponent))
+			return;
+		String locator = getLocator(parentLocator, newComponent);
+		int count = changes.size();
+		if (oldComponent instanceof AbstractBaseComponent) {
+			AbstractBaseComponent oldBase = (AbstractBaseComponent) oldComponent;
+			AbstractBaseComponent newBase = (AbstractBaseComponent) newComponent;
+			List<String> changedAttributes = getChangedAttributes(oldBase.getXOMElement(), newBase.getXOMElement());
+			if (!changedAttributes.isEmpty() || !getOwnContent(oldBase).equals(getOwnContent(newBase)))
+				changes.add(ComponentChange.newModified(oldComponent, newComponent, locator, changedAttributes));
+			diffNested(oldBase.getNestedComponents(), newBase.getNestedComponents(),
+				locator + newBase.getLocatorSuffix(), changes);
+		}
+		// Any difference which is not visible in the tree is reported against the component itself.
+		if (changes.size() == count)
+			changes.add(ComponentChange.newModified(oldComponent, newComponent, locator,
+				Collections.<String> emptyList()));
+	}
+
+	/**
+	 * Pairs up and compares two lists of nested components.
+	 * 
+	 * @param oldList the original nested components
+	 * @param newList the changed nested components
+	 * @param parentLocator the locator of the parent, including its locator suffix
+	 * @param changes the list to add changes to
+	 */
+	private static void diffNested(List<IDDMSComponent> oldList, List<IDDMSComponent> newList, String parentLocator,
+		List<ComponentChange> changes) {
+		if (oldList == newList || (oldList.isEmpty() && newList.isEmpty()))
+			return;
+		Map<Class<?>, List<IDDMSComponent>> oldGroups = groupByClass(oldList);
+		Map<Class<?>, List<IDDMSComponent>> newGroups = groupByClass(newList);
+		for (Map.Entry<Class<?>, List<IDDMSComponent>> entry : newGroups.entrySet()) {
+			List<IDDMSComponent> oldGroup = oldGroups.remove(entry.getKey());
+			diffGroup(oldGroup == null ? Collections.<IDDMSComponent> emptyList() : oldGroup, entry.getValue(),
+				parentLocator, changes);
+		}
+		for (List<IDDMSComponent> oldGroup : oldGroups.values()) {
+			for (IDDMSComponent component : oldGroup)
+				changes.add(ComponentChange.newRemoved(component, getLocator(parentLocator, component)));
+		}
+	}
+
+	/**
+	 * Pairs up and compares two lists of nested components of the same class.
+	 * 
+	 * @param oldGroup the original nested components
+	 * @param newGroup the changed nested components
+	 * @param parentLocator the locator of the parent, including its locator suffix
+	 * @param changes the list to add changes to
+	 */
+	private static void diffGroup(List<IDDMSComponent> oldGroup, List<IDDMSComponent> newGroup, String parentLocator,
+		List<ComponentChange> changes) {
+		boolean[] oldMatched = new boolean[oldGroup.size()];
+		IDDMSComponent[] pairs = new IDDMSComponent[newGroup.size()];
+
+		// Identical components pair up first, wherever they are in the list.
+		Map<IDDMSComponent, LinkedList<Integer>> identical = new HashMap<IDDMSComponent, LinkedList<Integer>>();
+		for (int i = 0; i < oldGroup.size(); i++) {
+			LinkedList<Integer> indexes = identical.get(oldGroup.get(i));
+			if (indexes == null) {
+				indexes = new LinkedList<Integer>();
+				identical.put(oldGroup.get(i), indexes);
+			}
+			indexes.add(Integer.valueOf(i));
+		}
+		boolean[] newMatched = new boolean[newGroup.size()];
+		for (int i = 0; i < newGroup.size(); i++) {
+			LinkedList<Integer> indexes = identical.get(newGroup.get(i));
+			if (indexes != null && !indexes.isEmpty()) {
+				oldMatched[indexes.removeFirst().intValue()] = true;
+				newMatched[i] = true;
+			}
+		}
+
+		// The rest pair up by key, in order.
+		Map<String, LinkedList<IDDMSComponent>> keyed = new HashMap<String, LinkedList<IDDMSComponent>>();
+		for (int i = 0; i < oldGroup.size(); i++) {
+			if (oldMatched[i])
+				continue;
+			String key = getMatchKey(oldGroup.get(i));
+			LinkedList<IDDMSComponent> candidates = keyed.get(key);
+			if (candidates == null) {
+				candidates = new LinkedList<IDDMSComponent>();
+				keyed.put(key, candidates);
+			}
+			candidates.add(oldGroup.get(i));
+		}
+		Set<IDDMSComponent> paired = Collections.newSetFromMap(new IdentityHashMap<IDDMSComponent, Boolean>());
+		for (int i = 0; i < newGroup.size(); i++) {
+			if (newMatched[i])
+				continue;
+			LinkedList<IDDMSComponent> candidates = keyed.get(getMatchKey(newGroup.get(i)));
+			if (candidates != null && !candidates.isEmpty()) {
+				pairs[i] = candidates.removeFirst();
+				paired.add(pairs[i]);
+			}
+		}
+
+		for (int i = 0; i < newGroup.size(); i++) {
+			if (newMatched[i])
+				continue;
+			if (pairs[i] != null)
+				diff(pairs[i], newGroup.get(i), parentLocator, changes);
+			else
+				changes.add(ComponentChange.newAdded(newGroup.get(i), getLocator(parentLocator, newGroup.get(i))));
+		}
+		for (int i = 0; i < oldGroup.size(); i++) {
+			if (!oldMatched[i] && !paired.contains(oldGroup.get(i)))
+				changes.add(ComponentChange.newRemoved(oldGroup.get(i), getLocator(parentLocator, oldGroup.get(i))));
+		}
+	}
+
+	/**
+	 * Groups non-null components by class, keeping the order of first appearance.
+	 * 
+	 * @param components the components
+	 * @return the groups
+	 */
+	private static Map<Class<?>, List<IDDMSComponent>> groupByClass(List<IDDMSComponent> components) {
+		Map<Class<?>, List<IDDMSComponent>> groups = new LinkedHashMap<Class<?>, List<IDDMSComponent>>();
+		for (IDDMSComponent component : components) {
+			if (component == null)
+				continue;
+			List<IDDMSComponent> group = groups.get(component.getClass());
+			if (group == null) {
+				group = new ArrayList<IDDMSComponent>();
+				groups.put(component.getClass(), group);
+			}
+			group.add(component);
+		}
+		return (groups);
+	}
+
+	/**
+	 * Returns the key used to pair up components of the same class which are not identical.
+	 * 
+	 * @param component the component
+	 * @return the key, which is empty for components paired by position
+	 */
+	private static String getMatchKey(IDDMSComponent component) {
+		if (component instanceof AbstractQualifierValue)
+			return (Util.getNonNullString(((AbstractQualifierValue) component).getQualifier()));
+		if (component instanceof Keyword)
+			return (Util.getNonNullString(((Keyword) component).getValue()));
+		if (component instanceof Category) {
+			Category category = (Category) component;
+			return (Util.getNonNullString(category.getQualifier()) + " " + Util.getNonNullString(category.getCode()));
+		}
+		if (component instanceof AbstractProducerRole) {
+			IDDMSComponent entity = ((AbstractProducerRole) component).getEntity();
+			StringBuilder key = new StringBuilder(entity.getClass().getName());
+			if (entity instanceof AbstractRoleEntity) {
+				for (String name : ((AbstractRoleEntity) entity).getNames())
+					key.append(" ").append(name);
+			}
+			return (key.toString());
+		}
+		return ("");
+	}
+
+	/**
+	 * Compares the attributes of two elements.
+	 * 
+	 * @param oldElement the original element
+	 * @param newElement the changed element
+	 * @return the qualified names of attributes which were added, removed or changed, in name order
+	 */
+	private static List<String> getChangedAttributes(Element oldElement, Element newElement) {
+		Map<String, String> names = new TreeMap<String, String>();
+		for (int i = 0; i < newElement.getAttributeCount(); i++) {
+			Attribute attribute = newElement.getAttribute(i);
+			Attribute oldAttribute = oldElement.getAttribute(attribute.getLocalName(), attribute.getNamespaceURI());
+			if (oldAttribute == null || !oldAttribute.getValue().equals(attribute.getValue()))
+				names.put(attribute.getQualifiedName(), attribute.getQualifiedName());
+		}
+		for (int i = 0; i < oldElement.getAttributeCount(); i++) {
+			Attribute attribute = oldElement.getAttribute(i);
+			if (newElement.getAttribute(attribute.getLocalName(), attribute.getNamespaceURI()) == null)
+				names.put(attribute.getQualifiedName(), attribute.getQualifiedName());
+		}
+		return (new ArrayList<String>(names.values()));
+	}
+
+	/**
+	 * Summarizes the content of a component which does not belong to its nested components, such as the text of a
+	 * keyword or the coordinates of a bounding box. Descendant elements with the same name as a nested component are
+	 * skipped, along with whitespace between elements.
+	 * 
+	 * @param component the component
+	 * @return a string which is equal for components with equal content
+	 */
+	private static String getOwnContent(AbstractBaseComponent component) {
+		Set<String> nestedNames = new HashSet<String>();
+		for (IDDMSComponent nested : component.getNestedComponents()) {
+			if (nested != null)
+				nestedNames.add(nested.getNamespace() + " " + nested.getName());
+		}
+		StringBuilder content = new StringBuilder();
+		appendOwnContent(content, component.getXOMElement(), nestedNames, false);
+		return (content.toString());
+	}
+
+	/**
+	 * Appends the content of an element to a summary, skipping the elements of nested components.
+	 * 
+	 * @param content the summary
+	 * @param element the element
+	 * @param nestedNames the names of the nested components, as "namespace localName"
+	 * @param includeAttributes whether to include the attributes of this element
+	 */
+	private static void appendOwnContent(StringBuilder content, Element element, Set<String> nestedNames,
+		boolean includeAttributes) {
+		content.append('<').append(element.getNamespaceURI()).append(' ').append(element.getLocalName());
+		if (includeAttributes) {
+			Map<String, String> attributes = new TreeMap<String, String>();
+			for (int i = 0; i < element.getAttributeCount(); i++) {
+				Attribute attribute = element.getAttribute(i);
+				attributes.put(attribute.getNamespaceURI() + " " + attribute.getLocalName(), attribute.getValue());
+			}
+			content.append(attributes);
+		}
+		content.append('>');
+		boolean hasChildElements = element.getChildElements().size() > 0;
+		for (int i = 0; i < element.getChildCount(); i++) {
+			Node child = element.getChild(i);
+			if (child instanceof Element) {
+				Element childElement = (Element) child;
+				if (!nestedNames.contains(childElement.getNamespaceURI() + " " + childElement.getLocalName()))
+					appendOwnContent(content, childElement, nestedNames, true);
+			}
+			else if (child instanceof Text && (!hasChildElements || child.getValue().trim().length() > 0))
+				content.append(Util.xmlEscape(child.getValue()));
+		}
+		content.append("</>");
+	}
+
+	/**
+	 * Builds the locator of a component.
+	 * 
+	 * @param parentLocator the locator of the parent, including its locator suffix
+	 * @param component the component
+	 * @return the locator
+	 */
+	private static String getLocator(String parentLocator, IDDMSComponent component) {
+		return (parentLocator + ValidationMessage.ELEMENT_PREFIX + component.getQualifiedName());
+	}
+}
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
@@ -72,6 +73,12 @@ import buri.ddmsence.util.Util;
  */
 public final class ApproximableDate extends AbstractBaseComponent {
 
+	private String _description = null;
+	private String _approximableDate = null;
+	private String _approximation = null;
+	private String _searchableStart = null;
+	private String _searchableEnd = null;
+
 	private static final String DESCRIPTION_NAME = "description";
 	private static final String APPROXIMABLE_DATE_NAME = "approximableDate";
 	private static final String APPROXIMATION_NAME = "approximation";
@@ -204,20 +211,18 @@ public final class ApproximableDate extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix);
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix + "." + DESCRIPTION_NAME, getDescription()));
-		text.append(buildOutput(isHTML, localPrefix + "." + APPROXIMABLE_DATE_NAME, getApproximableDateString()));
-		text.append(buildOutput(isHTML, localPrefix + "." + APPROXIMABLE_DATE_NAME + "." + APPROXIMATION_NAME,
-			getApproximation()));
-		text.append(buildOutput(isHTML, localPrefix + "." + SEARCHABLE_DATE_NAME + "." + START_NAME,
-			getSearchableStartString()));
-		text.append(buildOutput(isHTML, localPrefix + "." + SEARCHABLE_DATE_NAME + "." + END_NAME,
-			getSearchableEndString()));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, "." + DESCRIPTION_NAME, getDescription());
+		buildOutput(text, isHTML, localPrefix, "." + APPROXIMABLE_DATE_NAME, getApproximableDateString());
+		buildOutput(text, isHTML, localPrefix, "." + APPROXIMABLE_DATE_NAME + "." + APPROXIMATION_NAME,
+			getApproximation());
+		buildOutput(text, isHTML, localPrefix, "." + SEARCHABLE_DATE_NAME + "." + START_NAME,
+			getSearchableStartString());
+		buildOutput(text, isHTML, localPrefix, "." + SEARCHABLE_DATE_NAME + "." + END_NAME,
+			getSearchableEndString());
 	}
 
 	/**
@@ -235,10 +240,10 @@ public final class ApproximableDate extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getDescription().hashCode();
 		result = 7 * result + getApproximableDateString().hashCode();
 		result = 7 * result + getApproximation().hashCode();
@@ -251,54 +256,70 @@ public final class ApproximableDate extends AbstractBaseComponent {
 	 * Accessor for the description.
 	 */
 	public String getDescription() {
-		Element descriptionElement = getChild(DESCRIPTION_NAME);
-		return (descriptionElement == null ? "" : Util.getNonNullString(descriptionElement.getValue()));
+		if (_description == null) {
+			Element descriptionElement = getChild(DESCRIPTION_NAME);
+			_description = (descriptionElement == null ? "" : Util.getNonNullString(descriptionElement.getValue()));
+		}
+		return (_description);
 	}
 
 	/**
 	 * Accessor for the approximableDate.
 	 */
 	public String getApproximableDateString() {
-		Element dateElement = getChild(APPROXIMABLE_DATE_NAME);
-		return (dateElement == null ? "" : Util.getNonNullString(dateElement.getValue()));
+		if (_approximableDate == null) {
+			Element dateElement = getChild(APPROXIMABLE_DATE_NAME);
+			_approximableDate = (dateElement == null ? "" : Util.getNonNullString(dateElement.getValue()));
+		}
+		return (_approximableDate);
 	}
 
 	/**
 	 * Accessor for the value of the approximation attribute
 	 */
 	public String getApproximation() {
-		String approximation = null;
-		Element approximableDateElement = getChild(APPROXIMABLE_DATE_NAME);
-		if (approximableDateElement != null) {
-			approximation = approximableDateElement.getAttributeValue(APPROXIMATION_NAME, getNamespace());
+		if (_approximation == null) {
+			String approximation = null;
+			Element approximableDateElement = getChild(APPROXIMABLE_DATE_NAME);
+			if (approximableDateElement != null) {
+				approximation = approximableDateElement.getAttributeValue(APPROXIMATION_NAME, getNamespace());
+			}
+			_approximation = Util.getNonNullString(approximation);
 		}
-		return (Util.getNonNullString(approximation));
+		return (_approximation);
 	}
 
 	/**
 	 * Accessor for the searchableStart date
 	 */
 	public String getSearchableStartString() {
-		String date = "";
-		Element dateElement = getChild(SEARCHABLE_DATE_NAME);
-		if (dateElement != null) {
-			Element startElement = dateElement.getFirstChildElement(START_NAME, getNamespace());
-			if (startElement != null)
-				date = Util.getNonNullString(startElement.getValue());
-		}
-		return (date);
+		if (_searchableStart == null)
+			_searchableStart = getSearchableDate(START_NAME);
+		return (_searchableStart);
 	}
 
 	/**
 	 * Accessor for the searchableEnd date
 	 */
 	public String getSearchableEndString() {
+		if (_searchableEnd == null)
+			_searchableEnd = getSearchableDate(END_NAME);
+		return (_searchableEnd);
+	}
+
+	/**
+	 * Helper method to read one of the bounds of the searchableDate
+	 * 
+	 * @param name the local name of the bound, start or end
+	 * @return the date, or an empty string if it does not exist
+	 */
+	private String getSearchableDate(String name) {
 		String date = "";
 		Element dateElement = getChild(SEARCHABLE_DATE_NAME);
 		if (dateElement != null) {
-			Element endElement = dateElement.getFirstChildElement(END_NAME, getNamespace());
-			if (endElement != null)
-				date = Util.getNonNullString(endElement.getValue());
+			Element boundElement = dateElement.getFirstChildElement(name, getNamespace());
+			if (boundElement != null)
+				date = Util.getNonNullString(boundElement.getValue());
 		}
 		return (date);
 	}
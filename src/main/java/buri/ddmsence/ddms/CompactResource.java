@@ -0,0 +1,243 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.ddms;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import nu.xom.Builder;
+import nu.xom.Element;
+import nu.xom.ParsingException;
+import buri.ddmsence.ddms.resource.Identifier;
+import buri.ddmsence.ddms.resource.Title;
+import buri.ddmsence.util.DDMSVersion;
+import buri.ddmsence.util.Util;
+
+/**
+ * A compact, detached form of a Resource, which does not retain the XOM tree or the component objects.
+ * 
+ * <p>
+ * A Resource holds its complete XOM tree as well as the components extracted from it, which makes it expensive to keep
+ * large numbers of them in memory. A CompactResource keeps only the UTF-8 bytes of the XML representation and a few
+ * frequently used values (the titles, identifier values, and classification), which are extracted once when it is
+ * created, so their accessors never parse the XML. The XML and XOM element are regenerated on demand, and the full
+ * object model can be restored with <code>toResource()</code>.
+ * </p>
+ * 
+ * <p>
+ * Because a CompactResource can only be created from a valid Resource, it does not perform any validation of its own.
+ * Instances are immutable.
+ * </p>
+ * 
+ * @see Resource#toCompact()
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public final class CompactResource {
+
+	private String _version;
+	private byte[] _xml;
+	private List<String> _titles;
+	private List<String> _identifierValues;
+	private String _classification;
+	private int _hashCode = 0;
+
+	private static final String ENCODING = "UTF-8";
+
+	/**
+	 * Constructor for creating a compact copy of a Resource
+	 * 
+	 * @param resource the resource to compact
+	 */
+	public CompactResource(Resource resource) {
+		Util.requireValue("resource", resource);
+		_version = DDMSVersion.getVersionForNamespace(resource.getNamespace()).getVersion();
+		try {
+			_xml = resource.toXML().getBytes(ENCODING);
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(ENCODING + " is not supported by this JVM.");
+		}
+		List<String> titles = new ArrayList<String>();
+		for (Title title : resource.getTitles())
+			titles.add(title.getValue());
+		_titles = compactList(titles);
+		List<String> identifierValues = new ArrayList<String>();
+		for (Identifier identifier : resource.getIdentifiers())
+			identifierValues.add(identifier.getValue());
+		_identifierValues = compactList(identifierValues);
+		_classification = getClassification(resource);
+	}
+
+	/**
+	 * Returns the classification which marks a resource as a whole. This is held on the resource element itself,
+	 * except in DDMS 2.0, where it is held on the ddms:security element, and in DDMS 5.0, where it is held on the
+	 * ddms:metacardInfo element.
+	 * 
+	 * @param resource the resource
+	 * @return the classification, or an empty string if it is not set
+	 */
+	private static String getClassification(Resource resource) {
+		String classification = resource.getSecurityAttributes().getClassification();
+		if (Util.isEmpty(classification) && resource.getMetacardInfo() != null)
+			classification = resource.getMetacardInfo().getSecurityAttributes().getClassification();
+		if (Util.isEmpty(classification) && resource.getSecurity() != null)
+			classification = resource.getSecurity().getSecurityAttributes().getClassification();
+		return (Util.getNonNullString(classification));
+	}
+
+	/**
+	 * Helper method to store a list in the smallest immutable form available
+	 * 
+	 * @param list the list to compact
+	 * @return an unmodifiable list
+	 */
+	private static List<String> compactList(List<String> list) {
+		if (list.isEmpty())
+			return (Collections.<String> emptyList());
+		if (list.size() == 1)
+			return (Collections.singletonList(list.get(0)));
+		return (Collections.unmodifiableList(Arrays.asList(list.toArray(new String[list.size()]))));
+	}
+
+	/**
+	 * Restores the full object model of this resource. The XML is parsed without schema validation, since it was
+	 * produced by a valid Resource, but the component constructors still perform their own validation. The component
+	 * constructors read the current DDMSVersion, so it is set to the version of this resource while the Resource is
+	 * built, and restored afterwards.
+	 * 
+	 * @return a new Resource
+	 * @throws InvalidDDMSException if the resource could not be rebuilt
+	 */
+	public Resource toResource() throws InvalidDDMSException {
+		Element element = getXOMElementCopy();
+		DDMSVersion currentVersion = DDMSVersion.getCurrentVersion();
+		DDMSVersion.setCurrentVersion(getDDMSVersion());
+		try {
+			return (new Resource(element));
+		}
+		finally {
+			DDMSVersion.setCurrentVersion(currentVersion.getVersion());
+		}
+	}
+
+	/**
+	 * Regenerates the XOM element representing this resource. Each call returns a new element.
+	 * 
+	 * @return a XOM element
+	 */
+	public Element getXOMElementCopy() {
+		try {
+			return (new Builder().build(new ByteArrayInputStream(_xml)).getRootElement());
+		}
+		catch (ParsingException e) {
+			throw new IllegalStateException("Could not rebuild the resource: " + e.getMessage());
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Could not rebuild the resource: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Regenerates the XML representation of this resource.
+	 * 
+	 * @return the same XML string as the original <code>Resource.toXML()</code>
+	 */
+	public String toXML() {
+		try {
+			return (new String(_xml, ENCODING));
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(ENCODING + " is not supported by this JVM.");
+		}
+	}
+
+	/**
+	 * @see Object#equals(Object)
+	 */
+	public boolean equals(Object obj) {
+		if (obj == this)
+			return (true);
+		if (!(obj instanceof CompactResource))
+			return (false);
+		CompactResource test = (CompactResource) obj;
+		return (getDDMSVersion().equals(test.getDDMSVersion()) && Arrays.equals(_xml, test._xml));
+	}
+
+	/**
+	 * @see Object#hashCode()
+	 */
+	public int hashCode() {
+		int result = _hashCode;
+		if (result == 0) {
+			result = getDDMSVersion().hashCode();
+			result = 7 * result + Arrays.hashCode(_xml);
+			_hashCode = result;
+		}
+		return (result);
+	}
+
+	/**
+	 * @see Object#toString()
+	 */
+	public String toString() {
+		return (toXML());
+	}
+
+	/**
+	 * Accessor for the DDMS version number of this resource, such as "5.0"
+	 */
+	public String getDDMSVersion() {
+		return (_version);
+	}
+
+	/**
+	 * Accessor for the size of the retained XML, in bytes
+	 */
+	public int getSize() {
+		return (_xml.length);
+	}
+
+	/**
+	 * Accessor for the values of the titles (unmodifiable)
+	 */
+	public List<String> getTitles() {
+		return (_titles);
+	}
+
+	/**
+	 * Accessor for the values of the identifiers (unmodifiable)
+	 */
+	public List<String> getIdentifierValues() {
+		return (_identifierValues);
+	}
+
+	/**
+	 * Accessor for the classification of the resource, or an empty string if it is not set
+	 */
+	public String getClassification() {
+		return (_classification);
+	}
+}
@@ -19,10 +19,15 @@
  */
 package buri.ddmsence.ddms;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.List;
 
 import nu.xom.Element;
 import buri.ddmsence.ddms.security.ism.SecurityAttributes;
+import buri.ddmsence.util.DDMSWriter;
 
 /**
  * Interface for a single DDMS element.
@@ -113,6 +118,22 @@ public interface IDDMSComponent {
 	 */
 	public String toText();
 
+	/**
+	 * Renders this component as HTML, writing each meta tag directly to an Appendable. Nested components write to the
+	 * same Appendable, so no intermediate Strings are built.
+	 * 
+	 * @param output the Appendable to write to
+	 */
+	public void toHTML(Appendable output) throws IOException;
+
+	/**
+	 * Renders this component as Text, writing each line directly to an Appendable. Nested components write to the same
+	 * Appendable, so no intermediate Strings are built.
+	 * 
+	 * @param output the Appendable to write to
+	 */
+	public void toText(Appendable output) throws IOException;
+
 	/**
 	 * Renders this component as XML.
 	 * 
@@ -120,6 +141,34 @@ public interface IDDMSComponent {
 	 */
 	public String toXML();
 
+	/**
+	 * Streams this component as XML to a character stream, without building the whole document as a String. The
+	 * output is identical to {@link #toXML()}. For a component nested inside a larger Resource, both forms declare the
+	 * namespaces it inherits from its ancestors, so the output can be parsed on its own. The writer is flushed, but not
+	 * closed.
+	 * 
+	 * @param writer the destination of the XML
+	 */
+	public void writeXML(Writer writer) throws IOException;
+
+	/**
+	 * Streams this component as XML to a byte stream, without building the whole document as a String. Characters
+	 * which cannot be encoded in the charset are written as character references. The stream is flushed, but not
+	 * closed.
+	 * 
+	 * @param outputStream the destination of the XML
+	 * @param charset the character encoding to use
+	 */
+	public void writeXML(OutputStream outputStream, Charset charset) throws IOException;
+
+	/**
+	 * Streams this component as XML through a DDMSWriter, which controls indentation, namespace declarations, and
+	 * whether the component is written into a larger wrapper document. The writer is not flushed.
+	 * 
+	 * @param writer the DDMSWriter
+	 */
+	public void writeXML(DDMSWriter writer) throws IOException;
+
 	/**
 	 * Accessor for a copy of the underlying XOM element. This allows a XOM tree to be built from DDMS data when
 	 * traversing a list of IDDMSComponents.
@@ -19,6 +19,8 @@
  */
 package buri.ddmsence.ddms;
 
+import java.io.IOException;
+
 import buri.ddmsence.AbstractBaseComponent;
 
 /**
@@ -33,4 +35,9 @@ public interface ITspiShape extends IDDMSComponent {
 	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
 	 */
 	public abstract String getOutput(boolean isHTML, String prefix, String suffix);
+
+	/**
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
+	 */
+	public abstract void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException;
 }
@@ -55,6 +55,7 @@ import buri.ddmsence.ddms.resource.Source;
 import buri.ddmsence.ddms.resource.Subtitle;
 import buri.ddmsence.ddms.resource.Title;
 import buri.ddmsence.ddms.resource.Type;
+import buri.ddmsence.ddms.rules.IRule;
 import buri.ddmsence.ddms.security.Security;
 import buri.ddmsence.ddms.security.ism.ISMVocabulary;
 import buri.ddmsence.ddms.security.ism.NoticeAttributes;
@@ -66,8 +67,11 @@ import buri.ddmsence.ddms.summary.RelatedResource;
 import buri.ddmsence.ddms.summary.SubjectCoverage;
 import buri.ddmsence.ddms.summary.TemporalCoverage;
 import buri.ddmsence.ddms.summary.VirtualCoverage;
+import buri.ddmsence.util.BinaryCodec;
+import buri.ddmsence.util.ComponentPool;
 import buri.ddmsence.util.DDMSReader;
 import buri.ddmsence.util.DDMSVersion;
+import buri.ddmsence.util.JSONWriter;
 import buri.ddmsence.util.LazyList;
 import buri.ddmsence.util.PropertyReader;
 import buri.ddmsence.util.Util;
@@ -195,6 +199,8 @@ public final class Resource extends AbstractBaseComponent {
 	private NoticeAttributes _noticeAttributes = null;
 	private SecurityAttributes _securityAttributes = null;
 	private ExtensibleAttributes _extensibleAttributes = null;
+	private volatile int _loadedSets = ALL_SETS;
+	private final Object _loadLock = new Object();
 
 	/** The attribute name for resource element flag */
 	protected static final String RESOURCE_ELEMENT_NAME = "resourceElement";
@@ -208,6 +214,18 @@ public final class Resource extends AbstractBaseComponent {
 	/** The attribute name for DES version */
 	public static final String DES_VERSION_NAME = "DESVersion";
 
+	/** The property which controls schema validation in the data-driven constructor */
+	public static final String SCHEMA_VALIDATION_PROPERTY = "resource.schemaValidation";
+
+	private static final int RESOURCE_SET = 1;
+	private static final int FORMAT_SET = 2;
+	private static final int SUMMARY_SET = 4;
+	private static final int SECURITY_SET = 8;
+	private static final int EXTENSIBLE_LAYER = 16;
+	private static final int TOP_LEVEL_COMPONENTS = 32;
+	private static final int WARNINGS = 64;
+	private static final int ALL_SETS = 127;
+
 	private static final Set<String> ALL_IC_ATTRIBUTES = new HashSet<String>();
 	static {
 		ALL_IC_ATTRIBUTES.add(RESOURCE_ELEMENT_NAME);
@@ -228,9 +246,33 @@ public final class Resource extends AbstractBaseComponent {
 	 * @throws InvalidDDMSException if any required information is missing or malformed
 	 */
 	public Resource(Element element) throws InvalidDDMSException {
+		this(element, false);
+	}
+
+	/**
+	 * Constructor for creating a component from a XOM Element, with the option to build the top-level components
+	 * lazily.
+	 * 
+	 * <p>A lazy Resource validates its structure up front: the cardinality of the top-level child elements is checked
+	 * by counting them, and the attributes and ddms:order values of the resource are validated as they would be in an
+	 * eager Resource. The element is not validated against the DDMS schemas, since records loaded with a DDMSReader
+	 * have already passed that check; call <code>validateWithSchema()</code> on records from other sources. The
+	 * components of each set (the resource set, format set, summary set, security set, and extensible layer) are not
+	 * built until one of them is first accessed, which lets light read-only consumers (such as an indexer that only
+	 * reads the identifiers and security) skip most of the object construction. Each set is built once, and access is
+	 * thread-safe. Validation warnings from the nested components are collected the first time the warnings are
+	 * requested.</p>
+	 * 
+	 * <p>Because the component-level rules are only checked when a set is built, an accessor on a lazy Resource will
+	 * throw an IllegalStateException if one of the components is invalid.</p>
+	 * 
+	 * @param element the XOM element representing this
+	 * @param lazy true to build the top-level components on first access, false to build them immediately
+	 * @throws InvalidDDMSException if any required information is missing or malformed
+	 */
+	public Resource(Element element, boolean lazy) throws InvalidDDMSException {
 		try {
 			setXOMElement(element, false);
-			String namespace = element.getNamespaceURI();
 			String ismNamespace = getDDMSVersion().getIsmNamespace();
 
 			String createDate = getAttributeValue(CREATE_DATE_NAME, ismNamespace);
@@ -252,101 +294,19 @@ public final class Resource extends AbstractBaseComponent {
 			_securityAttributes = new SecurityAttributes(element);
 			_extensibleAttributes = new ExtensibleAttributes(element);
 
-			DDMSVersion version = getDDMSVersion();
-
-			// Metacard Set
-			Element component = getChild(MetacardInfo.getName(version));
-			if (component != null) {
-				_metacardInfo = new MetacardInfo(component);
+			if (lazy) {
+				_loadedSets = 0;
+				validateStructure();
 			}
-			// Resource Set
-			Elements components = element.getChildElements(Identifier.getName(version), namespace);
-			for (int i = 0; i < components.size(); i++)
-				_identifiers.add(new Identifier(components.get(i)));
-			components = element.getChildElements(Title.getName(version), namespace);
-			for (int i = 0; i < components.size(); i++)
-				_titles.add(new Title(components.get(i)));
-			components = element.getChildElements(Subtitle.getName(version), namespace);
-			for (int i = 0; i < components.size(); i++)
-				_subtitles.add(new Subtitle(components.get(i)));
-			component = getChild(Description.getName(version));
-			if (component != null)
-				_description = new Description(component);
-			components = element.getChildElements(Language.getName(version), namespace);
-			for (int i = 0; i < components.size(); i++)
-				_languages.add(new Language(components.get(i)));
-			component = getChild(Dates.getName(version));
-			if (component != null)
-				_dates = new Dates(component);
-			component = getChild(Rights.getName(version));
-			if (component != null)
-				_rights = new Rights(component);
-			components = element.getChildElements(Source.getName(version), namespace);
-			for (int i = 0; i < components.size(); i++)
-				_sources.add(new Source(components.get(i)));
-			components = element.getChildElements(Type.getName(version), namespace);
-			for (int i = 0; i < components.size(); i++)
-				_types.add(new Type(components.get(i)));
-			components = element.getChildElements(Creator.getName(version), namespace);
-			for (int i = 0; i < components.size(); i++)
-				_creators.add(new Creator(components.get(i)));
-			components = element.getChildElements(Publisher.getName(version), namespace);
-			for (int i = 0; i < components.size(); i++)
-				_publishers.add(new Publisher(components.get(i)));
-			components = element.getChildElements(Contributor.getName(version), namespace);
-			for (int i = 0; i < components.size(); i++)
-				_contributors.add(new Contributor(components.get(i)));
-			components = element.getChildElements(PointOfContact.getName(version), namespace);
-			for (int i = 0; i < components.size(); i++)
-				_pointOfContacts.add(new PointOfContact(components.get(i)));
-
-			// Format Set
-			component = getChild(Format.getName(version));
-			if (component != null)
-				_format = new Format(component);
-
-			// Summary Set
-			components = element.getChildElements(SubjectCoverage.getName(version), namespace);
-			for (int i = 0; i < components.size(); i++)
-				_subjectCoverages.add(new SubjectCoverage(components.get(i)));
-			components = element.getChildElements(VirtualCoverage.getName(version), namespace);
-			for (int i = 0; i < components.size(); i++)
-				_virtualCoverages.add(new VirtualCoverage(components.get(i)));
-			components = element.getChildElements(TemporalCoverage.getName(version), namespace);
-			for (int i = 0; i < components.size(); i++)
-				_temporalCoverages.add(new TemporalCoverage(components.get(i)));
-			components = element.getChildElements(GeospatialCoverage.getName(version), namespace);
-			for (int i = 0; i < components.size(); i++)
-				geospatialCoverages.add(new GeospatialCoverage(components.get(i)));
-			components = element.getChildElements(RelatedResource.getName(version), namespace);
-			for (int i = 0; i < components.size(); i++)
-				loadRelatedResource(components.get(i));
-
-			// Resource Set again
-			component = getChild(ResourceManagement.getName(version));
-			if (component != null)
-				_resourceManagement = new ResourceManagement(component);
-
-			// Security Set
-			component = getChild(Security.getName(version));
-			if (component != null) {
-				_security = new Security(component);
-
-				// Extensible Layer
-
-				// We use the security component to locate the extensible layer. If it is null, this resource is going
-				// to fail validation anyhow (or we're in DDMS 5.0, which doesn't have an extensible layer, so we skip 
-				// the extensible layer.
-				int index = 0;
-				Elements allElements = element.getChildElements();
-				while (allElements.get(index) != component) {
-					index++;
-				}
-				for (int i = index + 1; i < allElements.size(); i++)
-					_extensibleElements.add(new ExtensibleElement(allElements.get(i)));
+			else {
+				loadResourceSet();
+				loadFormatSet();
+				loadSummarySet();
+				loadSecuritySet();
+				loadExtensibleLayer();
+				populatedOrderedList();
+				validate();
 			}
-			populatedOrderedList();
-			validate();
 		}
 		catch (InvalidDDMSException e) {
 			e.setLocator(getQualifiedName());
@@ -354,6 +314,178 @@ public final class Resource extends AbstractBaseComponent {
 		}
 	}
 
+	/**
+	 * Builds the components of a set the first time it is needed. Sets which have already been built are skipped
+	 * without locking.
+	 * 
+	 * <p>The current DDMSVersion is switched to the version of this resource while the set is built, and restored
+	 * afterwards, so a set is built the same way however the current version has changed since the resource was
+	 * created.</p>
+	 * 
+	 * @param set the flag for the set to build
+	 * @throws IllegalStateException if a component in a lazy Resource is invalid
+	 */
+	private void requireSet(int set) {
+		if ((_loadedSets & set) != 0)
+			return;
+		synchronized (_loadLock) {
+			if ((_loadedSets & set) != 0)
+				return;
+			DDMSVersion previousVersion = DDMSVersion.getCurrentVersion();
+			try {
+				DDMSVersion.setCurrentVersion(getDDMSVersion().getVersion());
+				switch (set) {
+					case RESOURCE_SET:
+						loadResourceSet();
+						break;
+					case FORMAT_SET:
+						loadFormatSet();
+						break;
+					case SUMMARY_SET:
+						loadSummarySet();
+						break;
+					case SECURITY_SET:
+						loadSecuritySet();
+						break;
+					case EXTENSIBLE_LAYER:
+						loadExtensibleLayer();
+						break;
+					case TOP_LEVEL_COMPONENTS:
+						populatedOrderedList();
+						break;
+					default:
+						validateWarnings();
+				}
+			}
+			catch (InvalidDDMSException e) {
+				e.setLocator(getQualifiedName());
+				throw new IllegalStateException("Could not build the resource: " + e.getMessage() + " ("
+					+ e.getLocator() + ")");
+			}
+			finally {
+				DDMSVersion.setCurrentVersion(previousVersion.getVersion());
+			}
+			_loadedSets = _loadedSets | set;
+		}
+	}
+
+	/**
+	 * Builds the components of the resource set, which includes the ddms:metacardInfo and ddms:resourceManagement.
+	 */
+	private void loadResourceSet() throws InvalidDDMSException {
+		DDMSVersion version = getDDMSVersion();
+		Element element = getXOMElement();
+		String namespace = element.getNamespaceURI();
+		Element component = getChild(MetacardInfo.getName(version));
+		if (component != null) {
+			_metacardInfo = new MetacardInfo(component);
+		}
+		Elements components = element.getChildElements(Identifier.getName(version), namespace);
+		for (int i = 0; i < components.size(); i++)
+			_identifiers.add(new Identifier(components.get(i)));
+		components = element.getChildElements(Title.getName(version), namespace);
+		for (int i = 0; i < components.size(); i++)
+			_titles.add(new Title(components.get(i)));
+		components = element.getChildElements(Subtitle.getName(version), namespace);
+		for (int i = 0; i < components.size(); i++)
+			_subtitles.add(new Subtitle(components.get(i)));
+		component = getChild(Description.getName(version));
+		if (component != null)
+			_description = new Description(component);
+		components = element.getChildElements(Language.getName(version), namespace);
+		for (int i = 0; i < components.size(); i++)
+			_languages.add(new Language(components.get(i)));
+		component = getChild(Dates.getName(version));
+		if (component != null)
+			_dates = new Dates(component);
+		component = getChild(Rights.getName(version));
+		if (component != null)
+			_rights = new Rights(component);
+		components = element.getChildElements(Source.getName(version), namespace);
+		for (int i = 0; i < components.size(); i++)
+			_sources.add(new Source(components.get(i)));
+		components = element.getChildElements(Type.getName(version), namespace);
+		for (int i = 0; i < components.size(); i++)
+			_types.add(new Type(components.get(i)));
+		components = element.getChildElements(Creator.getName(version), namespace);
+		for (int i = 0; i < components.size(); i++)
+			_creators.add(new Creator(components.get(i)));
+		components = element.getChildElements(Publisher.getName(version), namespace);
+		for (int i = 0; i < components.size(); i++)
+			_publishers.add(new Publisher(components.get(i)));
+		components = element.getChildElements(Contributor.getName(version), namespace);
+		for (int i = 0; i < components.size(); i++)
+			_contributors.add(new Contributor(components.get(i)));
+		components = element.getChildElements(PointOfContact.getName(version), namespace);
+		for (int i = 0; i < components.size(); i++)
+			_pointOfContacts.add(new PointOfContact(components.get(i)));
+		component = getChild(ResourceManagement.getName(version));
+		if (component != null)
+			_resourceManagement = new ResourceManagement(component);
+	}
+
+	/**
+	 * Builds the component of the format set.
+	 */
+	private void loadFormatSet() throws InvalidDDMSException {
+		Element component = getChild(Format.getName(getDDMSVersion()));
+		if (component != null)
+			_format = new Format(component);
+	}
+
+	/**
+	 * Builds the components of the summary set.
+	 */
+	private void loadSummarySet() throws InvalidDDMSException {
+		DDMSVersion version = getDDMSVersion();
+		Element element = getXOMElement();
+		String namespace = element.getNamespaceURI();
+		Elements components = element.getChildElements(SubjectCoverage.getName(version), namespace);
+		for (int i = 0; i < components.size(); i++)
+			_subjectCoverages.add(new SubjectCoverage(components.get(i)));
+		components = element.getChildElements(VirtualCoverage.getName(version), namespace);
+		for (int i = 0; i < components.size(); i++)
+			_virtualCoverages.add(new VirtualCoverage(components.get(i)));
+		components = element.getChildElements(TemporalCoverage.getName(version), namespace);
+		for (int i = 0; i < components.size(); i++)
+			_temporalCoverages.add(new TemporalCoverage(components.get(i)));
+		components = element.getChildElements(GeospatialCoverage.getName(version), namespace);
+		for (int i = 0; i < components.size(); i++)
+			geospatialCoverages.add(new GeospatialCoverage(components.get(i)));
+		components = element.getChildElements(RelatedResource.getName(version), namespace);
+		for (int i = 0; i < components.size(); i++)
+			loadRelatedResource(components.get(i));
+	}
+
+	/**
+	 * Builds the component of the security set.
+	 */
+	private void loadSecuritySet() throws InvalidDDMSException {
+		Element component = getChild(Security.getName(getDDMSVersion()));
+		if (component != null)
+			_security = new Security(component);
+	}
+
+	/**
+	 * Builds the components of the extensible layer.
+	 * 
+	 * <p>We use the security element to locate the extensible layer. If it is null, this resource is going to fail
+	 * validation anyhow (or we're in DDMS 5.0, which doesn't have an extensible layer, so we skip the extensible
+	 * layer).</p>
+	 */
+	private void loadExtensibleLayer() throws InvalidDDMSException {
+		Element component = getChild(Security.getName(getDDMSVersion()));
+		if (component != null) {
+			Elements allElements = getXOMElement().getChildElements();
+			int index = 0;
+			while (allElements.get(index) != component) {
+				index++;
+			}
+			for (int i = index + 1; i < allElements.size(); i++)
+				_extensibleElements.add(new ExtensibleElement(allElements.get(i)));
+		}
+	}
+
 	/**
 	 * Helper method to convert element-based related resources into components. In DDMS 4.0.1, there is a
 	 * one-to-one correlation between the two. In DDMS 2.0, 3.0, or 3.1, the top-level ddms:RelatedResources
@@ -588,10 +720,11 @@ public final class Resource extends AbstractBaseComponent {
 			}
 			populatedOrderedList();
 			for (IDDMSComponent component : getTopLevelComponents()) {
-				element.appendChild(component.getXOMElementCopy());
+				appendComponent(element, component);
 			}
 			setXOMElement(element, true);
-			DDMSReader.validateWithSchema(version, toXML());
+			if (Boolean.valueOf(PropertyReader.getProperty(SCHEMA_VALIDATION_PROPERTY)).booleanValue())
+				DDMSReader.validateWithSchema(version, element);
 		}
 		catch (InvalidDDMSException e) {
 			e.setLocator(getQualifiedName());
@@ -658,8 +791,51 @@ public final class Resource extends AbstractBaseComponent {
 	 * @throws IOException if there are problems reading or parsing the Schematron file
 	 */
 	public List<ValidationMessage> validateWithSchematron(InputStream schematronFile) throws XSLException, IOException {
+		return (validateWithSchematron(Util.buildSchematronTransform(schematronFile)));
+	}
+
+	/**
+	 * Performs a Schematron validation of the DDMS Resource with a subset of the rules in an ISO Schematron file.
+	 * 
+	 * <p>Only the patterns which are active in the phase, and whose ids appear in the set of pattern ids, are
+	 * evaluated. This allows a caller that knows which components have changed to re-run only the rules that apply
+	 * to them. See <code>Util.buildSchematronTransform(InputStream, String, Set)</code> for details on how the
+	 * phase and pattern ids are applied.</p>
+	 * 
+	 * @param schematronFile the file containing the ISO Schematron constraints
+	 * @param phase the id of an iso:phase in the Schematron file, or null to use the default phase
+	 * @param patternIds the ids of the iso:pattern elements to evaluate, or null to evaluate every pattern
+	 * @return a list of ValidationMessages
+	 * @throws XSLException if there are XSL problems transforming with stylesheets
+	 * @throws IOException if there are problems reading or parsing the Schematron file
+	 * @throws IllegalArgumentException if the phase is not defined in the Schematron file
+	 */
+	public List<ValidationMessage> validateWithSchematron(File schematronFile, String phase, Set<String> patternIds)
+		throws XSLException, IOException {
+		InputStream stream = new FileInputStream(schematronFile);
+		try {
+			return (validateWithSchematron(Util.buildSchematronTransform(stream, phase, patternIds)));
+		}
+		finally {
+			stream.close();
+		}
+	}
+
+	/**
+	 * Performs a Schematron validation of the DDMS Resource with a Schematron file that has already been compiled
+	 * with <code>Util.buildSchematronTransform</code>.
+	 * 
+	 * <p>Compiling the Schematron file is the most expensive part of a Schematron validation, so callers that validate
+	 * many Resources (or the same Resource repeatedly) with the same rules should compile once and reuse the
+	 * transform.</p>
+	 * 
+	 * @param schematronTransform the compiled Schematron stylesheet
+	 * @return a list of ValidationMessages
+	 * @throws XSLException if there are XSL problems transforming with stylesheets
+	 */
+	public List<ValidationMessage> validateWithSchematron(XSLTransform schematronTransform) throws XSLException {
+		Util.requireValue("schematron transform", schematronTransform);
 		List<ValidationMessage> messages = new ArrayList<ValidationMessage>();
-		XSLTransform schematronTransform = Util.buildSchematronTransform(schematronFile);
 		Nodes nodes = schematronTransform.transform(new Document(getXOMElementCopy()));
 		Document doc = XSLTransform.toDocument(nodes);
 
@@ -679,6 +855,84 @@ public final class Resource extends AbstractBaseComponent {
 		return (messages);
 	}
 
+	/**
+	 * Validates this Resource against the DDMS schemas. Resources built from XML files are validated by the parser,
+	 * and resources built from raw data are validated at the end of their constructor, unless the
+	 * <code>resource.schemaValidation</code> property has been set to "false". This method allows that check to be
+	 * deferred, such as when a batch of resources is built before any are used.
+	 * 
+	 * @throws InvalidDDMSException if the resource is invalid
+	 */
+	public void validateWithSchema() throws InvalidDDMSException {
+		try {
+			DDMSReader.validateWithSchema(getDDMSVersion(), getXOMElement());
+		}
+		catch (InvalidDDMSException e) {
+			e.setLocator(getQualifiedName());
+			throw (e);
+		}
+	}
+
+	/**
+	 * Evaluates a list of Java-based business rules against this Resource. This is a faster alternative to Schematron
+	 * validation for rules which can be expressed against the object model, and the two can be used side by side.
+	 * 
+	 * <p>As with Schematron validation, the results are informational: Errors and Warnings returned by this method do
+	 * NOT affect the validity of the underlying object model.</p>
+	 * 
+	 * @param rules the rules to evaluate, in order
+	 * @return a list of ValidationMessages, in the order of the rules
+	 * @see buri.ddmsence.ddms.rules.CommonRules
+	 */
+	public List<ValidationMessage> validateWithRules(List<? extends IRule> rules) {
+		Util.requireValue("rules", rules);
+		List<ValidationMessage> messages = new ArrayList<ValidationMessage>();
+		for (IRule rule : rules)
+			messages.addAll(rule.validate(this));
+		return (messages);
+	}
+
+	/**
+	 * Creates a compact, detached copy of this Resource, which retains the XML bytes and a few frequently used values
+	 * rather than the XOM tree and component objects. This is useful when large numbers of resources must be held in
+	 * memory at once.
+	 * 
+	 * @return a CompactResource
+	 */
+	public CompactResource toCompact() {
+		return (new CompactResource(this));
+	}
+
+	/**
+	 * Encodes this Resource as a compact binary record, which can be restored with
+	 * <code>BinaryCodec.decodeResource()</code> without parsing any XML.
+	 * 
+	 * @see BinaryCodec
+	 * @return the binary record
+	 */
+	public byte[] toBinary() {
+		return (BinaryCodec.encode(getDDMSVersion().getVersion(), getXOMElement()));
+	}
+
+	/**
+	 * Renders this Resource as a JSON object, which can be restored with <code>JSONReader</code>.
+	 * 
+	 * @see JSONWriter
+	 * @return the JSON, followed by a line break
+	 */
+	public String toJSON() {
+		StringWriter output = new StringWriter();
+		try {
+			JSONWriter writer = new JSONWriter(output);
+			writer.write(this);
+			writer.flush();
+		}
+		catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return (output.toString());
+	}
+
 	/**
 	 * @see AbstractBaseComponent#validate()
 	 */
@@ -716,6 +970,91 @@ public final class Resource extends AbstractBaseComponent {
 		}
 		
 		validateOrderAttributes();
+		validateAttributes();
+		if (isAtLeast50 && !getExtensibleElements().isEmpty())
+			throw new InvalidDDMSException("The resource must not have extensible elements or attributes, starting in DDMS 5.0.");
+
+		super.validate();
+	}
+
+	/**
+	 * Validates the structure of a lazy Resource without building its top-level components. The cardinality of the
+	 * child elements is checked with the same bounds as an eager Resource, and the attributes and ddms:order values
+	 * are checked with the same rules. The content of each child is not checked until its set is built.
+	 * 
+	 * @throws InvalidDDMSException if the structure of the resource is invalid
+	 */
+	private void validateStructure() throws InvalidDDMSException {
+		DDMSVersion version = getDDMSVersion();
+		boolean isAtLeast401 = version.isAtLeast("4.0.1");
+		boolean isAtLeast50 = version.isAtLeast("5.0");
+		Element element = getXOMElement();
+		
+		Util.requireDDMSQName(element, Resource.getName(version));
+		if (isAtLeast401)
+			Util.requireBoundedChildCount(element, MetacardInfo.getName(version), 1, 1);
+		if (getChildCount(Identifier.getName(version)) < 1)
+			throw new InvalidDDMSException("At least 1 identifier must exist.");
+		if (getChildCount(Title.getName(version)) < 1)
+			throw new InvalidDDMSException("At least 1 title must exist.");
+		if (getChildCount(Creator.getName(version)) + getChildCount(Contributor.getName(version))
+			+ getChildCount(Publisher.getName(version)) + getChildCount(PointOfContact.getName(version)) == 0)
+			throw new InvalidDDMSException(
+				"At least 1 producer (creator, contributor, publisher, or pointOfContact) must exist.");
+		Util.requireBoundedChildCount(element, Description.getName(version), 0, 1);
+		Util.requireBoundedChildCount(element, Dates.getName(version), 0, 1);
+		Util.requireBoundedChildCount(element, Rights.getName(version), 0, 1);
+		Util.requireBoundedChildCount(element, Format.getName(version), 0, 1);
+		Util.requireBoundedChildCount(element, ResourceManagement.getName(version), 0, 1);
+		if (isAtLeast401) {
+			if (getChildCount(SubjectCoverage.getName(version)) < 1)
+				throw new InvalidDDMSException("At least 1 subjectCoverage must exist.");
+		}
+		else
+			Util.requireBoundedChildCount(element, SubjectCoverage.getName(version), 1, 1);
+		if (!isAtLeast50) {
+			Util.requireBoundedChildCount(element, Security.getName(version), 1, 1);
+			Element security = getChild(Security.getName(version));
+			Elements allElements = element.getChildElements();
+			int index = 0;
+			while (allElements.get(index) != security) {
+				index++;
+			}
+			if (!version.isAtLeast("3.0") && allElements.size() - index - 1 > 1)
+				throw new InvalidDDMSException("Only 1 extensible element must exist in DDMS 2.0.");
+		}
+
+		List<Integer> orders = new ArrayList<Integer>();
+		XPathContext context = new XPathContext("ddms", getNamespace());
+		Nodes nodes = getXOMElement().query("ddms:" + GeospatialCoverage.getName(getDDMSVersion())
+			+ "/@ddms:order | ddms:" + SubjectCoverage.getName(getDDMSVersion()) + "//ddms:"
+			+ NonStateActor.getName(getDDMSVersion()) + "/@ddms:order", context);
+		for (int i = 0; i < nodes.size(); i++)
+			orders.add(Integer.valueOf(nodes.get(i).getValue()));
+		requireConsecutiveOrders(orders);
+		validateAttributes();
+		Util.requireDDMSValue("name", getName());
+	}
+
+	/**
+	 * Counts the child elements of the resource with some DDMS name.
+	 * 
+	 * @param name the local name of the children
+	 * @return the number of children
+	 */
+	private int getChildCount(String name) {
+		return (getXOMElement().getChildElements(name, getNamespace()).size());
+	}
+
+	/**
+	 * Validates the attributes of the resource, which do not depend on any of the top-level components.
+	 * 
+	 * @throws InvalidDDMSException if any attribute is invalid
+	 */
+	private void validateAttributes() throws InvalidDDMSException {
+		boolean isAtLeast30 = getDDMSVersion().isAtLeast("3.0");
+		boolean isAtLeast401 = getDDMSVersion().isAtLeast("4.0.1");
+		boolean isAtLeast50 = getDDMSVersion().isAtLeast("5.0");
 		if (isAtLeast30 && !isAtLeast50) {
 			Util.requireDDMSValue(RESOURCE_ELEMENT_NAME, isResourceElement());
 			Util.requireDDMSValue(CREATE_DATE_NAME, getCreateDate());
@@ -741,11 +1080,9 @@ public final class Resource extends AbstractBaseComponent {
 			if (isResourceElement() != null || getCreateDate() != null || getIsmDESVersion() != null || getNtkDESVersion() != null
 				|| !getSecurityAttributes().isEmpty() || !getNoticeAttributes().isEmpty())
 				throw new InvalidDDMSException("The resource must not have ISM or NTK attributes, starting in DDMS 5.0.");
-			if (!getExtensibleAttributes().isEmpty() || !getExtensibleElements().isEmpty())
+			if (!getExtensibleAttributes().isEmpty())
 				throw new InvalidDDMSException("The resource must not have extensible elements or attributes, starting in DDMS 5.0.");
 		}
-
-		super.validate();
 	}
 
 	/**
@@ -767,6 +1104,16 @@ public final class Resource extends AbstractBaseComponent {
 					orders.add(actor.getOrder());
 			}
 		}
+		requireConsecutiveOrders(orders);
+	}
+
+	/**
+	 * Checks that a list of ddms:order values is a unique, consecutive list starting at 1.
+	 * 
+	 * @param orders the order values, in any order
+	 * @throws InvalidDDMSException if the orders do not make a unique consecutive list starting at 1.
+	 */
+	private static void requireConsecutiveOrders(List<Integer> orders) throws InvalidDDMSException {
 		Collections.sort(orders);
 		for (int i = 0; i < orders.size(); i++) {
 			Integer expectedValue = Integer.valueOf(i + 1);
@@ -790,60 +1137,66 @@ public final class Resource extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#getValidationWarnings()
+	 */
+	public List<ValidationMessage> getValidationWarnings() {
+		requireSet(WARNINGS);
+		return (super.getValidationWarnings());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
 		if (isResourceElement() != null)
-			text.append(buildOutput(isHTML, localPrefix + RESOURCE_ELEMENT_NAME, String.valueOf(isResourceElement())));
+			buildOutput(text, isHTML, localPrefix, RESOURCE_ELEMENT_NAME, String.valueOf(isResourceElement()));
 		if (getCreateDate() != null)
-			text.append(buildOutput(isHTML, localPrefix + CREATE_DATE_NAME, getCreateDate().toXMLFormat()));
-		text.append(buildOutput(isHTML, localPrefix + COMPLIES_WITH_NAME, Util.getXsList(getCompliesWiths())));
+			buildOutput(text, isHTML, localPrefix, CREATE_DATE_NAME, getCreateDate().toXMLFormat());
+		buildOutput(text, isHTML, localPrefix, COMPLIES_WITH_NAME, Util.getXsList(getCompliesWiths()));
 		if (getIsmDESVersion() != null)
-			text.append(buildOutput(isHTML, localPrefix + "ism." + DES_VERSION_NAME, String.valueOf(getIsmDESVersion())));
+			buildOutput(text, isHTML, localPrefix, "ism." + DES_VERSION_NAME, String.valueOf(getIsmDESVersion()));
 		if (getNtkDESVersion() != null)
-			text.append(buildOutput(isHTML, localPrefix + "ntk." + DES_VERSION_NAME, String.valueOf(getNtkDESVersion())));
-		text.append(getSecurityAttributes().getOutput(isHTML, localPrefix));
-		text.append(getNoticeAttributes().getOutput(isHTML, localPrefix));
-		text.append(getExtensibleAttributes().getOutput(isHTML, localPrefix));
+			buildOutput(text, isHTML, localPrefix, "ntk." + DES_VERSION_NAME, String.valueOf(getNtkDESVersion()));
+		getSecurityAttributes().writeOutput(text, isHTML, localPrefix);
+		getNoticeAttributes().writeOutput(text, isHTML, localPrefix);
+		getExtensibleAttributes().writeOutput(text, isHTML, localPrefix);
 
 		// Traverse top-level components, suppressing the resource prefix
 		if (getMetacardInfo() != null)
-			text.append(getMetacardInfo().getOutput(isHTML, "", ""));
-		text.append(buildOutput(isHTML, "", getIdentifiers()));
-		text.append(buildOutput(isHTML, "", getTitles()));
-		text.append(buildOutput(isHTML, "", getSubtitles()));
+			getMetacardInfo().writeOutput(text, isHTML, "", "");
+		buildOutput(text, isHTML, "", getIdentifiers());
+		buildOutput(text, isHTML, "", getTitles());
+		buildOutput(text, isHTML, "", getSubtitles());
 		if (getDescription() != null)
-			text.append(getDescription().getOutput(isHTML, "", ""));
-		text.append(buildOutput(isHTML, "", getLanguages()));
+			getDescription().writeOutput(text, isHTML, "", "");
+		buildOutput(text, isHTML, "", getLanguages());
 		if (getDates() != null)
-			text.append(getDates().getOutput(isHTML, "", ""));
+			getDates().writeOutput(text, isHTML, "", "");
 		if (getRights() != null)
-			text.append(getRights().getOutput(isHTML, "", ""));
-		text.append(buildOutput(isHTML, "", getSources()));
-		text.append(buildOutput(isHTML, "", getTypes()));
-		text.append(buildOutput(isHTML, "", getCreators()));
-		text.append(buildOutput(isHTML, "", getPublishers()));
-		text.append(buildOutput(isHTML, "", getContributors()));
-		text.append(buildOutput(isHTML, "", getPointOfContacts()));
+			getRights().writeOutput(text, isHTML, "", "");
+		buildOutput(text, isHTML, "", getSources());
+		buildOutput(text, isHTML, "", getTypes());
+		buildOutput(text, isHTML, "", getCreators());
+		buildOutput(text, isHTML, "", getPublishers());
+		buildOutput(text, isHTML, "", getContributors());
+		buildOutput(text, isHTML, "", getPointOfContacts());
 		if (getFormat() != null)
-			text.append(getFormat().getOutput(isHTML, "", ""));
-		text.append(buildOutput(isHTML, "", getSubjectCoverages()));
-		text.append(buildOutput(isHTML, "", getVirtualCoverages()));
-		text.append(buildOutput(isHTML, "", getTemporalCoverages()));
-		text.append(buildOutput(isHTML, "", getGeospatialCoverages()));
-		text.append(buildOutput(isHTML, "", getRelatedResources()));
+			getFormat().writeOutput(text, isHTML, "", "");
+		buildOutput(text, isHTML, "", getSubjectCoverages());
+		buildOutput(text, isHTML, "", getVirtualCoverages());
+		buildOutput(text, isHTML, "", getTemporalCoverages());
+		buildOutput(text, isHTML, "", getGeospatialCoverages());
+		buildOutput(text, isHTML, "", getRelatedResources());
 		if (getResourceManagement() != null)
-			text.append(getResourceManagement().getOutput(isHTML, "", ""));
+			getResourceManagement().writeOutput(text, isHTML, "", "");
 		if (getSecurity() != null)
-			text.append(getSecurity().getOutput(isHTML, "", ""));
-		text.append(buildOutput(isHTML, "", getExtensibleElements()));
+			getSecurity().writeOutput(text, isHTML, "", "");
+		buildOutput(text, isHTML, "", getExtensibleElements());
 
-		text.append(buildOutput(isHTML, "extensible.layer", String.valueOf(!getExtensibleElements().isEmpty())));
-		text.append(buildOutput(isHTML, "ddms.generator", "DDMSence " + PropertyReader.getProperty("version")));
-		text.append(buildOutput(isHTML, "ddms.version", getDDMSVersion().getVersion()));
-		return (text.toString());
+		buildOutput(text, isHTML, "extensible.layer", String.valueOf(!getExtensibleElements().isEmpty()));
+		buildOutput(text, isHTML, "ddms.generator", "DDMSence " + PropertyReader.getProperty("version"));
+		buildOutput(text, isHTML, "ddms.version", getDDMSVersion().getVersion());
 	}
 
 	/**
@@ -863,10 +1216,10 @@ public final class Resource extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		if (isResourceElement() != null)
 			result = 7 * result + isResourceElement().hashCode();
 		if (getCreateDate() != null)
@@ -896,6 +1249,7 @@ public final class Resource extends AbstractBaseComponent {
 	 * Accessor for the MetacardInfo component
 	 */
 	public MetacardInfo getMetacardInfo() {
+		requireSet(RESOURCE_SET);
 		return (_metacardInfo);
 	}
 
@@ -903,6 +1257,7 @@ public final class Resource extends AbstractBaseComponent {
 	 * Accessor for the identifier components. There will always be at least one.
 	 */
 	public List<Identifier> getIdentifiers() {
+		requireSet(RESOURCE_SET);
 		return (Collections.unmodifiableList(_identifiers));
 	}
 
@@ -910,6 +1265,7 @@ public final class Resource extends AbstractBaseComponent {
 	 * Accessor for the title components. There will always be at least one.
 	 */
 	public List<Title> getTitles() {
+		requireSet(RESOURCE_SET);
 		return (Collections.unmodifiableList(_titles));
 	}
 
@@ -917,6 +1273,7 @@ public final class Resource extends AbstractBaseComponent {
 	 * Accessor for the subtitle components
 	 */
 	public List<Subtitle> getSubtitles() {
+		requireSet(RESOURCE_SET);
 		return (Collections.unmodifiableList(_subtitles));
 	}
 
@@ -924,6 +1281,7 @@ public final class Resource extends AbstractBaseComponent {
 	 * Accessor for the description component
 	 */
 	public Description getDescription() {
+		requireSet(RESOURCE_SET);
 		return (_description);
 	}
 
@@ -931,6 +1289,7 @@ public final class Resource extends AbstractBaseComponent {
 	 * Accessor for the language components
 	 */
 	public List<Language> getLanguages() {
+		requireSet(RESOURCE_SET);
 		return (Collections.unmodifiableList(_languages));
 	}
 
@@ -938,20 +1297,23 @@ public final class Resource extends AbstractBaseComponent {
 	 * Accessor for the dates component. May return null.
 	 */
 	public Dates getDates() {
-		return _dates;
+		requireSet(RESOURCE_SET);
+		return (_dates);
 	}
 
 	/**
 	 * Accessor for the rights component. May return null.
 	 */
 	public Rights getRights() {
-		return _rights;
+		requireSet(RESOURCE_SET);
+		return (_rights);
 	}
 
 	/**
 	 * Accessor for the source components
 	 */
 	public List<Source> getSources() {
+		requireSet(RESOURCE_SET);
 		return (Collections.unmodifiableList(_sources));
 	}
 
@@ -959,6 +1321,7 @@ public final class Resource extends AbstractBaseComponent {
 	 * Accessor for the type components
 	 */
 	public List<Type> getTypes() {
+		requireSet(RESOURCE_SET);
 		return (Collections.unmodifiableList(_types));
 	}
 
@@ -966,6 +1329,7 @@ public final class Resource extends AbstractBaseComponent {
 	 * Accessor for a list of all Creator entities
 	 */
 	public List<Creator> getCreators() {
+		requireSet(RESOURCE_SET);
 		return (Collections.unmodifiableList(_creators));
 	}
 
@@ -973,6 +1337,7 @@ public final class Resource extends AbstractBaseComponent {
 	 * Accessor for a list of all Publisher entities
 	 */
 	public List<Publisher> getPublishers() {
+		requireSet(RESOURCE_SET);
 		return (Collections.unmodifiableList(_publishers));
 	}
 
@@ -980,6 +1345,7 @@ public final class Resource extends AbstractBaseComponent {
 	 * Accessor for a list of all Contributor entities
 	 */
 	public List<Contributor> getContributors() {
+		requireSet(RESOURCE_SET);
 		return (Collections.unmodifiableList(_contributors));
 	}
 
@@ -987,6 +1353,7 @@ public final class Resource extends AbstractBaseComponent {
 	 * Accessor for a list of all PointOfContact entities
 	 */
 	public List<PointOfContact> getPointOfContacts() {
+		requireSet(RESOURCE_SET);
 		return (Collections.unmodifiableList(_pointOfContacts));
 	}
 
@@ -994,6 +1361,7 @@ public final class Resource extends AbstractBaseComponent {
 	 * Accessor for the Format component. May return null.
 	 */
 	public Format getFormat() {
+		requireSet(FORMAT_SET);
 		return (_format);
 	}
 
@@ -1001,6 +1369,7 @@ public final class Resource extends AbstractBaseComponent {
 	 * Accessor for the subjectCoverage component
 	 */
 	public List<SubjectCoverage> getSubjectCoverages() {
+		requireSet(SUMMARY_SET);
 		return _subjectCoverages;
 	}
 
@@ -1008,6 +1377,7 @@ public final class Resource extends AbstractBaseComponent {
 	 * Accessor for the virtualCoverage components
 	 */
 	public List<VirtualCoverage> getVirtualCoverages() {
+		requireSet(SUMMARY_SET);
 		return (Collections.unmodifiableList(_virtualCoverages));
 	}
 
@@ -1015,6 +1385,7 @@ public final class Resource extends AbstractBaseComponent {
 	 * Accessor for the temporalCoverage components
 	 */
 	public List<TemporalCoverage> getTemporalCoverages() {
+		requireSet(SUMMARY_SET);
 		return (Collections.unmodifiableList(_temporalCoverages));
 	}
 
@@ -1022,6 +1393,7 @@ public final class Resource extends AbstractBaseComponent {
 	 * Accessor for the geospatialCoverage components
 	 */
 	public List<GeospatialCoverage> getGeospatialCoverages() {
+		requireSet(SUMMARY_SET);
 		return (Collections.unmodifiableList(geospatialCoverages));
 	}
 
@@ -1029,6 +1401,7 @@ public final class Resource extends AbstractBaseComponent {
 	 * Accessor for the RelatedResource components 
 	 */
 	public List<RelatedResource> getRelatedResources() {
+		requireSet(SUMMARY_SET);
 		return (Collections.unmodifiableList(_relatedResources));
 	}
 
@@ -1036,6 +1409,7 @@ public final class Resource extends AbstractBaseComponent {
 	 * Accessor for the ResourceManagement component. May return null.
 	 */
 	public ResourceManagement getResourceManagement() {
+		requireSet(RESOURCE_SET);
 		return (_resourceManagement);
 	}
 
@@ -1043,6 +1417,7 @@ public final class Resource extends AbstractBaseComponent {
 	 * Accessor for the security component. May return null.
 	 */
 	public Security getSecurity() {
+		requireSet(SECURITY_SET);
 		return (_security);
 	}
 
@@ -1050,6 +1425,7 @@ public final class Resource extends AbstractBaseComponent {
 	 * Accessor for the extensible layer elements.
 	 */
 	public List<ExtensibleElement> getExtensibleElements() {
+		requireSet(EXTENSIBLE_LAYER);
 		return (Collections.unmodifiableList(_extensibleElements));
 	}
 
@@ -1099,6 +1475,7 @@ public final class Resource extends AbstractBaseComponent {
 	 * in this list (no null entries).
 	 */
 	public List<IDDMSComponent> getTopLevelComponents() {
+		requireSet(TOP_LEVEL_COMPONENTS);
 		return (Collections.unmodifiableList(_orderedList));
 	}
 
@@ -1178,6 +1555,7 @@ public final class Resource extends AbstractBaseComponent {
 		private NoticeAttributes.Builder _noticeAttributes;
 		private SecurityAttributes.Builder _securityAttributes;
 		private ExtensibleAttributes.Builder _extensibleAttributes;
+		private transient ComponentPool _componentPool;
 
 		/**
 		 * Empty constructor
@@ -1265,8 +1643,11 @@ public final class Resource extends AbstractBaseComponent {
 			List<IDDMSComponent> topLevelComponents = new ArrayList<IDDMSComponent>();
 			for (IBuilder builder : getChildBuilders()) {
 				IDDMSComponent component = builder.commit();
-				if (component != null)
+				if (component != null) {
+					if (getComponentPool() != null)
+						component = getComponentPool().intern(component);
 					topLevelComponents.add(component);
+				}
 			}
 			return (new Resource(topLevelComponents, getResourceElement(), getCreateDate(), getCompliesWiths(),
 				getIsmDESVersion(), getNtkDESVersion(), getSecurityAttributes().commit(),
@@ -1711,5 +2092,24 @@ public final class Resource extends AbstractBaseComponent {
 		public void setExtensibleAttributes(ExtensibleAttributes.Builder extensibleAttributes) {
 			_extensibleAttributes = extensibleAttributes;
 		}
+
+		/**
+		 * Builder accessor for the pool used to share identical top-level components between committed Resources.
+		 * The pool is not serialized with the Builder.
+		 */
+		public ComponentPool getComponentPool() {
+			return _componentPool;
+		}
+
+		/**
+		 * Builder accessor for the pool used to share identical top-level components between committed Resources.
+		 * When set, each committed top-level component is replaced by its shared instance from the pool, and the
+		 * attribute values and text of nested components are shared with every other pooled component.
+		 * 
+		 * @param componentPool the pool, or null to disable sharing
+		 */
+		public void setComponentPool(ComponentPool componentPool) {
+			_componentPool = componentPool;
+		}
 	}
 }
\ No newline at end of file
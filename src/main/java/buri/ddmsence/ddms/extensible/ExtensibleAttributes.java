@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.extensible;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -229,16 +230,14 @@ public final class ExtensibleAttributes extends AbstractAttributeGroup {
 	}
 
 	/**
-	 * @see AbstractAttributeGroup#getOutput(boolean, String)
+	 * @see AbstractAttributeGroup#writeOutput(Appendable, boolean, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix) throws IOException {
 		String localPrefix = Util.getNonNullString(prefix);
-		StringBuffer text = new StringBuffer();
 		for (Attribute attribute : getAttributes()) {
-			text.append(Resource.buildOutput(isHTML, localPrefix + attribute.getNamespacePrefix() + "."
-				+ attribute.getLocalName(), attribute.getValue()));
+			Resource.buildOutput(text, isHTML, localPrefix, attribute.getNamespacePrefix() + "."
+				+ attribute.getLocalName(), attribute.getValue());
 		}
-		return (text.toString());
 	}
 
 	/**
@@ -97,11 +97,9 @@ public final class ExtensibleElement extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
-		return ("");
-	}
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) {}
 
 	/**
 	 * @see Object#equals(Object)
@@ -110,15 +108,15 @@ public final class ExtensibleElement extends AbstractBaseComponent {
 		if (!super.equals(obj) || !(obj instanceof ExtensibleElement))
 			return (false);
 		ExtensibleElement test = (ExtensibleElement) obj;
-		return (getXOMElement().toXML().equals(test.getXOMElement().toXML()));
+		return (toXML().equals(test.toXML()));
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
-		result = 7 * result + getXOMElement().toXML().hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
+		result = 7 * result + toXML().hashCode();
 		return (result);
 	}
 
@@ -142,7 +140,7 @@ public final class ExtensibleElement extends AbstractBaseComponent {
 		 * Constructor which starts from an existing component.
 		 */
 		public Builder(ExtensibleElement element) {
-			setXml(element.toXML());
+			setXml(element.getXOMElementCopy().toXML());
 		}
 
 		/**
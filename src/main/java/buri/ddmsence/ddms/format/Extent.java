@@ -19,6 +19,8 @@
  */
 package buri.ddmsence.ddms.format;
 
+import java.io.IOException;
+
 import nu.xom.Element;
 import buri.ddmsence.AbstractBaseComponent;
 import buri.ddmsence.AbstractQualifierValue;
@@ -110,14 +112,12 @@ public final class Extent extends AbstractQualifierValue {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix + getQualifierName(), getQualifier()));
-		text.append(buildOutput(isHTML, localPrefix + getValueName(), getValue()));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, getQualifierName(), getQualifier());
+		buildOutput(text, isHTML, localPrefix, getValueName(), getValue());
 	}
 
 	/**
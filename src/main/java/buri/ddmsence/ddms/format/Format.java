@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.format;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -116,7 +117,7 @@ public final class Format extends AbstractBaseComponent {
 				: Util.buildDDMSElement(MEDIA_NAME, null);
 			Util.addDDMSChildElement(mediaElement, MIME_TYPE_NAME, mimeType);
 			if (extent != null)
-				mediaElement.appendChild(extent.getXOMElementCopy());
+				appendComponent(mediaElement, extent);
 			Util.addDDMSChildElement(mediaElement, MEDIUM_NAME, medium);
 
 			if (!DDMSVersion.getCurrentVersion().isAtLeast("4.0.1"))
@@ -153,18 +154,16 @@ public final class Format extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
 		if (!getDDMSVersion().isAtLeast("4.0.1"))
 			localPrefix += MEDIA_NAME + ".";
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix + MIME_TYPE_NAME, getMimeType()));
+		buildOutput(text, isHTML, localPrefix, MIME_TYPE_NAME, getMimeType());
 		if (getExtent() != null)
-			text.append(getExtent().getOutput(isHTML, localPrefix, ""));
-		text.append(buildOutput(isHTML, localPrefix + MEDIUM_NAME, getMedium()));
-		return (text.toString());
+			getExtent().writeOutput(text, isHTML, localPrefix, "");
+		buildOutput(text, isHTML, localPrefix, MEDIUM_NAME, getMedium());
 	}
 
 	/**
@@ -189,10 +188,10 @@ public final class Format extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getMimeType().hashCode();
 		result = 7 * result + getMedium().hashCode();
 		return (result);
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.metacard;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -227,7 +228,7 @@ public final class MetacardInfo extends AbstractBaseComponent {
 			}
 			populatedOrderedList();
 			for (IDDMSComponent component : getNestedComponents()) {
-				element.appendChild(component.getXOMElementCopy());
+				appendComponent(element, component);
 			}
 			_securityAttributes = SecurityAttributes.getNonNullInstance(securityAttributes);
 			_securityAttributes.addTo(element);
@@ -299,34 +300,32 @@ public final class MetacardInfo extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
 
 		// Traverse child components, suppressing the resource prefix
-		text.append(buildOutput(isHTML, localPrefix, getIdentifiers()));
+		buildOutput(text, isHTML, localPrefix, getIdentifiers());
 		if (getDates() != null)
-			text.append(getDates().getOutput(isHTML, localPrefix, ""));
-		text.append(buildOutput(isHTML, localPrefix, getPublishers()));
-		text.append(buildOutput(isHTML, localPrefix, getContributors()));
-		text.append(buildOutput(isHTML, localPrefix, getCreators()));
-		text.append(buildOutput(isHTML, localPrefix, getPointOfContacts()));
+			getDates().writeOutput(text, isHTML, localPrefix, "");
+		buildOutput(text, isHTML, localPrefix, getPublishers());
+		buildOutput(text, isHTML, localPrefix, getContributors());
+		buildOutput(text, isHTML, localPrefix, getCreators());
+		buildOutput(text, isHTML, localPrefix, getPointOfContacts());
 		if (getDescription() != null)
-			text.append(getDescription().getOutput(isHTML, localPrefix, ""));
-		text.append(buildOutput(isHTML, localPrefix, getProcessingInfos()));
+			getDescription().writeOutput(text, isHTML, localPrefix, "");
+		buildOutput(text, isHTML, localPrefix, getProcessingInfos());
 		if (getRevisionRecall() != null)
-			text.append(getRevisionRecall().getOutput(isHTML, localPrefix, ""));
+			getRevisionRecall().writeOutput(text, isHTML, localPrefix, "");
 		if (getRecordsManagementInfo() != null)
-			text.append(getRecordsManagementInfo().getOutput(isHTML, localPrefix, ""));
+			getRecordsManagementInfo().writeOutput(text, isHTML, localPrefix, "");
 		if (getNoticeList() != null)
-			text.append(getNoticeList().getOutput(isHTML, localPrefix, ""));
+			getNoticeList().writeOutput(text, isHTML, localPrefix, "");
 		if (getAccess() != null)
-			text.append(getAccess().getOutput(isHTML, localPrefix, ""));
+			getAccess().writeOutput(text, isHTML, localPrefix, "");
 
-		text.append(getSecurityAttributes().getOutput(isHTML, localPrefix));
-		return (text.toString());
+		getSecurityAttributes().writeOutput(text, isHTML, localPrefix);
 	}
 
 	/**
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.resource;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -75,6 +76,12 @@ import buri.ddmsence.util.Util;
 public final class Dates extends AbstractBaseComponent {
 
 	private List<ApproximableDate> _acquiredOns = null;
+	private String _created = null;
+	private String _posted = null;
+	private String _validTil = null;
+	private String _infoCutOff = null;
+	private String _approvedOn = null;
+	private String _receivedOn = null;
 
 	private static final String CREATED_NAME = "created";
 	private static final String POSTED_NAME = "posted";
@@ -146,7 +153,7 @@ public final class Dates extends AbstractBaseComponent {
 				acquiredOns = Collections.emptyList();
 			_acquiredOns = acquiredOns;
 			for (ApproximableDate acquiredOn : acquiredOns)
-				element.appendChild(acquiredOn.getXOMElementCopy());
+				appendComponent(element, acquiredOn);
 
 			Util.addDDMSAttribute(element, CREATED_NAME, created);
 			Util.addDDMSAttribute(element, POSTED_NAME, posted);
@@ -209,19 +216,17 @@ public final class Dates extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix, getAcquiredOns()));
-		text.append(buildOutput(isHTML, localPrefix + CREATED_NAME, getCreatedString()));
-		text.append(buildOutput(isHTML, localPrefix + POSTED_NAME, getPostedString()));
-		text.append(buildOutput(isHTML, localPrefix + VALID_TIL_NAME, getValidTilString()));
-		text.append(buildOutput(isHTML, localPrefix + INFO_CUT_OFF_NAME, getInfoCutOffString()));
-		text.append(buildOutput(isHTML, localPrefix + APPROVED_ON_NAME, getApprovedOnString()));
-		text.append(buildOutput(isHTML, localPrefix + RECEIVED_ON_NAME, getReceivedOnString()));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, getAcquiredOns());
+		buildOutput(text, isHTML, localPrefix, CREATED_NAME, getCreatedString());
+		buildOutput(text, isHTML, localPrefix, POSTED_NAME, getPostedString());
+		buildOutput(text, isHTML, localPrefix, VALID_TIL_NAME, getValidTilString());
+		buildOutput(text, isHTML, localPrefix, INFO_CUT_OFF_NAME, getInfoCutOffString());
+		buildOutput(text, isHTML, localPrefix, APPROVED_ON_NAME, getApprovedOnString());
+		buildOutput(text, isHTML, localPrefix, RECEIVED_ON_NAME, getReceivedOnString());
 	}
 
 	/**
@@ -249,10 +254,10 @@ public final class Dates extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getCreatedString().hashCode();
 		result = 7 * result + getPostedString().hashCode();
 		result = 7 * result + getValidTilString().hashCode();
@@ -294,7 +299,9 @@ public final class Dates extends AbstractBaseComponent {
 	 * Accessor for the created date.
 	 */
 	public String getCreatedString() {
-		return (getAttributeValue(CREATED_NAME));
+		if (_created == null)
+			_created = getAttributeValue(CREATED_NAME);
+		return (_created);
 	}
 
 	/**
@@ -318,7 +325,9 @@ public final class Dates extends AbstractBaseComponent {
 	 * Accessor for the posted date.
 	 */
 	public String getPostedString() {
-		return (getAttributeValue(POSTED_NAME));
+		if (_posted == null)
+			_posted = getAttributeValue(POSTED_NAME);
+		return (_posted);
 	}
 
 	/**
@@ -342,7 +351,9 @@ public final class Dates extends AbstractBaseComponent {
 	 * Accessor for the expiration date.
 	 */
 	public String getValidTilString() {
-		return (getAttributeValue(VALID_TIL_NAME));
+		if (_validTil == null)
+			_validTil = getAttributeValue(VALID_TIL_NAME);
+		return (_validTil);
 	}
 
 	/**
@@ -366,7 +377,9 @@ public final class Dates extends AbstractBaseComponent {
 	 * Accessor for the cutoff date.
 	 */
 	public String getInfoCutOffString() {
-		return (getAttributeValue(INFO_CUT_OFF_NAME));
+		if (_infoCutOff == null)
+			_infoCutOff = getAttributeValue(INFO_CUT_OFF_NAME);
+		return (_infoCutOff);
 	}
 
 	/**
@@ -390,7 +403,9 @@ public final class Dates extends AbstractBaseComponent {
 	 * Accessor for the approved on date.
 	 */
 	public String getApprovedOnString() {
-		return (getAttributeValue(APPROVED_ON_NAME));
+		if (_approvedOn == null)
+			_approvedOn = getAttributeValue(APPROVED_ON_NAME);
+		return (_approvedOn);
 	}
 
 	/**
@@ -414,7 +429,9 @@ public final class Dates extends AbstractBaseComponent {
 	 * Accessor for the received on date.
 	 */
 	public String getReceivedOnString() {
-		return (getAttributeValue(RECEIVED_ON_NAME));
+		if (_receivedOn == null)
+			_receivedOn = getAttributeValue(RECEIVED_ON_NAME);
+		return (_receivedOn);
 	}
 
 	/**
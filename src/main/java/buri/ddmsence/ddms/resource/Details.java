@@ -19,6 +19,8 @@
  */
 package buri.ddmsence.ddms.resource;
 
+import java.io.IOException;
+
 import nu.xom.Element;
 import buri.ddmsence.AbstractBaseComponent;
 import buri.ddmsence.AbstractSimpleString;
@@ -99,14 +101,12 @@ public final class Details extends AbstractSimpleString {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix);
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix, getValue()));
-		text.append(getSecurityAttributes().getOutput(isHTML, localPrefix + "."));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, getValue());
+		getSecurityAttributes().writeOutput(text, isHTML, localPrefix + ".");
 	}
 
 	/**
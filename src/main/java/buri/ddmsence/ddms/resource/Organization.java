@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.resource;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -126,7 +127,7 @@ public final class Organization extends AbstractRoleEntity {
 				subOrganizations = Collections.emptyList();
 			Util.addDDMSAttribute(getXOMElement(), ACRONYM_NAME, acronym);
 			for (SubOrganization subOrganization : subOrganizations)
-				getXOMElement().appendChild(subOrganization.getXOMElementCopy());
+				appendComponent(getXOMElement(), subOrganization);
 			_subOrganizations = subOrganizations;
 			validate();
 		}
@@ -149,14 +150,13 @@ public final class Organization extends AbstractRoleEntity {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, "", suffix);
-		StringBuffer text = new StringBuffer(super.getOutput(isHTML, localPrefix, ""));
-		text.append(buildOutput(isHTML, localPrefix, getSubOrganizations()));
-		text.append(buildOutput(isHTML, localPrefix + ACRONYM_NAME, getAcronym()));
-		return (text.toString());
+		super.writeOutput(text, isHTML, localPrefix, "");
+		buildOutput(text, isHTML, localPrefix, getSubOrganizations());
+		buildOutput(text, isHTML, localPrefix, ACRONYM_NAME, getAcronym());
 	}
 
 	/**
@@ -179,10 +179,10 @@ public final class Organization extends AbstractRoleEntity {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getAcronym().hashCode();
 		return (result);
 	}
@@ -19,6 +19,8 @@
  */
 package buri.ddmsence.ddms.resource;
 
+import java.io.IOException;
+
 import javax.xml.datatype.DatatypeFactory;
 import javax.xml.datatype.XMLGregorianCalendar;
 
@@ -115,15 +117,13 @@ public final class ProcessingInfo extends AbstractSimpleString {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix);
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix, getValue()));
-		text.append(buildOutput(isHTML, localPrefix + "." + DATE_PROCESSED_NAME, getDateProcessedString()));
-		text.append(getSecurityAttributes().getOutput(isHTML, localPrefix + "."));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, getValue());
+		buildOutput(text, isHTML, localPrefix, "." + DATE_PROCESSED_NAME, getDateProcessedString());
+		getSecurityAttributes().writeOutput(text, isHTML, localPrefix + ".");
 	}
 
 	/**
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.resource;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -99,7 +100,7 @@ public class RecordKeeper extends AbstractBaseComponent {
 			if (!Util.isEmpty(recordKeeperID))
 				element.appendChild(Util.buildDDMSElement(RECORD_KEEPER_ID_NAME, recordKeeperID));
 			if (organization != null)
-				element.appendChild(organization.getXOMElementCopy());
+				appendComponent(element, organization);
 			_organization = organization;
 			setXOMElement(element, true);
 		}
@@ -131,23 +132,21 @@ public class RecordKeeper extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getRecordKeeperID().hashCode();
 		return (result);
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix + RECORD_KEEPER_ID_NAME, getRecordKeeperID()));
-		text.append(getOrganization().getOutput(isHTML, localPrefix, ""));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, RECORD_KEEPER_ID_NAME, getRecordKeeperID());
+		getOrganization().writeOutput(text, isHTML, localPrefix, "");
 	}
 
 	/**
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.resource;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -102,9 +103,9 @@ public final class RecordsManagementInfo extends AbstractBaseComponent {
 				null);
 			setXOMElement(element, false);
 			if (recordKeeper != null)
-				element.appendChild(recordKeeper.getXOMElementCopy());
+				appendComponent(element, recordKeeper);
 			if (applicationSoftware != null)
-				element.appendChild(applicationSoftware.getXOMElementCopy());
+				appendComponent(element, applicationSoftware);
 			Util.addDDMSAttribute(element, VITAL_RECORD_INDICATOR_NAME, String.valueOf(vitalRecordIndicator));
 			_recordKeeper = recordKeeper;
 			_applicationSoftware = applicationSoftware;
@@ -126,18 +127,16 @@ public final class RecordsManagementInfo extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
 		if (getRecordKeeper() != null)
-			text.append(getRecordKeeper().getOutput(isHTML, localPrefix, ""));
+			getRecordKeeper().writeOutput(text, isHTML, localPrefix, "");
 		if (getApplicationSoftware() != null)
-			text.append(getApplicationSoftware().getOutput(isHTML, localPrefix, ""));
-		text.append(buildOutput(isHTML, localPrefix + VITAL_RECORD_INDICATOR_NAME,
-			String.valueOf(getVitalRecordIndicator())));
-		return (text.toString());
+			getApplicationSoftware().writeOutput(text, isHTML, localPrefix, "");
+		buildOutput(text, isHTML, localPrefix, VITAL_RECORD_INDICATOR_NAME,
+			String.valueOf(getVitalRecordIndicator()));
 	}
 
 	/**
@@ -161,10 +160,10 @@ public final class RecordsManagementInfo extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getVitalRecordIndicator().hashCode();
 		return (result);
 	}
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.resource;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -129,13 +130,13 @@ public final class ResourceManagement extends AbstractBaseComponent {
 			Element element = Util.buildDDMSElement(ResourceManagement.getName(DDMSVersion.getCurrentVersion()), null);
 			setXOMElement(element, false);
 			if (recordsManagementInfo != null)
-				element.appendChild(recordsManagementInfo.getXOMElementCopy());
+				appendComponent(element, recordsManagementInfo);
 			if (revisionRecall != null)
-				element.appendChild(revisionRecall.getXOMElementCopy());
+				appendComponent(element, revisionRecall);
 			for (TaskingInfo info : taskingInfos)
-				element.appendChild(info.getXOMElementCopy());
+				appendComponent(element, info);
 			for (ProcessingInfo info : processingInfos)
-				element.appendChild(info.getXOMElementCopy());
+				appendComponent(element, info);
 
 			_recordsManagementInfo = recordsManagementInfo;
 			_revisionRecall = revisionRecall;
@@ -161,19 +162,17 @@ public final class ResourceManagement extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
 		if (getRecordsManagementInfo() != null)
-			text.append(getRecordsManagementInfo().getOutput(isHTML, localPrefix, ""));
+			getRecordsManagementInfo().writeOutput(text, isHTML, localPrefix, "");
 		if (getRevisionRecall() != null)
-			text.append(getRevisionRecall().getOutput(isHTML, localPrefix, ""));
-		text.append(buildOutput(isHTML, localPrefix, getTaskingInfos()));
-		text.append(buildOutput(isHTML, localPrefix, getProcessingInfos()));
-		text.append(getSecurityAttributes().getOutput(isHTML, localPrefix));
-		return (text.toString());
+			getRevisionRecall().writeOutput(text, isHTML, localPrefix, "");
+		buildOutput(text, isHTML, localPrefix, getTaskingInfos());
+		buildOutput(text, isHTML, localPrefix, getProcessingInfos());
+		getSecurityAttributes().writeOutput(text, isHTML, localPrefix);
 	}
 
 	/**
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.resource;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -213,9 +214,9 @@ public final class RevisionRecall extends AbstractBaseComponent {
 
 			Element element = Util.buildDDMSElement(RevisionRecall.getName(DDMSVersion.getCurrentVersion()), value);
 			for (Link link : links)
-				element.appendChild(link.getXOMElementCopy());
+				appendComponent(element, link);
 			for (Details detail : details)
-				element.appendChild(detail.getXOMElementCopy());
+				appendComponent(element, detail);
 			if (revisionID != null) {
 				_revisionID = revisionID;
 				Util.addDDMSAttribute(element, REVISION_ID_NAME, revisionID.toString());
@@ -293,23 +294,21 @@ public final class RevisionRecall extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		boolean hasNestedElements = (!getLinks().isEmpty() || !getDetails().isEmpty());
 		String localPrefix = buildPrefix(prefix, getName(), suffix);
-		StringBuffer text = new StringBuffer();
 		if (!hasNestedElements)
-			text.append(buildOutput(isHTML, localPrefix, getValue()));
-		text.append(buildOutput(isHTML, localPrefix + "." + REVISION_ID_NAME, String.valueOf(getRevisionID())));
-		text.append(buildOutput(isHTML, localPrefix + "." + REVISION_TYPE_NAME, getRevisionType()));
-		text.append(buildOutput(isHTML, localPrefix + "." + NETWORK_NAME, getNetwork()));
-		text.append(buildOutput(isHTML, localPrefix + "." + OTHER_NETWORK_NAME, getOtherNetwork()));
-		text.append(buildOutput(isHTML, localPrefix + ".", getLinks()));
-		text.append(buildOutput(isHTML, localPrefix + ".", getDetails()));
-		text.append(getXLinkAttributes().getOutput(isHTML, localPrefix + "."));
-		text.append(getSecurityAttributes().getOutput(isHTML, localPrefix + "."));
-		return (text.toString());
+			buildOutput(text, isHTML, localPrefix, getValue());
+		buildOutput(text, isHTML, localPrefix, "." + REVISION_ID_NAME, String.valueOf(getRevisionID()));
+		buildOutput(text, isHTML, localPrefix, "." + REVISION_TYPE_NAME, getRevisionType());
+		buildOutput(text, isHTML, localPrefix, "." + NETWORK_NAME, getNetwork());
+		buildOutput(text, isHTML, localPrefix, "." + OTHER_NETWORK_NAME, getOtherNetwork());
+		buildOutput(text, isHTML, localPrefix, ".", getLinks());
+		buildOutput(text, isHTML, localPrefix, ".", getDetails());
+		getXLinkAttributes().writeOutput(text, isHTML, localPrefix + ".");
+		getSecurityAttributes().writeOutput(text, isHTML, localPrefix + ".");
 	}
 
 	/**
@@ -338,10 +337,10 @@ public final class RevisionRecall extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getValue().hashCode();
 		result = 7 * result + getRevisionID().hashCode();
 		result = 7 * result + getRevisionType().hashCode();
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.resource;
 
+import java.io.IOException;
 import java.io.Serializable;
 
 import nu.xom.Element;
@@ -95,16 +96,14 @@ public final class Rights extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix + PRIVACY_ACT_NAME, String.valueOf(getPrivacyAct())));
-		text.append(buildOutput(isHTML, localPrefix + INTELLECTUAL_PROPERY_NAME,
-			String.valueOf(getIntellectualProperty())));
-		text.append(buildOutput(isHTML, localPrefix + COPYRIGHT_NAME, String.valueOf(getCopyright())));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, PRIVACY_ACT_NAME, String.valueOf(getPrivacyAct()));
+		buildOutput(text, isHTML, localPrefix, INTELLECTUAL_PROPERY_NAME,
+			String.valueOf(getIntellectualProperty()));
+		buildOutput(text, isHTML, localPrefix, COPYRIGHT_NAME, String.valueOf(getCopyright()));
 	}
 
 	/**
@@ -120,10 +119,10 @@ public final class Rights extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + Util.booleanHashCode(getPrivacyAct());
 		result = 7 * result + Util.booleanHashCode(getIntellectualProperty());
 		result = 7 * result + Util.booleanHashCode(getCopyright());
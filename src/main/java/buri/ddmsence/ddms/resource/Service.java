@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.resource;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 
@@ -127,13 +128,12 @@ public final class Service extends AbstractRoleEntity {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, "", suffix);
-		StringBuffer text = new StringBuffer(super.getOutput(isHTML, localPrefix, ""));
-		text.append(buildOutput(isHTML, localPrefix + AFFILIATION_NAME, getAffiliations()));
-		return (text.toString());
+		super.writeOutput(text, isHTML, localPrefix, "");
+		buildOutput(text, isHTML, localPrefix, AFFILIATION_NAME, getAffiliations());
 	}
 
 	/**
@@ -147,10 +147,10 @@ public final class Service extends AbstractRoleEntity {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getAffiliations().hashCode();
 		return (result);
 	}
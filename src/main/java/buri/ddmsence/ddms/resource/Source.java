@@ -19,6 +19,8 @@
  */
 package buri.ddmsence.ddms.resource;
 
+import java.io.IOException;
+
 import nu.xom.Element;
 import buri.ddmsence.AbstractBaseComponent;
 import buri.ddmsence.AbstractQualifierValue;
@@ -139,17 +141,15 @@ public final class Source extends AbstractQualifierValue {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix + getQualifierName(), getQualifier()));
-		text.append(buildOutput(isHTML, localPrefix + getValueName(), getValue()));
-		text.append(buildOutput(isHTML, localPrefix + SCHEMA_QUALIFIER_NAME, getSchemaQualifier()));
-		text.append(buildOutput(isHTML, localPrefix + SCHEMA_HREF_NAME, getSchemaHref()));
-		text.append(getSecurityAttributes().getOutput(isHTML, localPrefix));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, getQualifierName(), getQualifier());
+		buildOutput(text, isHTML, localPrefix, getValueName(), getValue());
+		buildOutput(text, isHTML, localPrefix, SCHEMA_QUALIFIER_NAME, getSchemaQualifier());
+		buildOutput(text, isHTML, localPrefix, SCHEMA_HREF_NAME, getSchemaHref());
+		getSecurityAttributes().writeOutput(text, isHTML, localPrefix);
 	}
 
 	/**
@@ -163,10 +163,10 @@ public final class Source extends AbstractQualifierValue {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getSchemaQualifier().hashCode();
 		result = 7 * result + getSchemaHref().hashCode();
 		return (result);
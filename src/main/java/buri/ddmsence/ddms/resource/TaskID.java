@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.resource;
 
+import java.io.IOException;
 import java.io.Serializable;
 
 import nu.xom.Element;
@@ -161,17 +162,15 @@ public final class TaskID extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix);
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix, getValue()));
-		text.append(buildOutput(isHTML, localPrefix + "." + TASKING_SYSTEM_NAME, getTaskingSystem()));
-		text.append(buildOutput(isHTML, localPrefix + "." + NETWORK_NAME, getNetwork()));
-		text.append(buildOutput(isHTML, localPrefix + "." + OTHER_NETWORK_NAME, getOtherNetwork()));
-		text.append(getXLinkAttributes().getOutput(isHTML, localPrefix + "."));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, getValue());
+		buildOutput(text, isHTML, localPrefix, "." + TASKING_SYSTEM_NAME, getTaskingSystem());
+		buildOutput(text, isHTML, localPrefix, "." + NETWORK_NAME, getNetwork());
+		buildOutput(text, isHTML, localPrefix, "." + OTHER_NETWORK_NAME, getOtherNetwork());
+		getXLinkAttributes().writeOutput(text, isHTML, localPrefix + ".");
 	}
 
 	/**
@@ -189,10 +188,10 @@ public final class TaskID extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getValue().hashCode();
 		result = 7 * result + getTaskingSystem().hashCode();
 		result = 7 * result + getNetwork().hashCode();
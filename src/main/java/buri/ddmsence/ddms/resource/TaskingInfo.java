@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.resource;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -133,13 +134,13 @@ public final class TaskingInfo extends AbstractBaseComponent {
 			Element element = Util.buildDDMSElement(TaskingInfo.getName(DDMSVersion.getCurrentVersion()), null);
 			setXOMElement(element, false);
 			for (RequesterInfo info : requesterInfos)
-				element.appendChild(info.getXOMElementCopy());
+				appendComponent(element, info);
 			for (Addressee addressee : addressees)
-				element.appendChild(addressee.getXOMElementCopy());
+				appendComponent(element, addressee);
 			if (description != null)
-				element.appendChild(description.getXOMElementCopy());
+				appendComponent(element, description);
 			if (taskID != null)
-				element.appendChild(taskID.getXOMElementCopy());
+				appendComponent(element, taskID);
 
 			_requesterInfos = requesterInfos;
 			_addressees = addressees;
@@ -167,17 +168,15 @@ public final class TaskingInfo extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix, getRequesterInfos()));
-		text.append(buildOutput(isHTML, localPrefix, getAddressees()));
+		buildOutput(text, isHTML, localPrefix, getRequesterInfos());
+		buildOutput(text, isHTML, localPrefix, getAddressees());
 		if (getDescription() != null)
-			text.append(getDescription().getOutput(isHTML, localPrefix, ""));
-		text.append(getTaskID().getOutput(isHTML, localPrefix, ""));
-		return (text.toString());
+			getDescription().writeOutput(text, isHTML, localPrefix, "");
+		getTaskID().writeOutput(text, isHTML, localPrefix, "");
 	}
 
 	/**
@@ -0,0 +1,143 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.ddms.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import buri.ddmsence.ddms.IDDMSComponent;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.ValidationMessage;
+import buri.ddmsence.util.Util;
+
+/**
+ * Base class for rules which assert a predicate against a set of components in a Resource.
+ * 
+ * <p>This class mirrors the structure of a Schematron rule. <code>getContext</code> selects the components the rule
+ * applies to (the rule context), <code>test</code> is the assertion, and <code>getText</code> and
+ * <code>getLocator</code> describe any failure. Every component which fails the test produces a single
+ * ValidationMessage.</p>
+ * 
+ * <p>By default, the locator of a message is the qualified name of the Resource followed by the qualified name of the
+ * failing component (for example, "/ddms:resource/ddms:temporalCoverage"), in the same style as the locators of
+ * validation warnings.</p>
+ * 
+ * @param <T> the type of component this rule applies to
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public abstract class AbstractComponentRule<T extends IDDMSComponent> implements IRule {
+
+	private String _id;
+	private String _type;
+	private String _text;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param id the identifier of this rule
+	 * @param type the type of message produced by a failure, either ValidationMessage.ERROR_TYPE or
+	 *        ValidationMessage.WARNING_TYPE
+	 * @param text the description text used for failures, unless <code>getText</code> is overridden
+	 * @throws IllegalArgumentException if any value is missing, or the type is unknown
+	 */
+	protected AbstractComponentRule(String id, String type, String text) {
+		Util.requireValue("id", id);
+		Util.requireValue("text", text);
+		if (!ValidationMessage.ERROR_TYPE.equals(type) && !ValidationMessage.WARNING_TYPE.equals(type))
+			throw new IllegalArgumentException("The type must be either " + ValidationMessage.ERROR_TYPE + " or "
+				+ ValidationMessage.WARNING_TYPE + ".");
+		_id = id;
+		_type = type;
+		_text = text;
+	}
+
+	/**
+	 * Selects the components in a Resource that this rule applies to.
+	 * 
+	 * @param resource the Resource being evaluated
+	 * @return a list of components, which may be empty but never null
+	 */
+	protected abstract List<T> getContext(Resource resource);
+
+	/**
+	 * Tests a single component.
+	 * 
+	 * @param resource the Resource being evaluated
+	 * @param component a component from the context
+	 * @return true if the component satisfies this rule, false otherwise
+	 */
+	protected abstract boolean test(Resource resource, T component);
+
+	/**
+	 * @see IRule#validate(Resource)
+	 */
+	public List<ValidationMessage> validate(Resource resource) {
+		Util.requireValue("resource", resource);
+		List<ValidationMessage> messages = new ArrayList<ValidationMessage>();
+		for (T component : getContext(resource)) {
+			if (component == null || test(resource, component))
+				continue;
+			String text = getText(resource, component);
+			String locator = getLocator(resource, component);
+			messages.add(ValidationMessage.ERROR_TYPE.equals(getType()) ? ValidationMessage.newError(text, locator)
+				: ValidationMessage.newWarning(text, locator));
+		}
+		return (messages);
+	}
+
+	/**
+	 * Builds the description text for a failing component. Can be overridden to include details from the component.
+	 * 
+	 * @param resource the Resource being evaluated
+	 * @param component the failing component
+	 * @return the description text
+	 */
+	protected String getText(Resource resource, T component) {
+		return (_text);
+	}
+
+	/**
+	 * Builds the locator for a failing component.
+	 * 
+	 * @param resource the Resource being evaluated
+	 * @param component the failing component
+	 * @return a locator string, without a leading slash
+	 */
+	protected String getLocator(Resource resource, T component) {
+		if (component == resource)
+			return (resource.getQualifiedName());
+		return (resource.getQualifiedName() + ValidationMessage.ELEMENT_PREFIX + component.getQualifiedName());
+	}
+
+	/**
+	 * @see IRule#getId()
+	 */
+	public String getId() {
+		return (_id);
+	}
+
+	/**
+	 * Accessor for the type of message produced by a failure
+	 */
+	public String getType() {
+		return (_type);
+	}
+}
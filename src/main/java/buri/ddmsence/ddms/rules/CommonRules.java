@@ -0,0 +1,228 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.ddms.rules;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import buri.ddmsence.ddms.IDDMSComponent;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.ValidationMessage;
+import buri.ddmsence.ddms.resource.Contributor;
+import buri.ddmsence.ddms.resource.Creator;
+import buri.ddmsence.ddms.resource.PointOfContact;
+import buri.ddmsence.ddms.resource.Publisher;
+import buri.ddmsence.ddms.security.ism.SecurityAttributes;
+import buri.ddmsence.ddms.summary.TemporalCoverage;
+import buri.ddmsence.util.Util;
+
+/**
+ * Factory methods for rules which are commonly expressed in Schematron, but can be evaluated directly against the
+ * object model.
+ * 
+ * <p>Each method returns a new, stateless rule which can be shared across threads and Resources.</p>
+ * 
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public final class CommonRules {
+
+	/** The identifier of the rule returned by <code>temporalCoverageOrder()</code> */
+	public static final String TEMPORAL_COVERAGE_ORDER_ID = "TemporalCoverageOrder";
+
+	/** The identifier of the rule returned by <code>classificationCeiling()</code> */
+	public static final String CLASSIFICATION_CEILING_ID = "ClassificationCeiling";
+
+	/** The prefix of the identifier of the rule returned by <code>requiredProducer()</code> */
+	public static final String REQUIRED_PRODUCER_ID = "RequiredProducer";
+
+	/** US classification tokens, from least to most restrictive */
+	private static final Map<String, Integer> CLASSIFICATION_RANKS = new HashMap<String, Integer>();
+	static {
+		CLASSIFICATION_RANKS.put("U", Integer.valueOf(0));
+		CLASSIFICATION_RANKS.put("R", Integer.valueOf(1));
+		CLASSIFICATION_RANKS.put("C", Integer.valueOf(2));
+		CLASSIFICATION_RANKS.put("S", Integer.valueOf(3));
+		CLASSIFICATION_RANKS.put("TS", Integer.valueOf(4));
+	}
+
+	/**
+	 * Private to prevent instantiation.
+	 */
+	private CommonRules() {}
+
+	/**
+	 * Returns a rule which asserts that the start date of every temporalCoverage is not after its end date.
+	 * 
+	 * <p>Only exact dates are compared. Coverages using "Unknown", "Not Applicable", or an approximable date are
+	 * skipped, as are pairs of dates whose ordering is indeterminate (such as a date and a date with a timezone).</p>
+	 * 
+	 * @return an error-level rule
+	 */
+	public static IRule temporalCoverageOrder() {
+		return (new AbstractComponentRule<TemporalCoverage>(TEMPORAL_COVERAGE_ORDER_ID, ValidationMessage.ERROR_TYPE,
+			"The start date of a temporalCoverage must not be after its end date.") {
+			protected List<TemporalCoverage> getContext(Resource resource) {
+				return (resource.getTemporalCoverages());
+			}
+
+			protected boolean test(Resource resource, TemporalCoverage coverage) {
+				XMLGregorianCalendar start = toCalendar(coverage.getStartString());
+				XMLGregorianCalendar end = toCalendar(coverage.getEndString());
+				return (start == null || end == null || start.compare(end) != DatatypeConstants.GREATER);
+			}
+		});
+	}
+
+	/**
+	 * Returns a rule which asserts that no top-level component is marked with a higher classification than the
+	 * Resource itself.
+	 * 
+	 * <p>The ceiling is the ism:classification of the Resource. In DDMS 5.0, where the Resource has no security
+	 * attributes, the ism:classification of the ddms:metacardInfo is used instead. Only the US classification tokens
+	 * (U, R, C, S, TS) are ranked. If the ceiling or a component's classification is some other token, that component
+	 * is skipped.</p>
+	 * 
+	 * @return an error-level rule
+	 */
+	public static IRule classificationCeiling() {
+		return (new AbstractComponentRule<IDDMSComponent>(CLASSIFICATION_CEILING_ID, ValidationMessage.ERROR_TYPE,
+			"A component must not be classified higher than its resource.") {
+			protected List<IDDMSComponent> getContext(Resource resource) {
+				if (getRank(getCeiling(resource)) == null)
+					return (Collections.emptyList());
+				return (resource.getTopLevelComponents());
+			}
+
+			protected boolean test(Resource resource, IDDMSComponent component) {
+				Integer rank = getRank(getClassification(component));
+				return (rank == null || rank.intValue() <= getRank(getCeiling(resource)).intValue());
+			}
+
+			protected String getText(Resource resource, IDDMSComponent component) {
+				return ("A component must not be classified higher than its resource. The component is marked "
+					+ getClassification(component) + ", but the resource is marked " + getCeiling(resource) + ".");
+			}
+		});
+	}
+
+	/**
+	 * Returns a rule which asserts that a Resource has at least one producer of a specific type. DDMS only requires
+	 * one producer of any type, but many communities require a particular producer, such as a creator.
+	 * 
+	 * @param producerType one of Creator, Contributor, Publisher, or PointOfContact
+	 * @return an error-level rule
+	 * @throws IllegalArgumentException if the type is not a producer type
+	 */
+	public static IRule requiredProducer(final Class<? extends IDDMSComponent> producerType) {
+		Util.requireValue("producer type", producerType);
+		if (producerType != Creator.class && producerType != Contributor.class && producerType != Publisher.class
+			&& producerType != PointOfContact.class)
+			throw new IllegalArgumentException(producerType.getName() + " is not a producer type.");
+		String name = producerType.getSimpleName();
+		name = name.substring(0, 1).toLowerCase() + name.substring(1);
+		return (new AbstractComponentRule<Resource>(REQUIRED_PRODUCER_ID + producerType.getSimpleName(),
+			ValidationMessage.ERROR_TYPE, "At least 1 " + name + " must exist.") {
+			protected List<Resource> getContext(Resource resource) {
+				return (Collections.singletonList(resource));
+			}
+
+			protected boolean test(Resource resource, Resource component) {
+				List<? extends IDDMSComponent> producers;
+				if (producerType == Creator.class)
+					producers = resource.getCreators();
+				else if (producerType == Contributor.class)
+					producers = resource.getContributors();
+				else if (producerType == Publisher.class)
+					producers = resource.getPublishers();
+				else
+					producers = resource.getPointOfContacts();
+				return (!producers.isEmpty());
+			}
+		});
+	}
+
+	/**
+	 * Returns the classification ceiling of a Resource.
+	 * 
+	 * @param resource the Resource
+	 * @return the classification, or an empty string if none is set
+	 */
+	private static String getCeiling(Resource resource) {
+		String ceiling = resource.getSecurityAttributes().getClassification();
+		if (Util.isEmpty(ceiling) && resource.getMetacardInfo() != null)
+			ceiling = resource.getMetacardInfo().getSecurityAttributes().getClassification();
+		return (ceiling);
+	}
+
+	/**
+	 * Returns the classification of a component.
+	 * 
+	 * @param component the component
+	 * @return the classification, or an empty string if the component has no security attributes
+	 */
+	private static String getClassification(IDDMSComponent component) {
+		SecurityAttributes attributes = component.getSecurityAttributes();
+		return (attributes == null ? "" : attributes.getClassification());
+	}
+
+	/**
+	 * Ranks a classification token.
+	 * 
+	 * @param classification the token
+	 * @return the rank, or null if the token is not a ranked US classification
+	 */
+	private static Integer getRank(String classification) {
+		return (CLASSIFICATION_RANKS.get(Util.getNonNullString(classification)));
+	}
+
+	/**
+	 * Converts a date string into a calendar, for comparison. The ddms:DateHourMinType format from DDMS 4.1 is
+	 * converted by assuming zero seconds.
+	 * 
+	 * @param date the date string
+	 * @return a calendar, or null if the string is not a date
+	 */
+	private static XMLGregorianCalendar toCalendar(String date) {
+		if (Util.isEmpty(date))
+			return (null);
+		try {
+			return (Util.getDataTypeFactory().newXMLGregorianCalendar(date));
+		}
+		catch (IllegalArgumentException e) {
+			// Fall-through to ddms:DateHourMinType
+		}
+		if (date.length() >= 16 && date.charAt(10) == 'T') {
+			try {
+				return (Util.getDataTypeFactory().newXMLGregorianCalendar(date.substring(0, 16) + ":00"
+					+ date.substring(16)));
+			}
+			catch (IllegalArgumentException e) {
+				// Fall-through
+			}
+		}
+		return (null);
+	}
+}
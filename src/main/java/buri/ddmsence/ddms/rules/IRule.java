@@ -0,0 +1,57 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.ddms.rules;
+
+import java.util.List;
+
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.ValidationMessage;
+
+/**
+ * Interface for a business rule which is evaluated directly against a DDMS Resource.
+ * 
+ * <p>Rules are the Java equivalent of an ISO Schematron pattern. Instead of transforming a serialized copy of the
+ * Resource with XSLT, a rule reads the typed accessors of the object model. Like Schematron, rules are informational:
+ * the messages they produce do NOT affect the validity of the underlying object model.</p>
+ * 
+ * <p>Implementations should be stateless, so that a single instance can be shared between threads and reused across
+ * any number of Resources.</p>
+ * 
+ * @see Resource#validateWithRules(List)
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public interface IRule {
+
+	/**
+	 * Accessor for an identifier for this rule, comparable to the id of a Schematron pattern.
+	 * 
+	 * @return the identifier
+	 */
+	public String getId();
+
+	/**
+	 * Evaluates this rule against a Resource.
+	 * 
+	 * @param resource the Resource to evaluate
+	 * @return a list of ValidationMessages, which is empty if the rule is satisfied
+	 */
+	public List<ValidationMessage> validate(Resource resource);
+}
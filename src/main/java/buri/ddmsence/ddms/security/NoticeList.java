@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.security;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -112,7 +113,7 @@ public final class NoticeList extends AbstractBaseComponent {
 			DDMSVersion version = DDMSVersion.getCurrentVersion();
 			Element element = Util.buildDDMSElement(NoticeList.getName(version), null);
 			for (Notice noticeText : notices)
-				element.appendChild(noticeText.getXOMElementCopy());
+				appendComponent(element, noticeText);
 
 			_notices = notices;
 			_securityAttributes = SecurityAttributes.getNonNullInstance(securityAttributes);
@@ -139,14 +140,12 @@ public final class NoticeList extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix, getNotices()));
-		text.append(getSecurityAttributes().getOutput(isHTML, localPrefix));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, getNotices());
+		getSecurityAttributes().writeOutput(text, isHTML, localPrefix);
 	}
 
 	/**
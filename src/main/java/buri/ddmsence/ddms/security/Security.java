@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.security;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -119,9 +120,9 @@ public final class Security extends AbstractBaseComponent {
 
 			Element element = Util.buildDDMSElement(Security.getName(version), null);
 			if (noticeList != null)
-				element.appendChild(noticeList.getXOMElementCopy());
+				appendComponent(element, noticeList);
 			if (access != null)
-				element.appendChild(access.getXOMElementCopy());
+				appendComponent(element, access);
 			if (DDMSVersion.getCurrentVersion().isAtLeast("3.0"))
 				Util.addAttribute(element, PropertyReader.getPrefix("ism"), EXCLUDE_FROM_ROLLUP_NAME,
 					DDMSVersion.getCurrentVersion().getIsmNamespace(), FIXED_ROLLUP);
@@ -156,20 +157,18 @@ public final class Security extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
 		if (getExcludeFromRollup() != null)
-			text.append(buildOutput(isHTML, localPrefix + EXCLUDE_FROM_ROLLUP_NAME,
-				String.valueOf(getExcludeFromRollup())));
+			buildOutput(text, isHTML, localPrefix, EXCLUDE_FROM_ROLLUP_NAME,
+				String.valueOf(getExcludeFromRollup()));
 		if (getNoticeList() != null)
-			text.append(getNoticeList().getOutput(isHTML, localPrefix, ""));
+			getNoticeList().writeOutput(text, isHTML, localPrefix, "");
 		if (getAccess() != null)
-			text.append(getAccess().getOutput(isHTML, localPrefix, ""));
-		text.append(getSecurityAttributes().getOutput(isHTML, localPrefix));
-		return (text.toString());
+			getAccess().writeOutput(text, isHTML, localPrefix, "");
+		getSecurityAttributes().writeOutput(text, isHTML, localPrefix);
 	}
 
 	/**
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.security.ism;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -112,7 +113,7 @@ public final class Notice extends AbstractBaseComponent {
 			Element element = Util.buildElement(PropertyReader.getPrefix("ism"), Notice.getName(version),
 				version.getIsmNamespace(), null);
 			for (NoticeText noticeText : noticeTexts)
-				element.appendChild(noticeText.getXOMElementCopy());
+				appendComponent(element, noticeText);
 			_noticeTexts = noticeTexts;
 			_noticeAttributes = NoticeAttributes.getNonNullInstance(noticeAttributes);
 			_noticeAttributes.addTo(element);
@@ -151,15 +152,13 @@ public final class Notice extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, "notice", suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix, getNoticeTexts()));
-		text.append(getSecurityAttributes().getOutput(isHTML, localPrefix));
-		text.append(getNoticeAttributes().getOutput(isHTML, localPrefix));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, getNoticeTexts());
+		getSecurityAttributes().writeOutput(text, isHTML, localPrefix);
+		getNoticeAttributes().writeOutput(text, isHTML, localPrefix);
 	}
 
 	/**
@@ -182,10 +181,10 @@ public final class Notice extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getNoticeAttributes().hashCode();
 		return (result);
 	}
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.security.ism;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.HashMap;
@@ -255,24 +256,22 @@ public final class NoticeAttributes extends AbstractAttributeGroup {
 	}
 
 	/**
-	 * @see AbstractAttributeGroup#getOutput(boolean, String)
+	 * @see AbstractAttributeGroup#writeOutput(Appendable, boolean, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix) throws IOException {
 		String localPrefix = Util.getNonNullString(prefix);
-		StringBuffer text = new StringBuffer();
-		text.append(Resource.buildOutput(isHTML, localPrefix + NOTICE_TYPE_NAME, getNoticeType()));
-		text.append(Resource.buildOutput(isHTML, localPrefix + NOTICE_REASON_NAME, getNoticeReason()));
+		Resource.buildOutput(text, isHTML, localPrefix, NOTICE_TYPE_NAME, getNoticeType());
+		Resource.buildOutput(text, isHTML, localPrefix, NOTICE_REASON_NAME, getNoticeReason());
 		if (getNoticeDate() != null) {
-			text.append(Resource.buildOutput(isHTML, localPrefix + NOTICE_DATE_NAME, getNoticeDate().toXMLFormat()));
+			Resource.buildOutput(text, isHTML, localPrefix, NOTICE_DATE_NAME, getNoticeDate().toXMLFormat());
 		}
-		text.append(Resource.buildOutput(isHTML, localPrefix + UNREGISTERED_NOTICE_TYPE_NAME,
-			getUnregisteredNoticeType()));
+		Resource.buildOutput(text, isHTML, localPrefix, UNREGISTERED_NOTICE_TYPE_NAME,
+			getUnregisteredNoticeType());
 		if (isExternalReference() != null) {
-			text.append(Resource.buildOutput(isHTML, localPrefix + EXTERNAL_NOTICE_NAME,
-				String.valueOf(isExternalReference())));
+			Resource.buildOutput(text, isHTML, localPrefix, EXTERNAL_NOTICE_NAME,
+				String.valueOf(isExternalReference()));
 		}
 
-		return (text.toString());
 	}
 
 	/**
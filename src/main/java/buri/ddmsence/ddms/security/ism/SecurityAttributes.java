@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.security.ism;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.HashMap;
@@ -537,46 +538,44 @@ public final class SecurityAttributes extends AbstractAttributeGroup {
 	}
 
 	/**
-	 * @see AbstractAttributeGroup#getOutput(boolean, String)
+	 * @see AbstractAttributeGroup#writeOutput(Appendable, boolean, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix) throws IOException {
 		String localPrefix = Util.getNonNullString(prefix);
-		StringBuffer text = new StringBuffer();
-		text.append(Resource.buildOutput(isHTML, localPrefix + ATOMIC_ENERGY_MARKINGS_NAME,
-			Util.getXsList(getAtomicEnergyMarkings())));
-		text.append(Resource.buildOutput(isHTML, localPrefix + CLASSIFICATION_NAME, getClassification()));
-		text.append(Resource.buildOutput(isHTML, localPrefix + CLASSIFICATION_REASON_NAME, getClassificationReason()));
-		text.append(Resource.buildOutput(isHTML, localPrefix + CLASSIFIED_BY_NAME, getClassifiedBy()));
-		text.append(Resource.buildOutput(isHTML, localPrefix + COMPILATION_REASON_NAME, getCompilationReason()));
+		Resource.buildOutput(text, isHTML, localPrefix, ATOMIC_ENERGY_MARKINGS_NAME,
+			Util.getXsList(getAtomicEnergyMarkings()));
+		Resource.buildOutput(text, isHTML, localPrefix, CLASSIFICATION_NAME, getClassification());
+		Resource.buildOutput(text, isHTML, localPrefix, CLASSIFICATION_REASON_NAME, getClassificationReason());
+		Resource.buildOutput(text, isHTML, localPrefix, CLASSIFIED_BY_NAME, getClassifiedBy());
+		Resource.buildOutput(text, isHTML, localPrefix, COMPILATION_REASON_NAME, getCompilationReason());
 		if (getDateOfExemptedSource() != null) {
-			text.append(Resource.buildOutput(isHTML, localPrefix + DATE_OF_EXEMPTED_SOURCE_NAME,
-				getDateOfExemptedSource().toXMLFormat()));
+			Resource.buildOutput(text, isHTML, localPrefix, DATE_OF_EXEMPTED_SOURCE_NAME,
+				getDateOfExemptedSource().toXMLFormat());
 		}
 		if (getDeclassDate() != null)
-			text.append(Resource.buildOutput(isHTML, localPrefix + DECLASS_DATE_NAME, getDeclassDate().toXMLFormat()));
-		text.append(Resource.buildOutput(isHTML, localPrefix + DECLASS_EVENT_NAME, getDeclassEvent()));
-		text.append(Resource.buildOutput(isHTML, localPrefix + DECLASS_EXCEPTION_NAME, getDeclassException()));
+			Resource.buildOutput(text, isHTML, localPrefix, DECLASS_DATE_NAME, getDeclassDate().toXMLFormat());
+		Resource.buildOutput(text, isHTML, localPrefix, DECLASS_EVENT_NAME, getDeclassEvent());
+		Resource.buildOutput(text, isHTML, localPrefix, DECLASS_EXCEPTION_NAME, getDeclassException());
 		if (getDeclassManualReview() != null) {
-			text.append(Resource.buildOutput(isHTML, localPrefix + DECLASS_MANUAL_REVIEW_NAME,
-				getDeclassManualReview().toString()));
+			Resource.buildOutput(text, isHTML, localPrefix, DECLASS_MANUAL_REVIEW_NAME,
+				getDeclassManualReview().toString());
 		}
-		text.append(Resource.buildOutput(isHTML, localPrefix + DERIVATIVELY_CLASSIFIED_BY_NAME,
-			getDerivativelyClassifiedBy()));
-		text.append(Resource.buildOutput(isHTML, localPrefix + DERIVED_FROM_NAME, getDerivedFrom()));
-		text.append(Resource.buildOutput(isHTML, localPrefix + DISPLAY_ONLY_TO_NAME, Util.getXsList(getDisplayOnlyTo())));
-		text.append(Resource.buildOutput(isHTML, localPrefix + DISSEMINATION_CONTROLS_NAME,
-			Util.getXsList(getDisseminationControls())));
-		text.append(Resource.buildOutput(isHTML, localPrefix + FGI_SOURCE_OPEN_NAME, Util.getXsList(getFGIsourceOpen())));
-		text.append(Resource.buildOutput(isHTML, localPrefix + FGI_SOURCE_PROTECTED_NAME,
-			Util.getXsList(getFGIsourceProtected())));
-		text.append(Resource.buildOutput(isHTML, localPrefix + NON_IC_MARKINGS_NAME, Util.getXsList(getNonICmarkings())));
-		text.append(Resource.buildOutput(isHTML, localPrefix + NON_US_CONTROLS_NAME, Util.getXsList(getNonUSControls())));
-		text.append(Resource.buildOutput(isHTML, localPrefix + OWNER_PRODUCER_NAME, Util.getXsList(getOwnerProducers())));
-		text.append(Resource.buildOutput(isHTML, localPrefix + RELEASABLE_TO_NAME, Util.getXsList(getReleasableTo())));
-		text.append(Resource.buildOutput(isHTML, localPrefix + SAR_IDENTIFIER_NAME, Util.getXsList(getSARIdentifier())));
-		text.append(Resource.buildOutput(isHTML, localPrefix + SCI_CONTROLS_NAME, Util.getXsList(getSCIcontrols())));
-		text.append(Resource.buildOutput(isHTML, localPrefix + TYPE_OF_EXEMPTED_SOURCE_NAME, getTypeOfExemptedSource()));
-		return (text.toString());
+		Resource.buildOutput(text, isHTML, localPrefix, DERIVATIVELY_CLASSIFIED_BY_NAME,
+			getDerivativelyClassifiedBy());
+		Resource.buildOutput(text, isHTML, localPrefix, DERIVED_FROM_NAME, getDerivedFrom());
+		Resource.buildOutput(text, isHTML, localPrefix, DISPLAY_ONLY_TO_NAME, Util.getXsList(getDisplayOnlyTo()));
+		Resource.buildOutput(text, isHTML, localPrefix, DISSEMINATION_CONTROLS_NAME,
+			Util.getXsList(getDisseminationControls()));
+		Resource.buildOutput(text, isHTML, localPrefix, FGI_SOURCE_OPEN_NAME, Util.getXsList(getFGIsourceOpen()));
+		Resource.buildOutput(text, isHTML, localPrefix, FGI_SOURCE_PROTECTED_NAME,
+			Util.getXsList(getFGIsourceProtected()));
+		Resource.buildOutput(text, isHTML, localPrefix, NON_IC_MARKINGS_NAME, Util.getXsList(getNonICmarkings()));
+		Resource.buildOutput(text, isHTML, localPrefix, NON_US_CONTROLS_NAME, Util.getXsList(getNonUSControls()));
+		Resource.buildOutput(text, isHTML, localPrefix, OWNER_PRODUCER_NAME, Util.getXsList(getOwnerProducers()));
+		Resource.buildOutput(text, isHTML, localPrefix, RELEASABLE_TO_NAME, Util.getXsList(getReleasableTo()));
+		Resource.buildOutput(text, isHTML, localPrefix, SAR_IDENTIFIER_NAME, Util.getXsList(getSARIdentifier()));
+		Resource.buildOutput(text, isHTML, localPrefix, SCI_CONTROLS_NAME, Util.getXsList(getSCIcontrols()));
+		Resource.buildOutput(text, isHTML, localPrefix, TYPE_OF_EXEMPTED_SOURCE_NAME, getTypeOfExemptedSource());
 	}
 
 	/**
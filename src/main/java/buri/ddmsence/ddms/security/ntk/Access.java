@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.security.ntk;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -161,7 +162,7 @@ public final class Access extends AbstractBaseComponent {
 				Element individualList = Util.buildElement(ntkPrefix, INDIVIDUAL_LIST_NAME, ntkNamespace, null);
 				element.appendChild(individualList);
 				for (Individual individual : individuals) {
-					individualList.appendChild(individual.getXOMElementCopy());
+					appendComponent(individualList, individual);
 				}
 			}
 			if (groups == null)
@@ -170,11 +171,11 @@ public final class Access extends AbstractBaseComponent {
 				Element groupList = Util.buildElement(ntkPrefix, GROUP_LIST_NAME, ntkNamespace, null);
 				element.appendChild(groupList);
 				for (Group group : groups) {
-					groupList.appendChild(group.getXOMElementCopy());
+					appendComponent(groupList, group);
 				}
 			}
 			if (profileList != null)
-				element.appendChild(profileList.getXOMElementCopy());
+				appendComponent(element, profileList);
 			if (externalReference != null) {
 				Util.addAttribute(element, ntkPrefix, EXTERNAL_REFERENCE_NAME, ntkNamespace,
 					String.valueOf(externalReference));
@@ -215,20 +216,18 @@ public final class Access extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, "access", suffix) + ".";
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix + "individualList.", getIndividuals()));
-		text.append(buildOutput(isHTML, localPrefix + "groupList.", getGroups()));
+		buildOutput(text, isHTML, localPrefix, "individualList.", getIndividuals());
+		buildOutput(text, isHTML, localPrefix, "groupList.", getGroups());
 		if (getProfileList() != null)
-			text.append(getProfileList().getOutput(isHTML, localPrefix, ""));
+			getProfileList().writeOutput(text, isHTML, localPrefix, "");
 		if (isExternalReference() != null)
-			text.append(buildOutput(isHTML, localPrefix + EXTERNAL_REFERENCE_NAME,
-				String.valueOf(isExternalReference())));
-		text.append(getSecurityAttributes().getOutput(isHTML, localPrefix));
-		return (text.toString());
+			buildOutput(text, isHTML, localPrefix, EXTERNAL_REFERENCE_NAME,
+				String.valueOf(isExternalReference()));
+		getSecurityAttributes().writeOutput(text, isHTML, localPrefix);
 	}
 
 	/**
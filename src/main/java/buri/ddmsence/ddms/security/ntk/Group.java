@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.security.ntk;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -108,7 +109,7 @@ public final class Group extends AbstractAccessEntity {
 			if (groupValues == null)
 				groupValues = Collections.emptyList();
 			for (GroupValue value : groupValues) {
-				getXOMElement().appendChild(value.getXOMElementCopy());
+				appendComponent(getXOMElement(), value);
 			}
 			_groupValues = groupValues;
 			validate();
@@ -130,16 +131,14 @@ public final class Group extends AbstractAccessEntity {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, "group", suffix) + ".";
-		StringBuffer text = new StringBuffer();
 		if (getSystemName() != null)
-			text.append(getSystemName().getOutput(isHTML, localPrefix, ""));
-		text.append(buildOutput(isHTML, localPrefix, getGroupValues()));
-		text.append(getSecurityAttributes().getOutput(isHTML, localPrefix));
-		return (text.toString());
+			getSystemName().writeOutput(text, isHTML, localPrefix, "");
+		buildOutput(text, isHTML, localPrefix, getGroupValues());
+		getSecurityAttributes().writeOutput(text, isHTML, localPrefix);
 	}
 
 	/**
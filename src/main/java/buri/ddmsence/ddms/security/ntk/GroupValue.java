@@ -19,6 +19,8 @@
  */
 package buri.ddmsence.ddms.security.ntk;
 
+import java.io.IOException;
+
 import nu.xom.Element;
 import buri.ddmsence.AbstractBaseComponent;
 import buri.ddmsence.AbstractNtkString;
@@ -106,17 +108,15 @@ public final class GroupValue extends AbstractNtkString {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, "groupValue", suffix);
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix, getValue()));
-		text.append(buildOutput(isHTML, localPrefix + ".id", getID()));
-		text.append(buildOutput(isHTML, localPrefix + ".idReference", getIDReference()));
-		text.append(buildOutput(isHTML, localPrefix + ".qualifier", getQualifier()));
-		text.append(getSecurityAttributes().getOutput(isHTML, localPrefix + "."));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, getValue());
+		buildOutput(text, isHTML, localPrefix, ".id", getID());
+		buildOutput(text, isHTML, localPrefix, ".idReference", getIDReference());
+		buildOutput(text, isHTML, localPrefix, ".qualifier", getQualifier());
+		getSecurityAttributes().writeOutput(text, isHTML, localPrefix + ".");
 	}
 
 	/**
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.security.ntk;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -107,7 +108,7 @@ public final class Profile extends AbstractAccessEntity {
 			if (profileValues == null)
 				profileValues = Collections.emptyList();
 			for (ProfileValue value : profileValues) {
-				getXOMElement().appendChild(value.getXOMElementCopy());
+				appendComponent(getXOMElement(), value);
 			}
 			_profileValues = profileValues;
 			validate();
@@ -129,16 +130,14 @@ public final class Profile extends AbstractAccessEntity {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, "profile", suffix) + ".";
-		StringBuffer text = new StringBuffer();
 		if (getSystemName() != null)
-			text.append(getSystemName().getOutput(isHTML, localPrefix, ""));
-		text.append(buildOutput(isHTML, localPrefix, getProfileValues()));
-		text.append(getSecurityAttributes().getOutput(isHTML, localPrefix));
-		return (text.toString());
+			getSystemName().writeOutput(text, isHTML, localPrefix, "");
+		buildOutput(text, isHTML, localPrefix, getProfileValues());
+		getSecurityAttributes().writeOutput(text, isHTML, localPrefix);
 	}
 
 	/**
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.security.ntk;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -111,7 +112,7 @@ public final class ProfileList extends AbstractBaseComponent {
 			if (profiles == null)
 				profiles = Collections.emptyList();
 			for (Profile profile : profiles) {
-				getXOMElement().appendChild(profile.getXOMElementCopy());
+				appendComponent(getXOMElement(), profile);
 			}
 			_profiles = profiles;
 			_securityAttributes = SecurityAttributes.getNonNullInstance(securityAttributes);
@@ -137,14 +138,12 @@ public final class ProfileList extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, "profileList", suffix) + ".";
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix, getProfiles()));
-		text.append(getSecurityAttributes().getOutput(isHTML, localPrefix));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, getProfiles());
+		getSecurityAttributes().writeOutput(text, isHTML, localPrefix);
 	}
 
 	/**
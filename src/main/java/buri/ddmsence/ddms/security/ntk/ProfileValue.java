@@ -19,6 +19,8 @@
  */
 package buri.ddmsence.ddms.security.ntk;
 
+import java.io.IOException;
+
 import nu.xom.Element;
 import buri.ddmsence.AbstractBaseComponent;
 import buri.ddmsence.AbstractNtkString;
@@ -122,18 +124,16 @@ public final class ProfileValue extends AbstractNtkString {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, "profileValue", suffix);
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix, getValue()));
-		text.append(buildOutput(isHTML, localPrefix + ".vocabulary", getVocabulary()));
-		text.append(buildOutput(isHTML, localPrefix + ".id", getID()));
-		text.append(buildOutput(isHTML, localPrefix + ".idReference", getIDReference()));
-		text.append(buildOutput(isHTML, localPrefix + ".qualifier", getQualifier()));
-		text.append(getSecurityAttributes().getOutput(isHTML, localPrefix + "."));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, getValue());
+		buildOutput(text, isHTML, localPrefix, ".vocabulary", getVocabulary());
+		buildOutput(text, isHTML, localPrefix, ".id", getID());
+		buildOutput(text, isHTML, localPrefix, ".idReference", getIDReference());
+		buildOutput(text, isHTML, localPrefix, ".qualifier", getQualifier());
+		getSecurityAttributes().writeOutput(text, isHTML, localPrefix + ".");
 	}
 
 	/**
@@ -158,10 +158,10 @@ public final class ProfileValue extends AbstractNtkString {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getVocabulary().hashCode();
 		return (result);
 	}
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.summary;
 
+import java.io.IOException;
 import java.io.Serializable;
 
 import nu.xom.Element;
@@ -136,16 +137,14 @@ public final class BoundingBox extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix + getWestBLName(), String.valueOf(getWestBL())));
-		text.append(buildOutput(isHTML, localPrefix + getEastBLName(), String.valueOf(getEastBL())));
-		text.append(buildOutput(isHTML, localPrefix + getSouthBLName(), String.valueOf(getSouthBL())));
-		text.append(buildOutput(isHTML, localPrefix + getNorthBLName(), String.valueOf(getNorthBL())));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, getWestBLName(), String.valueOf(getWestBL()));
+		buildOutput(text, isHTML, localPrefix, getEastBLName(), String.valueOf(getEastBL()));
+		buildOutput(text, isHTML, localPrefix, getSouthBLName(), String.valueOf(getSouthBL()));
+		buildOutput(text, isHTML, localPrefix, getNorthBLName(), String.valueOf(getNorthBL()));
 	}
 
 	/**
@@ -162,10 +161,10 @@ public final class BoundingBox extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getWestBL().hashCode();
 		result = 7 * result + getEastBL().hashCode();
 		result = 7 * result + getSouthBL().hashCode();
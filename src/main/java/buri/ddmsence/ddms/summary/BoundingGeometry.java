@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.summary;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -150,9 +151,9 @@ public final class BoundingGeometry extends AbstractBaseComponent {
 				points = Collections.emptyList();
 			Element element = Util.buildDDMSElement(BoundingGeometry.getName(DDMSVersion.getCurrentVersion()), null);
 			for (Polygon polygon : polygons)
-				element.appendChild(polygon.getXOMElementCopy());
+				appendComponent(element, polygon);
 			for (Point point : points)
-				element.appendChild(point.getXOMElementCopy());
+				appendComponent(element, point);
 			_polygons = polygons;
 			_points = points;
 			setXOMElement(element, true);
@@ -175,7 +176,7 @@ public final class BoundingGeometry extends AbstractBaseComponent {
 			if (shapes == null)
 				shapes = Collections.emptyList();
 			for (ITspiShape shape : shapes)
-				element.appendChild(shape.getXOMElementCopy());
+				appendComponent(element, shape);
 			_tspiShapes = shapes;
 			setXOMElement(element, true);
 		}
@@ -206,20 +207,18 @@ public final class BoundingGeometry extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
 		if (!getDDMSVersion().isAtLeast("5.0")) {
-			text.append(buildOutput(isHTML, localPrefix, getGmlPolygons()));
-			text.append(buildOutput(isHTML, localPrefix, getGmlPoints()));
+			buildOutput(text, isHTML, localPrefix, getGmlPolygons());
+			buildOutput(text, isHTML, localPrefix, getGmlPoints());
 		}
 		else {
 			for (ITspiShape shape : getTspiShapes())
-				text.append(shape.getOutput(isHTML, localPrefix, ""));
+				shape.writeOutput(text, isHTML, localPrefix, "");
 		}
-		return (text.toString());
 	}
 
 	/**
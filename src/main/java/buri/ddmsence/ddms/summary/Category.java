@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.summary;
 
+import java.io.IOException;
 import java.io.Serializable;
 
 import nu.xom.Element;
@@ -153,17 +154,15 @@ public final class Category extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix + QUALIFIER_NAME, getQualifier()));
-		text.append(buildOutput(isHTML, localPrefix + CODE_NAME, getCode()));
-		text.append(buildOutput(isHTML, localPrefix + LABEL_NAME, getLabel()));
-		text.append(getSecurityAttributes().getOutput(isHTML, localPrefix));
-		text.append(getExtensibleAttributes().getOutput(isHTML, localPrefix));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, QUALIFIER_NAME, getQualifier());
+		buildOutput(text, isHTML, localPrefix, CODE_NAME, getCode());
+		buildOutput(text, isHTML, localPrefix, LABEL_NAME, getLabel());
+		getSecurityAttributes().writeOutput(text, isHTML, localPrefix);
+		getExtensibleAttributes().writeOutput(text, isHTML, localPrefix);
 	}
 
 	/**
@@ -180,10 +179,10 @@ public final class Category extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getQualifier().hashCode();
 		result = 7 * result + getCode().hashCode();
 		result = 7 * result + getLabel().hashCode();
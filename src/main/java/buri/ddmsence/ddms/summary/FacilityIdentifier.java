@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.summary;
 
+import java.io.IOException;
 import java.io.Serializable;
 
 import nu.xom.Element;
@@ -101,14 +102,12 @@ public final class FacilityIdentifier extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix + BE_NUMBER_NAME, getBeNumber()));
-		text.append(buildOutput(isHTML, localPrefix + OSUFFIX_NAME, getOsuffix()));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, BE_NUMBER_NAME, getBeNumber());
+		buildOutput(text, isHTML, localPrefix, OSUFFIX_NAME, getOsuffix());
 	}
 
 	/**
@@ -123,10 +122,10 @@ public final class FacilityIdentifier extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getBeNumber().hashCode();
 		result = 7 * result + getOsuffix().hashCode();
 		return (result);
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.summary;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -133,9 +134,9 @@ public final class GeographicIdentifier extends AbstractBaseComponent {
 			for (String region : regions)
 				element.appendChild(Util.buildDDMSElement(REGION_NAME, region));
 			if (countryCode != null)
-				element.appendChild(countryCode.getXOMElementCopy());
+				appendComponent(element, countryCode);
 			if (subDivisionCode != null)
-				element.appendChild(subDivisionCode.getXOMElementCopy());
+				appendComponent(element, subDivisionCode);
 			_names = names;
 			_regions = regions;
 			_countryCode = countryCode;
@@ -157,7 +158,7 @@ public final class GeographicIdentifier extends AbstractBaseComponent {
 	public GeographicIdentifier(FacilityIdentifier facilityIdentifier) throws InvalidDDMSException {
 		Element element = Util.buildDDMSElement(GeographicIdentifier.getName(DDMSVersion.getCurrentVersion()), null);
 		if (facilityIdentifier != null)
-			element.appendChild(facilityIdentifier.getXOMElementCopy());
+			appendComponent(element, facilityIdentifier);
 		_names = Collections.emptyList();
 		_regions = Collections.emptyList();
 		_facilityIdentifier = facilityIdentifier;
@@ -239,20 +240,18 @@ public final class GeographicIdentifier extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix + NAME_NAME, getNames()));
-		text.append(buildOutput(isHTML, localPrefix + REGION_NAME, getRegions()));
+		buildOutput(text, isHTML, localPrefix, NAME_NAME, getNames());
+		buildOutput(text, isHTML, localPrefix, REGION_NAME, getRegions());
 		if (getCountryCode() != null)
-			text.append(getCountryCode().getOutput(isHTML, localPrefix, ""));
+			getCountryCode().writeOutput(text, isHTML, localPrefix, "");
 		if (getSubDivisionCode() != null)
-			text.append(getSubDivisionCode().getOutput(isHTML, localPrefix, ""));
+			getSubDivisionCode().writeOutput(text, isHTML, localPrefix, "");
 		if (hasFacilityIdentifier())
-			text.append(getFacilityIdentifier().getOutput(isHTML, localPrefix, ""));
-		return (text.toString());
+			getFacilityIdentifier().writeOutput(text, isHTML, localPrefix, "");
 	}
 
 	/**
@@ -278,10 +277,10 @@ public final class GeographicIdentifier extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getNames().hashCode();
 		result = 7 * result + getRegions().hashCode();
 		return (result);
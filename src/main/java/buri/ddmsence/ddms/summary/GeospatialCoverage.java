@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.summary;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -159,15 +160,15 @@ public final class GeospatialCoverage extends AbstractBaseComponent {
 			Element element = DDMSVersion.getCurrentVersion().isAtLeast("4.0.1") ? coverageElement
 				: Util.buildDDMSElement(GEOSPATIAL_EXTENT_NAME, null);
 			if (geographicIdentifier != null)
-				element.appendChild(geographicIdentifier.getXOMElementCopy());
+				appendComponent(element, geographicIdentifier);
 			if (boundingBox != null)
-				element.appendChild(boundingBox.getXOMElementCopy());
+				appendComponent(element, boundingBox);
 			if (boundingGeometry != null)
-				element.appendChild(boundingGeometry.getXOMElementCopy());
+				appendComponent(element, boundingGeometry);
 			if (postalAddress != null)
-				element.appendChild(postalAddress.getXOMElementCopy());
+				appendComponent(element, postalAddress);
 			if (verticalExtent != null)
-				element.appendChild(verticalExtent.getXOMElementCopy());
+				appendComponent(element, verticalExtent);
 			Util.addDDMSAttribute(coverageElement, PRECEDENCE_NAME, precedence);
 			if (order != null)
 				Util.addDDMSAttribute(coverageElement, ORDER_NAME, order.toString());
@@ -256,28 +257,26 @@ public final class GeospatialCoverage extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
 		if (!getDDMSVersion().isAtLeast("4.0.1"))
 			localPrefix += GEOSPATIAL_EXTENT_NAME + ".";
-		StringBuffer text = new StringBuffer();
 		if (getGeographicIdentifier() != null)
-			text.append(getGeographicIdentifier().getOutput(isHTML, localPrefix, ""));
+			getGeographicIdentifier().writeOutput(text, isHTML, localPrefix, "");
 		if (getBoundingBox() != null)
-			text.append(getBoundingBox().getOutput(isHTML, localPrefix, ""));
+			getBoundingBox().writeOutput(text, isHTML, localPrefix, "");
 		if (getBoundingGeometry() != null)
-			text.append(getBoundingGeometry().getOutput(isHTML, localPrefix, ""));
+			getBoundingGeometry().writeOutput(text, isHTML, localPrefix, "");
 		if (getPostalAddress() != null)
-			text.append(getPostalAddress().getOutput(isHTML, localPrefix, ""));
+			getPostalAddress().writeOutput(text, isHTML, localPrefix, "");
 		if (getVerticalExtent() != null)
-			text.append(getVerticalExtent().getOutput(isHTML, localPrefix, ""));
-		text.append(buildOutput(isHTML, localPrefix + PRECEDENCE_NAME, getPrecedence()));
+			getVerticalExtent().writeOutput(text, isHTML, localPrefix, "");
+		buildOutput(text, isHTML, localPrefix, PRECEDENCE_NAME, getPrecedence());
 		if (getOrder() != null)
-			text.append(buildOutput(isHTML, localPrefix + ORDER_NAME, String.valueOf(getOrder())));
-		text.append(getSecurityAttributes().getOutput(isHTML, localPrefix));
-		return (text.toString());
+			buildOutput(text, isHTML, localPrefix, ORDER_NAME, String.valueOf(getOrder()));
+		getSecurityAttributes().writeOutput(text, isHTML, localPrefix);
 	}
 
 	/**
@@ -305,10 +304,10 @@ public final class GeospatialCoverage extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getPrecedence().hashCode();
 		if (getOrder() != null)
 			result = 7 * result + getOrder().hashCode();
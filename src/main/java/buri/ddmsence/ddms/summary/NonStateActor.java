@@ -19,6 +19,8 @@
  */
 package buri.ddmsence.ddms.summary;
 
+import java.io.IOException;
+
 import nu.xom.Element;
 import buri.ddmsence.AbstractBaseComponent;
 import buri.ddmsence.AbstractSimpleString;
@@ -139,16 +141,14 @@ public final class NonStateActor extends AbstractSimpleString {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix + "value", getValue()));
-		text.append(buildOutput(isHTML, localPrefix + ORDER_NAME, String.valueOf(getOrder())));
-		text.append(buildOutput(isHTML, localPrefix + QUALIFIER_NAME, getQualifier()));
-		text.append(getSecurityAttributes().getOutput(isHTML, localPrefix));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, "value", getValue());
+		buildOutput(text, isHTML, localPrefix, ORDER_NAME, String.valueOf(getOrder()));
+		buildOutput(text, isHTML, localPrefix, QUALIFIER_NAME, getQualifier());
+		getSecurityAttributes().writeOutput(text, isHTML, localPrefix);
 	}
 
 	/**
@@ -158,15 +158,16 @@ public final class NonStateActor extends AbstractSimpleString {
 		if (!super.equals(obj) || !(obj instanceof NonStateActor))
 			return (false);
 		NonStateActor test = (NonStateActor) obj;
-		return (getOrder().equals(test.getOrder()) && getQualifier().equals(test.getQualifier()));
+		return (Util.nullEquals(getOrder(), test.getOrder()) && getQualifier().equals(test.getQualifier()));
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
-		result = 7 * result + getOrder().hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
+		if (getOrder() != null)
+			result = 7 * result + getOrder().hashCode();
 		result = 7 * result + getQualifier().hashCode();
 		return (result);
 	}
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.summary;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -205,7 +206,7 @@ public final class PostalAddress extends AbstractBaseComponent {
 				Util.addDDMSChildElement(element, PROVINCE_NAME, stateOrProvince);
 			Util.addDDMSChildElement(element, POSTAL_CODE_NAME, postalCode);
 			if (countryCode != null)
-				element.appendChild(countryCode.getXOMElementCopy());
+				appendComponent(element, countryCode);
 			_streets = streets;
 			_city = city;
 			_state = hasState ? stateOrProvince : "";
@@ -230,7 +231,7 @@ public final class PostalAddress extends AbstractBaseComponent {
 		try {
 			Element element = Util.buildDDMSElement(PostalAddress.getName(DDMSVersion.getCurrentVersion()), null);
 			if (address != null) {
-				element.appendChild(address.getXOMElementCopy());
+				appendComponent(element, address);
 				if (address instanceof GeneralAddressClass)
 					_tspiAddress = (GeneralAddressClass) address;
 				if (address instanceof IntersectionAddress)
@@ -292,24 +293,22 @@ public final class PostalAddress extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
 		if (!getDDMSVersion().isAtLeast("5.0")) {
-			text.append(buildOutput(isHTML, localPrefix + STREET_NAME, getStreets()));
-			text.append(buildOutput(isHTML, localPrefix + CITY_NAME, getCity()));
-			text.append(buildOutput(isHTML, localPrefix + STATE_NAME, getState()));
-			text.append(buildOutput(isHTML, localPrefix + PROVINCE_NAME, getProvince()));
-			text.append(buildOutput(isHTML, localPrefix + POSTAL_CODE_NAME, getPostalCode()));
+			buildOutput(text, isHTML, localPrefix, STREET_NAME, getStreets());
+			buildOutput(text, isHTML, localPrefix, CITY_NAME, getCity());
+			buildOutput(text, isHTML, localPrefix, STATE_NAME, getState());
+			buildOutput(text, isHTML, localPrefix, PROVINCE_NAME, getProvince());
+			buildOutput(text, isHTML, localPrefix, POSTAL_CODE_NAME, getPostalCode());
 			if (getCountryCode() != null)
-				text.append(getCountryCode().getOutput(isHTML, localPrefix, ""));
+				getCountryCode().writeOutput(text, isHTML, localPrefix, "");
 		}
 		else {
-			text.append(getTspiAddress().getOutput(isHTML, localPrefix, ""));
+			getTspiAddress().writeOutput(text, isHTML, localPrefix, "");
 		}
-		return (text.toString());
 	}
 
 	/**
@@ -337,10 +336,10 @@ public final class PostalAddress extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getStreets().hashCode();
 		result = 7 * result + getCity().hashCode();
 		result = 7 * result + getState().hashCode();
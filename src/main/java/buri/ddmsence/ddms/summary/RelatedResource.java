@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.summary;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -164,7 +165,7 @@ public final class RelatedResource extends AbstractQualifierValue {
 			Util.addDDMSAttribute(innerElement, getQualifierName(), qualifier);
 			Util.addDDMSAttribute(innerElement, getValueName(), value);
 			for (Link link : links) {
-				innerElement.appendChild(link.getXOMElementCopy());
+				appendComponent(innerElement, link);
 			}
 
 			if (!version.isAtLeast("4.0.1"))
@@ -228,20 +229,18 @@ public final class RelatedResource extends AbstractQualifierValue {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
 		if (!DDMSVersion.getCurrentVersion().isAtLeast("4.0.1"))
 			localPrefix += "RelatedResource.";
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix + RELATIONSHIP_NAME, getRelationship()));
-		text.append(buildOutput(isHTML, localPrefix + DIRECTION_NAME, getDirection()));
-		text.append(buildOutput(isHTML, localPrefix + getQualifierName(), getQualifier()));
-		text.append(buildOutput(isHTML, localPrefix + getValueName(), getValue()));
-		text.append(buildOutput(isHTML, localPrefix, getLinks()));
-		text.append(getSecurityAttributes().getOutput(isHTML, localPrefix));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, RELATIONSHIP_NAME, getRelationship());
+		buildOutput(text, isHTML, localPrefix, DIRECTION_NAME, getDirection());
+		buildOutput(text, isHTML, localPrefix, getQualifierName(), getQualifier());
+		buildOutput(text, isHTML, localPrefix, getValueName(), getValue());
+		buildOutput(text, isHTML, localPrefix, getLinks());
+		getSecurityAttributes().writeOutput(text, isHTML, localPrefix);
 	}
 
 	/**
@@ -265,10 +264,10 @@ public final class RelatedResource extends AbstractQualifierValue {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getRelationship().hashCode();
 		result = 7 * result + getDirection().hashCode();
 		return (result);
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.summary;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -152,13 +153,13 @@ public final class SubjectCoverage extends AbstractBaseComponent {
 			Element subjectElement = DDMSVersion.getCurrentVersion().isAtLeast("4.0.1") ? element
 				: Util.buildDDMSElement(SUBJECT_NAME, null);
 			for (Keyword keyword : keywords)
-				subjectElement.appendChild(keyword.getXOMElementCopy());
+				appendComponent(subjectElement, keyword);
 			for (Category category : categories)
-				subjectElement.appendChild(category.getXOMElementCopy());
+				appendComponent(subjectElement, category);
 			for (ProductionMetric metric : productionMetrics)
-				subjectElement.appendChild(metric.getXOMElementCopy());
+				appendComponent(subjectElement, metric);
 			for (NonStateActor actor : nonStateActors)
-				subjectElement.appendChild(actor.getXOMElementCopy());
+				appendComponent(subjectElement, actor);
 
 			if (!DDMSVersion.getCurrentVersion().isAtLeast("4.0.1"))
 				element.appendChild(subjectElement);
@@ -221,19 +222,17 @@ public final class SubjectCoverage extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
 		if (!getDDMSVersion().isAtLeast("4.0.1"))
 			localPrefix += SUBJECT_NAME + ".";
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix, getKeywords()));
-		text.append(buildOutput(isHTML, localPrefix, getCategories()));
-		text.append(buildOutput(isHTML, localPrefix, getProductionMetrics()));
-		text.append(buildOutput(isHTML, localPrefix, getNonStateActors()));
-		text.append(getSecurityAttributes().getOutput(isHTML, localPrefix));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, getKeywords());
+		buildOutput(text, isHTML, localPrefix, getCategories());
+		buildOutput(text, isHTML, localPrefix, getProductionMetrics());
+		buildOutput(text, isHTML, localPrefix, getNonStateActors());
+		getSecurityAttributes().writeOutput(text, isHTML, localPrefix);
 	}
 
 	/**
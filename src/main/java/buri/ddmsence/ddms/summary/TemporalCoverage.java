@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.summary;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -88,6 +89,8 @@ public final class TemporalCoverage extends AbstractBaseComponent {
 	private String _name = DEFAULT_VALUE;
 	private ApproximableDate _approximableStart = null;
 	private ApproximableDate _approximableEnd = null;
+	private String _startString = null;
+	private String _endString = null;
 	private SecurityAttributes _securityAttributes = null;
 
 	private static final String DEFAULT_VALUE = "Unknown";
@@ -224,7 +227,7 @@ public final class TemporalCoverage extends AbstractBaseComponent {
 			Util.addDDMSChildElement(periodElement, TIME_PERIOD_NAME_NAME, timePeriodName);
 
 			if (approximableStart != null) {
-				element.appendChild(approximableStart.getXOMElementCopy());
+				appendComponent(element, approximableStart);
 				_approximableStart = approximableStart;
 			}
 			else {
@@ -233,7 +236,7 @@ public final class TemporalCoverage extends AbstractBaseComponent {
 			}
 
 			if (approximableEnd != null) {
-				element.appendChild(approximableEnd.getXOMElementCopy());
+				appendComponent(element, approximableEnd);
 				_approximableEnd = approximableEnd;
 			}
 			else {
@@ -300,22 +303,20 @@ public final class TemporalCoverage extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
 		if (!getDDMSVersion().isAtLeast("4.0.1"))
 			localPrefix += TIME_PERIOD_NAME + ".";
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix + TIME_PERIOD_NAME_NAME, getTimePeriodName()));
-		text.append(buildOutput(isHTML, localPrefix + START_NAME, getStartString()));
-		text.append(buildOutput(isHTML, localPrefix + END_NAME, getEndString()));
+		buildOutput(text, isHTML, localPrefix, TIME_PERIOD_NAME_NAME, getTimePeriodName());
+		buildOutput(text, isHTML, localPrefix, START_NAME, getStartString());
+		buildOutput(text, isHTML, localPrefix, END_NAME, getEndString());
 		if (getApproximableStart() != null)
-			text.append(getApproximableStart().getOutput(isHTML, localPrefix, ""));
+			getApproximableStart().writeOutput(text, isHTML, localPrefix, "");
 		if (getApproximableEnd() != null)
-			text.append(getApproximableEnd().getOutput(isHTML, localPrefix, ""));
-		text.append(getSecurityAttributes().getOutput(isHTML, localPrefix));
-		return (text.toString());
+			getApproximableEnd().writeOutput(text, isHTML, localPrefix, "");
+		getSecurityAttributes().writeOutput(text, isHTML, localPrefix);
 	}
 
 	/**
@@ -341,10 +342,10 @@ public final class TemporalCoverage extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getTimePeriodName().hashCode();
 		result = 7 * result + getStartString().hashCode();
 		result = 7 * result + getEndString().hashCode();
@@ -401,14 +402,9 @@ public final class TemporalCoverage extends AbstractBaseComponent {
 	 * will return "Not Applicable" or "Unknown". Use <code>getStart</code> to work with this value as a calendar date.
 	 */
 	public String getStartString() {
-		Element startElement = getTimePeriodElement().getFirstChildElement(START_NAME, getNamespace());
-		if (startElement == null)
-			return ("");
-		String value = startElement.getValue();
-		if (Util.isEmpty(value))
-			return (DEFAULT_VALUE);
-		return (value);
-		// return (Util.isEmpty(value) ? DEFAULT_VALUE : value);
+		if (_startString == null)
+			_startString = getDateString(START_NAME);
+		return (_startString);
 	}
 
 	/**
@@ -433,10 +429,22 @@ public final class TemporalCoverage extends AbstractBaseComponent {
 	 * return "Not Applicable" or "Unknown". Use <code>getEnd</code> to work with this value as a calendar date.
 	 */
 	public String getEndString() {
-		Element endElement = getTimePeriodElement().getFirstChildElement(END_NAME, getNamespace());
-		if (endElement == null)
+		if (_endString == null)
+			_endString = getDateString(END_NAME);
+		return (_endString);
+	}
+
+	/**
+	 * Helper method to read the exact start or end date
+	 * 
+	 * @param name the local name of the date element, start or end
+	 * @return the date, the default value if the element is empty, or an empty string if it does not exist
+	 */
+	private String getDateString(String name) {
+		Element dateElement = getTimePeriodElement().getFirstChildElement(name, getNamespace());
+		if (dateElement == null)
 			return ("");
-		String value = endElement.getValue();
+		String value = dateElement.getValue();
 		return (Util.isEmpty(value) ? DEFAULT_VALUE : value);
 	}
 
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.summary;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
@@ -208,16 +209,14 @@ public final class VerticalExtent extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix + UOM_NAME, getUnitOfMeasure()));
-		text.append(buildOutput(isHTML, localPrefix + DATUM_NAME, getDatum()));
-		text.append(buildOutput(isHTML, localPrefix + "minimum", String.valueOf(getMinVerticalExtent())));
-		text.append(buildOutput(isHTML, localPrefix + "maximum", String.valueOf(getMaxVerticalExtent())));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, UOM_NAME, getUnitOfMeasure());
+		buildOutput(text, isHTML, localPrefix, DATUM_NAME, getDatum());
+		buildOutput(text, isHTML, localPrefix, "minimum", String.valueOf(getMinVerticalExtent()));
+		buildOutput(text, isHTML, localPrefix, "maximum", String.valueOf(getMaxVerticalExtent()));
 	}
 
 	/**
@@ -234,10 +233,10 @@ public final class VerticalExtent extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getUnitOfMeasure().hashCode();
 		result = 7 * result + getDatum().hashCode();
 		result = 7 * result + getMinVerticalExtent().hashCode();
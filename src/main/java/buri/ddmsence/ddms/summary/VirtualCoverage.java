@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.summary;
 
+import java.io.IOException;
 import java.io.Serializable;
 
 import nu.xom.Element;
@@ -173,17 +174,15 @@ public final class VirtualCoverage extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix + ADDRESS_NAME, getAddress()));
-		text.append(buildOutput(isHTML, localPrefix + PROTOCOL_NAME, getProtocol()));
-		text.append(buildOutput(isHTML, localPrefix + ACCESS_NAME, getAccess()));
-		text.append(buildOutput(isHTML, localPrefix + NETWORK_NAME, getNetwork()));
-		text.append(getSecurityAttributes().getOutput(isHTML, localPrefix));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, ADDRESS_NAME, getAddress());
+		buildOutput(text, isHTML, localPrefix, PROTOCOL_NAME, getProtocol());
+		buildOutput(text, isHTML, localPrefix, ACCESS_NAME, getAccess());
+		buildOutput(text, isHTML, localPrefix, NETWORK_NAME, getNetwork());
+		getSecurityAttributes().writeOutput(text, isHTML, localPrefix);
 	}
 
 	/**
@@ -200,10 +199,10 @@ public final class VirtualCoverage extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getAddress().hashCode();
 		result = 7 * result + getProtocol().hashCode();
 		result = 7 * result + getAccess().hashCode();
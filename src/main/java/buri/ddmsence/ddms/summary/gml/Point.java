@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.summary.gml;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -102,7 +103,7 @@ public final class Point extends AbstractBaseComponent {
 			Element element = Util.buildElement(PropertyReader.getPrefix("gml"), Point.getName(version),
 				version.getGmlNamespace(), null);
 			if (position != null) {
-				element.appendChild(position.getXOMElementCopy());
+				appendComponent(element, position);
 			}
 			Util.addAttribute(element, PropertyReader.getPrefix("gml"), ID_NAME,
 				DDMSVersion.getCurrentVersion().getGmlNamespace(), id);
@@ -143,15 +144,13 @@ public final class Point extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix + ID_NAME, getId()));
-		text.append(getSRSAttributes().getOutput(isHTML, localPrefix));
-		text.append(getPosition().getOutput(isHTML, localPrefix, ""));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, ID_NAME, getId());
+		getSRSAttributes().writeOutput(text, isHTML, localPrefix);
+		getPosition().writeOutput(text, isHTML, localPrefix, "");
 	}
 
 	/**
@@ -175,10 +174,10 @@ public final class Point extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getSRSAttributes().hashCode();
 		result = 7 * result + getId().hashCode();
 		return (result);
@@ -216,6 +215,13 @@ public final class Point extends AbstractBaseComponent {
 		return (_position);
 	}
 
+	/**
+	 * Accessor for the coordinates of the position as primitive values. Returns a copy.
+	 */
+	public double[] getCoordinateArray() {
+		return (getPosition().getCoordinateArray());
+	}
+
 	/**
 	 * Builder for this DDMS component.
 	 * 
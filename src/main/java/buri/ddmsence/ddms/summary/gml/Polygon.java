@@ -19,8 +19,10 @@
  */
 package buri.ddmsence.ddms.summary.gml;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -72,7 +74,10 @@ import buri.ddmsence.util.Util;
  */
 public final class Polygon extends AbstractBaseComponent {
 
-	private List<Position> _positions;
+	private volatile List<Position> _positions;
+	private boolean _hasPositionAttributes = false;
+	private double[] _coordinates;
+	private int[] _offsets;
 	private SRSAttributes _srsAttributes;
 
 	private static final String EXTERIOR_NAME = "exterior";
@@ -82,23 +87,38 @@ public final class Polygon extends AbstractBaseComponent {
 	/**
 	 * Constructor for creating a component from a XOM Element
 	 * 
+	 * <p>The gml:pos coordinates are parsed straight into a packed array of primitive values, which is used for
+	 * validation, equality and hash codes. Position components are only built up front if a gml:pos has its own SRS
+	 * attributes. Otherwise, they are built once, when they are first requested through <code>getPositions()</code>,
+	 * the output methods, or the nested components.</p>
+	 * 
 	 * @param element the XOM element representing this
 	 * @throws InvalidDDMSException if any required information is missing or malformed
 	 */
 	public Polygon(Element element) throws InvalidDDMSException {
 		try {
 			setXOMElement(element, false);
-			_positions = new ArrayList<Position>();
-			Element extElement = element.getFirstChildElement(EXTERIOR_NAME, getNamespace());
-			if (extElement != null) {
-				Element ringElement = extElement.getFirstChildElement(LINEAR_RING_NAME, getNamespace());
-				if (ringElement != null) {
-					Elements positions = ringElement.getChildElements(Position.getName(getDDMSVersion()),
-						getNamespace());
-					for (int i = 0; i < positions.size(); i++) {
-						_positions.add(new Position(positions.get(i)));
-					}
+			Elements positions = getPositionElements();
+			for (int i = 0; i < positions.size(); i++) {
+				if (positions.get(i).getAttributeCount() > 0)
+					_hasPositionAttributes = true;
+			}
+			if (_hasPositionAttributes) {
+				List<Position> list = new ArrayList<Position>();
+				for (int i = 0; i < positions.size(); i++)
+					list.add(new Position(positions.get(i)));
+				setPositions(list);
+			}
+			else {
+				double[][] tuples = new double[positions.size()][];
+				for (int i = 0; i < positions.size(); i++) {
+					tuples[i] = Position.parseCoordinates(positions.get(i).getValue());
+
+					// Let the Position report the exact problem with an invalid tuple
+					if (!Position.isValidCoordinates(tuples[i]))
+						new Position(positions.get(i));
 				}
+				packCoordinates(tuples);
 			}
 			_srsAttributes = new SRSAttributes(element);
 			validate();
@@ -127,7 +147,7 @@ public final class Polygon extends AbstractBaseComponent {
 			String gmlNamespace = version.getGmlNamespace();
 			Element ringElement = Util.buildElement(gmlPrefix, LINEAR_RING_NAME, gmlNamespace, null);
 			for (Position pos : positions) {
-				ringElement.appendChild(pos.getXOMElementCopy());
+				appendComponent(ringElement, pos);
 			}
 			Element extElement = Util.buildElement(gmlPrefix, EXTERIOR_NAME, gmlNamespace, null);
 			extElement.appendChild(ringElement);
@@ -135,7 +155,11 @@ public final class Polygon extends AbstractBaseComponent {
 			element.appendChild(extElement);
 			Util.addAttribute(element, gmlPrefix, ID_NAME, gmlNamespace, id);
 
-			_positions = positions;
+			setPositions(positions);
+			for (Position pos : positions) {
+				if (!new SRSAttributes.Builder(pos.getSRSAttributes()).isEmpty())
+					_hasPositionAttributes = true;
+			}
 			_srsAttributes = SRSAttributes.getNonNullInstance(srsAttributes);
 			_srsAttributes.addTo(element);
 			setXOMElement(element, true);
@@ -146,6 +170,69 @@ public final class Polygon extends AbstractBaseComponent {
 		}
 	}
 
+	/**
+	 * Helper method to locate the gml:pos elements of this polygon.
+	 * 
+	 * @return the gml:pos elements, which may be empty if the exterior or LinearRing is missing
+	 */
+	private Elements getPositionElements() {
+		Element ringElement = null;
+		Element extElement = getXOMElement().getFirstChildElement(EXTERIOR_NAME, getNamespace());
+		if (extElement != null)
+			ringElement = extElement.getFirstChildElement(LINEAR_RING_NAME, getNamespace());
+		if (ringElement == null)
+			ringElement = new Element(LINEAR_RING_NAME, getNamespace());
+		return (ringElement.getChildElements(Position.getName(getDDMSVersion()), getNamespace()));
+	}
+
+	/**
+	 * Stores the positions of this polygon, along with their packed coordinates.
+	 * 
+	 * @param positions the positions
+	 */
+	private void setPositions(List<Position> positions) {
+		double[][] tuples = new double[positions.size()][];
+		for (int i = 0; i < positions.size(); i++)
+			tuples[i] = positions.get(i).getCoordinateArray();
+		packCoordinates(tuples);
+		_positions = positions;
+	}
+
+	/**
+	 * Packs the coordinates of each position into a single array. The offsets array holds the index of the first
+	 * coordinate of each position, followed by the total number of coordinates.
+	 * 
+	 * @param tuples the coordinates of each position
+	 */
+	private void packCoordinates(double[][] tuples) {
+		_offsets = new int[tuples.length + 1];
+		for (int i = 0; i < tuples.length; i++)
+			_offsets[i + 1] = _offsets[i] + tuples[i].length;
+		_coordinates = new double[_offsets[tuples.length]];
+		for (int i = 0; i < tuples.length; i++)
+			System.arraycopy(tuples[i], 0, _coordinates, _offsets[i], tuples[i].length);
+	}
+
+	/**
+	 * Checks whether two positions in this polygon have the same coordinates, using the same comparison as
+	 * Position.equals().
+	 * 
+	 * @param first the index of the first position
+	 * @param second the index of the second position
+	 * @return true if the coordinates are the same
+	 */
+	private boolean isSameCoordinates(int first, int second) {
+		int length = _offsets[first + 1] - _offsets[first];
+		if (length != _offsets[second + 1] - _offsets[second])
+			return (false);
+		for (int i = 0; i < length; i++) {
+			if (Double.doubleToLongBits(_coordinates[_offsets[first] + i]) != Double
+				.doubleToLongBits(_coordinates[_offsets[second] + i]))
+				return (false);
+		}
+		return (true);
+	}
+
 	/**
 	 * @see AbstractBaseComponent#validate()
 	 */
@@ -161,29 +248,41 @@ public final class Polygon extends AbstractBaseComponent {
 			Util.requireDDMSValue("LinearRing element", extElement.getFirstChildElement(LINEAR_RING_NAME,
 				getNamespace()));
 		}
-		List<Position> positions = getPositions();
-		for (Position pos : positions) {
-			if (pos.getSRSAttributes() != null) {
+		if (_hasPositionAttributes) {
+			for (Position pos : getPositions()) {
 				String srsName = pos.getSRSAttributes().getSrsName();
 				if (!Util.isEmpty(srsName) && !srsName.equals(getSRSAttributes().getSrsName()))
 					throw new InvalidDDMSException(
 						"The srsName of each position must match the srsName of the Polygon.");
 			}
 		}
-		if (positions.size() < 4)
+		int count = _offsets.length - 1;
+		if (count < 4)
 			throw new InvalidDDMSException("At least 4 positions must exist for a valid Polygon.");
-		if (!positions.isEmpty() && !positions.get(0).equals(positions.get(positions.size() - 1))) {
+		List<Position> positions = (_hasPositionAttributes ? getPositions() : null);
+		boolean isClosed = (positions != null ? positions.get(0).equals(positions.get(count - 1))
+			: isSameCoordinates(0, count - 1));
+		if (!isClosed)
 			throw new InvalidDDMSException("The first and last position in the Polygon must be the same.");
-		}
-		super.validate();
+
+		// The base validation would build every Position through the nested components, so it is not called. Each
+		// gml:pos was already checked as it was parsed, and shares the version of this Polygon.
+		Util.requireDDMSValue("name", getName());
+		validateWarnings();
 	}
 
 	/**
+	 * The warnings of the positions are only collected when they have their own SRS attributes, since a Position has
+	 * no other source of warnings.
+	 * 
 	 * @see AbstractBaseComponent#validateWarnings()
 	 */
 	protected void validateWarnings() {
 		addWarnings(getSRSAttributes().getValidationWarnings(), true);
-		super.validateWarnings();
+		if (_hasPositionAttributes) {
+			for (Position pos : getPositions())
+				addWarnings(pos.getValidationWarnings(), false);
+		}
 	}
 
 	/**
@@ -196,15 +295,13 @@ public final class Polygon extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix + ID_NAME, getId()));
-		text.append(getSRSAttributes().getOutput(isHTML, localPrefix));
-		text.append(buildOutput(isHTML, localPrefix, getPositions()));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, ID_NAME, getId());
+		getSRSAttributes().writeOutput(text, isHTML, localPrefix);
+		buildOutput(text, isHTML, localPrefix, getPositions());
 	}
 
 	/**
@@ -217,23 +314,38 @@ public final class Polygon extends AbstractBaseComponent {
 	}
 
 	/**
+	 * Polygons are compared by their packed coordinates, rather than through the nested components, so that no
+	 * Position is built. The positions themselves are only compared when one of them has its own SRS attributes.
+	 * 
 	 * @see Object#equals(Object)
 	 */
 	public boolean equals(Object obj) {
-		if (!super.equals(obj) || !(obj instanceof Polygon))
+		if (obj == this)
+			return (true);
+		if (!(obj instanceof Polygon) || hashCode() != obj.hashCode())
 			return (false);
 		Polygon test = (Polygon) obj;
-		return (getSRSAttributes().equals(test.getSRSAttributes())
-			&& getId().equals(test.getId()));
+		if (!getNamespace().equals(test.getNamespace()) || !getSRSAttributes().equals(test.getSRSAttributes())
+			|| !getId().equals(test.getId()) || !Arrays.equals(_offsets, test._offsets)
+			|| !Arrays.equals(_coordinates, test._coordinates))
+			return (false);
+		if (_hasPositionAttributes || test._hasPositionAttributes)
+			return (Util.listEquals(getPositions(), test.getPositions()));
+		return (true);
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * The hashcode is calculated from the packed coordinates, rather than through the nested components, so that no
+	 * Position is built.
+	 * 
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = getName().hashCode();
+		result = 7 * result + getNamespace().hashCode();
 		result = 7 * result + getSRSAttributes().hashCode();
 		result = 7 * result + getId().hashCode();
+		result = 7 * result + Arrays.hashCode(_coordinates);
 		return (result);
 	}
 
@@ -263,10 +375,37 @@ public final class Polygon extends AbstractBaseComponent {
 	}
 
 	/**
-	 * Accessor for the coordinates. May return null, but cannot happen after instantiation.
+	 * Accessor for the coordinates. May return null, but cannot happen after instantiation. If the polygon was built
+	 * from XML, the Position components are built on the first call.
 	 */
 	public List<Position> getPositions() {
-		return (Collections.unmodifiableList(_positions));
+		List<Position> positions = _positions;
+		if (positions == null) {
+			synchronized (this) {
+				if (_positions == null) {
+					List<Position> list = new ArrayList<Position>();
+					Elements elements = getPositionElements();
+					try {
+						for (int i = 0; i < elements.size(); i++)
+							list.add(new Position(elements.get(i)));
+					}
+					catch (InvalidDDMSException e) {
+						throw new IllegalStateException("Could not build the positions: " + e.getMessage());
+					}
+					_positions = list;
+				}
+				positions = _positions;
+			}
+		}
+		return (Collections.unmodifiableList(positions));
+	}
+
+	/**
+	 * Accessor for the coordinates of every position, packed in order into a single array of primitive values. For a
+	 * 2-dimensional polygon, this is {lat0, lon0, lat1, lon1, ...}. Returns a copy.
+	 */
+	public double[] getCoordinateArray() {
+		return (_coordinates.clone());
 	}
 
 	/**
@@ -19,8 +19,10 @@
  */
 package buri.ddmsence.ddms.summary.gml;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -66,7 +68,7 @@ import buri.ddmsence.util.Util;
 public final class Position extends AbstractBaseComponent {
 
 	private SRSAttributes _srsAttributes = null;
-	private List<Double> _coordinates = null;
+	private double[] _coordinates = null;
 
 	/**
 	 * Constructor for creating a component from a XOM Element
@@ -77,11 +79,7 @@ public final class Position extends AbstractBaseComponent {
 	public Position(Element element) throws InvalidDDMSException {
 		try {
 			setXOMElement(element, false);
-			List<String> tuple = Util.getXsListAsList(getCoordinatesAsXsList());
-			_coordinates = new ArrayList<Double>();
-			for (String coordinate : tuple) {
-				_coordinates.add(Double.valueOf(coordinate));
-			}
+			_coordinates = parseCoordinates(getCoordinatesAsXsList());
 			_srsAttributes = new SRSAttributes(element);
 			validate();
 		}
@@ -107,10 +105,16 @@ public final class Position extends AbstractBaseComponent {
 			Element element = Util.buildElement(PropertyReader.getPrefix("gml"), Position.getName(version),
 				version.getGmlNamespace(), Util.getXsList(coordinates));
 
-			_coordinates = coordinates;
 			_srsAttributes = SRSAttributes.getNonNullInstance(srsAttributes);
 			_srsAttributes.addTo(element);
-			setXOMElement(element, true);
+			setXOMElement(element, false);
+			_coordinates = new double[coordinates.size()];
+			for (int i = 0; i < _coordinates.length; i++) {
+				Double coordinate = coordinates.get(i);
+				Util.requireDDMSValue("coordinate", coordinate);
+				_coordinates[i] = coordinate.doubleValue();
+			}
+			validate();
 		}
 		catch (InvalidDDMSException e) {
 			e.setLocator(getQualifiedName());
@@ -118,17 +122,55 @@ public final class Position extends AbstractBaseComponent {
 		}
 	}
 
+	/**
+	 * Parses the xs:list of a gml:pos straight into primitive coordinates, without an intermediate list of tokens or
+	 * boxed values.
+	 * 
+	 * @param xsList the space-delimited coordinates
+	 * @return the coordinates, in order
+	 * @throws NumberFormatException if any coordinate is not a valid Double
+	 */
+	static double[] parseCoordinates(String xsList) {
+		double[] coordinates = new double[3];
+		int count = 0;
+		int length = xsList.length();
+		int start = 0;
+		while (start < length) {
+			int end = xsList.indexOf(' ', start);
+			if (end == -1)
+				end = length;
+			String token = xsList.substring(start, end);
+			if (!Util.isEmpty(token)) {
+				if (count == coordinates.length)
+					coordinates = Arrays.copyOf(coordinates, count * 2);
+				coordinates[count++] = Double.parseDouble(token);
+			}
+			start = end + 1;
+		}
+		return (count == coordinates.length ? coordinates : Arrays.copyOf(coordinates, count));
+	}
+
+	/**
+	 * Checks whether a list of coordinates would make a valid position, without building one. This is the same check
+	 * performed by <code>validate</code> on the coordinates.
+	 * 
+	 * @param coordinates the coordinates
+	 * @return true if there are 2 or 3 coordinates, with a valid latitude and longitude
+	 */
+	static boolean isValidCoordinates(double[] coordinates) {
+		return (Util.isBounded(coordinates.length, 2, 3) && coordinates[0] >= -90 && coordinates[0] <= 90
+			&& coordinates[1] >= -180 && coordinates[1] <= 180);
+	}
+
 	/**
 	 * @see AbstractBaseComponent#validate()
 	 */
 	protected void validate() throws InvalidDDMSException {
 		Util.requireQName(getXOMElement(), getNamespace(), Position.getName(getDDMSVersion()));
-		for (Double coordinate : getCoordinates())
-			Util.requireDDMSValue("coordinate", coordinate);
-		if (!Util.isBounded(getCoordinates().size(), 2, 3))
+		if (!Util.isBounded(_coordinates.length, 2, 3))
 			throw new InvalidDDMSException("A position must be represented by either 2 or 3 coordinates.");
-		Util.requireValidLatitude(getCoordinates().get(0));
-		Util.requireValidLongitude(getCoordinates().get(1));
+		Util.requireValidLatitude(Double.valueOf(_coordinates[0]));
+		Util.requireValidLongitude(Double.valueOf(_coordinates[1]));
 		super.validate();
 	} 
 
@@ -141,14 +183,12 @@ public final class Position extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, getName(), suffix);
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix, getCoordinatesAsXsList()));
-		text.append(getSRSAttributes().getOutput(isHTML, localPrefix + "."));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, getCoordinatesAsXsList());
+		getSRSAttributes().writeOutput(text, isHTML, localPrefix + ".");
 	}
 
 	/**
@@ -158,18 +198,16 @@ public final class Position extends AbstractBaseComponent {
 		if (!super.equals(obj) || !(obj instanceof Position))
 			return (false);
 		Position test = (Position) obj;
-		return (getSRSAttributes().equals(test.getSRSAttributes())
-			&& getCoordinates().size() == test.getCoordinates().size()
-			&& Util.listEquals(getCoordinates(), test.getCoordinates()));
+		return (getSRSAttributes().equals(test.getSRSAttributes()) && Arrays.equals(_coordinates, test._coordinates));
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getSRSAttributes().hashCode();
-		result = 7 * result + getCoordinatesAsXsList().hashCode();
+		result = 7 * result + Arrays.hashCode(_coordinates);
 		return (result);
 	}
 
@@ -195,7 +233,17 @@ public final class Position extends AbstractBaseComponent {
 	 * Accessor for the coordinates of the position. May return null, but cannot happen after instantiation.
 	 */
 	public List<Double> getCoordinates() {
-		return (Collections.unmodifiableList(_coordinates));
+		List<Double> coordinates = new ArrayList<Double>(_coordinates.length);
+		for (double coordinate : _coordinates)
+			coordinates.add(Double.valueOf(coordinate));
+		return (Collections.unmodifiableList(coordinates));
+	}
+
+	/**
+	 * Accessor for the coordinates of the position as primitive values. Returns a copy.
+	 */
+	public double[] getCoordinateArray() {
+		return (_coordinates.clone());
 	}
 
 	/**
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.summary.gml;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -181,18 +182,16 @@ public final class SRSAttributes extends AbstractAttributeGroup {
 	}
 
 	/**
-	 * @see AbstractAttributeGroup#getOutput(boolean, String)
+	 * @see AbstractAttributeGroup#writeOutput(Appendable, boolean, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix) throws IOException {
 		String localPrefix = Util.getNonNullString(prefix);
-		StringBuffer text = new StringBuffer();
-		text.append(Resource.buildOutput(isHTML, localPrefix + "srsName", getSrsName()));
+		Resource.buildOutput(text, isHTML, localPrefix, "srsName", getSrsName());
 		if (getSrsDimension() != null) {
-			text.append(Resource.buildOutput(isHTML, localPrefix + "srsDimension", String.valueOf(getSrsDimension())));
+			Resource.buildOutput(text, isHTML, localPrefix, "srsDimension", String.valueOf(getSrsDimension()));
 		}
-		text.append(Resource.buildOutput(isHTML, localPrefix + "axisLabels", getAxisLabelsAsXsList()));
-		text.append(Resource.buildOutput(isHTML, localPrefix + "uomLabels", getUomLabelsAsXsList()));
-		return (text.toString());
+		Resource.buildOutput(text, isHTML, localPrefix, "axisLabels", getAxisLabelsAsXsList());
+		Resource.buildOutput(text, isHTML, localPrefix, "uomLabels", getUomLabelsAsXsList());
 	}
 
 	/**
@@ -19,6 +19,8 @@
  */
 package buri.ddmsence.ddms.summary.tspi;
 
+import java.io.IOException;
+
 import nu.xom.Element;
 import buri.ddmsence.AbstractBaseComponent;
 import buri.ddmsence.AbstractTspiShape;
@@ -81,13 +83,11 @@ public final class Ellipse extends AbstractTspiShape {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, "", suffix);
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix + "shapeType", getName()));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, "shapeType", getName());
 	}
 
 	/**
@@ -19,6 +19,8 @@
  */
 package buri.ddmsence.ddms.summary.tspi;
 
+import java.io.IOException;
+
 import nu.xom.Element;
 import buri.ddmsence.AbstractBaseComponent;
 import buri.ddmsence.AbstractTspiAddress;
@@ -77,13 +79,11 @@ public final class GeneralAddressClass extends AbstractTspiAddress {
 	}
 
 	/**
-	 * @see AbstractBaseComponent#getOutput(boolean, String, String)
+	 * @see AbstractBaseComponent#writeOutput(Appendable, boolean, String, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix, String suffix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix, String suffix) throws IOException {
 		String localPrefix = buildPrefix(prefix, "", suffix);
-		StringBuffer text = new StringBuffer();
-		text.append(buildOutput(isHTML, localPrefix + "addressType", getName()));
-		return (text.toString());
+		buildOutput(text, isHTML, localPrefix, "addressType", getName());
 	}
 
 	/**
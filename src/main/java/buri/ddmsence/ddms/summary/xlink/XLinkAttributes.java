@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.summary.xlink;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
@@ -291,20 +292,18 @@ public final class XLinkAttributes extends AbstractAttributeGroup {
 	}
 
 	/**
-	 * @see AbstractAttributeGroup#getOutput(boolean, String)
+	 * @see AbstractAttributeGroup#writeOutput(Appendable, boolean, String)
 	 */
-	public String getOutput(boolean isHTML, String prefix) {
+	public void writeOutput(Appendable text, boolean isHTML, String prefix) throws IOException {
 		String localPrefix = Util.getNonNullString(prefix);
-		StringBuffer text = new StringBuffer();
-		text.append(Resource.buildOutput(isHTML, localPrefix + TYPE_NAME, getType()));
-		text.append(Resource.buildOutput(isHTML, localPrefix + HREF_NAME, getHref()));
-		text.append(Resource.buildOutput(isHTML, localPrefix + ROLE_NAME, getRole()));
-		text.append(Resource.buildOutput(isHTML, localPrefix + TITLE_NAME, getTitle()));
-		text.append(Resource.buildOutput(isHTML, localPrefix + LABEL_NAME, getLabel()));
-		text.append(Resource.buildOutput(isHTML, localPrefix + ARC_ROLE_NAME, getArcrole()));
-		text.append(Resource.buildOutput(isHTML, localPrefix + SHOW_NAME, getShow()));
-		text.append(Resource.buildOutput(isHTML, localPrefix + ACTUATE_NAME, getActuate()));
-		return (text.toString());
+		Resource.buildOutput(text, isHTML, localPrefix, TYPE_NAME, getType());
+		Resource.buildOutput(text, isHTML, localPrefix, HREF_NAME, getHref());
+		Resource.buildOutput(text, isHTML, localPrefix, ROLE_NAME, getRole());
+		Resource.buildOutput(text, isHTML, localPrefix, TITLE_NAME, getTitle());
+		Resource.buildOutput(text, isHTML, localPrefix, LABEL_NAME, getLabel());
+		Resource.buildOutput(text, isHTML, localPrefix, ARC_ROLE_NAME, getArcrole());
+		Resource.buildOutput(text, isHTML, localPrefix, SHOW_NAME, getShow());
+		Resource.buildOutput(text, isHTML, localPrefix, ACTUATE_NAME, getActuate());
 	}
 
 	/**
@@ -0,0 +1,454 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import nu.xom.Attribute;
+import nu.xom.Comment;
+import nu.xom.Element;
+import nu.xom.IllegalNameException;
+import nu.xom.Node;
+import nu.xom.ProcessingInstruction;
+import nu.xom.Text;
+import nu.xom.WellformednessException;
+import buri.ddmsence.ddms.IDDMSComponent;
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+
+/**
+ * Codec which converts DDMS components to and from a compact binary form, for caching and for handing records between
+ * processes.
+ * 
+ * <p>
+ * The binary form is a lossless copy of the XML information in a component: every element, attribute, namespace
+ * declaration, text node, comment, and processing instruction is retained, so extensible elements and attributes
+ * survive a round trip and the decoded component produces the same <code>toXML()</code> output as the original.
+ * Decoding builds the XOM tree directly, without an XML parser or schema validation, which makes restoring a Resource
+ * several times faster than reading its XML with a DDMSReader. The component constructors still perform their own
+ * validation.
+ * </p>
+ * 
+ * <p>
+ * Records use a tag-length-value layout:
+ * </p>
+ * <ul>
+ * <li>A header of the magic bytes "DDMB", a format version byte, and the DDMS version of the record.</li>
+ * <li>Each node is a tag byte followed by its values. An element holds its name and namespace, a count of additional
+ * namespace declarations and their prefix-URI pairs, a count of attributes and their names, namespaces, and values, and
+ * a count of child nodes followed by the children themselves. Text, comments, and processing instructions hold their
+ * strings.</li>
+ * <li>Counts and lengths are unsigned variable-length integers.</li>
+ * <li>Every string is stored once per record. The first occurrence is written as a zero, a byte length, and its UTF-8
+ * bytes, and is added to the record's dictionary. Later occurrences are written as a 1-based dictionary index. This
+ * keeps repeated namespaces, element names, and controlled vocabulary tokens such as classifications down to one or two
+ * bytes each.</li>
+ * </ul>
+ * 
+ * <p>
+ * Records from an unsupported format version cannot be decoded. This class is thread-safe.
+ * </p>
+ * 
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public final class BinaryCodec {
+
+	/** The format version written into the header of every record */
+	public static final int FORMAT_VERSION = 1;
+
+	static final byte[] MAGIC = new byte[] { 'D', 'D', 'M', 'B' };
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	static final int TAG_ELEMENT = 1;
+	static final int TAG_TEXT = 2;
+	static final int TAG_COMMENT = 3;
+	static final int TAG_PROCESSING_INSTRUCTION = 4;
+
+	/**
+	 * Private to prevent instantiation
+	 */
+	private BinaryCodec() {}
+
+	/**
+	 * Encodes a component. The component's XOM element is copied first. Resources can be encoded without the copy
+	 * through <code>Resource.toBinary()</code>.
+	 * 
+	 * @param component the component to encode
+	 * @return the binary record
+	 */
+	public static byte[] encode(IDDMSComponent component) {
+		Util.requireValue("component", component);
+		String version = DDMSVersion.getVersionForNamespace(component.getNamespace()).getVersion();
+		return (encode(version, component.getXOMElementCopy()));
+	}
+
+	/**
+	 * Encodes a XOM element and its descendants.
+	 * 
+	 * @param version the DDMS version number of the element, such as "5.0"
+	 * @param element the element to encode
+	 * @return the binary record
+	 */
+	public static byte[] encode(String version, Element element) {
+		Util.requireValue("version", version);
+		Util.requireValue("element", element);
+		Encoder encoder = new Encoder();
+		encoder.writeBytes(MAGIC);
+		encoder.writeByte(FORMAT_VERSION);
+		encoder.writeString(version);
+		encoder.writeNode(element);
+		return (encoder.toByteArray());
+	}
+
+	/**
+	 * Restores a Resource from a binary record. The current DDMSVersion is set to the version of the record, as with
+	 * <code>DDMSReader</code>.
+	 * 
+	 * @param record the binary record
+	 * @return a new Resource
+	 * @throws InvalidDDMSException if the record is malformed, or the resource is invalid
+	 */
+	public static Resource decodeResource(byte[] record) throws InvalidDDMSException {
+		Decoder decoder = new Decoder(record);
+		DDMSVersion.setCurrentVersion(decoder.readHeader());
+		return (new Resource(decoder.readElement()));
+	}
+
+	/**
+	 * Restores the XOM element from a binary record.
+	 * 
+	 * @param record the binary record
+	 * @return a new, detached XOM element
+	 * @throws InvalidDDMSException if the record is malformed
+	 */
+	public static Element decodeElement(byte[] record) throws InvalidDDMSException {
+		Decoder decoder = new Decoder(record);
+		decoder.readHeader();
+		return (decoder.readElement());
+	}
+
+	/**
+	 * Returns the DDMS version number of a binary record, such as "5.0", without decoding the rest of it.
+	 * 
+	 * @param record the binary record
+	 * @return the DDMS version number
+	 * @throws InvalidDDMSException if the record is malformed
+	 */
+	public static String getDDMSVersion(byte[] record) throws InvalidDDMSException {
+		return (new Decoder(record).readHeader());
+	}
+
+	/**
+	 * Reads and checks the magic bytes and format version at the start of a record. This and the other static readers
+	 * are shared with the ResourceView, so both decoders reject malformed records in the same way.
+	 * 
+	 * @param record the record, positioned at its start
+	 * @throws InvalidDDMSException if the record is not a binary record, or has an unsupported format version
+	 */
+	static void readHeader(ByteBuffer record) throws InvalidDDMSException {
+		for (int i = 0; i < MAGIC.length; i++) {
+			if (readByte(record) != MAGIC[i])
+				throw new InvalidDDMSException("The record is not a DDMSence binary record.");
+		}
+		int format = readByte(record);
+		if (format != FORMAT_VERSION)
+			throw new InvalidDDMSException("Unsupported binary format version: " + format);
+	}
+
+	/**
+	 * Reads the byte length of an inline string, which must fit in the rest of the record.
+	 * 
+	 * @param record the record, positioned at the length
+	 * @return the length
+	 * @throws InvalidDDMSException if the length is malformed, or runs past the end of the record
+	 */
+	static int readLength(ByteBuffer record) throws InvalidDDMSException {
+		int length = readInt(record);
+		if (length > record.remaining())
+			throw new InvalidDDMSException("The binary record is truncated.");
+		return (length);
+	}
+
+	/**
+	 * Reads an unsigned variable-length integer. Values which do not fit in a non-negative int are rejected, so
+	 * a corrupt record cannot produce a negative length or count.
+	 * 
+	 * @param record the record, positioned at the integer
+	 * @return the integer
+	 * @throws InvalidDDMSException if the integer is malformed, or runs past the end of the record
+	 */
+	static int readInt(ByteBuffer record) throws InvalidDDMSException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = readByte(record);
+			if (shift == 28 && (b & 0x78) != 0)
+				throw new InvalidDDMSException("Invalid integer in binary record.");
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return (value);
+		}
+		throw new InvalidDDMSException("Invalid integer in binary record.");
+	}
+
+	/**
+	 * Reads a single unsigned byte.
+	 * 
+	 * @param record the record, positioned at the byte
+	 * @return the byte
+	 * @throws InvalidDDMSException if the record has no more bytes
+	 */
+	static int readByte(ByteBuffer record) throws InvalidDDMSException {
+		if (!record.hasRemaining())
+			throw new InvalidDDMSException("The binary record is truncated.");
+		return (record.get() & 0xFF);
+	}
+
+	/**
+	 * Writes a single record into a growable byte array.
+	 */
+	private static class Encoder {
+		private byte[] _buffer = new byte[1024];
+		private int _size = 0;
+		private Map<String, Integer> _dictionary = new HashMap<String, Integer>();
+
+		/**
+		 * Writes a node and its descendants
+		 * 
+		 * @param node the node
+		 */
+		public void writeNode(Node node) {
+			if (node instanceof Element) {
+				Element element = (Element) node;
+				writeByte(TAG_ELEMENT);
+				writeString(element.getQualifiedName());
+				writeString(element.getNamespaceURI());
+				List<String> prefixes = new ArrayList<String>();
+				for (int i = 0; i < element.getNamespaceDeclarationCount(); i++) {
+					String prefix = element.getNamespacePrefix(i);
+					if (!prefix.equals(element.getNamespacePrefix()))
+						prefixes.add(prefix);
+				}
+				writeInt(prefixes.size());
+				for (String prefix : prefixes) {
+					writeString(prefix);
+					writeString(element.getNamespaceURI(prefix));
+				}
+				writeInt(element.getAttributeCount());
+				for (int i = 0; i < element.getAttributeCount(); i++) {
+					Attribute attribute = element.getAttribute(i);
+					writeString(attribute.getQualifiedName());
+					writeString(attribute.getNamespaceURI());
+					writeString(attribute.getValue());
+				}
+				writeInt(element.getChildCount());
+				for (int i = 0; i < element.getChildCount(); i++)
+					writeNode(element.getChild(i));
+			}
+			else if (node instanceof Text) {
+				writeByte(TAG_TEXT);
+				writeString(node.getValue());
+			}
+			else if (node instanceof Comment) {
+				writeByte(TAG_COMMENT);
+				writeString(node.getValue());
+			}
+			else if (node instanceof ProcessingInstruction) {
+				writeByte(TAG_PROCESSING_INSTRUCTION);
+				writeString(((ProcessingInstruction) node).getTarget());
+				writeString(node.getValue());
+			}
+			else
+				throw new IllegalArgumentException("Unsupported node type: " + node.getClass().getName());
+		}
+
+		/**
+		 * Writes a string, or a reference to the same string written earlier in the record.
+		 * 
+		 * @param value the string
+		 */
+		public void writeString(String value) {
+			Integer index = _dictionary.get(value);
+			if (index != null) {
+				writeInt(index.intValue());
+				return;
+			}
+			_dictionary.put(value, Integer.valueOf(_dictionary.size() + 1));
+			byte[] bytes = value.getBytes(UTF_8);
+			writeInt(0);
+			writeInt(bytes.length);
+			writeBytes(bytes);
+		}
+
+		/**
+		 * Writes an unsigned variable-length integer, 7 bits at a time.
+		 * 
+		 * @param value the non-negative value
+		 */
+		public void writeInt(int value) {
+			while ((value & ~0x7F) != 0) {
+				writeByte((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			writeByte(value);
+		}
+
+		/**
+		 * Writes a single byte
+		 */
+		public void writeByte(int value) {
+			ensureCapacity(1);
+			_buffer[_size++] = (byte) value;
+		}
+
+		/**
+		 * Writes an array of bytes
+		 */
+		public void writeBytes(byte[] bytes) {
+			ensureCapacity(bytes.length);
+			System.arraycopy(bytes, 0, _buffer, _size, bytes.length);
+			_size += bytes.length;
+		}
+
+		/**
+		 * Grows the buffer if needed
+		 */
+		private void ensureCapacity(int extra) {
+			if (_size + extra > _buffer.length)
+				_buffer = Arrays.copyOf(_buffer, Math.max(_buffer.length * 2, _size + extra));
+		}
+
+		/**
+		 * Returns a copy of the written bytes
+		 */
+		public byte[] toByteArray() {
+			return (Arrays.copyOf(_buffer, _size));
+		}
+	}
+
+	/**
+	 * Reads a single record from a byte array.
+	 */
+	private static class Decoder {
+		private ByteBuffer _record;
+		private List<String> _dictionary = new ArrayList<String>();
+
+		/**
+		 * Constructor
+		 * 
+		 * @param record the binary record
+		 */
+		public Decoder(byte[] record) {
+			Util.requireValue("record", record);
+			_record = ByteBuffer.wrap(record);
+		}
+
+		/**
+		 * Reads and checks the header
+		 * 
+		 * @return the DDMS version of the record
+		 */
+		public String readHeader() throws InvalidDDMSException {
+			BinaryCodec.readHeader(_record);
+			return (readString());
+		}
+
+		/**
+		 * Reads the next node, which must be an element
+		 */
+		public Element readElement() throws InvalidDDMSException {
+			try {
+				Node node = readNode();
+				if (!(node instanceof Element))
+					throw new InvalidDDMSException("The record does not contain an element.");
+				return ((Element) node);
+			}
+			catch (IllegalNameException e) {
+				throw new InvalidDDMSException(e);
+			}
+			catch (WellformednessException e) {
+				throw new InvalidDDMSException(e);
+			}
+		}
+
+		/**
+		 * Reads a node and its descendants
+		 */
+		private Node readNode() throws InvalidDDMSException {
+			int tag = readByte();
+			switch (tag) {
+				case TAG_ELEMENT:
+					Element element = new Element(readString(), readString());
+					for (int i = readInt(); i > 0; i--)
+						element.addNamespaceDeclaration(readString(), readString());
+					for (int i = readInt(); i > 0; i--)
+						element.addAttribute(new Attribute(readString(), readString(), readString()));
+					for (int i = readInt(); i > 0; i--)
+						element.appendChild(readNode());
+					return (element);
+				case TAG_TEXT:
+					return (new Text(readString()));
+				case TAG_COMMENT:
+					return (new Comment(readString()));
+				case TAG_PROCESSING_INSTRUCTION:
+					return (new ProcessingInstruction(readString(), readString()));
+				default:
+					throw new InvalidDDMSException("Unknown node tag in binary record: " + tag);
+			}
+		}
+
+		/**
+		 * Reads a string or a dictionary reference
+		 */
+		private String readString() throws InvalidDDMSException {
+			int index = readInt();
+			if (index > 0) {
+				if (index > _dictionary.size())
+					throw new InvalidDDMSException("Invalid string reference in binary record: " + index);
+				return (_dictionary.get(index - 1));
+			}
+			int length = readLength(_record);
+			String value = new String(_record.array(), _record.position(), length, UTF_8);
+			_record.position(_record.position() + length);
+			_dictionary.add(value);
+			return (value);
+		}
+
+		/**
+		 * Reads an unsigned variable-length integer
+		 */
+		private int readInt() throws InvalidDDMSException {
+			return (BinaryCodec.readInt(_record));
+		}
+
+		/**
+		 * Reads a single unsigned byte
+		 */
+		private int readByte() throws InvalidDDMSException {
+			return (BinaryCodec.readByte(_record));
+		}
+	}
+}
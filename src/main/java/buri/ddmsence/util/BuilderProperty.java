@@ -0,0 +1,407 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import nu.xom.Attribute;
+import buri.ddmsence.ddms.IDDMSComponent;
+
+/**
+ * Describes a single bean-style property of a component Builder, as used by the JSON mapping.
+ * 
+ * <p>
+ * A Builder class is any class with public, no-argument <code>commit()</code> and <code>isEmpty()</code> methods, which
+ * covers the Builders of components as well as those of attribute groups. A property is a public getter whose type is
+ * a String, Boolean, Integer, Double, XOM attribute type, List of Strings, nested Builder, or List of nested Builders.
+ * Scalar properties also need a matching setter. Nested Builders and Lists are populated through the getter, since the
+ * Builders create them lazily. Any other getter, such as the component pool, is not a property.
+ * </p>
+ * 
+ * <p>
+ * Properties are discovered once per Builder class and returned in name order.
+ * </p>
+ * 
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+final class BuilderProperty {
+
+	/**
+	 * The kinds of values a property can hold
+	 */
+	enum Kind {
+		STRING, BOOLEAN, INTEGER, DOUBLE, ATTRIBUTE_TYPE, STRING_LIST, BUILDER, BUILDER_LIST
+	}
+
+	private String _name;
+	private Kind _kind;
+	private Method _getter;
+	private Method _setter;
+	private Class<?> _builderClass;
+
+	private static final Map<Class<?>, List<BuilderProperty>> PROPERTIES = new HashMap<Class<?>, List<BuilderProperty>>();
+	private static final Map<Class<?>, Constructor<?>> BUILDER_CONSTRUCTORS = new HashMap<Class<?>, Constructor<?>>();
+
+	private static final Attribute.Type[] ATTRIBUTE_TYPES = new Attribute.Type[] { Attribute.Type.CDATA,
+		Attribute.Type.ENTITIES, Attribute.Type.ENTITY, Attribute.Type.ENUMERATION, Attribute.Type.ID,
+		Attribute.Type.IDREF, Attribute.Type.IDREFS, Attribute.Type.NMTOKEN, Attribute.Type.NMTOKENS,
+		Attribute.Type.NOTATION, Attribute.Type.UNDECLARED };
+
+	/**
+	 * Constructor
+	 * 
+	 * @param name the JSON name of the property
+	 * @param kind the kind of value
+	 * @param getter the public getter
+	 * @param setter the public setter, or null if values are added through the getter
+	 * @param builderClass the class of nested Builders, for BUILDER and BUILDER_LIST properties
+	 */
+	private BuilderProperty(String name, Kind kind, Method getter, Method setter, Class<?> builderClass) {
+		_name = name;
+		_kind = kind;
+		_getter = getter;
+		_setter = setter;
+		_builderClass = builderClass;
+	}
+
+	/**
+	 * Returns the properties of a Builder class, discovering them on first use.
+	 * 
+	 * @param builderClass the Builder class
+	 * @return an unmodifiable list of properties, sorted by name
+	 */
+	static List<BuilderProperty> getProperties(Class<?> builderClass) {
+		synchronized (PROPERTIES) {
+			List<BuilderProperty> properties = PROPERTIES.get(builderClass);
+			if (properties == null) {
+				properties = Collections.unmodifiableList(discover(builderClass));
+				PROPERTIES.put(builderClass, properties);
+			}
+			return (properties);
+		}
+	}
+
+	/**
+	 * Finds a property of a Builder class by name.
+	 * 
+	 * @param builderClass the Builder class
+	 * @param name the JSON name of the property
+	 * @return the property, or null if the class has no such property
+	 */
+	static BuilderProperty getProperty(Class<?> builderClass, String name) {
+		for (BuilderProperty property : getProperties(builderClass)) {
+			if (property.getName().equals(name))
+				return (property);
+		}
+		return (null);
+	}
+
+	/**
+	 * Checks whether a class can be treated as a Builder.
+	 * 
+	 * @param type the class to check
+	 * @return true if it has public, no-argument commit() and isEmpty() methods
+	 */
+	static boolean isBuilder(Class<?> type) {
+		if (type.isInterface() || type.isPrimitive() || type.isArray())
+			return (false);
+		try {
+			type.getMethod("commit");
+			return (type.getMethod("isEmpty").getReturnType() == boolean.class);
+		}
+		catch (NoSuchMethodException e) {
+			return (false);
+		}
+	}
+
+	/**
+	 * Checks whether a Builder has no values.
+	 * 
+	 * @param builder the Builder to check
+	 * @return the result of its isEmpty() method
+	 */
+	static boolean isEmpty(Object builder) {
+		try {
+			return (((Boolean) builder.getClass().getMethod("isEmpty").invoke(builder)).booleanValue());
+		}
+		catch (NoSuchMethodException e) {
+			throw new IllegalArgumentException(builder.getClass().getName() + " is not a Builder.");
+		}
+		catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+		catch (InvocationTargetException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * Creates a Builder for a component through the copy constructor of its nested Builder class.
+	 * 
+	 * @param component the component
+	 * @return the new Builder
+	 */
+	static Object newBuilder(IDDMSComponent component) {
+		Class<?> componentClass = component.getClass();
+		try {
+			Constructor<?> constructor;
+			synchronized (BUILDER_CONSTRUCTORS) {
+				constructor = BUILDER_CONSTRUCTORS.get(componentClass);
+				if (constructor == null) {
+					Class<?> builderClass = Class.forName(componentClass.getName() + "$Builder", true,
+						componentClass.getClassLoader());
+					constructor = builderClass.getConstructor(componentClass);
+					BUILDER_CONSTRUCTORS.put(componentClass, constructor);
+				}
+			}
+			return (constructor.newInstance(component));
+		}
+		catch (Exception e) {
+			throw new IllegalArgumentException("No Builder is available for " + componentClass.getName() + ".", e);
+		}
+	}
+
+	/**
+	 * Converts the name of a XOM attribute type back into the type.
+	 * 
+	 * @param name the name, such as "CDATA"
+	 * @return the matching type, or null if the name is unknown
+	 */
+	static Attribute.Type getAttributeType(String name) {
+		for (Attribute.Type type : ATTRIBUTE_TYPES) {
+			if (type.getName().equals(name))
+				return (type);
+		}
+		return (null);
+	}
+
+	/**
+	 * Reads the value of this property from a Builder.
+	 * 
+	 * @param builder the Builder
+	 * @return the value
+	 */
+	Object get(Object builder) {
+		return (invoke(_getter, builder));
+	}
+
+	/**
+	 * Sets a scalar value or a List of Strings on a Builder.
+	 * 
+	 * @param builder the Builder
+	 * @param value the value, which must match the kind of this property
+	 */
+	@SuppressWarnings("unchecked")
+	void set(Object builder, Object value) {
+		if (_setter != null)
+			invoke(_setter, builder, value);
+		else if (getKind() == Kind.STRING_LIST) {
+			List<String> list = (List<String>) get(builder);
+			list.clear();
+			list.addAll((List<String>) value);
+		}
+	}
+
+	/**
+	 * Returns the nested Builder of a BUILDER property, creating and setting one if the getter did not.
+	 * 
+	 * @param builder the parent Builder
+	 * @return the nested Builder
+	 */
+	Object getOrCreateBuilder(Object builder) {
+		Object nested = get(builder);
+		if (nested == null) {
+			nested = newBuilder();
+			invoke(_setter, builder, nested);
+		}
+		return (nested);
+	}
+
+	/**
+	 * Instantiates a new, empty nested Builder.
+	 * 
+	 * @return the new Builder
+	 */
+	Object newBuilder() {
+		try {
+			return (getBuilderClass().newInstance());
+		}
+		catch (InstantiationException e) {
+			throw new IllegalStateException(e);
+		}
+		catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Invokes a reflected method, unwrapping any exceptions.
+	 * 
+	 * @param method the method
+	 * @param target the object to invoke it on
+	 * @param arguments the method arguments
+	 * @return the result
+	 */
+	private static Object invoke(Method method, Object target, Object... arguments) {
+		try {
+			return (method.invoke(target, arguments));
+		}
+		catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+		catch (InvocationTargetException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			throw new IllegalStateException(cause);
+		}
+	}
+
+	/**
+	 * Reflects over the public getters of a Builder class.
+	 * 
+	 * @param builderClass the Builder class
+	 * @return the properties, sorted by name
+	 */
+	private static List<BuilderProperty> discover(Class<?> builderClass) {
+		List<BuilderProperty> properties = new ArrayList<BuilderProperty>();
+		for (Method getter : builderClass.getMethods()) {
+			String methodName = getter.getName();
+			if (getter.getParameterTypes().length > 0 || !methodName.startsWith("get") || methodName.length() == 3
+				|| getter.isBridge() || getter.getDeclaringClass() == Object.class)
+				continue;
+			String suffix = methodName.substring(3);
+			Class<?> type = getter.getReturnType();
+			Method setter = getSetter(builderClass, suffix, type);
+			Kind kind = null;
+			Class<?> nestedClass = null;
+			if (type == String.class)
+				kind = Kind.STRING;
+			else if (type == Boolean.class)
+				kind = Kind.BOOLEAN;
+			else if (type == Integer.class)
+				kind = Kind.INTEGER;
+			else if (type == Double.class)
+				kind = Kind.DOUBLE;
+			else if (type == Attribute.Type.class)
+				kind = Kind.ATTRIBUTE_TYPE;
+			else if (List.class.isAssignableFrom(type)) {
+				Class<?> elementClass = getElementClass(getter.getGenericReturnType());
+				if (elementClass == String.class)
+					kind = Kind.STRING_LIST;
+				else if (elementClass != null && isBuilder(elementClass)) {
+					kind = Kind.BUILDER_LIST;
+					nestedClass = elementClass;
+				}
+			}
+			else if (isBuilder(type)) {
+				kind = Kind.BUILDER;
+				nestedClass = type;
+			}
+			boolean isScalar = (kind != Kind.STRING_LIST && kind != Kind.BUILDER && kind != Kind.BUILDER_LIST);
+			if (kind == null || (isScalar && setter == null))
+				continue;
+			getter.setAccessible(true);
+			if (setter != null)
+				setter.setAccessible(true);
+			properties.add(new BuilderProperty(decapitalize(suffix), kind, getter, setter, nestedClass));
+		}
+		Collections.sort(properties, new Comparator<BuilderProperty>() {
+			public int compare(BuilderProperty property1, BuilderProperty property2) {
+				return (property1.getName().compareTo(property2.getName()));
+			}
+		});
+		return (properties);
+	}
+
+	/**
+	 * Finds the setter matching a getter.
+	 * 
+	 * @param builderClass the Builder class
+	 * @param suffix the getter name, without "get"
+	 * @param type the getter's return type
+	 * @return the setter, or null if there is none
+	 */
+	private static Method getSetter(Class<?> builderClass, String suffix, Class<?> type) {
+		try {
+			return (builderClass.getMethod("set" + suffix, type));
+		}
+		catch (NoSuchMethodException e) {
+			return (null);
+		}
+	}
+
+	/**
+	 * Returns the element class of a parameterized List type.
+	 * 
+	 * @param type the generic return type of a getter
+	 * @return the element class, or null if it is not a concrete class
+	 */
+	private static Class<?> getElementClass(Type type) {
+		if (!(type instanceof ParameterizedType))
+			return (null);
+		Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+		return (arguments.length == 1 && arguments[0] instanceof Class ? (Class<?>) arguments[0] : null);
+	}
+
+	/**
+	 * Lowercases the first character of a name, unless the name begins with an acronym.
+	 * 
+	 * @param name the name
+	 * @return the property name
+	 */
+	static String decapitalize(String name) {
+		if (name.length() > 1 && Character.isUpperCase(name.charAt(1)) && Character.isUpperCase(name.charAt(0)))
+			return (name);
+		return (Character.toLowerCase(name.charAt(0)) + name.substring(1));
+	}
+
+	/**
+	 * Accessor for the JSON name
+	 */
+	String getName() {
+		return (_name);
+	}
+
+	/**
+	 * Accessor for the kind of value
+	 */
+	Kind getKind() {
+		return (_kind);
+	}
+
+	/**
+	 * Accessor for the class of nested Builders
+	 */
+	Class<?> getBuilderClass() {
+		return (_builderClass);
+	}
+}
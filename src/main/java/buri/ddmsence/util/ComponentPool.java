@@ -0,0 +1,284 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import nu.xom.Attribute;
+import nu.xom.Document;
+import nu.xom.Element;
+import nu.xom.Node;
+import nu.xom.Text;
+import buri.ddmsence.AbstractBaseComponent;
+import buri.ddmsence.ddms.IDDMSComponent;
+
+/**
+ * Canonicalization pool which allows identical immutable components, and the values inside them, to be shared across
+ * Resources.
+ * 
+ * <p>
+ * The same producers, rights, languages, and formats often appear in a large number of records. Interning a component
+ * returns a single shared instance for all equal components of the same class, so that heavily repetitive collections
+ * hold one copy of each distinct component. Components are matched by their cached hash code and
+ * <code>equals()</code>, so interning a component which is already pooled costs no canonicalization or copying.
+ * </p>
+ * 
+ * <p>
+ * XOM allows a node to belong to only one tree, so each Resource still holds its own element and attribute nodes for
+ * a shared component. The values are shared below that layer instead: when a new component is pooled, its copy has
+ * every attribute value and text node replaced by the pooled instance of that value, and XOM copies text and
+ * attribute nodes without copying their values. The trees of all Resources built with a pooled component, and of all
+ * pooled components with a value in common (such as a name or classification nested inside otherwise different
+ * producers), therefore refer to a single copy of each value.
+ * </p>
+ * 
+ * <p>
+ * The shared instance is built from a detached copy of the first component interned, so it never keeps the tree of a
+ * larger Resource in memory. The pool only holds weak references to its components and values, so entries disappear
+ * once no caller uses them any longer. Instances of this class are thread-safe.
+ * </p>
+ * 
+ * @see buri.ddmsence.ddms.Resource.Builder#setComponentPool(ComponentPool)
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public class ComponentPool {
+
+	private Map<Integer, List<PooledReference>> _components = new HashMap<Integer, List<PooledReference>>();
+	private Map<String, PooledReference> _texts = new HashMap<String, PooledReference>();
+	private Map<String, WeakReference<String>> _strings = new WeakHashMap<String, WeakReference<String>>();
+	private ReferenceQueue<Object> _queue = new ReferenceQueue<Object>();
+	private int _size = 0;
+
+	/**
+	 * Weak reference which remembers its key, so it can be removed from the pool once cleared.
+	 */
+	private static class PooledReference extends WeakReference<Object> {
+		private Object _key;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param referent the shared component or text node
+		 * @param key the key of the referent in the pool
+		 * @param queue the queue to register with
+		 */
+		public PooledReference(Object referent, Object key, ReferenceQueue<Object> queue) {
+			super(referent, queue);
+			_key = key;
+		}
+	}
+
+	/**
+	 * Returns the shared instance of a component. If no equal component has been interned yet, a shared instance is
+	 * created from a detached copy of this component, whose values are shared with the other pooled components.
+	 * 
+	 * <p>Components which do not extend AbstractBaseComponent are returned unchanged.</p>
+	 * 
+	 * @param component the component to intern, which may be null
+	 * @return the shared instance, which is equal to the component
+	 * @throws IllegalStateException if the component class cannot be instantiated from a copy of its XOM element
+	 */
+	public <T extends IDDMSComponent> T intern(T component) {
+		if (!(component instanceof AbstractBaseComponent))
+			return (component);
+		synchronized (this) {
+			T existing = find(component);
+			if (existing != null)
+				return (existing);
+		}
+		T shared = detach(component);
+		synchronized (this) {
+			T existing = find(component);
+			if (existing != null)
+				return (existing);
+			Integer key = Integer.valueOf(component.hashCode());
+			List<PooledReference> bucket = getComponents().get(key);
+			if (bucket == null) {
+				bucket = new ArrayList<PooledReference>(1);
+				getComponents().put(key, bucket);
+			}
+			bucket.add(new PooledReference(shared, key, _queue));
+			_size++;
+			return (shared);
+		}
+	}
+
+	/**
+	 * Finds the pooled component equal to a component. Must be called while holding the lock on this pool.
+	 * 
+	 * @param component the component
+	 * @return the pooled component, or null if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	private <T extends IDDMSComponent> T find(T component) {
+		expungeStaleEntries();
+		List<PooledReference> bucket = getComponents().get(Integer.valueOf(component.hashCode()));
+		if (bucket != null) {
+			for (PooledReference reference : bucket) {
+				Object pooled = reference.get();
+				if (pooled != null && pooled.getClass() == component.getClass() && pooled.equals(component))
+					return ((T) pooled);
+			}
+		}
+		return (null);
+	}
+
+	/**
+	 * Creates a copy of a component whose element is the root of its own document, with its values replaced by their
+	 * pooled instances.
+	 * 
+	 * @param component the component to copy
+	 * @return the copy
+	 * @throws IllegalStateException if the component class cannot be instantiated from a copy of its XOM element
+	 */
+	@SuppressWarnings("unchecked")
+	private <T extends IDDMSComponent> T detach(T component) {
+		Element copy = component.getXOMElementCopy();
+		new Document(copy);
+		internValues(copy);
+		try {
+			Constructor<? extends IDDMSComponent> constructor = component.getClass().getConstructor(Element.class);
+			return ((T) constructor.newInstance(copy));
+		}
+		catch (NoSuchMethodException e) {
+			throw new IllegalStateException("Could not pool " + component.getClass().getName() + ": " + e);
+		}
+		catch (InstantiationException e) {
+			throw new IllegalStateException("Could not pool " + component.getClass().getName() + ": " + e);
+		}
+		catch (IllegalAccessException e) {
+			throw new IllegalStateException("Could not pool " + component.getClass().getName() + ": " + e);
+		}
+		catch (InvocationTargetException e) {
+			throw new IllegalStateException("Could not pool " + component.getClass().getName() + ": "
+				+ e.getTargetException().getMessage());
+		}
+	}
+
+	/**
+	 * Replaces the attribute values and text nodes beneath an element with their pooled instances.
+	 * 
+	 * @param element the element, which must not yet be shared
+	 */
+	private synchronized void internValues(Element element) {
+		for (int i = 0; i < element.getAttributeCount(); i++) {
+			Attribute attribute = element.getAttribute(i);
+			String value = internString(attribute.getValue());
+			if (value != attribute.getValue())
+				attribute.setValue(value);
+		}
+		for (int i = 0; i < element.getChildCount(); i++) {
+			Node child = element.getChild(i);
+			if (child instanceof Element)
+				internValues((Element) child);
+			else if (child instanceof Text) {
+				Text text = internText((Text) child);
+				if (text != child)
+					element.replaceChild(child, text.copy());
+			}
+		}
+	}
+
+	/**
+	 * Returns the pooled instance of a string, pooling this one if there is none.
+	 */
+	private String internString(String value) {
+		WeakReference<String> reference = _strings.get(value);
+		String pooled = (reference == null ? null : reference.get());
+		if (pooled == null) {
+			pooled = value;
+			_strings.put(pooled, new WeakReference<String>(pooled));
+		}
+		return (pooled);
+	}
+
+	/**
+	 * Returns the pooled text node with the same value as a text node, pooling this one if there is none. Copies of
+	 * the pooled node share its value.
+	 */
+	private Text internText(Text text) {
+		String value = text.getValue();
+		PooledReference reference = _texts.get(value);
+		Text pooled = (reference == null ? null : (Text) reference.get());
+		if (pooled == null) {
+			pooled = text;
+			_texts.put(value, new PooledReference(pooled, value, _queue));
+		}
+		return (pooled);
+	}
+
+	/**
+	 * Removes entries whose components or text nodes have been garbage collected. Must be called while holding the
+	 * lock on this pool.
+	 */
+	private void expungeStaleEntries() {
+		Reference<? extends Object> reference;
+		while ((reference = _queue.poll()) != null) {
+			PooledReference pooled = (PooledReference) reference;
+			if (pooled._key instanceof String) {
+				if (_texts.get(pooled._key) == pooled)
+					_texts.remove(pooled._key);
+				continue;
+			}
+			List<PooledReference> bucket = getComponents().get(pooled._key);
+			if (bucket != null && bucket.remove(pooled)) {
+				_size--;
+				if (bucket.isEmpty())
+					getComponents().remove(pooled._key);
+			}
+		}
+	}
+
+	/**
+	 * Accessor for the number of components in the pool, including any which have been collected but not yet
+	 * removed.
+	 */
+	public synchronized int size() {
+		expungeStaleEntries();
+		return (_size);
+	}
+
+	/**
+	 * Removes every component and value from the pool.
+	 */
+	public synchronized void clear() {
+		getComponents().clear();
+		_texts.clear();
+		_strings.clear();
+		_size = 0;
+	}
+
+	/**
+	 * Accessor for the pooled components, grouped by hash code
+	 */
+	private Map<Integer, List<PooledReference>> getComponents() {
+		return (_components);
+	}
+}
@@ -29,16 +29,29 @@ import java.io.StringReader;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import javax.xml.XMLConstants;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.ValidatorHandler;
+
 import nu.xom.Builder;
 import nu.xom.Document;
 import nu.xom.Element;
+import nu.xom.Nodes;
 import nu.xom.ParsingException;
+import nu.xom.ValidityException;
+import nu.xom.converters.SAXConverter;
 
 import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
 import org.xml.sax.XMLReader;
 import org.xml.sax.helpers.XMLReaderFactory;
 
@@ -59,6 +72,8 @@ public class DDMSReader {
 
 	private XMLReader _reader;
 
+	private static final Map<String, Schema> COMPILED_SCHEMAS = new HashMap<String, Schema>();
+
 	private static final String PROP_XERCES_VALIDATION = "http://xml.org/sax/features/validation";
 	private static final String PROP_XERCES_SCHEMA_VALIDATION = "http://apache.org/xml/features/validation/schema";
 	private static final String PROP_XERCES_EXTERNAL_LOCATION = "http://apache.org/xml/properties/schema/external-schemaLocation";
@@ -142,6 +157,77 @@ public class DDMSReader {
 		}
 	}
 
+	/**
+	 * Validates an in-memory Resource element against the schemas of a DDMS version, without serializing and
+	 * re-parsing it. The element is replayed as SAX events into a validator built from a compiled schema, which is
+	 * cached for each DDMS version after its first use.
+	 * 
+	 * @param version the DDMSVersion of the resource
+	 * @param resourceElement the element of the resource to check
+	 * @throws InvalidDDMSException if the resource is invalid
+	 */
+	public static void validateWithSchema(DDMSVersion version, Element resourceElement) throws InvalidDDMSException {
+		Util.requireValue("version", version);
+		Util.requireValue("resource element", resourceElement);
+		try {
+			ValidatorHandler handler = getCompiledSchema(version).newValidatorHandler();
+			new SAXConverter(handler).convert(new Nodes(resourceElement));
+		}
+		catch (SAXParseException e) {
+			// Match the exception produced when a document is parsed with a validating XOM Builder.
+			throw new InvalidDDMSException(new ValidityException(e.getMessage(), e.getLineNumber(),
+				e.getColumnNumber(), e));
+		}
+		catch (SAXException e) {
+			throw new InvalidDDMSException(e);
+		}
+	}
+
+	/**
+	 * Returns the compiled schema for a DDMS version, compiling it on first use. The DDMS, GML, NTK, and TSPI schemas
+	 * are loaded in the same order as the XMLReader used for parsing.
+	 * 
+	 * @param version the DDMS version
+	 * @return a thread-safe compiled schema
+	 * @throws SAXException if the schemas could not be compiled
+	 */
+	private static synchronized Schema getCompiledSchema(DDMSVersion version) throws SAXException {
+		Schema schema = COMPILED_SCHEMAS.get(version.getVersion());
+		if (schema == null) {
+			List<Source> sources = new ArrayList<Source>();
+			Set<String> processedNamespaces = new HashSet<String>();
+			addSchemaSource(version.getNamespace(), version.getSchema(), sources, processedNamespaces);
+			addSchemaSource(version.getGmlNamespace(), version.getGmlSchema(), sources, processedNamespaces);
+			addSchemaSource(version.getNtkNamespace(), version.getNtkSchema(), sources, processedNamespaces);
+			addSchemaSource(version.getTspiNamespace(), version.getTspiSchema(), sources, processedNamespaces);
+			SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+			schema = factory.newSchema(sources.toArray(new Source[sources.size()]));
+			COMPILED_SCHEMAS.put(version.getVersion(), schema);
+		}
+		return (schema);
+	}
+
+	/**
+	 * Helper method to add a local schema copy to the sources of a compiled schema
+	 * 
+	 * @param namespace the XML namespace
+	 * @param schemaLocation the schema location
+	 * @param sources the list to add the schema source to
+	 * @param processedNamespaces namespaces which have already been loaded
+	 */
+	private static void addSchemaSource(String namespace, String schemaLocation, List<Source> sources,
+		Set<String> processedNamespaces) {
+		if (!processedNamespaces.contains(namespace)) {
+			if (!Util.isEmpty(schemaLocation)) {
+				URL xsd = DDMSReader.class.getResource(schemaLocation);
+				if (xsd == null)
+					throw new IllegalArgumentException("Unable to load a local copy of the schema for validation.");
+				sources.add(new StreamSource(xsd.toExternalForm().replaceAll(" ", "%20")));
+			}
+			processedNamespaces.add(namespace);
+		}
+	}
+
 	/**
 	 * Creates a XOM element representing the root XML element in the file.
 	 * 
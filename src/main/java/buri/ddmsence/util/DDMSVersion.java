@@ -21,6 +21,7 @@ package buri.ddmsence.util;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -97,13 +98,30 @@ public class DDMSVersion {
 	private String _tspiSchema;
 	private String _virtNamespace;
 	private String _xlinkNamespace;
+	private int _index;
 
 	private static DDMSVersion _currentVersion;
 
+	private static final List<String> SUPPORTED_VERSIONS = Collections.unmodifiableList(
+		PropertyReader.getListProperty("ddms.supportedVersions"));
+	private static final List<String> SUPPORTED_DDMS_NAMESPACES = new ArrayList<String>();
 	private static final Map<String, DDMSVersion> VERSIONS_TO_DETAILS = new TreeMap<String, DDMSVersion>();
+	private static final Map<String, DDMSVersion> NAMESPACES_TO_VERSIONS = new HashMap<String, DDMSVersion>();
 	static {
-		for (String version : PropertyReader.getListProperty("ddms.supportedVersions")) {
-			VERSIONS_TO_DETAILS.put(version, new DDMSVersion(version));
+		for (String version : SUPPORTED_VERSIONS) {
+			DDMSVersion details = new DDMSVersion(version);
+			VERSIONS_TO_DETAILS.put(version, details);
+			SUPPORTED_DDMS_NAMESPACES.add(details.getNamespace());
+		}
+		// Newer versions are added last, so they win when a namespace is shared.
+		for (DDMSVersion version : VERSIONS_TO_DETAILS.values()) {
+			String[] namespaces = new String[] { version.getNamespace(), version.getIsmNamespace(),
+				version.getNtkNamespace(), version.getGmlNamespace(), version.getTspiNamespace(),
+				version.getVirtNamespace(), version.getXlinkNamespace() };
+			for (String namespace : namespaces) {
+				if (namespace != null)
+					NAMESPACES_TO_VERSIONS.put(namespace, version);
+			}
 		}
 		_currentVersion = getVersionFor(PropertyReader.getProperty("ddms.defaultVersion"));
 	}
@@ -114,9 +132,9 @@ public class DDMSVersion {
 	 * @param version the number as shown in ddms.supportedVersions.
 	 */
 	private DDMSVersion(String version) {
-		int index = getSupportedVersionsProperty().indexOf(version);
+		_index = SUPPORTED_VERSIONS.indexOf(version);
 		_version = version;
-		_namespace = getSupportedDDMSNamespacesProperty().get(index);
+		_namespace = PropertyReader.getProperty(version + ".ddms.xmlNamespace");
 		_schema = PropertyReader.getProperty(version + ".ddms.xsdLocation");
 		_gmlNamespace = PropertyReader.getProperty(version + ".gml.xmlNamespace");
 		_gmlSchema = PropertyReader.getProperty(version + ".gml.xsdLocation");
@@ -140,11 +158,10 @@ public class DDMSVersion {
 	 */
 	public boolean isAtLeast(String version) {
 		version = aliasVersion(version);
-		if (!getSupportedVersionsProperty().contains(version))
-			throw new UnsupportedVersionException(version);
-		int index = getSupportedVersionsProperty().indexOf(this.getVersion());
 		int testIndex = getSupportedVersionsProperty().indexOf(version);
-		return (index >= testIndex);
+		if (testIndex == -1)
+			throw new UnsupportedVersionException(version);
+		return (_index >= testIndex);
 	}
 
 	/**
@@ -157,12 +174,13 @@ public class DDMSVersion {
 	}
 
 	/**
-	 * Private accessor for the property containing the supported versions list
+	 * Private accessor for the property containing the supported versions list. The property is read once, when this
+	 * class is loaded.
 	 * 
 	 * @return List of String version numbers
 	 */
 	private static List<String> getSupportedVersionsProperty() {
-		return (PropertyReader.getListProperty("ddms.supportedVersions"));
+		return (SUPPORTED_VERSIONS);
 	}
 
 	/**
@@ -171,11 +189,7 @@ public class DDMSVersion {
 	 * @return List of String version numbers
 	 */
 	private static List<String> getSupportedDDMSNamespacesProperty() {
-		List<String> supportedNamespaces = new ArrayList<String>();
-		for (String version : getSupportedVersionsProperty()) {
-			supportedNamespaces.add(PropertyReader.getProperty(version + ".ddms.xmlNamespace"));
-		}
-		return (supportedNamespaces);
+		return (Collections.unmodifiableList(SUPPORTED_DDMS_NAMESPACES));
 	}
 
 	/**
@@ -212,17 +226,10 @@ public class DDMSVersion {
 	 * @throws UnsupportedVersionException if the version number is not supported
 	 */
 	public static DDMSVersion getVersionForNamespace(String namespace) {
-		List<DDMSVersion> versions = new ArrayList<DDMSVersion>(VERSIONS_TO_DETAILS.values());
-		Collections.reverse(versions);
-		for (DDMSVersion version : versions) {
-			if (version.getNamespace().equals(namespace) || version.getIsmNamespace().equals(namespace)
-				|| version.getNtkNamespace().equals(namespace) || version.getGmlNamespace().equals(namespace)
-				|| version.getTspiNamespace().equals(namespace) || version.getVirtNamespace().equals(namespace)
-				|| version.getXlinkNamespace().equals(namespace)) {
-				return (version);
-			}
-		}
-		throw new UnsupportedVersionException("for XML namespace " + namespace);
+		DDMSVersion version = NAMESPACES_TO_VERSIONS.get(namespace);
+		if (version == null)
+			throw new UnsupportedVersionException("for XML namespace " + namespace);
+		return (version);
 	}
 
 	/**
@@ -0,0 +1,479 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import nu.xom.Attribute;
+import nu.xom.Comment;
+import nu.xom.Element;
+import nu.xom.Node;
+import nu.xom.ProcessingInstruction;
+import nu.xom.Text;
+import buri.ddmsence.ddms.IDDMSComponent;
+
+/**
+ * Writer class which streams DDMS components as XML, without building the whole document as a String first.
+ * 
+ * <p>
+ * By default, the output of a single component is identical to its <code>toXML()</code> representation. Optionally,
+ * the output can be indented, and all namespace declarations can be gathered onto the outermost element in prefix
+ * order. Namespaces are always declared wherever they are not yet in scope in the output, so a nested component can
+ * be written on its own, even though its XOM element is still attached to a larger Resource.
+ * </p>
+ * 
+ * <p>
+ * A DDMSWriter can also emit many components into a single wrapper document. After
+ * {@link #startDocument(String, String)} is called, each written component is streamed as a child of the wrapper
+ * element, and {@link #endDocument()} closes the document. Only a single component is ever held in memory, so this is
+ * suitable for exporting large batches of Resources to a file.
+ * </p>
+ * 
+ * <p>
+ * When writing to an OutputStream, characters which cannot be encoded in the chosen charset are written as numeric
+ * character references. Writers are not thread-safe, and the underlying stream is only closed by {@link #close()}.
+ * </p>
+ * 
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public class DDMSWriter {
+
+	private Writer _writer;
+	private Charset _charset = null;
+	private CharsetEncoder _encoder = null;
+	private int _indent = 0;
+	private boolean _canonicalNamespaces = false;
+	private String _wrapperName = null;
+	private List<String> _scopePrefixes = new ArrayList<String>();
+	private List<String> _scopeURIs = new ArrayList<String>();
+
+	private static final String LINE_SEPARATOR = "\n";
+	private static final String XML_NAMESPACE = "http://www.w3.org/XML/1998/namespace";
+
+	/**
+	 * Constructor for a character stream. No characters are escaped beyond those required by XML.
+	 * 
+	 * @param writer the destination of the XML
+	 */
+	public DDMSWriter(Writer writer) {
+		Util.requireValue("writer", writer);
+		_writer = new BufferedWriter(writer);
+	}
+
+	/**
+	 * Constructor for a byte stream.
+	 * 
+	 * @param outputStream the destination of the XML
+	 * @param charset the character encoding to use
+	 */
+	public DDMSWriter(OutputStream outputStream, Charset charset) {
+		Util.requireValue("output stream", outputStream);
+		Util.requireValue("charset", charset);
+		_writer = new BufferedWriter(new OutputStreamWriter(outputStream, charset));
+		_charset = charset;
+		if (!charset.name().toUpperCase().startsWith("UTF-"))
+			_encoder = charset.newEncoder();
+	}
+
+	/**
+	 * Begins a wrapper document. The XML declaration and the start tag of the wrapper element are written immediately,
+	 * and components written afterwards become children of the wrapper.
+	 * 
+	 * @param qualifiedName the name of the wrapper element, including any prefix
+	 * @param namespace the namespace of the wrapper element, or an empty string for none
+	 * @throws IllegalStateException if a document has already been started
+	 */
+	public void startDocument(String qualifiedName, String namespace) throws IOException {
+		Util.requireValue("wrapper name", qualifiedName);
+		if (_wrapperName != null)
+			throw new IllegalStateException("A wrapper document has already been started.");
+		Element wrapper = new Element(qualifiedName, Util.getNonNullString(namespace));
+		write("<?xml version=\"1.0\"");
+		if (_charset != null)
+			write(" encoding=\"" + _charset.name() + "\"");
+		write("?>" + LINE_SEPARATOR);
+		writeStartTag(wrapper, null);
+		write(">");
+		_wrapperName = qualifiedName;
+	}
+
+	/**
+	 * Closes the wrapper element of a document begun with {@link #startDocument(String, String)} and flushes the
+	 * output.
+	 * 
+	 * @throws IllegalStateException if no document has been started
+	 */
+	public void endDocument() throws IOException {
+		if (_wrapperName == null)
+			throw new IllegalStateException("No wrapper document has been started.");
+		if (getIndent() > 0)
+			write(LINE_SEPARATOR);
+		write("</" + _wrapperName + ">" + LINE_SEPARATOR);
+		popScope(0);
+		_wrapperName = null;
+		flush();
+	}
+
+	/**
+	 * Writes a component. Components with no XOM element are skipped, to match <code>toXML()</code>.
+	 * 
+	 * <p>The implementation of this method delegates to the component, which passes its own XOM element to
+	 * {@link #write(Element)} without copying it.</p>
+	 * 
+	 * @param component the component to write
+	 */
+	public void write(IDDMSComponent component) throws IOException {
+		Util.requireValue("component", component);
+		component.writeXML(this);
+	}
+
+	/**
+	 * Writes a XOM element and its descendants.
+	 * 
+	 * @param element the element to write
+	 */
+	public void write(Element element) throws IOException {
+		Util.requireValue("element", element);
+		int depth = 0;
+		if (_wrapperName != null) {
+			depth = 1;
+			if (getIndent() > 0)
+				writeNewLine(depth);
+		}
+		writeElement(element, depth, getIndent() > 0, isCanonicalNamespaces() ? getAllNamespaces(element) : null);
+	}
+
+	/**
+	 * Flushes any buffered output to the underlying stream.
+	 */
+	public void flush() throws IOException {
+		_writer.flush();
+	}
+
+	/**
+	 * Flushes and closes the underlying stream.
+	 */
+	public void close() throws IOException {
+		_writer.close();
+	}
+
+	/**
+	 * Writes an element, declaring any namespaces which are not in scope in the output.
+	 * 
+	 * @param element the element
+	 * @param depth the nesting depth of the element, used for indentation
+	 * @param indent whether whitespace may be added around the children of this element
+	 * @param namespaces any additional namespace mappings to declare on this element, or null
+	 */
+	private void writeElement(Element element, int depth, boolean indent, Map<String, String> namespaces)
+		throws IOException {
+		int mark = _scopePrefixes.size();
+		writeStartTag(element, namespaces);
+		int count = element.getChildCount();
+		if (count == 0) {
+			write(" />");
+			popScope(mark);
+			return;
+		}
+		write(">");
+		String space = element.getAttributeValue("space", XML_NAMESPACE);
+		if ("preserve".equals(space))
+			indent = false;
+		else if ("default".equals(space))
+			indent = getIndent() > 0;
+		boolean indentChildren = indent && hasElementContent(element);
+		boolean wroteChild = false;
+		for (int i = 0; i < count; i++) {
+			Node child = element.getChild(i);
+			if (indentChildren) {
+				if (child instanceof Text)
+					continue;
+				writeNewLine(depth + 1);
+				wroteChild = true;
+			}
+			if (child instanceof Element)
+				writeElement((Element) child, depth + 1, indentChildren, null);
+			else if (child instanceof Text)
+				writeEscaped(child.getValue(), false);
+			else if (child instanceof Comment)
+				write("<!--" + child.getValue() + "-->");
+			else if (child instanceof ProcessingInstruction) {
+				ProcessingInstruction instruction = (ProcessingInstruction) child;
+				write("<?" + instruction.getTarget());
+				if (instruction.getValue().length() > 0)
+					write(" " + instruction.getValue());
+				write("?>");
+			}
+		}
+		if (wroteChild)
+			writeNewLine(depth);
+		write("</" + element.getQualifiedName() + ">");
+		popScope(mark);
+	}
+
+	/**
+	 * Writes the start tag of an element, up to but not including the closing bracket. Any additional namespace
+	 * mappings are declared first, followed by the element's own declarations in the same order that XOM uses, and then
+	 * the attributes.
+	 * 
+	 * @param element the element
+	 * @param namespaces any additional namespace mappings to declare, or null
+	 */
+	private void writeStartTag(Element element, Map<String, String> namespaces) throws IOException {
+		write("<" + element.getQualifiedName());
+		if (namespaces != null) {
+			for (Map.Entry<String, String> entry : namespaces.entrySet())
+				writeNamespace(entry.getKey(), entry.getValue());
+		}
+		for (int i = 0; i < element.getNamespaceDeclarationCount(); i++) {
+			String prefix = element.getNamespacePrefix(i);
+			writeNamespace(prefix, element.getNamespaceURI(prefix));
+		}
+		for (int i = 0; i < element.getAttributeCount(); i++) {
+			Attribute attribute = element.getAttribute(i);
+			write(" " + attribute.getQualifiedName() + "=\"");
+			writeEscaped(attribute.getValue(), true);
+			write("\"");
+		}
+	}
+
+	/**
+	 * Writes a namespace declaration, unless the same mapping is already in scope in the output.
+	 * 
+	 * @param prefix the prefix, or an empty string for the default namespace
+	 * @param uri the namespace URI
+	 */
+	private void writeNamespace(String prefix, String uri) throws IOException {
+		if (XML_NAMESPACE.equals(uri) || uri.equals(getScopedURI(prefix)))
+			return;
+		_scopePrefixes.add(prefix);
+		_scopeURIs.add(uri);
+		write(prefix.length() == 0 ? " xmlns=\"" : " xmlns:" + prefix + "=\"");
+		writeEscaped(uri, true);
+		write("\"");
+	}
+
+	/**
+	 * Gathers every namespace mapping used by an element and its descendants, in prefix order. When a prefix is
+	 * mapped to more than one URI, only the first mapping is gathered, and the others are declared locally as usual.
+	 * 
+	 * @param element the outermost element being written
+	 * @return the mappings, keyed on prefix
+	 */
+	private static Map<String, String> getAllNamespaces(Element element) {
+		Map<String, String> namespaces = new TreeMap<String, String>();
+		gatherNamespaces(element, namespaces);
+		return (namespaces);
+	}
+
+	/**
+	 * Recursively collects the namespace mappings of an element and its descendants.
+	 * 
+	 * @param element the element
+	 * @param namespaces the map to add mappings to, keyed on prefix
+	 */
+	private static void gatherNamespaces(Element element, Map<String, String> namespaces) {
+		for (int i = 0; i < element.getNamespaceDeclarationCount(); i++) {
+			String prefix = element.getNamespacePrefix(i);
+			String uri = element.getNamespaceURI(prefix);
+			if (!namespaces.containsKey(prefix) && !XML_NAMESPACE.equals(uri))
+				namespaces.put(prefix, uri);
+		}
+		for (int i = 0; i < element.getChildCount(); i++) {
+			if (element.getChild(i) instanceof Element)
+				gatherNamespaces((Element) element.getChild(i), namespaces);
+		}
+	}
+
+	/**
+	 * Returns true if an element contains only child elements, comments, processing instructions, and whitespace, so
+	 * that whitespace can be added between its children without changing its meaning.
+	 * 
+	 * @param element the element
+	 */
+	private static boolean hasElementContent(Element element) {
+		boolean hasMarkup = false;
+		for (int i = 0; i < element.getChildCount(); i++) {
+			Node child = element.getChild(i);
+			if (child instanceof Text) {
+				if (child.getValue().trim().length() > 0)
+					return (false);
+			}
+			else
+				hasMarkup = true;
+		}
+		return (hasMarkup);
+	}
+
+	/**
+	 * Returns the namespace URI mapped to a prefix in the output so far, or null if the prefix is not in scope. The
+	 * empty prefix is implicitly mapped to no namespace.
+	 * 
+	 * @param prefix the prefix
+	 */
+	private String getScopedURI(String prefix) {
+		for (int i = _scopePrefixes.size() - 1; i >= 0; i--) {
+			if (_scopePrefixes.get(i).equals(prefix))
+				return (_scopeURIs.get(i));
+		}
+		return (prefix.length() == 0 ? "" : null);
+	}
+
+	/**
+	 * Removes namespace mappings which were added after a mark.
+	 * 
+	 * @param mark the number of mappings to keep
+	 */
+	private void popScope(int mark) {
+		while (_scopePrefixes.size() > mark) {
+			_scopePrefixes.remove(_scopePrefixes.size() - 1);
+			_scopeURIs.remove(_scopeURIs.size() - 1);
+		}
+	}
+
+	/**
+	 * Writes a line separator followed by indentation for a depth.
+	 * 
+	 * @param depth the nesting depth
+	 */
+	private void writeNewLine(int depth) throws IOException {
+		write(LINE_SEPARATOR);
+		for (int i = 0; i < depth * getIndent(); i++)
+			_writer.write(' ');
+	}
+
+	/**
+	 * Writes markup directly to the output.
+	 * 
+	 * @param markup the markup
+	 */
+	private void write(String markup) throws IOException {
+		_writer.write(markup);
+	}
+
+	/**
+	 * Writes character data, escaping it the same way XOM does. Attribute values also escape quotes and whitespace
+	 * characters which would otherwise be normalized by a parser.
+	 * 
+	 * @param value the character data
+	 * @param isAttribute true if the value belongs to an attribute
+	 */
+	private void writeEscaped(String value, boolean isAttribute) throws IOException {
+		int start = 0;
+		int length = value.length();
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			String replacement = null;
+			int extra = 0;
+			switch (c) {
+				case '&':
+					replacement = "&amp;";
+					break;
+				case '<':
+					replacement = "&lt;";
+					break;
+				case '>':
+					replacement = "&gt;";
+					break;
+				case '\r':
+					replacement = "&#x0D;";
+					break;
+				case '"':
+					replacement = (isAttribute ? "&quot;" : null);
+					break;
+				case '\t':
+					replacement = (isAttribute ? "&#x09;" : null);
+					break;
+				case '\n':
+					replacement = (isAttribute ? "&#x0A;" : null);
+					break;
+				default:
+					if (c >= 0x80 && _encoder != null) {
+						if (Character.isHighSurrogate(c) && i + 1 < length) {
+							String pair = value.substring(i, i + 2);
+							if (!_encoder.canEncode(pair)) {
+								replacement = "&#x" + Integer.toHexString(pair.codePointAt(0)).toUpperCase() + ";";
+								extra = 1;
+							}
+						}
+						else if (!_encoder.canEncode(c))
+							replacement = "&#x" + Integer.toHexString(c).toUpperCase() + ";";
+					}
+			}
+			if (replacement != null) {
+				_writer.write(value, start, i - start);
+				_writer.write(replacement);
+				i += extra;
+				start = i + 1;
+			}
+		}
+		_writer.write(value, start, length - start);
+	}
+
+	/**
+	 * Accessor for the number of spaces used for each level of indentation. A value of 0 (the default) disables
+	 * indentation.
+	 */
+	public int getIndent() {
+		return (_indent);
+	}
+
+	/**
+	 * Accessor for the number of spaces used for each level of indentation. Whitespace is only added inside elements
+	 * which have no text of their own, and never inside elements with <code>xml:space="preserve"</code>.
+	 * 
+	 * @param indent the number of spaces, or 0 to disable indentation
+	 * @throws IllegalArgumentException if the value is negative
+	 */
+	public void setIndent(int indent) {
+		if (indent < 0)
+			throw new IllegalArgumentException("The indent must be a non-negative integer.");
+		_indent = indent;
+	}
+
+	/**
+	 * Accessor for whether all namespace declarations are gathered onto the outermost element of each component
+	 */
+	public boolean isCanonicalNamespaces() {
+		return (_canonicalNamespaces);
+	}
+
+	/**
+	 * Accessor for whether all namespace declarations are gathered onto the outermost element of each component, in
+	 * prefix order. This makes the output of equivalent components identical, regardless of where the namespaces were
+	 * declared in their XOM trees.
+	 * 
+	 * @param canonicalNamespaces true to gather the declarations
+	 */
+	public void setCanonicalNamespaces(boolean canonicalNamespaces) {
+		_canonicalNamespaces = canonicalNamespaces;
+	}
+}
@@ -0,0 +1,532 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import buri.ddmsence.ddms.IBuilder;
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.UnsupportedVersionException;
+
+/**
+ * Reader class which streams DDMS Resources from JSON.
+ * 
+ * <p>
+ * This class reads the JSON form produced by a {@link JSONWriter}. The JSON is parsed incrementally, and each value is
+ * fed straight into the matching Builder, so no intermediate tree of JSON values is built. Committing the Resource
+ * Builder applies the same validation as any other Builder.
+ * </p>
+ * 
+ * <p>
+ * The input can hold a single Resource, a sequence of Resources (such as JSON Lines), or an array of Resources.
+ * Successive calls to {@link #readResource()} return each Resource in turn, and null once the input is exhausted.
+ * Members which do not match a Builder property are rejected rather than ignored, so typos are not silently lost.
+ * Numbers which JSON cannot represent are read from the strings "NaN", "Infinity", and "-Infinity", as written by
+ * the JSONWriter.
+ * </p>
+ * 
+ * <p>
+ * Readers are not thread-safe, and the underlying stream is only closed by {@link #close()}.
+ * </p>
+ * 
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public class JSONReader {
+
+	private Reader _reader;
+	private int _next = -2;
+	private int _last = -1;
+	private long _position = 0;
+	private boolean _isInArray = false;
+	private boolean _hasStarted = false;
+
+	private static Map<String, BuilderProperty> COMPONENT_PROPERTIES = null;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param reader the source of the JSON
+	 */
+	public JSONReader(Reader reader) {
+		Util.requireValue("reader", reader);
+		_reader = new BufferedReader(reader);
+	}
+
+	/**
+	 * Reads the next Resource and commits it. The current DDMSVersion is set to the version of the Resource.
+	 * 
+	 * @return the Resource, or null if there are no more Resources in the input
+	 * @throws IOException if the input could not be read
+	 * @throws InvalidDDMSException if the JSON is malformed or the Resource is invalid
+	 */
+	public Resource readResource() throws IOException, InvalidDDMSException {
+		Resource.Builder builder = readBuilder();
+		return (builder == null ? null : builder.commit());
+	}
+
+	/**
+	 * Reads the next Resource into a Builder, without committing it. The current DDMSVersion is set to the version of
+	 * the Resource, so the Builder can be committed immediately.
+	 * 
+	 * @return the Builder, or null if there are no more Resources in the input
+	 * @throws IOException if the input could not be read
+	 * @throws InvalidDDMSException if the JSON is malformed
+	 */
+	public Resource.Builder readBuilder() throws IOException, InvalidDDMSException {
+		int c = nextNonWhitespace();
+		if (!_hasStarted) {
+			_hasStarted = true;
+			if (c == '[') {
+				_isInArray = true;
+				c = nextNonWhitespace();
+				if (c == ']')
+					return (finishArray());
+			}
+		}
+		else if (_isInArray) {
+			if (c == ']')
+				return (finishArray());
+			if (c != ',')
+				throw unexpected(c, "',' or ']'");
+			c = nextNonWhitespace();
+		}
+		if (c == -1) {
+			if (_isInArray)
+				throw unexpected(c, "']'");
+			return (null);
+		}
+		if (c != '{')
+			throw unexpected(c, "'{'");
+		return (readResourceObject());
+	}
+
+	/**
+	 * Closes the underlying stream.
+	 * 
+	 * @throws IOException if the stream could not be closed
+	 */
+	public void close() throws IOException {
+		_reader.close();
+	}
+
+	/**
+	 * Consumes the end of a top-level array, which must be the end of the input.
+	 * 
+	 * @return null, since there are no more Resources
+	 */
+	private Resource.Builder finishArray() throws IOException, InvalidDDMSException {
+		_isInArray = false;
+		int c = nextNonWhitespace();
+		if (c != -1)
+			throw unexpected(c, "the end of the input");
+		return (null);
+	}
+
+	/**
+	 * Reads the members of a Resource, after its opening brace.
+	 * 
+	 * @return the populated Builder
+	 */
+	private Resource.Builder readResourceObject() throws IOException, InvalidDDMSException {
+		Resource.Builder builder = new Resource.Builder();
+		String version = null;
+		if (nextNonWhitespace() != '}') {
+			_next = _last;
+			do {
+				String name = readName();
+				if (JSONWriter.VERSION_NAME.equals(name))
+					version = readString();
+				else if (JSONWriter.COMPONENTS_NAME.equals(name))
+					readComponents(builder);
+				else {
+					BuilderProperty property = BuilderProperty.getProperty(Resource.Builder.class, name);
+					if (property == null || IBuilder.class.isAssignableFrom(property.getBuilderClass() == null
+						? Object.class : property.getBuilderClass()))
+						throw new InvalidDDMSException("Unknown JSON property for a resource: " + name);
+					readProperty(builder, property);
+				}
+			}
+			while (readSeparator('}'));
+		}
+		if (version == null)
+			throw new InvalidDDMSException("The JSON resource does not specify a " + JSONWriter.VERSION_NAME + ".");
+		try {
+			DDMSVersion.setCurrentVersion(version);
+		}
+		catch (UnsupportedVersionException e) {
+			throw new InvalidDDMSException(e.getMessage());
+		}
+		return (builder);
+	}
+
+	/**
+	 * Reads the array of top-level components into a Resource Builder.
+	 * 
+	 * @param builder the Resource Builder
+	 */
+	private void readComponents(Resource.Builder builder) throws IOException, InvalidDDMSException {
+		expect('[');
+		if (nextNonWhitespace() == ']')
+			return;
+		_next = _last;
+		do {
+			expect('{');
+			String name = readName();
+			BuilderProperty property = getComponentProperties().get(name);
+			if (property == null)
+				throw new InvalidDDMSException("Unknown JSON component: " + name);
+			readProperty(builder, property);
+			expect('}');
+		}
+		while (readSeparator(']'));
+	}
+
+	/**
+	 * Reads a single value into a Builder property. Lists of Builders are appended to, so the same property can appear
+	 * more than once.
+	 * 
+	 * @param builder the Builder
+	 * @param property the property
+	 */
+	@SuppressWarnings("unchecked")
+	private void readProperty(Object builder, BuilderProperty property) throws IOException, InvalidDDMSException {
+		if (peekNonWhitespace() == 'n') {
+			readLiteral("null");
+			return;
+		}
+		switch (property.getKind()) {
+			case STRING:
+				property.set(builder, readString());
+				break;
+			case BOOLEAN:
+				property.set(builder, Boolean.valueOf(peekNonWhitespace() == 't' ? readLiteral("true")
+					: readLiteral("false")));
+				break;
+			case INTEGER:
+				String integer = readNumber();
+				try {
+					property.set(builder, Integer.valueOf(integer));
+				}
+				catch (NumberFormatException e) {
+					throw new InvalidDDMSException("The JSON property " + property.getName() + " must be an integer: "
+						+ integer);
+				}
+				break;
+			case DOUBLE:
+				if (peekNonWhitespace() == '"')
+					property.set(builder, readNonFiniteNumber(property));
+				else
+					property.set(builder, Double.valueOf(readNumber()));
+				break;
+			case ATTRIBUTE_TYPE:
+				String typeName = readString();
+				Object type = BuilderProperty.getAttributeType(typeName);
+				if (type == null)
+					throw new InvalidDDMSException("Unknown attribute type: " + typeName);
+				property.set(builder, type);
+				break;
+			case STRING_LIST:
+				List<String> values = new ArrayList<String>();
+				expect('[');
+				if (nextNonWhitespace() != ']') {
+					_next = _last;
+					do
+						values.add(readString());
+					while (readSeparator(']'));
+				}
+				property.set(builder, values);
+				break;
+			case BUILDER:
+				readBuilderObject(property.getOrCreateBuilder(builder));
+				break;
+			case BUILDER_LIST:
+				List<Object> builders = (List<Object>) property.get(builder);
+				if (peekNonWhitespace() == '{') {
+					builders.add(readBuilderObject(property.newBuilder()));
+					break;
+				}
+				expect('[');
+				if (nextNonWhitespace() != ']') {
+					_next = _last;
+					do
+						builders.add(readBuilderObject(property.newBuilder()));
+					while (readSeparator(']'));
+				}
+				break;
+		}
+	}
+
+	/**
+	 * Reads an object into a Builder.
+	 * 
+	 * @param builder the Builder to populate
+	 * @return the same Builder
+	 */
+	private Object readBuilderObject(Object builder) throws IOException, InvalidDDMSException {
+		expect('{');
+		if (nextNonWhitespace() == '}')
+			return (builder);
+		_next = _last;
+		do {
+			String name = readName();
+			BuilderProperty property = BuilderProperty.getProperty(builder.getClass(), name);
+			if (property == null)
+				throw new InvalidDDMSException("Unknown JSON property for " + getDisplayName(builder) + ": " + name);
+			readProperty(builder, property);
+		}
+		while (readSeparator('}'));
+		return (builder);
+	}
+
+	/**
+	 * Maps the JSON name of each top-level component to the Resource Builder property which holds it.
+	 * 
+	 * @return the map
+	 */
+	private static synchronized Map<String, BuilderProperty> getComponentProperties() {
+		if (COMPONENT_PROPERTIES == null) {
+			COMPONENT_PROPERTIES = new HashMap<String, BuilderProperty>();
+			for (BuilderProperty property : BuilderProperty.getProperties(Resource.Builder.class)) {
+				Class<?> builderClass = property.getBuilderClass();
+				if (builderClass != null && IBuilder.class.isAssignableFrom(builderClass))
+					COMPONENT_PROPERTIES.put(JSONWriter.getComponentName(builderClass.getDeclaringClass()), property);
+			}
+		}
+		return (COMPONENT_PROPERTIES);
+	}
+
+	/**
+	 * Returns a readable name for a Builder in error messages, such as "Title".
+	 * 
+	 * @param builder the Builder
+	 * @return the name of the class the Builder is nested in
+	 */
+	private static String getDisplayName(Object builder) {
+		Class<?> builderClass = builder.getClass();
+		Class<?> outerClass = builderClass.getDeclaringClass();
+		return (outerClass == null ? builderClass.getSimpleName() : outerClass.getSimpleName());
+	}
+
+	/**
+	 * Reads a member name and the colon after it.
+	 * 
+	 * @return the name
+	 */
+	private String readName() throws IOException, InvalidDDMSException {
+		String name = readString();
+		expect(':');
+		return (name);
+	}
+
+	/**
+	 * Reads the separator after a member or array element.
+	 * 
+	 * @param close the character which closes the enclosing object or array
+	 * @return true if another member or element follows
+	 */
+	private boolean readSeparator(char close) throws IOException, InvalidDDMSException {
+		int c = nextNonWhitespace();
+		if (c == ',')
+			return (true);
+		if (c != close)
+			throw unexpected(c, "',' or '" + close + "'");
+		return (false);
+	}
+
+	/**
+	 * Reads a quoted String, resolving escape sequences.
+	 * 
+	 * @return the String
+	 */
+	private String readString() throws IOException, InvalidDDMSException {
+		expect('"');
+		StringBuilder value = new StringBuilder();
+		while (true) {
+			int c = next();
+			if (c == '"')
+				return (value.toString());
+			if (c == -1 || c < 0x20)
+				throw unexpected(c, "a string character");
+			if (c != '\\') {
+				value.append((char) c);
+				continue;
+			}
+			c = next();
+			switch (c) {
+				case '"':
+				case '\\':
+				case '/':
+					value.append((char) c);
+					break;
+				case 'b':
+					value.append('\b');
+					break;
+				case 'f':
+					value.append('\f');
+					break;
+				case 'n':
+					value.append('\n');
+					break;
+				case 'r':
+					value.append('\r');
+					break;
+				case 't':
+					value.append('\t');
+					break;
+				case 'u':
+					int code = 0;
+					for (int i = 0; i < 4; i++) {
+						int digit = Character.digit(next(), 16);
+						if (digit < 0)
+							throw unexpected(_last, "a hexadecimal digit");
+						code = code * 16 + digit;
+					}
+					value.append((char) code);
+					break;
+				default:
+					throw unexpected(c, "an escape sequence");
+			}
+		}
+	}
+
+	/**
+	 * Reads a number, checking that it is valid JSON.
+	 * 
+	 * @return the number, as written
+	 */
+	private String readNumber() throws IOException, InvalidDDMSException {
+		StringBuilder number = new StringBuilder();
+		int c = nextNonWhitespace();
+		while (c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E' || (c >= '0' && c <= '9')) {
+			number.append((char) c);
+			c = next();
+		}
+		_next = c;
+		if (number.length() == 0)
+			throw unexpected(c, "a number");
+		try {
+			Double.parseDouble(number.toString());
+		}
+		catch (NumberFormatException e) {
+			throw new InvalidDDMSException("Malformed JSON number: " + number);
+		}
+		return (number.toString());
+	}
+
+	/**
+	 * Reads a number which JSON cannot represent, written as one of the strings "NaN", "Infinity", or "-Infinity".
+	 * 
+	 * @param property the property being read
+	 * @return the number
+	 */
+	private Double readNonFiniteNumber(BuilderProperty property) throws IOException, InvalidDDMSException {
+		String value = readString();
+		if (!"NaN".equals(value) && !"Infinity".equals(value) && !"-Infinity".equals(value))
+			throw new InvalidDDMSException("The JSON property " + property.getName() + " must be a number: " + value);
+		return (Double.valueOf(value));
+	}
+
+	/**
+	 * Reads a literal keyword, such as "true".
+	 * 
+	 * @param literal the expected keyword
+	 * @return the keyword
+	 */
+	private String readLiteral(String literal) throws IOException, InvalidDDMSException {
+		expect(literal.charAt(0));
+		for (int i = 1; i < literal.length(); i++) {
+			int c = next();
+			if (c != literal.charAt(i))
+				throw unexpected(c, "'" + literal + "'");
+		}
+		return (literal);
+	}
+
+	/**
+	 * Reads the next non-whitespace character, which must match.
+	 * 
+	 * @param expected the expected character
+	 */
+	private void expect(char expected) throws IOException, InvalidDDMSException {
+		int c = nextNonWhitespace();
+		if (c != expected)
+			throw unexpected(c, "'" + expected + "'");
+	}
+
+	/**
+	 * Builds the exception for an unexpected character.
+	 * 
+	 * @param c the character found, or -1 at the end of the input
+	 * @param expected a description of what was expected
+	 * @return the exception
+	 */
+	private InvalidDDMSException unexpected(int c, String expected) {
+		String found = (c == -1 ? "the end of the input" : "'" + (char) c + "'");
+		return (new InvalidDDMSException("Malformed JSON at character " + _position + ": expected " + expected
+			+ " but found " + found + "."));
+	}
+
+	/**
+	 * Returns the next non-whitespace character without consuming it.
+	 * 
+	 * @return the character, or -1 at the end of the input
+	 */
+	private int peekNonWhitespace() throws IOException {
+		_next = nextNonWhitespace();
+		return (_next);
+	}
+
+	/**
+	 * Reads the next non-whitespace character.
+	 * 
+	 * @return the character, or -1 at the end of the input
+	 */
+	private int nextNonWhitespace() throws IOException {
+		int c = next();
+		while (c == ' ' || c == '\t' || c == '\n' || c == '\r')
+			c = next();
+		return (c);
+	}
+
+	/**
+	 * Reads the next character, honoring a single character of pushback in <code>_next</code>.
+	 * 
+	 * @return the character, or -1 at the end of the input
+	 */
+	private int next() throws IOException {
+		if (_next != -2) {
+			_last = _next;
+			_next = -2;
+			return (_last);
+		}
+		_last = _reader.read();
+		if (_last != -1)
+			_position++;
+		return (_last);
+	}
+}
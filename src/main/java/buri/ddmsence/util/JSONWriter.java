@@ -0,0 +1,298 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import nu.xom.Attribute;
+import buri.ddmsence.ddms.IDDMSComponent;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.extensible.ExtensibleAttributes;
+import buri.ddmsence.ddms.security.ism.NoticeAttributes;
+import buri.ddmsence.ddms.security.ism.SecurityAttributes;
+
+/**
+ * Writer class which streams DDMS Resources as JSON.
+ * 
+ * <p>
+ * The JSON form of a Resource mirrors its Builders, so it covers every supported version of DDMS and can be read back
+ * with a {@link JSONReader}. Each Resource becomes a single object:
+ * </p>
+ * <ul>
+ * <li><code>ddmsVersion</code>: the version of DDMS the Resource was built with.</li>
+ * <li>The attributes of the Resource, named after the properties of the Resource Builder, such as
+ * <code>createDate</code> or <code>securityAttributes</code>.</li>
+ * <li><code>components</code>: an array holding the top-level components in document order. Each entry is an object
+ * with a single member, named after the component class (<code>identifier</code>, <code>pointOfContact</code>, etc.),
+ * whose value holds the properties of the component's Builder.</li>
+ * </ul>
+ * 
+ * <p>
+ * Builder properties are written in name order, and empty values are omitted. JSON has no form for NaN or infinite
+ * numbers, so those values are written as the strings "NaN", "Infinity", and "-Infinity", which the JSONReader turns
+ * back into the same numbers. The top-level components are converted one at a time, so the whole
+ * Resource is never held as a Builder tree or a String. Each Resource is followed by a line break, which makes a
+ * stream of many Resources valid JSON Lines.
+ * </p>
+ * 
+ * <p>
+ * Writers are not thread-safe, and the underlying stream is only closed by {@link #close()}.
+ * </p>
+ * 
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public class JSONWriter {
+
+	private Writer _writer;
+
+	/** The name of the member holding the DDMS version */
+	public static final String VERSION_NAME = "ddmsVersion";
+
+	/** The name of the member holding the top-level components */
+	public static final String COMPONENTS_NAME = "components";
+
+	/**
+	 * Constructor
+	 * 
+	 * @param writer the destination of the JSON
+	 */
+	public JSONWriter(Writer writer) {
+		Util.requireValue("writer", writer);
+		_writer = new BufferedWriter(writer);
+	}
+
+	/**
+	 * Writes a Resource as a single JSON object, followed by a line break.
+	 * 
+	 * @param resource the Resource to write
+	 * @throws IOException if the output could not be written
+	 */
+	public void write(Resource resource) throws IOException {
+		Util.requireValue("resource", resource);
+		String version = DDMSVersion.getVersionForNamespace(resource.getNamespace()).getVersion();
+		_writer.write("{");
+		writeName(VERSION_NAME, true);
+		writeString(version);
+		if (resource.getCreateDate() != null) {
+			writeName("createDate", false);
+			writeString(resource.getCreateDate().toXMLFormat());
+		}
+		if (!resource.getCompliesWiths().isEmpty()) {
+			writeName("compliesWiths", false);
+			writeStrings(resource.getCompliesWiths());
+		}
+		if (!resource.getExtensibleAttributes().isEmpty()) {
+			writeName("extensibleAttributes", false);
+			writeBuilder(new ExtensibleAttributes.Builder(resource.getExtensibleAttributes()));
+		}
+		if (resource.getIsmDESVersion() != null) {
+			writeName("ismDESVersion", false);
+			_writer.write(resource.getIsmDESVersion().toString());
+		}
+		if (!resource.getNoticeAttributes().isEmpty()) {
+			writeName("noticeAttributes", false);
+			writeBuilder(new NoticeAttributes.Builder(resource.getNoticeAttributes()));
+		}
+		if (resource.getNtkDESVersion() != null) {
+			writeName("ntkDESVersion", false);
+			_writer.write(resource.getNtkDESVersion().toString());
+		}
+		if (resource.isResourceElement() != null) {
+			writeName("resourceElement", false);
+			_writer.write(resource.isResourceElement().toString());
+		}
+		if (!resource.getSecurityAttributes().isEmpty()) {
+			writeName("securityAttributes", false);
+			writeBuilder(new SecurityAttributes.Builder(resource.getSecurityAttributes()));
+		}
+		writeName(COMPONENTS_NAME, false);
+		_writer.write("[");
+		boolean isFirst = true;
+		for (IDDMSComponent component : resource.getTopLevelComponents()) {
+			if (!isFirst)
+				_writer.write(",");
+			isFirst = false;
+			_writer.write("{");
+			writeName(getComponentName(component.getClass()), true);
+			writeBuilder(BuilderProperty.newBuilder(component));
+			_writer.write("}");
+		}
+		_writer.write("]}\n");
+	}
+
+	/**
+	 * Flushes any buffered output to the underlying stream.
+	 * 
+	 * @throws IOException if the output could not be written
+	 */
+	public void flush() throws IOException {
+		_writer.flush();
+	}
+
+	/**
+	 * Flushes any buffered output and closes the underlying stream.
+	 * 
+	 * @throws IOException if the stream could not be closed
+	 */
+	public void close() throws IOException {
+		_writer.close();
+	}
+
+	/**
+	 * Returns the JSON member name used for a top-level component class, such as "pointOfContact".
+	 * 
+	 * @param componentClass the class of the component
+	 * @return the member name
+	 */
+	static String getComponentName(Class<?> componentClass) {
+		return (BuilderProperty.decapitalize(componentClass.getSimpleName()));
+	}
+
+	/**
+	 * Writes the properties of a Builder as an object.
+	 * 
+	 * @param builder the Builder
+	 * @throws IOException if the output could not be written
+	 */
+	private void writeBuilder(Object builder) throws IOException {
+		_writer.write("{");
+		boolean isFirst = true;
+		for (BuilderProperty property : BuilderProperty.getProperties(builder.getClass())) {
+			Object value = property.get(builder);
+			if (value == null || (value instanceof String && Util.isEmpty((String) value))
+				|| (value instanceof List && ((List<?>) value).isEmpty())
+				|| (property.getKind() == BuilderProperty.Kind.BUILDER && BuilderProperty.isEmpty(value)))
+				continue;
+			writeName(property.getName(), isFirst);
+			isFirst = false;
+			switch (property.getKind()) {
+				case STRING:
+					writeString((String) value);
+					break;
+				case DOUBLE:
+					Double number = (Double) value;
+					if (number.isNaN() || number.isInfinite())
+						writeString(number.toString());
+					else
+						_writer.write(number.toString());
+					break;
+				case ATTRIBUTE_TYPE:
+					writeString(((Attribute.Type) value).getName());
+					break;
+				case STRING_LIST:
+					writeStrings((List<?>) value);
+					break;
+				case BUILDER:
+					writeBuilder(value);
+					break;
+				case BUILDER_LIST:
+					_writer.write("[");
+					List<?> builders = (List<?>) value;
+					for (int i = 0; i < builders.size(); i++) {
+						if (i > 0)
+							_writer.write(",");
+						writeBuilder(builders.get(i));
+					}
+					_writer.write("]");
+					break;
+				default:
+					_writer.write(value.toString());
+			}
+		}
+		_writer.write("}");
+	}
+
+	/**
+	 * Writes the name of an object member.
+	 * 
+	 * @param name the name
+	 * @param isFirst true if this is the first member of its object
+	 * @throws IOException if the output could not be written
+	 */
+	private void writeName(String name, boolean isFirst) throws IOException {
+		if (!isFirst)
+			_writer.write(",");
+		writeString(name);
+		_writer.write(":");
+	}
+
+	/**
+	 * Writes a list of Strings as an array.
+	 * 
+	 * @param values the Strings
+	 * @throws IOException if the output could not be written
+	 */
+	private void writeStrings(List<?> values) throws IOException {
+		_writer.write("[");
+		for (int i = 0; i < values.size(); i++) {
+			if (i > 0)
+				_writer.write(",");
+			writeString(String.valueOf(values.get(i)));
+		}
+		_writer.write("]");
+	}
+
+	/**
+	 * Writes a quoted String, escaping quotes, backslashes, control characters and the Unicode line separators.
+	 * 
+	 * @param value the String
+	 * @throws IOException if the output could not be written
+	 */
+	private void writeString(String value) throws IOException {
+		_writer.write('"');
+		int start = 0;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c >= 0x20 && c != '"' && c != '\\' && c != '\u2028' && c != '\u2029')
+				continue;
+			_writer.write(value, start, i - start);
+			start = i + 1;
+			switch (c) {
+				case '"':
+					_writer.write("\\\"");
+					break;
+				case '\\':
+					_writer.write("\\\\");
+					break;
+				case '\n':
+					_writer.write("\\n");
+					break;
+				case '\r':
+					_writer.write("\\r");
+					break;
+				case '\t':
+					_writer.write("\\t");
+					break;
+				default:
+					String hex = Integer.toHexString(c);
+					_writer.write("\\u");
+					for (int pad = hex.length(); pad < 4; pad++)
+						_writer.write('0');
+					_writer.write(hex);
+			}
+		}
+		_writer.write(value, start, value.length() - start);
+		_writer.write('"');
+	}
+}
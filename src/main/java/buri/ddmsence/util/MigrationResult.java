@@ -0,0 +1,86 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.util.Collections;
+import java.util.List;
+
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.ValidationMessage;
+
+/**
+ * The outcome of migrating a single Resource with a VersionMigrator.
+ * 
+ * <p>The warnings describe any data which was dropped or assumed during the migration. They are separate from the
+ * validation warnings of the migrated Resource itself, which are still available from
+ * <code>getResource().getValidationWarnings()</code>.</p>
+ * 
+ * @see VersionMigrator
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public final class MigrationResult {
+
+	private Resource _resource;
+	private DDMSVersion _sourceVersion;
+	private List<ValidationMessage> _warnings;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param resource the migrated Resource
+	 * @param sourceVersion the version of the original Resource
+	 * @param warnings the migration warnings
+	 */
+	MigrationResult(Resource resource, DDMSVersion sourceVersion, List<ValidationMessage> warnings) {
+		_resource = resource;
+		_sourceVersion = sourceVersion;
+		_warnings = Collections.unmodifiableList(warnings);
+	}
+
+	/**
+	 * Accessor for the migrated Resource. This is the original Resource if it was already in the target version.
+	 */
+	public Resource getResource() {
+		return (_resource);
+	}
+
+	/**
+	 * Accessor for the version of the original Resource
+	 */
+	public DDMSVersion getSourceVersion() {
+		return (_sourceVersion);
+	}
+
+	/**
+	 * Accessor for the version of the migrated Resource
+	 */
+	public DDMSVersion getTargetVersion() {
+		return (DDMSVersion.getVersionForNamespace(getResource().getNamespace()));
+	}
+
+	/**
+	 * Accessor for the warnings about dropped or assumed data. Each locator is the path of the affected Builder
+	 * property, in the syntax of a ResourcePatch, after a leading slash.
+	 */
+	public List<ValidationMessage> getWarnings() {
+		return (_warnings);
+	}
+}
@@ -58,6 +58,7 @@ public class PropertyReader {
 		CUSTOM_PROPERTIES.add("ism.prefix");
 		CUSTOM_PROPERTIES.add("ntk.prefix");
 		CUSTOM_PROPERTIES.add("output.indexLevel");
+		CUSTOM_PROPERTIES.add("resource.schemaValidation");
 		CUSTOM_PROPERTIES.add("sample.data");
 		CUSTOM_PROPERTIES.add("tspi.prefix");
 		CUSTOM_PROPERTIES.add("virt.prefix");
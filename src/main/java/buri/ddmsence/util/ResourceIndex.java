@@ -0,0 +1,470 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.summary.Category;
+import buri.ddmsence.ddms.summary.Keyword;
+import buri.ddmsence.ddms.summary.NonStateActor;
+import buri.ddmsence.ddms.summary.SubjectCoverage;
+
+/**
+ * An in-memory inverted index over the subject terms of a set of Resources.
+ * 
+ * <p>
+ * The index maps each term of a ddms:subjectCoverage to the Resources which contain it, so finding the Resources with
+ * a keyword or category does not need to visit every Resource. The indexed fields are:
+ * </p>
+ * <ul>
+ * <li>{@link #KEYWORD_FIELD}: the value of each ddms:keyword</li>
+ * <li>{@link #CATEGORY_QUALIFIER_FIELD}, {@link #CATEGORY_CODE_FIELD}, {@link #CATEGORY_LABEL_FIELD}: the qualifier,
+ * code, and label of each ddms:category</li>
+ * <li>{@link #NON_STATE_ACTOR_FIELD}: the value of each ddms:nonStateActor</li>
+ * </ul>
+ * 
+ * <p>
+ * Values are matched exactly, including their case. Each Resource is numbered in the order it is added, and the
+ * posting list of a term holds the numbers of its Resources in increasing order, stored as the gaps between them in
+ * variable-length bytes. A term which appears in many Resources therefore costs about one byte per Resource. Queries
+ * for several terms at once intersect the posting lists by leapfrogging from the shortest list, or unite them into a
+ * bit set, and return the identifiers of the matching Resources in the order they were added.
+ * </p>
+ * 
+ * <p>
+ * As in a ResourceStore, a Resource is identified by the value of its first ddms:identifier, and adding a Resource
+ * with the same identifier replaces the earlier one. A removed Resource is skipped by queries until enough Resources
+ * have been removed to be worth renumbering the rest, at which point the posting lists are rebuilt.
+ * </p>
+ * 
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ * 
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public final class ResourceIndex {
+
+	/** The field for keyword values */
+	public static final String KEYWORD_FIELD = "keyword";
+
+	/** The field for category qualifiers */
+	public static final String CATEGORY_QUALIFIER_FIELD = "categoryQualifier";
+
+	/** The field for category codes */
+	public static final String CATEGORY_CODE_FIELD = "categoryCode";
+
+	/** The field for category labels */
+	public static final String CATEGORY_LABEL_FIELD = "categoryLabel";
+
+	/** The field for non-state actor values */
+	public static final String NON_STATE_ACTOR_FIELD = "nonStateActor";
+
+	private static final List<String> FIELDS = Arrays.asList(KEYWORD_FIELD, CATEGORY_QUALIFIER_FIELD,
+		CATEGORY_CODE_FIELD, CATEGORY_LABEL_FIELD, NON_STATE_ACTOR_FIELD);
+
+	private Map<String, PostingList> _postings = new HashMap<String, PostingList>();
+	private Map<String, Integer> _documents = new HashMap<String, Integer>();
+	private List<String> _identifiers = new ArrayList<String>();
+	private int _removedCount = 0;
+
+	/**
+	 * Empty constructor
+	 */
+	public ResourceIndex() {}
+
+	/**
+	 * Adds the terms of a Resource to the index, replacing any Resource with the same identifier.
+	 * 
+	 * @param resource the Resource
+	 * @return the identifier of the Resource in this index
+	 */
+	public synchronized String add(Resource resource) {
+		Util.requireValue("resource", resource);
+		String identifier = ResourceStore.getIdentifier(resource);
+		remove(identifier);
+		int document = _identifiers.size();
+		_identifiers.add(identifier);
+		_documents.put(identifier, Integer.valueOf(document));
+		for (SubjectCoverage coverage : resource.getSubjectCoverages()) {
+			for (Keyword keyword : coverage.getKeywords())
+				addPosting(KEYWORD_FIELD, keyword.getValue(), document);
+			for (Category category : coverage.getCategories()) {
+				addPosting(CATEGORY_QUALIFIER_FIELD, category.getQualifier(), document);
+				addPosting(CATEGORY_CODE_FIELD, category.getCode(), document);
+				addPosting(CATEGORY_LABEL_FIELD, category.getLabel(), document);
+			}
+			for (NonStateActor actor : coverage.getNonStateActors())
+				addPosting(NON_STATE_ACTOR_FIELD, actor.getValue(), document);
+		}
+		return (identifier);
+	}
+
+	/**
+	 * Removes a Resource from the index.
+	 * 
+	 * @param identifier the identifier of the Resource
+	 * @return true if a Resource was removed
+	 */
+	public synchronized boolean remove(String identifier) {
+		Integer document = _documents.remove(identifier);
+		if (document == null)
+			return (false);
+		_identifiers.set(document.intValue(), null);
+		_removedCount++;
+		if (_removedCount > _documents.size())
+			compact();
+		return (true);
+	}
+
+	/**
+	 * Checks whether a Resource is in the index.
+	 * 
+	 * @param identifier the identifier of the Resource
+	 * @return true if a Resource has the identifier
+	 */
+	public synchronized boolean contains(String identifier) {
+		return (_documents.containsKey(identifier));
+	}
+
+	/**
+	 * Returns the number of Resources in the index.
+	 */
+	public synchronized int size() {
+		return (_documents.size());
+	}
+
+	/**
+	 * Finds the Resources which contain a single term.
+	 * 
+	 * @param field the field of the term, such as {@link #KEYWORD_FIELD}
+	 * @param value the exact value of the term
+	 * @return the identifiers of the matching Resources, in the order they were added
+	 */
+	public List<String> find(String field, String value) {
+		return (findAll(new Term(field, value)));
+	}
+
+	/**
+	 * Finds the Resources which contain every one of a set of terms.
+	 * 
+	 * @param terms the terms
+	 * @return the identifiers of the matching Resources, in the order they were added
+	 */
+	public synchronized List<String> findAll(Term... terms) {
+		List<String> identifiers = new ArrayList<String>();
+		if (terms.length == 0)
+			return (identifiers);
+		Cursor[] cursors = new Cursor[terms.length];
+		for (int i = 0; i < terms.length; i++) {
+			PostingList postings = _postings.get(terms[i].getKey());
+			if (postings == null)
+				return (identifiers);
+			cursors[i] = new Cursor(postings);
+		}
+		Arrays.sort(cursors, new Comparator<Cursor>() {
+			public int compare(Cursor first, Cursor second) {
+				return (first.getSize() - second.getSize());
+			}
+		});
+
+		// Leapfrog: each list skips ahead to the highest document seen, until they all agree on one.
+		Cursor lead = cursors[0];
+		if (!lead.next())
+			return (identifiers);
+		int target = lead.getDocument();
+		while (true) {
+			boolean isMatch = true;
+			for (int i = 1; i < cursors.length && isMatch; i++) {
+				if (!cursors[i].advance(target))
+					return (identifiers);
+				if (cursors[i].getDocument() > target) {
+					target = cursors[i].getDocument();
+					isMatch = false;
+				}
+			}
+			if (isMatch) {
+				addIdentifier(identifiers, target);
+				if (!lead.next())
+					return (identifiers);
+			}
+			else if (!lead.advance(target))
+				return (identifiers);
+			target = lead.getDocument();
+		}
+	}
+
+	/**
+	 * Finds the Resources which contain any of a set of terms.
+	 * 
+	 * @param terms the terms
+	 * @return the identifiers of the matching Resources, in the order they were added
+	 */
+	public synchronized List<String> findAny(Term... terms) {
+		BitSet documents = new BitSet(_identifiers.size());
+		for (Term term : terms) {
+			PostingList postings = _postings.get(term.getKey());
+			if (postings != null) {
+				for (Cursor cursor = new Cursor(postings); cursor.next();)
+					documents.set(cursor.getDocument());
+			}
+		}
+		List<String> identifiers = new ArrayList<String>();
+		for (int document = documents.nextSetBit(0); document >= 0; document = documents.nextSetBit(document + 1))
+			addIdentifier(identifiers, document);
+		return (identifiers);
+	}
+
+	/**
+	 * Adds a document to the posting list of a term.
+	 * 
+	 * @param field the field of the term
+	 * @param value the value of the term, which is skipped if empty
+	 * @param document the number of the document
+	 */
+	private void addPosting(String field, String value, int document) {
+		if (Util.isEmpty(value))
+			return;
+		String key = new Term(field, value).getKey();
+		PostingList postings = _postings.get(key);
+		if (postings == null) {
+			postings = new PostingList();
+			_postings.put(key, postings);
+		}
+		postings.add(document);
+	}
+
+	/**
+	 * Adds the identifier of a document to a result, unless the document was removed.
+	 * 
+	 * @param identifiers the result
+	 * @param document the number of the document
+	 */
+	private void addIdentifier(List<String> identifiers, int document) {
+		String identifier = _identifiers.get(document);
+		if (identifier != null)
+			identifiers.add(identifier);
+	}
+
+	/**
+	 * Renumbers the remaining documents without gaps, and rebuilds the posting lists without the removed documents.
+	 */
+	private void compact() {
+		int[] numbers = new int[_identifiers.size()];
+		List<String> identifiers = new ArrayList<String>(_documents.size());
+		for (int document = 0; document < numbers.length; document++) {
+			String identifier = _identifiers.get(document);
+			numbers[document] = (identifier == null ? -1 : identifiers.size());
+			if (identifier != null) {
+				_documents.put(identifier, Integer.valueOf(identifiers.size()));
+				identifiers.add(identifier);
+			}
+		}
+		for (Iterator<Map.Entry<String, PostingList>> iterator = _postings.entrySet().iterator(); iterator.hasNext();) {
+			Map.Entry<String, PostingList> entry = iterator.next();
+			PostingList postings = new PostingList();
+			for (Cursor cursor = new Cursor(entry.getValue()); cursor.next();) {
+				if (numbers[cursor.getDocument()] != -1)
+					postings.add(numbers[cursor.getDocument()]);
+			}
+			if (postings.getSize() == 0)
+				iterator.remove();
+			else
+				entry.setValue(postings);
+		}
+		_identifiers = identifiers;
+		_removedCount = 0;
+	}
+
+	/**
+	 * A term of the index: a field and an exact value.
+	 */
+	public static final class Term {
+		private String _field;
+		private String _value;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param field the field, such as {@link ResourceIndex#KEYWORD_FIELD}
+		 * @param value the exact value
+		 * @throws IllegalArgumentException if the field is not indexed
+		 */
+		public Term(String field, String value) {
+			Util.requireValue("field", field);
+			Util.requireValue("value", value);
+			if (!FIELDS.contains(field))
+				throw new IllegalArgumentException("Unknown index field: " + field);
+			_field = field;
+			_value = value;
+		}
+
+		/**
+		 * Returns the key of the term in the index. Field names contain no colons, so the key is unique.
+		 */
+		private String getKey() {
+			return (getField() + ":" + getValue());
+		}
+
+		/**
+		 * @see Object#equals(Object)
+		 */
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Term))
+				return (false);
+			return (getKey().equals(((Term) obj).getKey()));
+		}
+
+		/**
+		 * @see Object#hashCode()
+		 */
+		public int hashCode() {
+			return (getKey().hashCode());
+		}
+
+		/**
+		 * @see Object#toString()
+		 */
+		public String toString() {
+			return (getKey());
+		}
+
+		/**
+		 * Accessor for the field
+		 */
+		public String getField() {
+			return (_field);
+		}
+
+		/**
+		 * Accessor for the value
+		 */
+		public String getValue() {
+			return (_value);
+		}
+	}
+
+	/**
+	 * An increasing list of document numbers, stored as the gaps between them in variable-length bytes.
+	 */
+	private static final class PostingList {
+		private byte[] _bytes = new byte[4];
+		private int _length = 0;
+		private int _size = 0;
+		private int _last = -1;
+
+		/**
+		 * Adds a document, which must not be lower than the last one. Adding the last document again has no effect.
+		 */
+		public void add(int document) {
+			if (document == _last)
+				return;
+			int gap = document - _last;
+			_last = document;
+			_size++;
+			if (_length + 5 > _bytes.length)
+				_bytes = Arrays.copyOf(_bytes, Math.max(_bytes.length * 2, _length + 5));
+			while ((gap & ~0x7F) != 0) {
+				_bytes[_length++] = (byte) ((gap & 0x7F) | 0x80);
+				gap >>>= 7;
+			}
+			_bytes[_length++] = (byte) gap;
+		}
+
+		/**
+		 * Returns the number of documents.
+		 */
+		public int getSize() {
+			return (_size);
+		}
+	}
+
+	/**
+	 * Reads a posting list from the start.
+	 */
+	private static final class Cursor {
+		private PostingList _postings;
+		private int _position = 0;
+		private int _document = -1;
+
+		/**
+		 * Constructor
+		 */
+		public Cursor(PostingList postings) {
+			_postings = postings;
+		}
+
+		/**
+		 * Moves to the next document.
+		 * 
+		 * @return false if there are no more documents
+		 */
+		public boolean next() {
+			if (_position >= _postings._length)
+				return (false);
+			int gap = 0;
+			for (int shift = 0;; shift += 7) {
+				byte b = _postings._bytes[_position++];
+				gap |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0)
+					break;
+			}
+			_document += gap;
+			return (true);
+		}
+
+		/**
+		 * Moves to the first document which is not lower than a target.
+		 * 
+		 * @param target the target document
+		 * @return false if there are no more documents
+		 */
+		public boolean advance(int target) {
+			while (_document < target) {
+				if (!next())
+					return (false);
+			}
+			return (true);
+		}
+
+		/**
+		 * Returns the current document.
+		 */
+		public int getDocument() {
+			return (_document);
+		}
+
+		/**
+		 * Returns the number of documents in the posting list.
+		 */
+		public int getSize() {
+			return (_postings.getSize());
+		}
+	}
+}
@@ -0,0 +1,576 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import nu.xom.Attribute;
+import buri.ddmsence.ddms.IBuilder;
+import buri.ddmsence.ddms.IDDMSComponent;
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.security.ism.NoticeAttributes;
+import buri.ddmsence.ddms.security.ism.SecurityAttributes;
+
+/**
+ * A list of typed edits which can be applied to a Resource, producing a new Resource.
+ * 
+ * <p>
+ * Each operation targets a path of Builder property names, separated by slashes, starting from the properties of a
+ * Resource.Builder. A list property takes a zero-based index in brackets, which may be omitted for the first item.
+ * Some example paths:
+ * </p>
+ * <ul>
+ * <li>"titles[1]/value" - the value of the second title</li>
+ * <li>"subjectCoverages/keywords" - the keywords of the first subjectCoverage</li>
+ * <li>"metacardInfo/securityAttributes/releasableTo" - a token list on the metacardInfo</li>
+ * <li>"createDate" - an attribute of the resource itself</li>
+ * </ul>
+ * 
+ * <p>
+ * Paths are checked against the Builder classes when an operation is added, so a misspelled property is reported
+ * immediately with an IllegalArgumentException. Indexes can only be checked when the patch is applied.
+ * </p>
+ * 
+ * <p>
+ * Applying a patch never changes the original Resource. Only the top-level components named by an operation are
+ * rebuilt through their Builders and re-validated. Every other top-level component is passed into the new Resource as
+ * the same instance, so the new Resource only validates its own attributes and the combination of its components, as
+ * it would for any data-driven constructor. Operations are applied in the order they were added, and indexes refer to
+ * the state left by the previous operations. The patch itself is not thread-safe, but it can be applied to any number
+ * of Resources once it is built.
+ * </p>
+ * 
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public final class ResourcePatch {
+
+	private List<Operation> _operations = new ArrayList<Operation>();
+
+	private static final int SET = 0;
+	private static final int ADD = 1;
+	private static final int REMOVE = 2;
+
+	/**
+	 * Sets a scalar property or replaces a list of Strings.
+	 * 
+	 * <p>The value must be a String, Boolean, Integer, Double, XOM attribute type, or List of Strings, matching the
+	 * property. A null value clears a scalar property. A top-level component can be replaced outright by passing the
+	 * new component, such as <code>set("titles[0]", title)</code>.</p>
+	 * 
+	 * @param path the path of the property
+	 * @param value the new value
+	 * @return this patch
+	 * @throws IllegalArgumentException if the path or value does not fit the Builders
+	 */
+	public ResourcePatch set(String path, Object value) {
+		Operation operation = new Operation(SET, path, value);
+		BuilderProperty property = operation.getTarget().getProperty();
+		if (operation.isTopLevel() || property.getKind() == BuilderProperty.Kind.BUILDER
+			|| property.getKind() == BuilderProperty.Kind.BUILDER_LIST) {
+			requireComponent(operation, value);
+			if (value == null)
+				throw new IllegalArgumentException("Use remove() to remove a component: " + path);
+		}
+		else if (property.getKind() == BuilderProperty.Kind.STRING_LIST) {
+			if (operation.getTarget().hasIndex())
+				throw new IllegalArgumentException("A list of Strings cannot be indexed: " + path);
+			if (!(value instanceof List))
+				throw new IllegalArgumentException("A List of Strings is required for " + path);
+			for (Object item : (List<?>) value) {
+				if (!(item instanceof String))
+					throw new IllegalArgumentException("A List of Strings is required for " + path);
+			}
+		}
+		else if (value != null && !getScalarType(property, path).isInstance(value))
+			throw new IllegalArgumentException("A " + getScalarType(property, path).getSimpleName()
+				+ " is required for " + path);
+		_operations.add(operation);
+		return (this);
+	}
+
+	/**
+	 * Adds a value to a list property.
+	 * 
+	 * <p>For a list of Strings, the value is a String, which is only appended if the list does not already contain it.
+	 * For a list of components, the value is a component of the right type, which is appended to the end of the list.
+	 * New top-level components are passed into the new Resource as is.</p>
+	 * 
+	 * @param path the path of the list property, without an index
+	 * @param value the value to add
+	 * @return this patch
+	 * @throws IllegalArgumentException if the path or value does not fit the Builders
+	 */
+	public ResourcePatch add(String path, Object value) {
+		Operation operation = new Operation(ADD, path, value);
+		Segment target = operation.getTarget();
+		if (target.hasIndex())
+			throw new IllegalArgumentException("An added value cannot be indexed: " + path);
+		if (target.getProperty().getKind() == BuilderProperty.Kind.STRING_LIST) {
+			if (!(value instanceof String))
+				throw new IllegalArgumentException("A String is required for " + path);
+		}
+		else if (target.getProperty().getKind() == BuilderProperty.Kind.BUILDER_LIST)
+			requireComponent(operation, value);
+		else
+			throw new IllegalArgumentException("Values can only be added to a list: " + path);
+		_operations.add(operation);
+		return (this);
+	}
+
+	/**
+	 * Removes the component or property at a path.
+	 * 
+	 * <p>A path which ends in a component removes that component, such as "subtitles[0]". A path which ends in a
+	 * scalar property clears it.</p>
+	 * 
+	 * @param path the path to remove
+	 * @return this patch
+	 * @throws IllegalArgumentException if the path does not fit the Builders
+	 */
+	public ResourcePatch remove(String path) {
+		Operation operation = new Operation(REMOVE, path, null);
+		if (operation.getTarget().getProperty().getKind() == BuilderProperty.Kind.STRING_LIST)
+			throw new IllegalArgumentException("Use remove(path, value) for a list of Strings: " + path);
+		_operations.add(operation);
+		return (this);
+	}
+
+	/**
+	 * Removes a String from a list of Strings, if it is present.
+	 * 
+	 * @param path the path of the list property
+	 * @param value the String to remove
+	 * @return this patch
+	 * @throws IllegalArgumentException if the path does not lead to a list of Strings
+	 */
+	public ResourcePatch remove(String path, String value) {
+		Operation operation = new Operation(REMOVE, path, value);
+		if (operation.getTarget().getProperty().getKind() != BuilderProperty.Kind.STRING_LIST
+			|| operation.getTarget().hasIndex())
+			throw new IllegalArgumentException("A list of Strings is required for " + path);
+		Util.requireValue("value", value);
+		_operations.add(operation);
+		return (this);
+	}
+
+	/**
+	 * Applies this patch to a Resource. The Resource is read under its own DDMS version, and the current version is
+	 * restored afterwards.
+	 * 
+	 * @param resource the original Resource, which is not changed
+	 * @return a new Resource, or the original one if the patch has no operations
+	 * @throws InvalidDDMSException if an index is out of range, or if any rebuilt component or the new Resource is
+	 *         invalid
+	 */
+	public Resource applyTo(Resource resource) throws InvalidDDMSException {
+		Util.requireValue("resource", resource);
+		if (_operations.isEmpty())
+			return (resource);
+		DDMSVersion previousVersion = DDMSVersion.getCurrentVersion();
+		DDMSVersion.setCurrentVersion(DDMSVersion.getVersionForNamespace(resource.getNamespace()).getVersion());
+		try {
+			List<IDDMSComponent> components = new ArrayList<IDDMSComponent>(resource.getTopLevelComponents());
+			Map<IDDMSComponent, Object> builders = new IdentityHashMap<IDDMSComponent, Object>();
+			Resource.Builder attributes = null;
+			for (Operation operation : _operations) {
+				if (operation.isResourceLevel()) {
+					if (attributes == null)
+						attributes = getAttributeBuilder(resource);
+					apply(operation, attributes, 0);
+				}
+				else
+					apply(operation, components, builders);
+			}
+
+			for (Map.Entry<IDDMSComponent, Object> entry : builders.entrySet()) {
+				int position = indexOf(components, entry.getKey());
+				if (position == -1)
+					continue;
+				IDDMSComponent component = ((IBuilder) entry.getValue()).commit();
+				if (component == null)
+					components.remove(position);
+				else
+					components.set(position, component);
+			}
+
+			if (attributes == null) {
+				return (new Resource(components, resource.isResourceElement(), resource.getCreateDate() == null ? null
+					: resource.getCreateDate().toXMLFormat(), resource.getCompliesWiths(),
+					resource.getIsmDESVersion(), resource.getNtkDESVersion(), resource.getSecurityAttributes(),
+					resource.getNoticeAttributes(), resource.getExtensibleAttributes()));
+			}
+			return (new Resource(components, attributes.getResourceElement(), attributes.getCreateDate(),
+				attributes.getCompliesWiths(), attributes.getIsmDESVersion(), attributes.getNtkDESVersion(),
+				attributes.getSecurityAttributes().commit(), attributes.getNoticeAttributes().commit(),
+				resource.getExtensibleAttributes()));
+		}
+		finally {
+			DDMSVersion.setCurrentVersion(previousVersion.getVersion());
+		}
+	}
+
+	/**
+	 * Applies an operation which targets a top-level component.
+	 * 
+	 * @param operation the operation
+	 * @param components the current top-level components, in Resource order
+	 * @param builders the Builders created so far, keyed on the original component instance
+	 * @throws InvalidDDMSException if the targeted component does not exist
+	 */
+	private static void apply(Operation operation, List<IDDMSComponent> components, Map<IDDMSComponent, Object> builders)
+		throws InvalidDDMSException {
+		Segment first = operation.getSegments().get(0);
+		Class<?> componentClass = first.getProperty().getBuilderClass().getDeclaringClass();
+		if (operation.isTopLevel() && operation.getType() == ADD) {
+			components.add((IDDMSComponent) operation.getValue());
+			return;
+		}
+
+		int position = -1;
+		int count = 0;
+		for (int i = 0; i < components.size() && position == -1; i++) {
+			if (componentClass.isInstance(components.get(i)) && count++ == first.getIndex())
+				position = i;
+		}
+		if (position == -1) {
+			if (!operation.isTopLevel() || first.hasIndex() || operation.getType() == REMOVE)
+				throw new InvalidDDMSException("No component exists at the path: " + operation.getPath());
+			components.add((IDDMSComponent) operation.getValue());
+			return;
+		}
+		if (operation.isTopLevel()) {
+			if (operation.getType() == REMOVE)
+				components.remove(position);
+			else
+				components.set(position, (IDDMSComponent) operation.getValue());
+			return;
+		}
+
+		IDDMSComponent component = components.get(position);
+		Object builder = builders.get(component);
+		if (builder == null) {
+			builder = BuilderProperty.newBuilder(component);
+			builders.put(component, builder);
+		}
+		apply(operation, builder, 1);
+	}
+
+	/**
+	 * Follows the remaining segments of a path from a Builder, and applies an operation to the last one.
+	 * 
+	 * @param operation the operation
+	 * @param builder the Builder to start from
+	 * @param start the index of the first segment which belongs to the Builder
+	 * @throws InvalidDDMSException if an index is out of range
+	 */
+	@SuppressWarnings("unchecked")
+	private static void apply(Operation operation, Object builder, int start) throws InvalidDDMSException {
+		List<Segment> segments = operation.getSegments();
+		for (int i = start; i < segments.size() - 1; i++) {
+			Segment segment = segments.get(i);
+			if (segment.getProperty().getKind() == BuilderProperty.Kind.BUILDER)
+				builder = segment.getProperty().getOrCreateBuilder(builder);
+			else
+				builder = getItem(operation, (List<Object>) segment.getProperty().get(builder), segment.getIndex());
+		}
+
+		Segment target = operation.getTarget();
+		BuilderProperty property = target.getProperty();
+		Object value = operation.getValue();
+		switch (property.getKind()) {
+			case STRING_LIST:
+				List<String> strings = (List<String>) property.get(builder);
+				if (operation.getType() == SET)
+					property.set(builder, value);
+				else if (operation.getType() == ADD && !strings.contains(value))
+					strings.add((String) value);
+				else if (operation.getType() == REMOVE)
+					strings.remove(value);
+				break;
+			case BUILDER_LIST:
+				List<Object> items = (List<Object>) property.get(builder);
+				if (operation.getType() == ADD)
+					items.add(BuilderProperty.newBuilder((IDDMSComponent) value));
+				else {
+					getItem(operation, items, target.getIndex());
+					if (operation.getType() == REMOVE)
+						items.remove(target.getIndex());
+					else
+						items.set(target.getIndex(), BuilderProperty.newBuilder((IDDMSComponent) value));
+				}
+				break;
+			case BUILDER:
+				property.set(builder, operation.getType() == REMOVE ? property.newBuilder()
+					: BuilderProperty.newBuilder((IDDMSComponent) value));
+				break;
+			default:
+				property.set(builder, operation.getType() == REMOVE ? null : value);
+		}
+	}
+
+	/**
+	 * Returns an item of a list of Builders.
+	 * 
+	 * @param operation the operation, for error messages
+	 * @param items the list
+	 * @param index the index of the item
+	 * @return the item
+	 * @throws InvalidDDMSException if the index is out of range
+	 */
+	private static Object getItem(Operation operation, List<Object> items, int index) throws InvalidDDMSException {
+		if (index >= items.size())
+			throw new InvalidDDMSException("No component exists at the path: " + operation.getPath());
+		return (items.get(index));
+	}
+
+	/**
+	 * Finds a component in a list by identity, rather than equality.
+	 * 
+	 * @param components the list
+	 * @param component the component to find
+	 * @return the position, or -1 if it is not in the list
+	 */
+	private static int indexOf(List<IDDMSComponent> components, IDDMSComponent component) {
+		for (int i = 0; i < components.size(); i++) {
+			if (components.get(i) == component)
+				return (i);
+		}
+		return (-1);
+	}
+
+	/**
+	 * Creates a Builder which only holds the attributes of a Resource, so its components are not copied.
+	 * 
+	 * @param resource the Resource
+	 * @return the Builder
+	 */
+	private static Resource.Builder getAttributeBuilder(Resource resource) {
+		Resource.Builder builder = new Resource.Builder();
+		if (resource.getCreateDate() != null)
+			builder.setCreateDate(resource.getCreateDate().toXMLFormat());
+		builder.setResourceElement(resource.isResourceElement());
+		builder.setCompliesWiths(resource.getCompliesWiths());
+		builder.setIsmDESVersion(resource.getIsmDESVersion());
+		builder.setNtkDESVersion(resource.getNtkDESVersion());
+		builder.setSecurityAttributes(new SecurityAttributes.Builder(resource.getSecurityAttributes()));
+		builder.setNoticeAttributes(new NoticeAttributes.Builder(resource.getNoticeAttributes()));
+		return (builder);
+	}
+
+	/**
+	 * Checks that the value of an operation is a component which fits the property at the end of its path.
+	 * 
+	 * @param operation the operation
+	 * @param value the value
+	 * @throws IllegalArgumentException if the value is not a component of the right type
+	 */
+	private static void requireComponent(Operation operation, Object value) {
+		BuilderProperty property = operation.getTarget().getProperty();
+		if (property.getBuilderClass() == null || !IBuilder.class.isAssignableFrom(property.getBuilderClass()))
+			throw new IllegalArgumentException("Only the properties of this value can be changed: " + operation.getPath());
+		Class<?> componentClass = property.getBuilderClass().getDeclaringClass();
+		if (value != null && !componentClass.isInstance(value))
+			throw new IllegalArgumentException("A " + componentClass.getSimpleName() + " is required for "
+				+ operation.getPath());
+	}
+
+	/**
+	 * Returns the Java type of the values of a scalar property.
+	 * 
+	 * @param property the property
+	 * @param path the path, for error messages
+	 * @return the class of the values
+	 * @throws IllegalArgumentException if the property is a nested Builder
+	 */
+	private static Class<?> getScalarType(BuilderProperty property, String path) {
+		switch (property.getKind()) {
+			case STRING:
+				return (String.class);
+			case BOOLEAN:
+				return (Boolean.class);
+			case INTEGER:
+				return (Integer.class);
+			case DOUBLE:
+				return (Double.class);
+			case ATTRIBUTE_TYPE:
+				return (Attribute.Type.class);
+			default:
+				throw new IllegalArgumentException("A component is required for " + path);
+		}
+	}
+
+	/**
+	 * Accessor for the number of operations in this patch
+	 */
+	public int size() {
+		return (_operations.size());
+	}
+
+	/**
+	 * A single property name in a path, with its optional index.
+	 */
+	private static final class Segment {
+		private BuilderProperty _property;
+		private int _index;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param property the property
+		 * @param index the index, or -1 if none was given
+		 */
+		private Segment(BuilderProperty property, int index) {
+			_property = property;
+			_index = index;
+		}
+
+		/**
+		 * Accessor for the property
+		 */
+		private BuilderProperty getProperty() {
+			return (_property);
+		}
+
+		/**
+		 * Accessor for whether an index was given
+		 */
+		private boolean hasIndex() {
+			return (_index != -1);
+		}
+
+		/**
+		 * Accessor for the index, which defaults to the first item
+		 */
+		private int getIndex() {
+			return (hasIndex() ? _index : 0);
+		}
+	}
+
+	/**
+	 * A single operation, with its path resolved against the Builder classes.
+	 */
+	private static final class Operation {
+		private int _type;
+		private String _path;
+		private Object _value;
+		private List<Segment> _segments = new ArrayList<Segment>();
+
+		/**
+		 * Constructor, which parses the path
+		 * 
+		 * @param type the type of operation
+		 * @param path the path
+		 * @param value the value, if any
+		 * @throws IllegalArgumentException if the path does not fit the Builders
+		 */
+		private Operation(int type, String path, Object value) {
+			Util.requireValue("path", path);
+			_type = type;
+			_path = path;
+			_value = value;
+			Class<?> builderClass = Resource.Builder.class;
+			for (String part : path.split("/", -1)) {
+				if (builderClass == null)
+					throw new IllegalArgumentException("The path continues past a value: " + path);
+				int index = -1;
+				String name = part;
+				int bracket = part.indexOf('[');
+				if (bracket != -1) {
+					if (!part.endsWith("]"))
+						throw new IllegalArgumentException("Malformed index in the path: " + path);
+					try {
+						index = Integer.parseInt(part.substring(bracket + 1, part.length() - 1));
+					}
+					catch (NumberFormatException e) {
+						throw new IllegalArgumentException("Malformed index in the path: " + path);
+					}
+					if (index < 0)
+						throw new IllegalArgumentException("Malformed index in the path: " + path);
+					name = part.substring(0, bracket);
+				}
+				BuilderProperty property = BuilderProperty.getProperty(builderClass, name);
+				if (property == null)
+					throw new IllegalArgumentException("Unknown property " + name + " in the path: " + path);
+				if (index != -1 && property.getKind() != BuilderProperty.Kind.BUILDER_LIST)
+					throw new IllegalArgumentException("Only a list of components can be indexed: " + path);
+				_segments.add(new Segment(property, index));
+				builderClass = property.getBuilderClass();
+			}
+			if (isResourceLevel() && getSegments().get(0).getProperty().getName().equals("extensibleAttributes"))
+				throw new IllegalArgumentException("The extensible attributes of a resource cannot be patched: " + path);
+		}
+
+		/**
+		 * Accessor for whether the path starts with an attribute of the resource, rather than a component
+		 */
+		private boolean isResourceLevel() {
+			Class<?> builderClass = getSegments().get(0).getProperty().getBuilderClass();
+			return (builderClass == null || !IBuilder.class.isAssignableFrom(builderClass));
+		}
+
+		/**
+		 * Accessor for whether the path names a top-level component itself
+		 */
+		private boolean isTopLevel() {
+			return (getSegments().size() == 1 && !isResourceLevel());
+		}
+
+		/**
+		 * Accessor for the last segment of the path
+		 */
+		private Segment getTarget() {
+			return (getSegments().get(getSegments().size() - 1));
+		}
+
+		/**
+		 * Accessor for the segments
+		 */
+		private List<Segment> getSegments() {
+			return (Collections.unmodifiableList(_segments));
+		}
+
+		/**
+		 * Accessor for the type
+		 */
+		private int getType() {
+			return (_type);
+		}
+
+		/**
+		 * Accessor for the path
+		 */
+		private String getPath() {
+			return (_path);
+		}
+
+		/**
+		 * Accessor for the value
+		 */
+		private Object getValue() {
+			return (_value);
+		}
+	}
+}
@@ -0,0 +1,409 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+
+/**
+ * An embedded store which keeps Resources as binary records in memory-mapped files, outside of the garbage-collected
+ * heap.
+ * 
+ * <p>
+ * Resources are encoded with the BinaryCodec and appended to segment files in a directory. Each segment is mapped into
+ * memory once, so reading a record copies it straight out of the page cache. The only data kept on the heap is an index
+ * from the identifier of each Resource to the location of its record, and a Resource is only decoded when it is
+ * requested. Because the records are already in binary form, reopening a store rebuilds the index by scanning the
+ * segments, without parsing any XML.
+ * </p>
+ * 
+ * <p>
+ * A Resource is identified by the value of its first ddms:identifier. Storing a Resource with the same identifier
+ * replaces the earlier one. Records are never moved: a replaced or removed record is marked as removed, and its space
+ * is not reclaimed until the store is rebuilt into a new directory.
+ * </p>
+ * 
+ * <p>
+ * Each record starts with its length, a state byte, and a CRC-32 checksum. When a store is opened, a record which is
+ * incomplete or fails its checksum ends the scan of its segment, and the space after the last good record is reused.
+ * This recovers from a write which was interrupted by a crash. Records are written to the page cache, and only reach
+ * the disk when the operating system writes them back, or when <code>flush()</code> or <code>close()</code> is called.
+ * </p>
+ * 
+ * <p>
+ * This class is thread-safe. A store directory must only be opened by one ResourceStore at a time.
+ * </p>
+ * 
+ * @see BinaryCodec
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public final class ResourceStore implements Closeable {
+
+	/** The default size of a segment file, in bytes */
+	public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+	private File _directory;
+	private int _segmentSize;
+	private List<MappedByteBuffer> _segments = new ArrayList<MappedByteBuffer>();
+	private Map<String, Long> _index = new HashMap<String, Long>();
+	private int _position = 0;
+	private boolean _closed = false;
+
+	private static final String SEGMENT_PREFIX = "segment-";
+	private static final String SEGMENT_SUFFIX = ".ddmb";
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	// Record layout: payload length, state, checksum of the payload, key length. The payload is the key and the record.
+	private static final int HEADER_SIZE = 13;
+	private static final int END_MARKER_SIZE = 4;
+	private static final byte STATE_LIVE = 1;
+	private static final byte STATE_REMOVED = 2;
+
+	/**
+	 * Opens or creates a store with the default segment size.
+	 * 
+	 * @param directory the directory of the segment files, which is created if needed
+	 * @throws IOException if the segment files cannot be opened
+	 */
+	public ResourceStore(File directory) throws IOException {
+		this(directory, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * Opens or creates a store. The segment size only applies to new segments, and a record which is larger than the
+	 * segment size gets a segment of its own.
+	 * 
+	 * @param directory the directory of the segment files, which is created if needed
+	 * @param segmentSize the size of a new segment file, in bytes
+	 * @throws IOException if the segment files cannot be opened
+	 */
+	public ResourceStore(File directory, int segmentSize) throws IOException {
+		Util.requireValue("directory", directory);
+		if (segmentSize <= HEADER_SIZE + END_MARKER_SIZE)
+			throw new IllegalArgumentException("The segment size must be larger than " + (HEADER_SIZE + END_MARKER_SIZE)
+				+ " bytes.");
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("The store directory could not be created: " + directory);
+		_directory = directory;
+		_segmentSize = segmentSize;
+		for (int i = 0; getSegmentFile(i).exists(); i++) {
+			_segments.add(map(getSegmentFile(i), 0));
+			_position = scan(i);
+		}
+	}
+
+	/**
+	 * Stores a Resource, replacing any stored Resource with the same identifier.
+	 * 
+	 * @param resource the Resource
+	 * @return the identifier of the Resource in this store
+	 * @throws IOException if a new segment file cannot be created
+	 */
+	public synchronized String put(Resource resource) throws IOException {
+		Util.requireValue("resource", resource);
+		String identifier = getIdentifier(resource);
+		byte[] key = identifier.getBytes(UTF_8);
+		byte[] record = resource.toBinary();
+		int payloadSize = key.length + record.length;
+
+		requireOpen();
+		ByteBuffer segment = getWritableSegment(HEADER_SIZE + payloadSize + END_MARKER_SIZE);
+		CRC32 checksum = new CRC32();
+		checksum.update(key);
+		checksum.update(record);
+		int offset = _position;
+		segment.position(offset + 4);
+		segment.put(STATE_LIVE).putInt((int) checksum.getValue()).putInt(key.length).put(key).put(record);
+		segment.putInt(0);
+		// The length is written last, so a scan never finds a record whose payload is only partly written.
+		segment.putInt(offset, payloadSize);
+		_position = offset + HEADER_SIZE + payloadSize;
+
+		Long previous = _index.put(identifier, Long.valueOf(toLocation(_segments.size() - 1, offset)));
+		if (previous != null)
+			markRemoved(previous.longValue());
+		return (identifier);
+	}
+
+	/**
+	 * Decodes a stored Resource. As with the DDMSReader, the current DDMSVersion is set to the version of the Resource.
+	 * 
+	 * @param identifier the identifier of the Resource
+	 * @return a new Resource, or null if no Resource has the identifier
+	 * @throws InvalidDDMSException if the stored record cannot be decoded
+	 */
+	public Resource get(String identifier) throws InvalidDDMSException {
+		byte[] record = getRecord(identifier);
+		return (record == null ? null : BinaryCodec.decodeResource(record));
+	}
+
+	/**
+	 * Copies the binary record of a stored Resource out of its segment, without decoding it.
+	 * 
+	 * @param identifier the identifier of the Resource
+	 * @return the BinaryCodec record, or null if no Resource has the identifier
+	 */
+	public synchronized byte[] getRecord(String identifier) {
+		requireOpen();
+		Long location = _index.get(identifier);
+		if (location == null)
+			return (null);
+		ByteBuffer segment = _segments.get(getSegment(location.longValue())).duplicate();
+		int offset = getOffset(location.longValue());
+		int payloadSize = segment.getInt(offset);
+		int keySize = segment.getInt(offset + 9);
+		byte[] record = new byte[payloadSize - keySize];
+		segment.position(offset + HEADER_SIZE + keySize);
+		segment.get(record);
+		return (record);
+	}
+
+	/**
+	 * Returns a read-only view of a stored Resource, which reads the record in place in its segment.
+	 * 
+	 * <p>Records are never moved or overwritten, so a view stays valid after the Resource is replaced or removed, and
+	 * after the store is closed.</p>
+	 * 
+	 * @param identifier the identifier of the Resource
+	 * @return the view, or null if no Resource has the identifier
+	 * @throws InvalidDDMSException if the stored record cannot be read
+	 */
+	public ResourceView getView(String identifier) throws InvalidDDMSException {
+		ByteBuffer record;
+		synchronized (this) {
+			requireOpen();
+			Long location = _index.get(identifier);
+			if (location == null)
+				return (null);
+			record = _segments.get(getSegment(location.longValue())).asReadOnlyBuffer();
+			int offset = getOffset(location.longValue());
+			record.limit(offset + HEADER_SIZE + record.getInt(offset));
+			record.position(offset + HEADER_SIZE + record.getInt(offset + 9));
+		}
+		return (new ResourceView(record));
+	}
+
+	/**
+	 * Removes a stored Resource.
+	 * 
+	 * @param identifier the identifier of the Resource
+	 * @return true if a Resource was removed
+	 */
+	public synchronized boolean remove(String identifier) {
+		requireOpen();
+		Long location = _index.remove(identifier);
+		if (location == null)
+			return (false);
+		markRemoved(location.longValue());
+		return (true);
+	}
+
+	/**
+	 * Checks whether a Resource is stored.
+	 * 
+	 * @param identifier the identifier of the Resource
+	 * @return true if a Resource has the identifier
+	 */
+	public synchronized boolean contains(String identifier) {
+		return (_index.containsKey(identifier));
+	}
+
+	/**
+	 * Returns the number of stored Resources.
+	 */
+	public synchronized int size() {
+		return (_index.size());
+	}
+
+	/**
+	 * Returns a snapshot of the identifiers of the stored Resources, in no particular order.
+	 */
+	public synchronized Set<String> getIdentifiers() {
+		return (Collections.unmodifiableSet(new HashSet<String>(_index.keySet())));
+	}
+
+	/**
+	 * Writes all changed records to disk.
+	 */
+	public synchronized void flush() {
+		requireOpen();
+		for (MappedByteBuffer segment : _segments)
+			segment.force();
+	}
+
+	/**
+	 * Writes all changed records to disk and closes the store. The segments stay mapped until their buffers are garbage
+	 * collected, since Java offers no way to unmap them.
+	 */
+	public synchronized void close() {
+		if (_closed)
+			return;
+		flush();
+		_closed = true;
+		_segments.clear();
+		_index.clear();
+	}
+
+	/**
+	 * Reads the records of a segment into the index.
+	 * 
+	 * @param segmentIndex the index of the segment
+	 * @return the offset after the last good record
+	 */
+	private int scan(int segmentIndex) {
+		ByteBuffer segment = _segments.get(segmentIndex).duplicate();
+		int offset = 0;
+		while (offset + HEADER_SIZE <= segment.capacity()) {
+			int payloadSize = segment.getInt(offset);
+			int keySize = segment.getInt(offset + 9);
+			if (payloadSize <= 0 || payloadSize > segment.capacity() - offset - HEADER_SIZE || keySize < 0
+				|| keySize > payloadSize)
+				break;
+			byte[] payload = new byte[payloadSize];
+			segment.position(offset + HEADER_SIZE);
+			segment.get(payload);
+			CRC32 checksum = new CRC32();
+			checksum.update(payload);
+			if (segment.getInt(offset + 5) != (int) checksum.getValue())
+				break;
+			if (segment.get(offset + 4) == STATE_LIVE) {
+				String identifier = new String(payload, 0, keySize, UTF_8);
+				Long previous = _index.put(identifier, Long.valueOf(toLocation(segmentIndex, offset)));
+				if (previous != null)
+					markRemoved(previous.longValue());
+			}
+			offset += HEADER_SIZE + payloadSize;
+		}
+		return (offset);
+	}
+
+	/**
+	 * Returns the segment which the next record is written to, creating a new segment if the record does not fit into
+	 * the current one.
+	 * 
+	 * @param size the size of the record and the end marker
+	 * @return the segment
+	 * @throws IOException if a new segment file cannot be created
+	 */
+	private ByteBuffer getWritableSegment(int size) throws IOException {
+		if (_segments.isEmpty() || _position + size > _segments.get(_segments.size() - 1).capacity()) {
+			_segments.add(map(getSegmentFile(_segments.size()), Math.max(_segmentSize, size)));
+			_position = 0;
+		}
+		return (_segments.get(_segments.size() - 1));
+	}
+
+	/**
+	 * Marks a record as removed.
+	 * 
+	 * @param location the location of the record
+	 */
+	private void markRemoved(long location) {
+		_segments.get(getSegment(location)).put(getOffset(location) + 4, STATE_REMOVED);
+	}
+
+	/**
+	 * Throws an exception if the store is closed.
+	 */
+	private void requireOpen() {
+		if (_closed)
+			throw new IllegalStateException("The store is closed.");
+	}
+
+	/**
+	 * Returns the file of a segment.
+	 * 
+	 * @param segmentIndex the index of the segment
+	 */
+	private File getSegmentFile(int segmentIndex) {
+		return (new File(_directory, SEGMENT_PREFIX + String.format("%05d", segmentIndex) + SEGMENT_SUFFIX));
+	}
+
+	/**
+	 * Maps a segment file into memory, creating it if needed.
+	 * 
+	 * @param file the segment file
+	 * @param size the size of a new file, or 0 to map an existing file
+	 * @return the mapped buffer
+	 * @throws IOException if the file cannot be mapped
+	 */
+	private static MappedByteBuffer map(File file, int size) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			if (size > 0)
+				raf.setLength(size);
+			return (raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length()));
+		}
+		finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Returns the identifier which a Resource is stored under.
+	 * 
+	 * @param resource the Resource
+	 * @return the value of its first identifier
+	 */
+	static String getIdentifier(Resource resource) {
+		if (resource.getIdentifiers().isEmpty())
+			throw new IllegalArgumentException("A Resource without an identifier cannot be stored.");
+		return (resource.getIdentifiers().get(0).getValue());
+	}
+
+	/**
+	 * Packs a segment index and an offset into one value for the index.
+	 */
+	private static long toLocation(int segmentIndex, int offset) {
+		return (((long) segmentIndex << 32) | (offset & 0xFFFFFFFFL));
+	}
+
+	/**
+	 * Unpacks the segment index of a location.
+	 */
+	private static int getSegment(long location) {
+		return ((int) (location >>> 32));
+	}
+
+	/**
+	 * Unpacks the offset of a location.
+	 */
+	private static int getOffset(long location) {
+		return ((int) location);
+	}
+}
@@ -0,0 +1,460 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.UnsupportedVersionException;
+import buri.ddmsence.ddms.security.ism.SecurityAttributes;
+
+/**
+ * A read-only view of the values in a binary Resource record, which does not build any components.
+ * 
+ * <p>
+ * Scanning a large set of Resources for one or two values, such as the MIME types or keywords of every Resource, does
+ * not need the full component tree. A view makes one pass over a BinaryCodec record to index its elements, attributes,
+ * and text nodes into a handful of integer arrays. Each entry refers to a string in the record's dictionary by number,
+ * and strings are only decoded from their UTF-8 bytes when they are returned. Because the dictionary stores each
+ * distinct name once, matching an element name is a comparison of two integers.
+ * </p>
+ * 
+ * <p>
+ * Elements are found by their local name in the DDMS namespace of the record, so a view works the same way for every
+ * version of DDMS. A view can wrap a byte array or any ByteBuffer, such as a record in a ResourceStore, which is read in
+ * place without copying it onto the heap. The view does not check whether the Resource is valid: a record produced by
+ * the BinaryCodec is always valid, and <code>toResource()</code> builds the full Resource when one is needed.
+ * </p>
+ * 
+ * <p>
+ * A view is immutable once it is built, and may be shared between threads as long as the buffer is not changed.
+ * </p>
+ * 
+ * @see BinaryCodec
+ * @see ResourceStore#getView(String)
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public final class ResourceView {
+
+	private ByteBuffer _buffer;
+	private DDMSVersion _version;
+
+	private IntList _stringOffsets = new IntList();
+	private IntList _stringLengths = new IntList();
+
+	private IntList _elementNames = new IntList();
+	private IntList _elementNamespaces = new IntList();
+	private IntList _elementParents = new IntList();
+	private IntList _elementFirstAttributes = new IntList();
+	private IntList _elementAttributeCounts = new IntList();
+	private IntList _elementFirstTexts = new IntList();
+	private IntList _elementLastTexts = new IntList();
+
+	private IntList _attributeNames = new IntList();
+	private IntList _attributeNamespaces = new IntList();
+	private IntList _attributeValues = new IntList();
+
+	private IntList _textValues = new IntList();
+	private IntList _textNexts = new IntList();
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/**
+	 * Constructor for a record in a byte array
+	 * 
+	 * @param record the BinaryCodec record of a Resource
+	 * @throws InvalidDDMSException if the record is malformed, or does not contain a Resource
+	 */
+	public ResourceView(byte[] record) throws InvalidDDMSException {
+		this(record == null ? null : ByteBuffer.wrap(record));
+	}
+
+	/**
+	 * Constructor for a record in a buffer. The record runs from the position to the limit of the buffer. The buffer
+	 * itself is not changed.
+	 * 
+	 * @param record the BinaryCodec record of a Resource
+	 * @throws InvalidDDMSException if the record is malformed, or does not contain a Resource
+	 */
+	public ResourceView(ByteBuffer record) throws InvalidDDMSException {
+		Util.requireValue("record", record);
+		_buffer = record.slice();
+		BinaryCodec.readHeader(_buffer);
+		try {
+			_version = DDMSVersion.getVersionFor(getString(readString()));
+		}
+		catch (UnsupportedVersionException e) {
+			throw new InvalidDDMSException(e.getMessage());
+		}
+		if (readByte() != BinaryCodec.TAG_ELEMENT)
+			throw new InvalidDDMSException("The record does not contain an element.");
+		readElement(-1);
+		boolean[] names = getMatches(Resource.getName(getDDMSVersion()));
+		if (_elementNamespaces.get(0) != findString(getDDMSVersion().getNamespace()) || !names[_elementNames.get(0)])
+			throw new InvalidDDMSException("The record does not contain a DDMS resource.");
+	}
+
+	/**
+	 * Returns the text values of every element in the DDMS namespace with a local name, in document order.
+	 * 
+	 * @param localName the local name of the elements, such as "mimeType"
+	 * @return the text values, which may be empty
+	 */
+	public List<String> getValues(String localName) {
+		Util.requireValue("local name", localName);
+		List<String> values = new ArrayList<String>();
+		int namespace = findString(getDDMSVersion().getNamespace());
+		boolean[] names = getMatches(localName);
+		for (int element = 0; element < _elementNames.size(); element++) {
+			if (_elementNamespaces.get(element) == namespace && names[_elementNames.get(element)])
+				values.add(getText(element));
+		}
+		return (values);
+	}
+
+	/**
+	 * Returns the values of a DDMS attribute on every element in the DDMS namespace with a local name, in document
+	 * order. Elements without the attribute are skipped.
+	 * 
+	 * @param elementName the local name of the elements, such as "keyword"
+	 * @param attributeName the local name of the attribute, such as "value"
+	 * @return the attribute values, which may be empty
+	 */
+	public List<String> getAttributeValues(String elementName, String attributeName) {
+		Util.requireValue("element name", elementName);
+		Util.requireValue("attribute name", attributeName);
+		List<String> values = new ArrayList<String>();
+		int namespace = findString(getDDMSVersion().getNamespace());
+		boolean[] names = getMatches(elementName);
+		boolean[] attributes = getMatches(attributeName);
+		for (int element = 0; element < _elementNames.size(); element++) {
+			if (_elementNamespaces.get(element) == namespace && names[_elementNames.get(element)]) {
+				int attribute = findAttribute(element, namespace, attributes);
+				if (attribute != -1)
+					values.add(getString(_attributeValues.get(attribute)));
+			}
+		}
+		return (values);
+	}
+
+	/**
+	 * Returns the MIME types in the ddms:format of the Resource.
+	 */
+	public List<String> getMimeTypes() {
+		return (getValues("mimeType"));
+	}
+
+	/**
+	 * Returns the values of every ddms:keyword in the Resource.
+	 */
+	public List<String> getKeywords() {
+		return (getAttributeValues("keyword", "value"));
+	}
+
+	/**
+	 * Returns the values of every ddms:title in the Resource.
+	 */
+	public List<String> getTitles() {
+		return (getValues("title"));
+	}
+
+	/**
+	 * Returns the values of every ddms:identifier in the Resource and its ddms:metacardInfo.
+	 */
+	public List<String> getIdentifiers() {
+		return (getAttributeValues("identifier", "value"));
+	}
+
+	/**
+	 * Returns the classification which marks the Resource as a whole. This is the ism:classification of the resource
+	 * element. DDMS 2.0 marks the whole Resource in its ddms:security, and DDMS 5.0 in its ddms:metacardInfo, so the
+	 * classification of that element is returned for those versions.
+	 * 
+	 * @return the classification, or null if the Resource has none
+	 */
+	public String getClassification() {
+		int ismNamespace = findString(getDDMSVersion().getIsmNamespace());
+		boolean[] classification = getMatches(SecurityAttributes.CLASSIFICATION_NAME);
+		int attribute = findAttribute(0, ismNamespace, classification);
+		if (attribute == -1) {
+			int namespace = findString(getDDMSVersion().getNamespace());
+			boolean[] markingElements = getMatches(getDDMSVersion().isAtLeast("5.0") ? "metacardInfo" : "security");
+			for (int element = 1; element < _elementNames.size() && attribute == -1; element++) {
+				if (_elementParents.get(element) == 0 && _elementNamespaces.get(element) == namespace
+					&& markingElements[_elementNames.get(element)])
+					attribute = findAttribute(element, ismNamespace, classification);
+			}
+		}
+		return (attribute == -1 ? null : getString(_attributeValues.get(attribute)));
+	}
+
+	/**
+	 * Builds the full Resource from the record. As with the DDMSReader, the current DDMSVersion is set to the version
+	 * of the Resource.
+	 * 
+	 * @return a new Resource
+	 * @throws InvalidDDMSException if the Resource is invalid
+	 */
+	public Resource toResource() throws InvalidDDMSException {
+		byte[] record = new byte[_buffer.limit()];
+		ByteBuffer copy = _buffer.duplicate();
+		copy.position(0);
+		copy.get(record);
+		return (BinaryCodec.decodeResource(record));
+	}
+
+	/**
+	 * Accessor for the version of DDMS of the Resource
+	 */
+	public DDMSVersion getDDMSVersion() {
+		return (_version);
+	}
+
+	/**
+	 * Reads an element and its descendants into the index, after its tag.
+	 * 
+	 * @param parent the index of the parent element, or -1 for the root
+	 */
+	private void readElement(int parent) throws InvalidDDMSException {
+		int element = _elementNames.size();
+		_elementNames.add(readString());
+		_elementNamespaces.add(readString());
+		_elementParents.add(parent);
+		_elementFirstTexts.add(-1);
+		_elementLastTexts.add(-1);
+		for (int i = readInt(); i > 0; i--) {
+			readString();
+			readString();
+		}
+		int attributeCount = readInt();
+		_elementFirstAttributes.add(_attributeNames.size());
+		_elementAttributeCounts.add(attributeCount);
+		for (int i = 0; i < attributeCount; i++) {
+			_attributeNames.add(readString());
+			_attributeNamespaces.add(readString());
+			_attributeValues.add(readString());
+		}
+		for (int i = readInt(); i > 0; i--) {
+			int tag = readByte();
+			switch (tag) {
+				case BinaryCodec.TAG_ELEMENT:
+					readElement(element);
+					break;
+				case BinaryCodec.TAG_TEXT:
+					int text = _textValues.size();
+					_textValues.add(readString());
+					_textNexts.add(-1);
+					if (_elementFirstTexts.get(element) == -1)
+						_elementFirstTexts.set(element, text);
+					else
+						_textNexts.set(_elementLastTexts.get(element), text);
+					_elementLastTexts.set(element, text);
+					break;
+				case BinaryCodec.TAG_COMMENT:
+					readString();
+					break;
+				case BinaryCodec.TAG_PROCESSING_INSTRUCTION:
+					readString();
+					readString();
+					break;
+				default:
+					throw new InvalidDDMSException("Unknown node tag in binary record: " + tag);
+			}
+		}
+	}
+
+	/**
+	 * Reads a string or a dictionary reference, and adds a new string to the dictionary without decoding it.
+	 * 
+	 * @return the index of the string in the dictionary
+	 */
+	private int readString() throws InvalidDDMSException {
+		int index = readInt();
+		if (index > 0) {
+			if (index > _stringOffsets.size())
+				throw new InvalidDDMSException("Invalid string reference in binary record: " + index);
+			return (index - 1);
+		}
+		int length = BinaryCodec.readLength(_buffer);
+		_stringOffsets.add(_buffer.position());
+		_stringLengths.add(length);
+		_buffer.position(_buffer.position() + length);
+		return (_stringOffsets.size() - 1);
+	}
+
+	/**
+	 * Reads an unsigned variable-length integer
+	 */
+	private int readInt() throws InvalidDDMSException {
+		return (BinaryCodec.readInt(_buffer));
+	}
+
+	/**
+	 * Reads a single unsigned byte
+	 */
+	private int readByte() throws InvalidDDMSException {
+		return (BinaryCodec.readByte(_buffer));
+	}
+
+	/**
+	 * Returns the concatenated text nodes of an element.
+	 * 
+	 * @param element the index of the element
+	 */
+	private String getText(int element) {
+		int text = _elementFirstTexts.get(element);
+		if (text == -1)
+			return ("");
+		if (_textNexts.get(text) == -1)
+			return (getString(_textValues.get(text)));
+		StringBuffer value = new StringBuffer();
+		for (; text != -1; text = _textNexts.get(text))
+			value.append(getString(_textValues.get(text)));
+		return (value.toString());
+	}
+
+	/**
+	 * Finds an attribute of an element.
+	 * 
+	 * @param element the index of the element
+	 * @param namespace the dictionary index of the namespace of the attribute
+	 * @param names the dictionary entries which match the local name of the attribute
+	 * @return the index of the attribute, or -1 if the element does not have it
+	 */
+	private int findAttribute(int element, int namespace, boolean[] names) {
+		int first = _elementFirstAttributes.get(element);
+		for (int attribute = first; attribute < first + _elementAttributeCounts.get(element); attribute++) {
+			if (_attributeNamespaces.get(attribute) == namespace && names[_attributeNames.get(attribute)])
+				return (attribute);
+		}
+		return (-1);
+	}
+
+	/**
+	 * Decodes a string from the dictionary.
+	 * 
+	 * @param index the index of the string in the dictionary
+	 */
+	private String getString(int index) {
+		int offset = _stringOffsets.get(index);
+		int length = _stringLengths.get(index);
+		if (_buffer.hasArray())
+			return (new String(_buffer.array(), _buffer.arrayOffset() + offset, length, UTF_8));
+		byte[] bytes = new byte[length];
+		ByteBuffer copy = _buffer.duplicate();
+		copy.position(offset);
+		copy.get(bytes);
+		return (new String(bytes, UTF_8));
+	}
+
+	/**
+	 * Finds a string in the dictionary.
+	 * 
+	 * @param value the string
+	 * @return the index of the string in the dictionary, or -1 if the record does not contain it
+	 */
+	private int findString(String value) {
+		byte[] bytes = value.getBytes(UTF_8);
+		for (int i = 0; i < _stringOffsets.size(); i++) {
+			if (_stringLengths.get(i) == bytes.length && endsWith(i, bytes))
+				return (i);
+		}
+		return (-1);
+	}
+
+	/**
+	 * Marks the dictionary entries which are qualified names with a local name. This is one pass over the dictionary,
+	 * after which each candidate name can be checked by its index.
+	 * 
+	 * @param localName the local name
+	 * @return a flag for each dictionary entry
+	 */
+	private boolean[] getMatches(String localName) {
+		byte[] bytes = localName.getBytes(UTF_8);
+		boolean[] matches = new boolean[_stringOffsets.size()];
+		for (int i = 0; i < matches.length; i++) {
+			int length = _stringLengths.get(i);
+			if (length == bytes.length)
+				matches[i] = endsWith(i, bytes);
+			else if (length > bytes.length && _buffer.get(_stringOffsets.get(i) + length - bytes.length - 1) == ':')
+				matches[i] = endsWith(i, bytes);
+		}
+		return (matches);
+	}
+
+	/**
+	 * Checks whether a dictionary entry ends with some bytes.
+	 * 
+	 * @param index the index of the string in the dictionary
+	 * @param bytes the bytes, which must not be longer than the entry
+	 */
+	private boolean endsWith(int index, byte[] bytes) {
+		int start = _stringOffsets.get(index) + _stringLengths.get(index) - bytes.length;
+		for (int i = 0; i < bytes.length; i++) {
+			if (_buffer.get(start + i) != bytes[i])
+				return (false);
+		}
+		return (true);
+	}
+
+	/**
+	 * A growable array of primitive integers, which avoids boxing each entry of the index.
+	 */
+	private static final class IntList {
+		private int[] _values = new int[16];
+		private int _size = 0;
+
+		/**
+		 * Adds a value to the end of the list.
+		 */
+		public void add(int value) {
+			if (_size == _values.length)
+				_values = Arrays.copyOf(_values, _size * 2);
+			_values[_size++] = value;
+		}
+
+		/**
+		 * Returns a value.
+		 */
+		public int get(int index) {
+			return (_values[index]);
+		}
+
+		/**
+		 * Replaces a value.
+		 */
+		public void set(int index, int value) {
+			_values[index] = value;
+		}
+
+		/**
+		 * Returns the number of values.
+		 */
+		public int size() {
+			return (_size);
+		}
+	}
+}
@@ -0,0 +1,873 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+import nu.xom.Element;
+import nu.xom.Elements;
+import buri.ddmsence.ddms.ITspiShape;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.summary.BoundingBox;
+import buri.ddmsence.ddms.summary.BoundingGeometry;
+import buri.ddmsence.ddms.summary.GeospatialCoverage;
+import buri.ddmsence.ddms.summary.gml.Point;
+import buri.ddmsence.ddms.summary.gml.Polygon;
+import buri.ddmsence.ddms.summary.gml.Position;
+
+/**
+ * An in-memory spatial index over the geospatial coverage of a set of Resources.
+ * 
+ * <p>
+ * The index holds the shapes of every ddms:geospatialCoverage of each Resource: ddms:boundingBox values, gml:Point
+ * and gml:Polygon elements, and in DDMS 5.0, the TSPI shapes of a ddms:boundingGeometry. A bounding box whose
+ * westBL is greater than its eastBL crosses the antimeridian, and is stored as two pieces which meet at 180 degrees.
+ * GML and TSPI positions are read as a latitude followed by a longitude, as in the WGS84E coordinate reference
+ * systems, and a polygon whose longitudes span more than 180 degrees is taken to cross the antimeridian. A
+ * tspi:Circle or tspi:Ellipse is stored as the box around its largest radius, or as its center if the unit of the
+ * radius is not a metre or kilometre.
+ * </p>
+ * 
+ * <p>
+ * The envelopes of the shapes are packed into an R-tree with the Sort-Tile-Recursive algorithm, which sorts them into
+ * vertical slices and then fills each node of the tree from one slice, so that every node is full and nodes overlap
+ * as little as possible. Because a packed tree cannot be changed in place, adding or removing a Resource marks the
+ * tree as stale, and it is packed again by the next query. Queries search the tree for the envelopes which touch the
+ * query area, and only test the exact shape of the polygons among those candidates.
+ * </p>
+ * 
+ * <p>
+ * Query areas use the same west, east, south, north order as a ddms:boundingBox, and may also cross the antimeridian.
+ * Distances for nearest-neighbor queries are measured in degrees on an equirectangular projection centered on the
+ * query point, which is accurate for ranking shapes near the point, but is not a great-circle distance.
+ * </p>
+ * 
+ * <p>
+ * As in a ResourceStore, a Resource is identified by the value of its first ddms:identifier, and adding a Resource
+ * with the same identifier replaces the earlier one.
+ * </p>
+ * 
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ * 
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public final class SpatialIndex {
+
+	private static final int NODE_CAPACITY = 16;
+	private static final double KILOMETRES_PER_DEGREE = 111.32;
+
+	private static final Comparator<Box> X_ORDER = new Comparator<Box>() {
+		public int compare(Box first, Box second) {
+			return (Double.compare(first._minX + first._maxX, second._minX + second._maxX));
+		}
+	};
+
+	private static final Comparator<Box> Y_ORDER = new Comparator<Box>() {
+		public int compare(Box first, Box second) {
+			return (Double.compare(first._minY + first._maxY, second._minY + second._maxY));
+		}
+	};
+
+	private Map<String, List<Shape>> _shapes = new LinkedHashMap<String, List<Shape>>();
+	private Node _root = null;
+	private boolean _stale = false;
+	private int _sequence = 0;
+
+	/**
+	 * Empty constructor
+	 */
+	public SpatialIndex() {}
+
+	/**
+	 * Adds the geospatial coverage of a Resource to the index, replacing any Resource with the same identifier.
+	 * 
+	 * @param resource the Resource
+	 * @return the identifier of the Resource in this index
+	 */
+	public synchronized String add(Resource resource) {
+		Util.requireValue("resource", resource);
+		String identifier = ResourceStore.getIdentifier(resource);
+		int sequence = _sequence++;
+		List<Shape> shapes = new ArrayList<Shape>();
+		for (GeospatialCoverage coverage : resource.getGeospatialCoverages()) {
+			BoundingBox box = coverage.getBoundingBox();
+			if (box != null) {
+				shapes.add(new Shape(identifier, sequence, box.getWestBL().doubleValue(), box.getEastBL().doubleValue(),
+					box.getSouthBL().doubleValue(), box.getNorthBL().doubleValue()));
+			}
+			BoundingGeometry geometry = coverage.getBoundingGeometry();
+			if (geometry == null)
+				continue;
+			for (Polygon polygon : geometry.getGmlPolygons()) {
+				List<double[]> positions = new ArrayList<double[]>();
+				for (Position position : polygon.getPositions())
+					positions.add(position.getCoordinateArray());
+				shapes.add(Shape.forPolygon(identifier, sequence, positions));
+			}
+			for (Point point : geometry.getGmlPoints()) {
+				double[] coordinates = point.getCoordinateArray();
+				shapes.add(Shape.forPoint(identifier, sequence, coordinates[0], coordinates[1]));
+			}
+			for (ITspiShape tspiShape : geometry.getTspiShapes()) {
+				Shape shape = getTspiShape(identifier, sequence, tspiShape);
+				if (shape != null)
+					shapes.add(shape);
+			}
+		}
+		_shapes.remove(identifier);
+		_shapes.put(identifier, shapes);
+		_stale = true;
+		return (identifier);
+	}
+
+	/**
+	 * Removes a Resource from the index.
+	 * 
+	 * @param identifier the identifier of the Resource
+	 * @return true if a Resource was removed
+	 */
+	public synchronized boolean remove(String identifier) {
+		if (_shapes.remove(identifier) == null)
+			return (false);
+		_stale = true;
+		return (true);
+	}
+
+	/**
+	 * Checks whether a Resource is in the index.
+	 * 
+	 * @param identifier the identifier of the Resource
+	 * @return true if a Resource has the identifier
+	 */
+	public synchronized boolean contains(String identifier) {
+		return (_shapes.containsKey(identifier));
+	}
+
+	/**
+	 * Returns the number of Resources in the index, including those with no shapes.
+	 */
+	public synchronized int size() {
+		return (_shapes.size());
+	}
+
+	/**
+	 * Finds the Resources with a shape which intersects a bounding box.
+	 * 
+	 * @param box the bounding box
+	 * @return the identifiers of the matching Resources, in the order they were added
+	 */
+	public List<String> findIntersecting(BoundingBox box) {
+		Util.requireValue("box", box);
+		return (findIntersecting(box.getWestBL().doubleValue(), box.getEastBL().doubleValue(), box.getSouthBL()
+			.doubleValue(), box.getNorthBL().doubleValue()));
+	}
+
+	/**
+	 * Finds the Resources with a shape which intersects an area.
+	 * 
+	 * @param west the western longitude of the area, which is greater than the eastern one if the area crosses the
+	 *        antimeridian
+	 * @param east the eastern longitude of the area
+	 * @param south the southern latitude of the area
+	 * @param north the northern latitude of the area
+	 * @return the identifiers of the matching Resources, in the order they were added
+	 */
+	public synchronized List<String> findIntersecting(double west, double east, double south, double north) {
+		requireArea(west, east, south, north);
+		Map<Integer, String> matches = new TreeMap<Integer, String>();
+		for (Shape shape : getCandidates(west, east, south, north)) {
+			if (shape.intersects(west, east, south, north))
+				matches.put(Integer.valueOf(shape._sequence), shape._identifier);
+		}
+		return (new ArrayList<String>(matches.values()));
+	}
+
+	/**
+	 * Finds the Resources with a shape which contains the whole of an area. An area with the same eastern and western
+	 * longitudes and the same southern and northern latitudes finds the shapes which contain a point.
+	 * 
+	 * @param west the western longitude of the area, which is greater than the eastern one if the area crosses the
+	 *        antimeridian
+	 * @param east the eastern longitude of the area
+	 * @param south the southern latitude of the area
+	 * @param north the northern latitude of the area
+	 * @return the identifiers of the matching Resources, in the order they were added
+	 */
+	public synchronized List<String> findContaining(double west, double east, double south, double north) {
+		requireArea(west, east, south, north);
+		Map<Integer, String> matches = new TreeMap<Integer, String>();
+		for (Shape shape : getCandidates(west, east, south, north)) {
+			if (shape.contains(west, east, south, north))
+				matches.put(Integer.valueOf(shape._sequence), shape._identifier);
+		}
+		return (new ArrayList<String>(matches.values()));
+	}
+
+	/**
+	 * Finds the Resources with a shape which lies entirely within an area.
+	 * 
+	 * @param west the western longitude of the area, which is greater than the eastern one if the area crosses the
+	 *        antimeridian
+	 * @param east the eastern longitude of the area
+	 * @param south the southern latitude of the area
+	 * @param north the northern latitude of the area
+	 * @return the identifiers of the matching Resources, in the order they were added
+	 */
+	public synchronized List<String> findWithin(double west, double east, double south, double north) {
+		requireArea(west, east, south, north);
+		Map<Integer, String> matches = new TreeMap<Integer, String>();
+		for (Shape shape : getCandidates(west, east, south, north)) {
+			if (shape.isWithin(west, east, south, north))
+				matches.put(Integer.valueOf(shape._sequence), shape._identifier);
+		}
+		return (new ArrayList<String>(matches.values()));
+	}
+
+	/**
+	 * Finds the Resources with the shapes nearest to a point. A Resource whose shape contains the point has a distance
+	 * of 0.
+	 * 
+	 * @param latitude the latitude of the point
+	 * @param longitude the longitude of the point
+	 * @param count the maximum number of Resources to return
+	 * @return the identifiers of the nearest Resources, nearest first
+	 */
+	public synchronized List<String> findNearest(double latitude, double longitude, int count) {
+		requireArea(longitude, longitude, latitude, latitude);
+		List<String> identifiers = new ArrayList<String>();
+		Node root = getRoot();
+		if (root == null || count < 1)
+			return (identifiers);
+		double scale = Math.max(Math.cos(Math.toRadians(latitude)), 0);
+		Set<String> found = new HashSet<String>();
+		PriorityQueue<Candidate> queue = new PriorityQueue<Candidate>();
+		queue.add(new Candidate(root, 0));
+
+		// Nodes and envelopes are ranked by their nearest edge, which is never farther than the shapes inside them, so
+		// a shape taken from the front of the queue is nearer than any shape not yet measured.
+		while (!queue.isEmpty() && identifiers.size() < count) {
+			Candidate candidate = queue.poll();
+			if (candidate._item instanceof Node) {
+				Node node = (Node) candidate._item;
+				for (Box child : node._children)
+					queue.add(new Candidate(child, child.getDistance(latitude, longitude, scale)));
+			}
+			else if (candidate._item instanceof Entry) {
+				Shape shape = ((Entry) candidate._item)._shape;
+				if (!found.contains(shape._identifier))
+					queue.add(new Candidate(shape, shape.getDistance(latitude, longitude, scale)));
+			}
+			else {
+				Shape shape = (Shape) candidate._item;
+				if (found.add(shape._identifier))
+					identifiers.add(shape._identifier);
+			}
+		}
+		return (identifiers);
+	}
+
+	/**
+	 * Returns the shapes whose envelopes touch an area.
+	 */
+	private Set<Shape> getCandidates(double west, double east, double south, double north) {
+		Set<Shape> candidates = new LinkedHashSet<Shape>();
+		Node root = getRoot();
+		if (root == null)
+			return (candidates);
+		if (west <= east)
+			root.search(west, south, east, north, candidates);
+		else {
+			root.search(west, south, 180, north, candidates);
+			root.search(-180, south, east, north, candidates);
+		}
+		return (candidates);
+	}
+
+	/**
+	 * Returns the root of the tree, packing the envelopes of every shape again if the index has changed since the
+	 * tree was last packed.
+	 */
+	private Node getRoot() {
+		if (_stale) {
+			List<Box> entries = new ArrayList<Box>();
+			for (List<Shape> shapes : _shapes.values()) {
+				for (Shape shape : shapes)
+					shape.addEntries(entries);
+			}
+			_root = (entries.isEmpty() ? null : pack(entries));
+			_stale = false;
+		}
+		return (_root);
+	}
+
+	/**
+	 * Packs a list of envelopes into an R-tree with the Sort-Tile-Recursive algorithm, one level at a time.
+	 * 
+	 * @param boxes the envelopes
+	 * @return the root of the tree
+	 */
+	private static Node pack(List<Box> boxes) {
+		List<Box> level = boxes;
+		boolean isLeafLevel = true;
+		while (true) {
+			int nodeCount = (level.size() + NODE_CAPACITY - 1) / NODE_CAPACITY;
+			int sliceSize = NODE_CAPACITY * (int) Math.ceil(Math.sqrt(nodeCount));
+			Collections.sort(level, X_ORDER);
+			List<Box> parents = new ArrayList<Box>(nodeCount);
+			for (int i = 0; i < level.size(); i += sliceSize) {
+				List<Box> slice = new ArrayList<Box>(level.subList(i, Math.min(i + sliceSize, level.size())));
+				Collections.sort(slice, Y_ORDER);
+				for (int j = 0; j < slice.size(); j += NODE_CAPACITY)
+					parents.add(new Node(slice.subList(j, Math.min(j + NODE_CAPACITY, slice.size())), isLeafLevel));
+			}
+			if (parents.size() == 1)
+				return ((Node) parents.get(0));
+			level = parents;
+			isLeafLevel = false;
+		}
+	}
+
+	/**
+	 * Builds a shape from a TSPI shape, or returns null if its positions cannot be read.
+	 */
+	private static Shape getTspiShape(String identifier, int sequence, ITspiShape tspiShape) {
+		Element element = tspiShape.getXOMElementCopy();
+		String name = tspiShape.getName();
+		try {
+			List<double[]> positions = new ArrayList<double[]>();
+			addPositions(element, "Polygon".equals(name) ? "exterior" : null, positions);
+			if (positions.isEmpty())
+				return (null);
+			double[] first = positions.get(0);
+			if ("Polygon".equals(name))
+				return (Shape.forPolygon(identifier, sequence, positions));
+			if ("Envelope".equals(name) && positions.size() == 2) {
+				double[] upper = positions.get(1);
+				return (new Shape(identifier, sequence, first[1], upper[1], first[0], upper[0]));
+			}
+			if ("Circle".equals(name) || "Ellipse".equals(name)) {
+				Element radius = findElement(element, "Circle".equals(name) ? "radius" : "semiMajorLength");
+				double kilometres = (radius == null ? 0 : getKilometres(radius));
+				return (Shape.forCircle(identifier, sequence, first[0], first[1], kilometres));
+			}
+			return (Shape.forPoint(identifier, sequence, first[0], first[1]));
+		}
+		catch (NumberFormatException e) {
+			return (null);
+		}
+	}
+
+	/**
+	 * Adds the coordinates of every gml:pos beneath an element, optionally only those beneath a named child.
+	 */
+	private static void addPositions(Element element, String parentName, List<double[]> positions) {
+		Elements children = element.getChildElements();
+		for (int i = 0; i < children.size(); i++) {
+			Element child = children.get(i);
+			if (parentName != null) {
+				if (parentName.equals(child.getLocalName()))
+					addPositions(child, null, positions);
+			}
+			else if ("pos".equals(child.getLocalName())) {
+				String[] values = Util.getXsListAsList(child.getValue()).toArray(new String[0]);
+				if (values.length < 2)
+					throw new NumberFormatException("A position needs a latitude and longitude.");
+				positions.add(new double[] { Double.parseDouble(values[0]), Double.parseDouble(values[1]) });
+			}
+			else
+				addPositions(child, null, positions);
+		}
+	}
+
+	/**
+	 * Returns the first child element with a local name, or null.
+	 */
+	private static Element findElement(Element element, String localName) {
+		Elements children = element.getChildElements();
+		for (int i = 0; i < children.size(); i++) {
+			if (localName.equals(children.get(i).getLocalName()))
+				return (children.get(i));
+		}
+		return (null);
+	}
+
+	/**
+	 * Converts a length to kilometres, using the unit of measure in its uom attribute. Returns 0 if the unit is not a
+	 * metre or kilometre.
+	 */
+	private static double getKilometres(Element length) {
+		String uom = String.valueOf(length.getAttributeValue("uom"));
+		double value = Double.parseDouble(length.getValue().trim());
+		if (uom.endsWith("kilometre"))
+			return (value);
+		if (uom.endsWith("metre"))
+			return (value / 1000);
+		return (0);
+	}
+
+	/**
+	 * Checks that an area has valid latitudes and longitudes.
+	 * 
+	 * @throws IllegalArgumentException if a value is out of range
+	 */
+	private static void requireArea(double west, double east, double south, double north) {
+		if (!(west >= -180 && west <= 180 && east >= -180 && east <= 180))
+			throw new IllegalArgumentException("A longitude value must be between -180 and 180 degrees.");
+		if (!(south >= -90 && north <= 90 && south <= north))
+			throw new IllegalArgumentException(
+				"Latitude values must be between -90 and 90 degrees, with the south no greater than the north.");
+	}
+
+	/**
+	 * Returns the distance east from one longitude to another, from 0 up to 360 degrees.
+	 */
+	private static double getEastward(double from, double to) {
+		double distance = (to - from) % 360;
+		return (distance < 0 ? distance + 360 : distance);
+	}
+
+	/**
+	 * Returns the width of a span of longitudes, which crosses the antimeridian if the west is greater than the east.
+	 */
+	private static double getWidth(double west, double east) {
+		return (east >= west ? east - west : east - west + 360);
+	}
+
+	/**
+	 * Checks whether a span of longitudes contains a longitude.
+	 */
+	private static boolean containsLongitude(double west, double east, double longitude) {
+		double width = getWidth(west, east);
+		return (width >= 360 || getEastward(west, longitude) <= width);
+	}
+
+	/**
+	 * Checks whether one span of longitudes contains the whole of another.
+	 */
+	private static boolean containsSpan(double west, double east, double innerWest, double innerEast) {
+		double width = getWidth(west, east);
+		return (width >= 360 || getEastward(west, innerWest) + getWidth(innerWest, innerEast) <= width);
+	}
+
+	/**
+	 * Returns the number of degrees from a longitude to the nearest edge of a span of longitudes, or 0 if the span
+	 * contains it.
+	 */
+	private static double getLongitudeGap(double west, double east, double longitude) {
+		if (containsLongitude(west, east, longitude))
+			return (0);
+		return (Math.min(getEastward(longitude, west), getEastward(east, longitude)));
+	}
+
+	/**
+	 * Returns the distance from a point to a rectangle on the equirectangular projection around the point.
+	 */
+	private static double getDistance(double west, double east, double south, double north, double latitude,
+		double longitude, double scale) {
+		double latitudeGap = Math.max(0, Math.max(south - latitude, latitude - north));
+		double longitudeGap = getLongitudeGap(west, east, longitude) * scale;
+		return (Math.sqrt(latitudeGap * latitudeGap + longitudeGap * longitudeGap));
+	}
+
+	/**
+	 * Clips a segment to a rectangle with the Liang-Barsky algorithm.
+	 * 
+	 * @return the start and end of the clipped segment, as fractions of the segment, or null if the segment misses
+	 *         the rectangle
+	 */
+	private static double[] clip(double x1, double y1, double x2, double y2, double minX, double minY, double maxX,
+		double maxY) {
+		double[] range = new double[] { 0, 1 };
+		double dx = x2 - x1;
+		double dy = y2 - y1;
+		if (clipEdge(-dx, x1 - minX, range) && clipEdge(dx, maxX - x1, range) && clipEdge(-dy, y1 - minY, range)
+			&& clipEdge(dy, maxY - y1, range))
+			return (range);
+		return (null);
+	}
+
+	/**
+	 * Narrows the clipped range of a segment against one edge of a rectangle.
+	 * 
+	 * @return false if nothing is left of the segment
+	 */
+	private static boolean clipEdge(double direction, double distance, double[] range) {
+		if (direction == 0)
+			return (distance >= 0);
+		double fraction = distance / direction;
+		if (direction < 0) {
+			if (fraction > range[1])
+				return (false);
+			range[0] = Math.max(range[0], fraction);
+		}
+		else {
+			if (fraction < range[0])
+				return (false);
+			range[1] = Math.min(range[1], fraction);
+		}
+		return (true);
+	}
+
+	/**
+	 * Checks whether a polygon contains a point, by counting the edges crossed by a ray from the point.
+	 */
+	private static boolean containsPoint(double[] xs, double[] ys, double x, double y) {
+		boolean inside = false;
+		for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+			if ((ys[i] > y) != (ys[j] > y) && x < (xs[j] - xs[i]) * (y - ys[i]) / (ys[j] - ys[i]) + xs[i])
+				inside = !inside;
+		}
+		return (inside);
+	}
+
+	/**
+	 * Checks whether a polygon intersects a rectangle.
+	 */
+	private static boolean intersects(double[] xs, double[] ys, double minX, double minY, double maxX, double maxY) {
+		for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+			if (clip(xs[j], ys[j], xs[i], ys[i], minX, minY, maxX, maxY) != null)
+				return (true);
+		}
+		return (containsPoint(xs, ys, minX, minY));
+	}
+
+	/**
+	 * Checks whether a polygon contains the whole of a rectangle: every corner must be inside the polygon, and no edge
+	 * of the polygon may pass through the inside of the rectangle.
+	 */
+	private static boolean contains(double[] xs, double[] ys, double minX, double minY, double maxX, double maxY) {
+		if (!containsPoint(xs, ys, minX, minY) || !containsPoint(xs, ys, minX, maxY)
+			|| !containsPoint(xs, ys, maxX, minY) || !containsPoint(xs, ys, maxX, maxY))
+			return (false);
+		for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+			double[] range = clip(xs[j], ys[j], xs[i], ys[i], minX, minY, maxX, maxY);
+			if (range != null) {
+				double middle = (range[0] + range[1]) / 2;
+				double x = xs[j] + (xs[i] - xs[j]) * middle;
+				double y = ys[j] + (ys[i] - ys[j]) * middle;
+				if (x > minX && x < maxX && y > minY && y < maxY)
+					return (false);
+			}
+		}
+		return (true);
+	}
+
+	/**
+	 * Returns the distance from a point to the nearest edge of a polygon, with longitudes multiplied by a scale.
+	 */
+	private static double getEdgeDistance(double[] xs, double[] ys, double x, double y, double scale) {
+		double distance = Double.MAX_VALUE;
+		for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+			double x1 = xs[j] * scale;
+			double dx = xs[i] * scale - x1;
+			double dy = ys[i] - ys[j];
+			double length = dx * dx + dy * dy;
+			double fraction = (length == 0 ? 0 : ((x * scale - x1) * dx + (y - ys[j]) * dy) / length);
+			fraction = Math.max(0, Math.min(1, fraction));
+			double gapX = x1 + dx * fraction - x * scale;
+			double gapY = ys[j] + dy * fraction - y;
+			distance = Math.min(distance, Math.sqrt(gapX * gapX + gapY * gapY));
+		}
+		return (distance);
+	}
+
+	/**
+	 * A rectangle in longitude and latitude which does not cross the antimeridian.
+	 */
+	private static abstract class Box {
+		protected double _minX;
+		protected double _minY;
+		protected double _maxX;
+		protected double _maxY;
+
+		/**
+		 * Checks whether this box touches another rectangle.
+		 */
+		protected boolean touches(double minX, double minY, double maxX, double maxY) {
+			return (_minX <= maxX && _maxX >= minX && _minY <= maxY && _maxY >= minY);
+		}
+
+		/**
+		 * Returns the distance from a point to this box, which is never greater than the distance to anything inside
+		 * it.
+		 */
+		protected double getDistance(double latitude, double longitude, double scale) {
+			return (SpatialIndex.getDistance(_minX, _maxX, _minY, _maxY, latitude, longitude, scale));
+		}
+	}
+
+	/**
+	 * A node of the tree, whose children are either nodes or, at the lowest level, entries.
+	 */
+	private static final class Node extends Box {
+		private final Box[] _children;
+		private final boolean _isLeaf;
+
+		/**
+		 * Constructor which surrounds a list of children
+		 */
+		private Node(List<Box> children, boolean isLeaf) {
+			_children = children.toArray(new Box[children.size()]);
+			_isLeaf = isLeaf;
+			_minX = Double.MAX_VALUE;
+			_minY = Double.MAX_VALUE;
+			_maxX = -Double.MAX_VALUE;
+			_maxY = -Double.MAX_VALUE;
+			for (Box child : _children) {
+				_minX = Math.min(_minX, child._minX);
+				_minY = Math.min(_minY, child._minY);
+				_maxX = Math.max(_maxX, child._maxX);
+				_maxY = Math.max(_maxY, child._maxY);
+			}
+		}
+
+		/**
+		 * Adds the shapes of every entry beneath this node which touches a rectangle.
+		 */
+		private void search(double minX, double minY, double maxX, double maxY, Set<Shape> candidates) {
+			for (Box child : _children) {
+				if (!child.touches(minX, minY, maxX, maxY))
+					continue;
+				if (_isLeaf)
+					candidates.add(((Entry) child)._shape);
+				else
+					((Node) child).search(minX, minY, maxX, maxY, candidates);
+			}
+		}
+	}
+
+	/**
+	 * The envelope of a shape, or of one piece of a shape which crosses the antimeridian.
+	 */
+	private static final class Entry extends Box {
+		private final Shape _shape;
+
+		/**
+		 * Constructor
+		 */
+		private Entry(Shape shape, double minX, double minY, double maxX, double maxY) {
+			_shape = shape;
+			_minX = minX;
+			_minY = minY;
+			_maxX = maxX;
+			_maxY = maxY;
+		}
+	}
+
+	/**
+	 * A single shape of a Resource: a rectangle, which may cross the antimeridian or be a point, or a polygon with
+	 * the rectangle as its envelope.
+	 */
+	private static final class Shape {
+		private final String _identifier;
+		private final int _sequence;
+		private final double _west;
+		private final double _east;
+		private final double _south;
+		private final double _north;
+		private double[] _longitudes = null;
+		private double[] _latitudes = null;
+
+		/**
+		 * Constructor for a rectangle
+		 */
+		private Shape(String identifier, int sequence, double west, double east, double south, double north) {
+			_identifier = identifier;
+			_sequence = sequence;
+			_west = west;
+			_east = east;
+			_south = Math.min(south, north);
+			_north = Math.max(south, north);
+		}
+
+		/**
+		 * Builds a point
+		 */
+		private static Shape forPoint(String identifier, int sequence, double latitude, double longitude) {
+			return (new Shape(identifier, sequence, longitude, longitude, latitude, latitude));
+		}
+
+		/**
+		 * Builds the rectangle around a circle with a radius in kilometres. The rectangle covers every longitude if
+		 * the circle reaches a pole.
+		 */
+		private static Shape forCircle(String identifier, int sequence, double latitude, double longitude,
+			double kilometres) {
+			double latitudeRadius = kilometres / KILOMETRES_PER_DEGREE;
+			double south = Math.max(-90, latitude - latitudeRadius);
+			double north = Math.min(90, latitude + latitudeRadius);
+			double cosine = Math.cos(Math.toRadians(Math.max(Math.abs(south), Math.abs(north))));
+			double longitudeRadius = (cosine <= 0 ? 180 : latitudeRadius / cosine);
+			if (longitudeRadius >= 180)
+				return (new Shape(identifier, sequence, -180, 180, south, north));
+			double west = longitude - longitudeRadius;
+			double east = longitude + longitudeRadius;
+			return (new Shape(identifier, sequence, west < -180 ? west + 360 : west, east > 180 ? east - 360 : east,
+				south, north));
+		}
+
+		/**
+		 * Builds a polygon from a list of latitude and longitude positions. The longitudes of a polygon which crosses
+		 * the antimeridian are unwrapped past 180 degrees, so that its edges do not jump across the map.
+		 */
+		private static Shape forPolygon(String identifier, int sequence, List<double[]> positions) {
+			double[] latitudes = new double[positions.size()];
+			double[] longitudes = new double[positions.size()];
+			double minLongitude = Double.MAX_VALUE;
+			double maxLongitude = -Double.MAX_VALUE;
+			for (int i = 0; i < positions.size(); i++) {
+				latitudes[i] = positions.get(i)[0];
+				longitudes[i] = positions.get(i)[1];
+				minLongitude = Math.min(minLongitude, longitudes[i]);
+				maxLongitude = Math.max(maxLongitude, longitudes[i]);
+			}
+			if (maxLongitude - minLongitude > 180) {
+				minLongitude = Double.MAX_VALUE;
+				maxLongitude = -Double.MAX_VALUE;
+				for (int i = 0; i < longitudes.length; i++) {
+					if (longitudes[i] < 0)
+						longitudes[i] += 360;
+					minLongitude = Math.min(minLongitude, longitudes[i]);
+					maxLongitude = Math.max(maxLongitude, longitudes[i]);
+				}
+			}
+			double south = Double.MAX_VALUE;
+			double north = -Double.MAX_VALUE;
+			for (double latitude : latitudes) {
+				south = Math.min(south, latitude);
+				north = Math.max(north, latitude);
+			}
+			Shape shape = new Shape(identifier, sequence, minLongitude, maxLongitude > 180 ? maxLongitude - 360
+				: maxLongitude, south, north);
+			shape._longitudes = longitudes;
+			shape._latitudes = latitudes;
+			return (shape);
+		}
+
+		/**
+		 * Adds the envelope of this shape to a list, in two pieces if it crosses the antimeridian.
+		 */
+		private void addEntries(List<Box> entries) {
+			if (_west <= _east)
+				entries.add(new Entry(this, _west, _south, _east, _north));
+			else {
+				entries.add(new Entry(this, _west, _south, 180, _north));
+				entries.add(new Entry(this, -180, _south, _east, _north));
+			}
+		}
+
+		/**
+		 * Checks whether this shape intersects an area.
+		 */
+		private boolean intersects(double west, double east, double south, double north) {
+			if (_south > north || _north < south)
+				return (false);
+			if (!containsLongitude(_west, _east, west) && !containsLongitude(west, east, _west))
+				return (false);
+			if (_longitudes == null)
+				return (true);
+			if (west > east)
+				return (intersectsPolygon(west, 180, south, north) || intersectsPolygon(-180, east, south, north));
+			return (intersectsPolygon(west, east, south, north));
+		}
+
+		/**
+		 * Checks whether this polygon intersects an area which does not cross the antimeridian, in either of the ways
+		 * its longitudes may have been unwrapped.
+		 */
+		private boolean intersectsPolygon(double west, double east, double south, double north) {
+			return (SpatialIndex.intersects(_longitudes, _latitudes, west, south, east, north) || SpatialIndex
+				.intersects(_longitudes, _latitudes, west + 360, south, east + 360, north));
+		}
+
+		/**
+		 * Checks whether this shape contains the whole of an area.
+		 */
+		private boolean contains(double west, double east, double south, double north) {
+			if (_south > south || _north < north || !containsSpan(_west, _east, west, east))
+				return (false);
+			if (_longitudes == null)
+				return (true);
+			double unwrappedEast = (east < west ? east + 360 : east);
+			return (SpatialIndex.contains(_longitudes, _latitudes, west, south, unwrappedEast, north) || SpatialIndex
+				.contains(_longitudes, _latitudes, west + 360, south, unwrappedEast + 360, north));
+		}
+
+		/**
+		 * Checks whether this shape lies entirely within an area. Because a polygon lies within a rectangle exactly
+		 * when its envelope does, no polygon test is needed.
+		 */
+		private boolean isWithin(double west, double east, double south, double north) {
+			return (_south >= south && _north <= north && containsSpan(west, east, _west, _east));
+		}
+
+		/**
+		 * Returns the distance from a point to this shape on the equirectangular projection around the point.
+		 */
+		private double getDistance(double latitude, double longitude, double scale) {
+			if (_longitudes == null)
+				return (SpatialIndex.getDistance(_west, _east, _south, _north, latitude, longitude, scale));
+			double distance = Double.MAX_VALUE;
+			for (int shift = -360; shift <= 360; shift += 360) {
+				if (containsPoint(_longitudes, _latitudes, longitude + shift, latitude))
+					return (0);
+				distance = Math.min(distance, getEdgeDistance(_longitudes, _latitudes, longitude + shift, latitude,
+					scale));
+			}
+			return (distance);
+		}
+	}
+
+	/**
+	 * A node, entry, or shape waiting in the queue of a nearest-neighbor search.
+	 */
+	private static final class Candidate implements Comparable<Candidate> {
+		private final Object _item;
+		private final double _distance;
+
+		/**
+		 * Constructor
+		 */
+		private Candidate(Object item, double distance) {
+			_item = item;
+			_distance = distance;
+		}
+
+		/**
+		 * @see Comparable#compareTo(Object)
+		 */
+		public int compareTo(Candidate other) {
+			return (Double.compare(_distance, other._distance));
+		}
+	}
+}
@@ -29,6 +29,7 @@ import buri.ddmsence.ddms.summary.gml.Point;
 import buri.ddmsence.ddms.summary.gml.Polygon;
 import net.sf.saxon.om.Name10Checker;
 import nu.xom.*;
+import nu.xom.canonical.Canonicalizer;
 import nu.xom.xslt.XSLException;
 import nu.xom.xslt.XSLTransform;
 import org.xml.sax.XMLReader;
@@ -42,6 +43,9 @@ import javax.xml.namespace.QName;
 import java.io.*;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.regex.Pattern;
 
@@ -58,16 +62,19 @@ public class Util {
     private static Map<String, XSLTransform> _schematronSvrlTransforms = new HashMap<String, XSLTransform>();
 
     private static final String PROP_TRANSFORM_FACTORY = "javax.xml.transform.TransformerFactory";
-    private static final LinkedHashMap<String, String> XML_SPECIAL_CHARS = new LinkedHashMap<String, String>();
+    private static final String SCHEMATRON_NAMESPACE = "http://purl.oclc.org/dsdl/schematron";
+    private static final String SCHEMATRON_PHASE_PARAMETER = "phase";
+    private static final String SCHEMATRON_ALL_PHASES = "#ALL";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
 
-    static {
-        XML_SPECIAL_CHARS.put("&", "&amp;");
-        XML_SPECIAL_CHARS.put("\"", "&quot;");
-        XML_SPECIAL_CHARS.put("'", "&apos;");
-        XML_SPECIAL_CHARS.put("<", "&lt;");
-        XML_SPECIAL_CHARS.put(">", "&gt;");
-    }
+    private static final String XML_NAMESPACE = "http://www.w3.org/XML/1998/namespace";
 
+    /** Discards everything written to it, so digests can be computed without buffering */
+    private static final OutputStream NULL_OUTPUT_STREAM = new OutputStream() {
+        public void write(int b) {}
+
+        public void write(byte[] b, int off, int len) {}
+    };
     private static final String DDMS_DATE_HOUR_MIN_PATTERN = "[0-9]{4}-[0-9]{2}-[0-9]{2}T[0-9]{2}:[0-9]{2}(Z|[\\-\\+][0-9]{2}:[0-9]{2})?";
 
     private static Set<QName> DATE_DATATYPES = new HashSet<QName>();
@@ -516,13 +523,71 @@ public class Util {
      * @return escaped String
      */
     public static String xmlEscape(String input) {
-        if (input != null) {
-            for (Iterator<String> iterator = XML_SPECIAL_CHARS.keySet().iterator(); iterator.hasNext(); ) {
-                String pattern = iterator.next();
-                input = Pattern.compile(pattern).matcher(input).replaceAll((String) XML_SPECIAL_CHARS.get(pattern));
+        if (input == null || getFirstXmlSpecialChar(input) < 0)
+            return input;
+        StringBuilder output = new StringBuilder(input.length() + 16);
+        try {
+            xmlEscape(output, input);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not escape the string: " + e.getMessage());
+        }
+        return (output.toString());
+    }
+
+    /**
+     * Replaces XML special characters - '&', '<', '>', '\'', '"' - while writing a string to an Appendable. Runs of
+     * characters which need no escaping are written without copying.
+     *
+     * @param output the Appendable to write to
+     * @param input the string to escape. A null value writes nothing.
+     */
+    public static void xmlEscape(Appendable output, String input) throws IOException {
+        if (input == null)
+            return;
+        int start = 0;
+        for (int i = getFirstXmlSpecialChar(input); i >= 0 && i < input.length(); i++) {
+            String replacement = getXmlEscape(input.charAt(i));
+            if (replacement != null) {
+                output.append(input, start, i).append(replacement);
+                start = i + 1;
             }
         }
-        return input;
+        output.append(input, start, input.length());
+    }
+
+    /**
+     * Returns the index of the first XML special character in a string, or -1 if there are none.
+     *
+     * @param input the string to check
+     */
+    private static int getFirstXmlSpecialChar(String input) {
+        for (int i = 0; i < input.length(); i++) {
+            if (getXmlEscape(input.charAt(i)) != null)
+                return (i);
+        }
+        return (-1);
+    }
+
+    /**
+     * Returns the entity reference for an XML special character, or null if the character needs no escaping.
+     *
+     * @param c the character
+     */
+    private static String getXmlEscape(char c) {
+        switch (c) {
+            case '&':
+                return ("&amp;");
+            case '"':
+                return ("&quot;");
+            case '\'':
+                return ("&apos;");
+            case '<':
+                return ("&lt;");
+            case '>':
+                return ("&gt;");
+            default:
+                return (null);
+        }
     }
 
     /**
@@ -689,6 +754,7 @@ public class Util {
     public static XSLTransform buildSchematronTransform(File schematronFile) throws IOException, XSLException {
         return buildSchematronTransform(new FileInputStream(schematronFile));
     }
+
     /**
      * Takes a Schematron file and transforms it with the ISO Schematron skeleton files.
      * <p/>
@@ -707,6 +773,36 @@ public class Util {
      * @throws XSLException if stylesheet transformation fails
      */
     public static XSLTransform buildSchematronTransform(InputStream schematronFile) throws IOException, XSLException {
+        return (buildSchematronTransform(schematronFile, null, null));
+    }
+
+    /**
+     * Takes a Schematron file and transforms it with the ISO Schematron skeleton files, limiting the compiled
+     * stylesheet to a subset of the rules in the file.
+     * <p/>
+     * <p>The phase is passed to the ISO Schematron skeleton, so only the patterns made active by that phase will be
+     * compiled. If the phase is empty, the defaultPhase of the Schematron file is used (or every pattern, if no
+     * default exists). The special phase "#ALL" always selects every pattern.</p>
+     * <p/>
+     * <p>The pattern identifiers are applied after the abstract patterns have been expanded. If the set is non-null,
+     * any pattern whose id attribute is not in the set is removed before compilation. Patterns without an id are
+     * always removed when a set is provided. Combined with a phase, only patterns that are in the set AND active in
+     * the phase will be compiled.</p>
+     * <p/>
+     * <p>Because the compiled XSLTransform can be reused for any number of Resources, callers that re-run the same
+     * subset of rules repeatedly (such as an interactive editor) should hold onto the returned transform and pass it to
+     * <code>Resource.validateWithSchematron(XSLTransform)</code>.</p>
+     *
+     * @param schematronFile the Schematron file
+     * @param phase          the id of an iso:phase in the Schematron file, or null/empty for the default phase
+     * @param patternIds     the ids of the iso:pattern elements to keep, or null to keep every pattern
+     * @return the XSLTransform instance
+     * @throws IOException              if there are file-related problems with preparing the stylesheets
+     * @throws XSLException             if stylesheet transformation fails
+     * @throws IllegalArgumentException if the phase is not defined in the Schematron file
+     */
+    public static XSLTransform buildSchematronTransform(InputStream schematronFile, String phase,
+                                                        Set<String> patternIds) throws IOException, XSLException {
         String oldFactory = System.getProperty(PROP_TRANSFORM_FACTORY);
         String newFactory = PropertyReader.getProperty("xml.transform.TransformerFactory");
         if (Util.isEmpty(oldFactory) || !newFactory.equals(oldFactory)) {
@@ -715,6 +811,7 @@ public class Util {
         }
         Document schDocument = Util.buildXmlDocument(schematronFile);
         String queryBinding = getSchematronQueryBinding(schDocument);
+        requireSchematronPhase(schDocument, phase);
 
         // long time = new Date().getTime();
         XSLTransform phase1 = getSchematronIncludeTransform();
@@ -729,7 +826,19 @@ public class Util {
         // System.out.println((new Date().getTime() - time) + "ms (SVRL)");
 
         // time = new Date().getTime();
-        Nodes nodes = phase3.transform(phase2.transform(phase1.transform(schDocument)));
+        Document expanded = XSLTransform.toDocument(phase2.transform(phase1.transform(schDocument)));
+        if (patternIds != null)
+            removeSchematronPatterns(expanded, patternIds);
+        Nodes nodes;
+        synchronized (phase3) {
+            if (!isEmpty(phase))
+                phase3.setParameter(SCHEMATRON_PHASE_PARAMETER, phase.trim());
+            try {
+                nodes = phase3.transform(expanded);
+            } finally {
+                phase3.setParameter(SCHEMATRON_PHASE_PARAMETER, null);
+            }
+        }
         // System.out.println((new Date().getTime() - time) + "ms (Base transformation 1, 2, 3)");
 
         // time = new Date().getTime();
@@ -739,6 +848,51 @@ public class Util {
         return (finalTransform);
     }
 
+    /**
+     * Confirms that a requested phase is defined in an ISO Schematron file. The ISO skeleton only reports an unknown
+     * phase as an XSL message, which would otherwise result in a silently empty validation.
+     *
+     * @param schDocument the Schematron file as an XML Document
+     * @param phase       the phase to check. Empty phases and "#ALL" are always allowed.
+     * @throws IllegalArgumentException if the phase is not defined
+     */
+    private static void requireSchematronPhase(Document schDocument, String phase) {
+        if (isEmpty(phase) || SCHEMATRON_ALL_PHASES.equals(phase.trim()))
+            return;
+        Elements phases = schDocument.getRootElement().getChildElements("phase", SCHEMATRON_NAMESPACE);
+        for (int i = 0; i < phases.size(); i++) {
+            if (phase.trim().equals(phases.get(i).getAttributeValue("id")))
+                return;
+        }
+        throw new IllegalArgumentException("No phase named \"" + phase.trim() + "\" exists in the Schematron file.");
+    }
+
+    /**
+     * Removes every iso:pattern from an expanded Schematron file whose id is not in the provided set. Any iso:active
+     * references to the removed patterns are also removed from the phases, so the skeleton does not report them as
+     * undeclared.
+     *
+     * @param schDocument the expanded Schematron file as an XML Document
+     * @param patternIds  the ids of the patterns to keep
+     */
+    private static void removeSchematronPatterns(Document schDocument, Set<String> patternIds) {
+        Element root = schDocument.getRootElement();
+        Elements patterns = root.getChildElements("pattern", SCHEMATRON_NAMESPACE);
+        for (int i = 0; i < patterns.size(); i++) {
+            Element pattern = patterns.get(i);
+            if (!patternIds.contains(pattern.getAttributeValue("id")))
+                pattern.detach();
+        }
+        Elements phases = root.getChildElements("phase", SCHEMATRON_NAMESPACE);
+        for (int i = 0; i < phases.size(); i++) {
+            Elements actives = phases.get(i).getChildElements("active", SCHEMATRON_NAMESPACE);
+            for (int j = 0; j < actives.size(); j++) {
+                if (!patternIds.contains(actives.get(j).getAttributeValue("pattern")))
+                    actives.get(j).detach();
+            }
+        }
+    }
+
     /**
      * Clears any previous instantiated transforms.
      */
@@ -809,6 +963,262 @@ public class Util {
         return (_schematronSvrlTransforms.get(resourceName));
     }
 
+    /**
+     * Returns a hex-encoded digest of some bytes.
+     *
+     * @param bytes the bytes to digest
+     * @param algorithm the name of the digest algorithm, such as SHA-256 or MD5
+     * @return the lowercase hex string of the digest
+     * @throws IllegalArgumentException if the algorithm is not supported by this JVM
+     */
+    public static String getDigest(byte[] bytes, String algorithm) {
+        Util.requireValue("bytes", bytes);
+        return (toHex(getMessageDigest(algorithm).digest(bytes)));
+    }
+
+    /**
+     * Returns a hex-encoded digest of the Exclusive Canonical XML form of an element. Exclusive canonicalization omits
+     * namespace declarations inherited from ancestors but not used by the element, so the digest of a subtree does not
+     * depend on the tree it is attached to. The canonical form is streamed into the digest, rather than being
+     * buffered first.
+     *
+     * @param element the element to digest
+     * @param algorithm the name of the digest algorithm, such as SHA-256 or MD5
+     * @return the lowercase hex string of the digest
+     */
+    public static String getCanonicalDigest(Element element, String algorithm) {
+        Util.requireValue("element", element);
+        MessageDigest digest = getMessageDigest(algorithm);
+        try {
+            new Canonicalizer(new DigestOutputStream(NULL_OUTPUT_STREAM, digest),
+                Canonicalizer.EXCLUSIVE_XML_CANONICALIZATION).write(element);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not canonicalize the element: " + e.getMessage());
+        }
+        return (toHex(digest.digest()));
+    }
+
+    /**
+     * Writes the canonical content of an element, which is its Exclusive Canonical XML form after the choice of
+     * namespace prefixes and any whitespace between elements have been normalized away. Each namespace is given the
+     * prefix "ns" followed by the order in which it is first used, so two elements with the same names, attributes
+     * and text produce the same bytes however they were serialized. Comments are omitted, as in canonical XML.
+     *
+     * <p>The canonical form is written in a single pass over the element, without copying the tree or holding the
+     * output in memory. Text and attribute values are not rewritten, so a value which itself refers to a namespace
+     * prefix is still compared literally.</p>
+     *
+     * @param element the element to canonicalize
+     * @param out the stream to write the UTF-8 canonical form to
+     * @throws IOException if the stream could not be written to
+     */
+    public static void writeCanonicalContent(Element element, OutputStream out) throws IOException {
+        Util.requireValue("element", element);
+        Util.requireValue("output stream", out);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, "UTF-8"));
+        writeCanonicalElement(element, writer, new HashMap<String, String>(), new HashSet<String>());
+        writer.flush();
+    }
+
+    /**
+     * Returns a hex-encoded digest of the canonical content of an element, streamed straight into the digest.
+     *
+     * @see #writeCanonicalContent(Element, OutputStream)
+     * @param element the element to digest
+     * @param algorithm the name of the digest algorithm, such as SHA-256 or MD5
+     * @return the lowercase hex string of the digest
+     */
+    public static String getCanonicalContentDigest(Element element, String algorithm) {
+        MessageDigest digest = getMessageDigest(algorithm);
+        try {
+            writeCanonicalContent(element, new DigestOutputStream(NULL_OUTPUT_STREAM, digest));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not canonicalize the element: " + e.getMessage());
+        }
+        return (toHex(digest.digest()));
+    }
+
+    /**
+     * Writes the canonical content of an element and its descendants. Namespace declarations are written on the
+     * first element which uses them, in prefix order, followed by the attributes in namespace and local name order.
+     * Whitespace-only text is dropped from elements which have child elements.
+     *
+     * @param element the element to write
+     * @param writer the destination
+     * @param prefixes the prefixes assigned so far, keyed by namespace URI
+     * @param declared the namespaces declared by the ancestors of this element
+     * @throws IOException if the output could not be written
+     */
+    private static void writeCanonicalElement(Element element, Writer writer, Map<String, String> prefixes,
+        Set<String> declared) throws IOException {
+        List<Attribute> attributes = new ArrayList<Attribute>(element.getAttributeCount());
+        for (int i = 0; i < element.getAttributeCount(); i++)
+            attributes.add(element.getAttribute(i));
+        Collections.sort(attributes, new Comparator<Attribute>() {
+            public int compare(Attribute attribute1, Attribute attribute2) {
+                int result = attribute1.getNamespaceURI().compareTo(attribute2.getNamespaceURI());
+                return (result != 0 ? result : attribute1.getLocalName().compareTo(attribute2.getLocalName()));
+            }
+        });
+        String name = getNormalizedName(element.getLocalName(), element.getNamespaceURI(), prefixes);
+        String[] attributeNames = new String[attributes.size()];
+        for (int i = 0; i < attributeNames.length; i++) {
+            Attribute attribute = attributes.get(i);
+            attributeNames[i] = getNormalizedName(attribute.getLocalName(), attribute.getNamespaceURI(), prefixes);
+        }
+        SortedMap<String, String> declarations = new TreeMap<String, String>();
+        addDeclaration(element.getNamespaceURI(), prefixes, declared, declarations);
+        for (Attribute attribute : attributes)
+            addDeclaration(attribute.getNamespaceURI(), prefixes, declared, declarations);
+
+        writer.write('<');
+        writer.write(name);
+        for (Map.Entry<String, String> declaration : declarations.entrySet()) {
+            writer.write(" xmlns:");
+            writer.write(declaration.getKey());
+            writer.write("=\"");
+            writeCanonicalValue(writer, declaration.getValue(), true);
+            writer.write('"');
+        }
+        for (int i = 0; i < attributeNames.length; i++) {
+            writer.write(' ');
+            writer.write(attributeNames[i]);
+            writer.write("=\"");
+            writeCanonicalValue(writer, attributes.get(i).getValue(), true);
+            writer.write('"');
+        }
+        writer.write('>');
+        boolean hasChildElements = false;
+        for (int i = 0; i < element.getChildCount() && !hasChildElements; i++)
+            hasChildElements = (element.getChild(i) instanceof Element);
+        for (int i = 0; i < element.getChildCount(); i++) {
+            Node child = element.getChild(i);
+            if (child instanceof Element)
+                writeCanonicalElement((Element) child, writer, prefixes, declared);
+            else if (child instanceof Text) {
+                String value = child.getValue();
+                if (!hasChildElements || value.trim().length() > 0)
+                    writeCanonicalValue(writer, value, false);
+            } else if (child instanceof ProcessingInstruction) {
+                ProcessingInstruction instruction = (ProcessingInstruction) child;
+                writer.write("<?");
+                writer.write(instruction.getTarget());
+                if (instruction.getValue().length() > 0) {
+                    writer.write(' ');
+                    writer.write(instruction.getValue());
+                }
+                writer.write("?>");
+            }
+        }
+        writer.write("</");
+        writer.write(name);
+        writer.write('>');
+        declared.removeAll(declarations.values());
+    }
+
+    /**
+     * Adds the declaration of a namespace to an element, if it has not already been declared by an ancestor.
+     *
+     * @param namespace the namespace URI, or an empty string
+     * @param prefixes the prefixes assigned so far, keyed by namespace URI
+     * @param declared the namespaces declared so far, which is updated
+     * @param declarations the declarations of the element, keyed by prefix
+     */
+    private static void addDeclaration(String namespace, Map<String, String> prefixes, Set<String> declared,
+        SortedMap<String, String> declarations) {
+        if (namespace.length() == 0 || XML_NAMESPACE.equals(namespace) || !declared.add(namespace))
+            return;
+        declarations.put(prefixes.get(namespace), namespace);
+    }
+
+    /**
+     * Writes text or an attribute value with the escaping rules of canonical XML.
+     *
+     * @param writer the destination
+     * @param value the value
+     * @param isAttribute true to escape an attribute value, false to escape text
+     * @throws IOException if the output could not be written
+     */
+    private static void writeCanonicalValue(Writer writer, String value, boolean isAttribute) throws IOException {
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String escaped;
+            if (c == '&')
+                escaped = "&amp;";
+            else if (c == '<')
+                escaped = "&lt;";
+            else if (c == '\r')
+                escaped = "&#xD;";
+            else if (!isAttribute && c == '>')
+                escaped = "&gt;";
+            else if (isAttribute && c == '"')
+                escaped = "&quot;";
+            else if (isAttribute && c == '\t')
+                escaped = "&#x9;";
+            else if (isAttribute && c == '\n')
+                escaped = "&#xA;";
+            else
+                continue;
+            writer.write(value, start, i - start);
+            writer.write(escaped);
+            start = i + 1;
+        }
+        writer.write(value, start, value.length() - start);
+    }
+
+    /**
+     * Returns the qualified name of a node in the canonical content, assigning a prefix to its namespace on first
+     * use.
+     *
+     * @param localName the local name
+     * @param namespace the namespace URI, or an empty string
+     * @param prefixes the prefixes assigned so far, keyed by namespace URI
+     * @return the qualified name
+     */
+    private static String getNormalizedName(String localName, String namespace, Map<String, String> prefixes) {
+        if (namespace.length() == 0)
+            return (localName);
+        if (XML_NAMESPACE.equals(namespace))
+            return ("xml:" + localName);
+        String prefix = prefixes.get(namespace);
+        if (prefix == null) {
+            prefix = "ns" + prefixes.size();
+            prefixes.put(namespace, prefix);
+        }
+        return (prefix + ":" + localName);
+    }
+
+    /**
+     * Returns a new MessageDigest.
+     *
+     * @param algorithm the name of the digest algorithm
+     * @return the digest
+     * @throws IllegalArgumentException if the algorithm is not supported by this JVM
+     */
+    private static MessageDigest getMessageDigest(String algorithm) {
+        try {
+            return (MessageDigest.getInstance(algorithm));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException(algorithm + " is not supported by this JVM.");
+        }
+    }
+
+    /**
+     * Converts a hash into a lowercase hex string.
+     *
+     * @param hash the hash
+     * @return the hex string
+     */
+    private static String toHex(byte[] hash) {
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(hash[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX_DIGITS[hash[i] & 0xF];
+        }
+        return (new String(hex));
+    }
+
     /**
      * Generate a ClassLoader to be used to load resources
      *
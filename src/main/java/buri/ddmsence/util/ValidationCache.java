@@ -0,0 +1,285 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import nu.xom.Element;
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.ValidationMessage;
+
+/**
+ * Bounded cache of validation outcomes, keyed by a digest of a record and the validator configuration.
+ * 
+ * <p>
+ * Feeds which republish identical records can use this cache to skip repeated schema, rule, and Schematron validation.
+ * A cache key combines the digest of the record (either its raw bytes or its canonicalized XOM tree) with the
+ * DDMS version of the record, the location of its ISM Controlled Vocabulary Enumerations, and an optional
+ * caller-supplied hash of the Schematron file in use. When the same key is seen again, the cached list of warnings is
+ * returned, or a new InvalidDDMSException with the cached message and locator is thrown, without running the
+ * validator.
+ * </p>
+ * 
+ * <p>
+ * The least recently used entry is discarded once the cache reaches its maximum size. Instances of this class are
+ * thread-safe.
+ * </p>
+ * 
+ * <pre>
+ * ValidationCache cache = new ValidationCache(1000);
+ * String key = cache.getKey(ValidationCache.digest(recordBytes), version, schematronHash);
+ * List&lt;ValidationMessage&gt; warnings = cache.validate(key, new ValidationCache.IValidator() {
+ *    public List&lt;ValidationMessage&gt; validate() throws InvalidDDMSException {
+ *       ...
+ *    }
+ * });
+ * </pre>
+ * 
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public class ValidationCache {
+
+	private int _maxSize;
+	private Map<String, Outcome> _outcomes;
+	private long _hits = 0;
+	private long _misses = 0;
+
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+	private static final String KEY_DELIMITER = "|";
+
+	/**
+	 * Callback which performs the full validation of a record when no cached outcome exists.
+	 */
+	public interface IValidator {
+
+		/**
+		 * Validates the record.
+		 * 
+		 * @return any warnings produced by the validation
+		 * @throws InvalidDDMSException if the record is invalid
+		 */
+		public List<ValidationMessage> validate() throws InvalidDDMSException;
+	}
+
+	/**
+	 * Immutable validation outcome
+	 */
+	private static class Outcome {
+		private List<ValidationMessage> _messages;
+		private InvalidDDMSException _exception;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param messages the warnings of a successful validation
+		 * @param exception the exception of a failed validation
+		 */
+		public Outcome(List<ValidationMessage> messages, InvalidDDMSException exception) {
+			_messages = Collections.unmodifiableList(new ArrayList<ValidationMessage>(messages));
+			_exception = exception;
+		}
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param maxSize the maximum number of outcomes to retain
+	 * @throws IllegalArgumentException if the size is not positive
+	 */
+	public ValidationCache(final int maxSize) {
+		if (maxSize < 1)
+			throw new IllegalArgumentException("The maximum size must be a positive integer.");
+		_maxSize = maxSize;
+		_outcomes = new LinkedHashMap<String, Outcome>(16, 0.75f, true) {
+			private static final long serialVersionUID = -3208617424062437493L;
+
+			protected boolean removeEldestEntry(Map.Entry<String, Outcome> eldest) {
+				return (size() > maxSize);
+			}
+		};
+	}
+
+	/**
+	 * Returns the outcome for a key, running and caching the validator if no outcome is cached yet.
+	 * 
+	 * <p>
+	 * An unchecked exception thrown by the validator is not cached. Concurrent misses for the same key may each run
+	 * the validator once.
+	 * </p>
+	 * 
+	 * @param key the cache key, generally built with {@link #getKey(Element, String)} or
+	 *        {@link #getKey(String, DDMSVersion, String)}
+	 * @param validator the validation to perform on a cache miss
+	 * @return an unmodifiable list of warnings from the validation
+	 * @throws InvalidDDMSException if the (possibly cached) outcome was a failed validation. A new exception is thrown
+	 *         each time, with the cached exception as its cause.
+	 */
+	public List<ValidationMessage> validate(String key, IValidator validator) throws InvalidDDMSException {
+		Util.requireValue("key", key);
+		Util.requireValue("validator", validator);
+		Outcome outcome;
+		synchronized (this) {
+			outcome = getOutcomes().get(key);
+			if (outcome != null)
+				_hits++;
+			else
+				_misses++;
+		}
+		if (outcome == null) {
+			try {
+				List<ValidationMessage> messages = validator.validate();
+				outcome = new Outcome(messages == null ? new ArrayList<ValidationMessage>() : messages, null);
+			}
+			catch (InvalidDDMSException e) {
+				outcome = new Outcome(new ArrayList<ValidationMessage>(), e);
+			}
+			synchronized (this) {
+				getOutcomes().put(key, outcome);
+			}
+		}
+		if (outcome._exception != null) {
+			InvalidDDMSException exception = new InvalidDDMSException(outcome._exception.getMessage());
+			exception.setLocator(outcome._exception.getLocator());
+			exception.initCause(outcome._exception);
+			throw (exception);
+		}
+		return (outcome._messages);
+	}
+
+	/**
+	 * Builds a cache key from the digest of a record and the validator configuration: the DDMS version of the record,
+	 * the ISM CVE location of that version, and the Schematron hash.
+	 * 
+	 * @param recordDigest the digest of the record, generally built with one of the <code>digest</code> methods
+	 * @param version the DDMS version of the record
+	 * @param schematronHash a hash of the Schematron file in use, or null if Schematron is not used
+	 * @return the cache key
+	 */
+	public String getKey(String recordDigest, DDMSVersion version, String schematronHash) {
+		Util.requireValue("record digest", recordDigest);
+		Util.requireValue("version", version);
+		StringBuffer key = new StringBuffer(recordDigest);
+		key.append(KEY_DELIMITER).append(version.getVersion());
+		key.append(KEY_DELIMITER).append(version.getIsmCveLocation());
+		key.append(KEY_DELIMITER).append(Util.getNonNullString(schematronHash));
+		return (key.toString());
+	}
+
+	/**
+	 * Builds a cache key for a XOM record, using the digest of its canonical form and the DDMS version of its
+	 * namespace.
+	 * 
+	 * @param record the root element of the record
+	 * @param schematronHash a hash of the Schematron file in use, or null if Schematron is not used
+	 * @return the cache key
+	 * @throws buri.ddmsence.ddms.UnsupportedVersionException if the namespace of the record is not a supported DDMS namespace
+	 */
+	public String getKey(Element record, String schematronHash) {
+		Util.requireValue("record", record);
+		return (getKey(digest(record), DDMSVersion.getVersionForNamespace(record.getNamespaceURI()), schematronHash));
+	}
+
+	/**
+	 * Returns a hex-encoded SHA-256 digest of the raw bytes of a record.
+	 * 
+	 * @param bytes the record bytes
+	 * @return the digest
+	 */
+	public static String digest(byte[] bytes) {
+		return (Util.getDigest(bytes, DIGEST_ALGORITHM));
+	}
+
+	/**
+	 * Returns a hex-encoded SHA-256 digest of a record string, encoded as UTF-8.
+	 * 
+	 * @param xml the record
+	 * @return the digest
+	 */
+	public static String digest(String xml) {
+		Util.requireValue("XML string", xml);
+		try {
+			return (digest(xml.getBytes("UTF-8")));
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException("UTF-8 is not supported by this JVM.");
+		}
+	}
+
+	/**
+	 * Returns a hex-encoded SHA-256 digest of the Exclusive Canonical XML form of a XOM element, so that records which
+	 * differ only in insignificant whitespace within tags, attribute order, or quoting share the same digest.
+	 * 
+	 * @param element the record
+	 * @return the digest
+	 */
+	public static String digest(Element element) {
+		return (Util.getCanonicalDigest(element, DIGEST_ALGORITHM));
+	}
+
+	/**
+	 * Discards all cached outcomes and resets the statistics.
+	 */
+	public synchronized void clear() {
+		getOutcomes().clear();
+		_hits = 0;
+		_misses = 0;
+	}
+
+	/**
+	 * Accessor for the number of cached outcomes
+	 */
+	public synchronized int size() {
+		return (getOutcomes().size());
+	}
+
+	/**
+	 * Accessor for the maximum number of cached outcomes
+	 */
+	public int getMaxSize() {
+		return (_maxSize);
+	}
+
+	/**
+	 * Accessor for the number of lookups which were answered from the cache
+	 */
+	public synchronized long getHits() {
+		return (_hits);
+	}
+
+	/**
+	 * Accessor for the number of lookups which required validation
+	 */
+	public synchronized long getMisses() {
+		return (_misses);
+	}
+
+	/**
+	 * Accessor for the outcomes
+	 */
+	private Map<String, Outcome> getOutcomes() {
+		return (_outcomes);
+	}
+}
@@ -0,0 +1,818 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import nu.xom.Element;
+
+import org.xml.sax.SAXException;
+
+import buri.ddmsence.AbstractProducerRole;
+import buri.ddmsence.AbstractRoleEntity;
+import buri.ddmsence.ddms.IRoleEntity;
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.UnsupportedVersionException;
+import buri.ddmsence.ddms.ValidationMessage;
+import buri.ddmsence.ddms.extensible.ExtensibleAttributes;
+import buri.ddmsence.ddms.metacard.MetacardInfo;
+import buri.ddmsence.ddms.resource.Dates;
+import buri.ddmsence.ddms.resource.Identifier;
+import buri.ddmsence.ddms.resource.Organization;
+import buri.ddmsence.ddms.resource.Person;
+import buri.ddmsence.ddms.resource.Publisher;
+import buri.ddmsence.ddms.resource.RevisionRecall;
+import buri.ddmsence.ddms.resource.Service;
+import buri.ddmsence.ddms.resource.TaskID;
+import buri.ddmsence.ddms.resource.Unknown;
+import buri.ddmsence.ddms.security.Security;
+import buri.ddmsence.ddms.security.ism.NoticeAttributes;
+import buri.ddmsence.ddms.security.ism.SecurityAttributes;
+import buri.ddmsence.ddms.summary.BoundingBox;
+import buri.ddmsence.ddms.summary.BoundingGeometry;
+import buri.ddmsence.ddms.summary.CountryCode;
+import buri.ddmsence.ddms.summary.GeographicIdentifier;
+import buri.ddmsence.ddms.summary.GeospatialCoverage;
+import buri.ddmsence.ddms.summary.PostalAddress;
+import buri.ddmsence.ddms.summary.VerticalExtent;
+import buri.ddmsence.ddms.summary.gml.Point;
+import buri.ddmsence.ddms.summary.gml.Polygon;
+import buri.ddmsence.ddms.summary.gml.Position;
+import buri.ddmsence.ddms.summary.gml.SRSAttributes;
+import buri.ddmsence.ddms.summary.tspi.Envelope;
+
+/**
+ * Upgrades Resources from one version of DDMS to a later version.
+ * 
+ * <p>
+ * Builders do not depend on a version of DDMS until they are committed, so a Resource is copied into a
+ * Resource.Builder under its own version, reshaped, and committed under the target version. Namespaces, element names,
+ * and the split of pre-4.0.1 ddms:RelatedResources elements are already mediated by the components themselves. The
+ * migrator handles the structural changes between the versions it crosses:
+ * </p>
+ * <ul>
+ * <li>3.0: The resource gains its required ISM attributes. The security attributes are copied from ddms:security, and
+ * the createDate comes from the ddms:dates created date, if it is a full date.</li>
+ * <li>3.0 and 3.1: ISM attributes which were removed from the schemas are dropped.</li>
+ * <li>4.0.1: A ddms:metacardInfo is created from the identifiers, create date, publishers and security attributes of
+ * the resource. ddms:person loses its extensible attributes.</li>
+ * <li>5.0: The ISM attributes of the resource move to the ddms:metacardInfo, and ism:compliesWith becomes
+ * ddms:compliesWith. ddms:security, the extensible layer, ddms:verticalExtent, and the pre-TSPI form of
+ * ddms:postalAddress are dropped. ddms:boundingBox becomes a tspi:Envelope, GML points and polygons become TSPI shapes,
+ * and ISO 3166 country codes move to the matching GENC codespace.</li>
+ * </ul>
+ * <p>
+ * The ism:DESVersion and ntk:DESVersion attributes are set to the values fixed by the schemas of the target version.
+ * </p>
+ * 
+ * <p>
+ * Anything which has no place in the target version is dropped and reported as a warning, as is any value which had
+ * to be assumed. A locator in these warnings is the path of the Builder property, in the syntax of a ResourcePatch.
+ * Content which cannot be mapped automatically, such as a classification which a later version no longer allows,
+ * fails the migration with an InvalidDDMSException.
+ * </p>
+ * 
+ * <p>
+ * The current DDMSVersion and the ISM vocabularies are shared by the whole JVM, so a migrator switches the current
+ * version while it works and restores it afterwards. Migrations must not run concurrently with each other or with any
+ * other use of the current version. The batch method reads and validates files in parallel, since parsing does not
+ * depend on the current version, and migrates them one at a time in the calling thread.
+ * </p>
+ * 
+ * @see MigrationResult
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public final class VersionMigrator {
+
+	private DDMSVersion _targetVersion;
+
+	private static final String OLD_CRS_PREFIX = "http://metadata.dod.mil/mdr/ns/GSIP/crs/";
+	private static final String CRS_PREFIX = "http://metadata.ces.mil/mdr/ns/GSIP/crs/";
+	private static final String ENVELOPE_SRS_NAME = CRS_PREFIX + "WGS84E_2D";
+	private static final String GENC_CODESPACE_PREFIX = "geo-political:GENC:";
+	private static final String GENC_CODESPACE_SUFFIX = ":ed1";
+	private static final String XML_DATE_PATTERN = "^\\d{4}-\\d{2}-\\d{2}.*";
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	/**
+	 * Constructor
+	 * 
+	 * @param targetVersion the version of DDMS to migrate to
+	 * @throws UnsupportedVersionException if the version is not supported
+	 */
+	public VersionMigrator(String targetVersion) {
+		Util.requireValue("target version", targetVersion);
+		_targetVersion = DDMSVersion.getVersionFor(targetVersion);
+	}
+
+	/**
+	 * Migrates a Resource to the target version. The original Resource is not changed.
+	 * 
+	 * @param resource the Resource to migrate
+	 * @return the migrated Resource and any warnings
+	 * @throws IllegalArgumentException if the Resource is newer than the target version
+	 * @throws InvalidDDMSException if the migrated Resource is invalid in the target version
+	 */
+	public MigrationResult migrate(Resource resource) throws InvalidDDMSException {
+		Util.requireValue("resource", resource);
+		DDMSVersion sourceVersion = DDMSVersion.getVersionForNamespace(resource.getNamespace());
+		List<ValidationMessage> warnings = new ArrayList<ValidationMessage>();
+		if (sourceVersion == getTargetVersion())
+			return (new MigrationResult(resource, sourceVersion, warnings));
+		if (sourceVersion.isAtLeast(getTargetVersion().getVersion()))
+			throw new IllegalArgumentException("A DDMS " + sourceVersion + " resource cannot be migrated to the earlier "
+				+ "DDMS " + getTargetVersion() + ".");
+		DDMSVersion previousVersion = DDMSVersion.getCurrentVersion();
+		try {
+			DDMSVersion.setCurrentVersion(sourceVersion.getVersion());
+			Migration migration = new Migration(resource, sourceVersion, warnings);
+			migration.run();
+			DDMSVersion.setCurrentVersion(getTargetVersion().getVersion());
+			return (new MigrationResult(migration.getBuilder().commit(), sourceVersion, warnings));
+		}
+		finally {
+			DDMSVersion.setCurrentVersion(previousVersion.getVersion());
+		}
+	}
+
+	/**
+	 * Migrates a batch of resource files of the same version, writing each migrated resource into an output directory
+	 * under the name of its input file.
+	 * 
+	 * <p>Files are read and validated against the schemas of the source version by a pool of threads, each with its
+	 * own DDMSReader. The pool stays at most twice the thread count ahead of the migration, so memory use does not grow
+	 * with the size of the batch. A file which cannot be read or migrated is reported as an error, and the batch
+	 * continues.</p>
+	 * 
+	 * @param files the files to migrate
+	 * @param sourceVersion the version of DDMS of the files
+	 * @param outputDirectory the directory for the migrated files, which must exist
+	 * @param threads the number of parsing threads
+	 * @return the errors and warnings of each file which had any, in input order
+	 * @throws IOException if an output file cannot be written
+	 */
+	public Map<File, List<ValidationMessage>> migrate(List<File> files, String sourceVersion, File outputDirectory,
+		int threads) throws IOException {
+		Util.requireValue("files", files);
+		Util.requireValue("source version", sourceVersion);
+		Util.requireValue("output directory", outputDirectory);
+		if (threads < 1)
+			throw new IllegalArgumentException("At least 1 thread is required.");
+		Map<File, List<ValidationMessage>> report = new LinkedHashMap<File, List<ValidationMessage>>();
+		ExecutorService parsers = Executors.newFixedThreadPool(threads);
+		ThreadLocal<DDMSReader> readers = new ThreadLocal<DDMSReader>();
+		DDMSVersion version = DDMSVersion.getVersionFor(sourceVersion);
+		DDMSVersion previousVersion = DDMSVersion.getCurrentVersion();
+		try {
+			DDMSVersion.setCurrentVersion(version.getVersion());
+			LinkedList<Future<Element>> pending = new LinkedList<Future<Element>>();
+			int next = 0;
+			for (File file : files) {
+				pending.add(parsers.submit(new ParseTask(file, version, readers)));
+				if (pending.size() >= threads * 2)
+					migrate(files.get(next++), pending.removeFirst(), outputDirectory, report);
+			}
+			while (!pending.isEmpty())
+				migrate(files.get(next++), pending.removeFirst(), outputDirectory, report);
+		}
+		finally {
+			parsers.shutdownNow();
+			DDMSVersion.setCurrentVersion(previousVersion.getVersion());
+		}
+		return (report);
+	}
+
+	/**
+	 * Migrates a single parsed file from a batch and writes the result.
+	 * 
+	 * @param file the input file
+	 * @param parsed the parsing task for the file
+	 * @param outputDirectory the directory for the migrated file
+	 * @param report the report to add any errors or warnings to
+	 * @throws IOException if the output file cannot be written
+	 */
+	private void migrate(File file, Future<Element> parsed, File outputDirectory,
+		Map<File, List<ValidationMessage>> report) throws IOException {
+		List<ValidationMessage> messages = new ArrayList<ValidationMessage>();
+		MigrationResult result = null;
+		try {
+			result = migrate(new Resource(parsed.get()));
+			messages.addAll(result.getWarnings());
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("The migration was interrupted.");
+		}
+		catch (ExecutionException e) {
+			String locator = (e.getCause() instanceof InvalidDDMSException ? ((InvalidDDMSException) e.getCause())
+				.getLocator() : "");
+			messages.add(ValidationMessage.newError(String.valueOf(e.getCause().getMessage()), locator));
+		}
+		catch (InvalidDDMSException e) {
+			messages.add(ValidationMessage.newError(e.getMessage(), e.getLocator()));
+		}
+		catch (RuntimeException e) {
+			messages.add(ValidationMessage.newError(String.valueOf(e.getMessage()), ""));
+		}
+		if (result != null) {
+			OutputStream output = new FileOutputStream(new File(outputDirectory, file.getName()));
+			try {
+				DDMSWriter writer = new DDMSWriter(output, UTF_8);
+				writer.write(result.getResource());
+				writer.flush();
+			}
+			finally {
+				output.close();
+			}
+		}
+		if (!messages.isEmpty())
+			report.put(file, messages);
+	}
+
+	/**
+	 * Accessor for the target version
+	 */
+	public DDMSVersion getTargetVersion() {
+		return (_targetVersion);
+	}
+
+	/**
+	 * Reads and validates a single file, without building any components. A DDMSReader is not thread-safe, so each
+	 * thread of the pool creates its own.
+	 */
+	private static final class ParseTask implements Callable<Element> {
+		private File _file;
+		private DDMSVersion _version;
+		private ThreadLocal<DDMSReader> _readers;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param file the file to parse
+		 * @param version the version of DDMS of the file
+		 * @param readers the readers of the pool
+		 */
+		private ParseTask(File file, DDMSVersion version, ThreadLocal<DDMSReader> readers) {
+			_file = file;
+			_version = version;
+			_readers = readers;
+		}
+
+		/**
+		 * @see Callable#call()
+		 */
+		public Element call() throws IOException, InvalidDDMSException, SAXException {
+			DDMSReader reader = _readers.get();
+			if (reader == null) {
+				reader = new DDMSReader(_version);
+				_readers.set(reader);
+			}
+			return (reader.getElement(_file));
+		}
+	}
+
+	/**
+	 * The state of a single Resource migration.
+	 */
+	private final class Migration {
+		private Resource _resource;
+		private DDMSVersion _sourceVersion;
+		private List<ValidationMessage> _warnings;
+		private Resource.Builder _builder;
+		private int _envelopeCount = 0;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param resource the original Resource
+		 * @param sourceVersion the version of the original Resource
+		 * @param warnings the list to add warnings to
+		 */
+		private Migration(Resource resource, DDMSVersion sourceVersion, List<ValidationMessage> warnings) {
+			_resource = resource;
+			_sourceVersion = sourceVersion;
+			_warnings = warnings;
+			_builder = new Resource.Builder(resource);
+		}
+
+		/**
+		 * Applies every change between the source and target versions to the Builder.
+		 */
+		private void run() throws InvalidDDMSException {
+			if (crosses("3.0"))
+				addResourceAttributes();
+			if (!getTargetVersion().isAtLeast("5.0")) {
+				getBuilder().setIsmDESVersion(getDESVersion("ism"));
+				getBuilder().setNtkDESVersion(getDESVersion("ntk"));
+			}
+			if (crosses("4.1"))
+				addMetacardInfo();
+			if (crosses("5.0"))
+				moveResourceAttributes();
+			migrate(getBuilder(), "");
+		}
+
+		/**
+		 * Adds the resource attributes which became required in DDMS 3.0.
+		 */
+		private void addResourceAttributes() {
+			Resource.Builder builder = getBuilder();
+			if (builder.getResourceElement() == null)
+				builder.setResourceElement(Boolean.TRUE);
+			if (Util.isEmpty(builder.getCreateDate())) {
+				String created = builder.getDates().getCreated();
+				if (!Util.isEmpty(created) && created.matches(XML_DATE_PATTERN))
+					builder.setCreateDate(created.substring(0, 10));
+				else {
+					builder.setCreateDate(new SimpleDateFormat("yyyy-MM-dd").format(new Date()));
+					warn("No created date was available, so the createDate is the date of the migration.", "createDate");
+				}
+			}
+			if (builder.getSecurityAttributes().isEmpty() && _resource.getSecurity() != null)
+				builder.setSecurityAttributes(new SecurityAttributes.Builder(_resource.getSecurity()
+					.getSecurityAttributes()));
+		}
+
+		/**
+		 * Creates the ddms:metacardInfo which became required in DDMS 4.0.1, unless the resource already has one.
+		 */
+		private void addMetacardInfo() throws InvalidDDMSException {
+			MetacardInfo.Builder metacardInfo = getBuilder().getMetacardInfo();
+			if (!metacardInfo.isEmpty())
+				return;
+			for (Identifier identifier : _resource.getIdentifiers())
+				metacardInfo.getIdentifiers().add(new Identifier.Builder(identifier));
+			metacardInfo.getDates().setCreated(getBuilder().getCreateDate());
+			for (Publisher publisher : _resource.getPublishers())
+				metacardInfo.getPublishers().add(new Publisher.Builder(publisher));
+			if (metacardInfo.getPublishers().isEmpty()) {
+				List<AbstractProducerRole> producers = new ArrayList<AbstractProducerRole>();
+				producers.addAll(_resource.getCreators());
+				producers.addAll(_resource.getContributors());
+				producers.addAll(_resource.getPointOfContacts());
+				if (!producers.isEmpty()) {
+					metacardInfo.getPublishers().add(toPublisher(producers.get(0)));
+					warn("The resource has no publisher, so the metacardInfo publisher is its first producer.",
+						"metacardInfo/publishers");
+				}
+			}
+			metacardInfo.setSecurityAttributes(new SecurityAttributes.Builder(getBuilder().getSecurityAttributes()
+				.commit()));
+			warn("The metacardInfo was created from the identifiers, createDate, publishers and security attributes of "
+				+ "the resource.", "metacardInfo");
+		}
+
+		/**
+		 * Moves the attributes of the resource to the ddms:metacardInfo for DDMS 5.0, and drops the parts of the
+		 * resource which DDMS 5.0 no longer has.
+		 */
+		private void moveResourceAttributes() throws InvalidDDMSException {
+			Resource.Builder builder = getBuilder();
+			MetacardInfo.Builder metacardInfo = builder.getMetacardInfo();
+			if (!builder.getSecurityAttributes().isEmpty()) {
+				if (metacardInfo.getSecurityAttributes().isEmpty())
+					metacardInfo.setSecurityAttributes(builder.getSecurityAttributes());
+				else if (!builder.getSecurityAttributes().commit().equals(
+					metacardInfo.getSecurityAttributes().commit()))
+					drop("securityAttributes", "the metacardInfo keeps its own security attributes");
+			}
+			String createDate = builder.getCreateDate();
+			if (!Util.isEmpty(createDate)) {
+				Dates.Builder dates = metacardInfo.getDates();
+				if (Util.isEmpty(dates.getCreated()))
+					dates.setCreated(createDate);
+				else if (!dates.getCreated().equals(createDate))
+					drop("createDate", "the metacardInfo keeps its own created date");
+			}
+			if (Boolean.FALSE.equals(builder.getResourceElement()))
+				drop("resourceElement", null);
+			if (!builder.getNoticeAttributes().isEmpty())
+				drop("noticeAttributes", null);
+			if (!builder.getCompliesWiths().isEmpty()) {
+				warn("The ism:compliesWith values are now ddms:compliesWith values, which name DDMS rule sets.",
+					"compliesWiths");
+			}
+			Security.Builder security = builder.getSecurity();
+			if (!security.getNoticeList().isEmpty())
+				drop("security/noticeList", null);
+			if (!security.getAccess().isEmpty())
+				drop("security/access", null);
+			for (int i = 0; i < builder.getExtensibleElements().size(); i++)
+				drop("extensibleElements[" + i + "]", null);
+			if (!builder.getExtensibleAttributes().isEmpty())
+				drop("extensibleAttributes", null);
+
+			builder.setResourceElement(null);
+			builder.setCreateDate(null);
+			builder.setIsmDESVersion(null);
+			builder.setNtkDESVersion(null);
+			builder.setSecurityAttributes(new SecurityAttributes.Builder());
+			builder.setNoticeAttributes(new NoticeAttributes.Builder());
+			builder.setSecurity(new Security.Builder());
+			builder.getExtensibleElements().clear();
+			builder.setExtensibleAttributes(new ExtensibleAttributes.Builder());
+		}
+
+		/**
+		 * Applies the changes to a single Builder, and then to every Builder nested inside it.
+		 * 
+		 * @param builder the Builder
+		 * @param path the path of the Builder
+		 */
+		private void migrate(Object builder, String path) throws InvalidDDMSException {
+			migrateNode(builder, path);
+			for (BuilderProperty property : BuilderProperty.getProperties(builder.getClass())) {
+				String childPath = (path.length() == 0 ? "" : path + "/") + property.getName();
+				if (property.getKind() == BuilderProperty.Kind.BUILDER) {
+					Object nested = property.get(builder);
+					if (nested != null)
+						migrate(nested, childPath);
+				}
+				else if (property.getKind() == BuilderProperty.Kind.BUILDER_LIST) {
+					List<?> items = (List<?>) property.get(builder);
+					for (int i = 0; i < items.size(); i++)
+						migrate(items.get(i), childPath + "[" + i + "]");
+				}
+			}
+		}
+
+		/**
+		 * Applies the changes which belong to a single type of Builder.
+		 * 
+		 * @param builder the Builder
+		 * @param path the path of the Builder
+		 */
+		private void migrateNode(Object builder, String path) throws InvalidDDMSException {
+			if (builder instanceof SecurityAttributes.Builder) {
+				SecurityAttributes.Builder attributes = (SecurityAttributes.Builder) builder;
+				if (crosses("3.0") && attributes.getDeclassManualReview() != null) {
+					drop(path + "/declassManualReview", null);
+					attributes.setDeclassManualReview(null);
+				}
+				if (crosses("3.1") && !Util.isEmpty(attributes.getDateOfExemptedSource())) {
+					drop(path + "/dateOfExemptedSource", null);
+					attributes.setDateOfExemptedSource(null);
+				}
+				if (crosses("3.1") && !Util.isEmpty(attributes.getTypeOfExemptedSource())) {
+					drop(path + "/typeOfExemptedSource", null);
+					attributes.setTypeOfExemptedSource(null);
+				}
+			}
+			else if (builder instanceof AbstractRoleEntity.Builder) {
+				AbstractRoleEntity.Builder entity = (AbstractRoleEntity.Builder) builder;
+				boolean isRemoved = (builder instanceof Person.Builder && crosses("4.1"))
+					|| (builder instanceof Organization.Builder && crosses("5.0"));
+				if (isRemoved && !entity.getExtensibleAttributes().isEmpty()) {
+					drop(path + "/extensibleAttributes", null);
+					entity.setExtensibleAttributes(new ExtensibleAttributes.Builder());
+				}
+			}
+			if (!crosses("5.0"))
+				return;
+			if (builder instanceof MetacardInfo.Builder) {
+				MetacardInfo.Builder metacardInfo = (MetacardInfo.Builder) builder;
+				if (!metacardInfo.getNoticeList().isEmpty())
+					drop(path + "/noticeList", null);
+				if (!metacardInfo.getAccess().isEmpty())
+					drop(path + "/access", null);
+				metacardInfo.setNoticeList(null);
+				metacardInfo.setAccess(null);
+			}
+			else if (builder instanceof TaskID.Builder && !Util.isEmpty(((TaskID.Builder) builder).getOtherNetwork())) {
+				drop(path + "/otherNetwork", null);
+				((TaskID.Builder) builder).setOtherNetwork(null);
+			}
+			else if (builder instanceof RevisionRecall.Builder
+				&& !Util.isEmpty(((RevisionRecall.Builder) builder).getOtherNetwork())) {
+				drop(path + "/otherNetwork", null);
+				((RevisionRecall.Builder) builder).setOtherNetwork(null);
+			}
+			else if (builder instanceof GeospatialCoverage.Builder)
+				migrateGeospatialCoverage((GeospatialCoverage.Builder) builder, path);
+			else if (builder instanceof GeographicIdentifier.Builder)
+				migrateCountryCode((GeographicIdentifier.Builder) builder, path);
+		}
+
+		/**
+		 * Moves the geometry of a ddms:geospatialCoverage into TSPI shapes for DDMS 5.0, and drops the parts which
+		 * DDMS 5.0 no longer has.
+		 * 
+		 * @param coverage the Builder
+		 * @param path the path of the Builder
+		 */
+		private void migrateGeospatialCoverage(GeospatialCoverage.Builder coverage, String path) {
+			BoundingGeometry.Builder geometry = coverage.getBoundingGeometry();
+			if (!coverage.getBoundingBox().isEmpty())
+				geometry.getEnvelopes().add(toEnvelope(coverage.getBoundingBox()));
+			coverage.setBoundingBox(new BoundingBox.Builder());
+			for (Polygon.Builder polygon : geometry.getGmlPolygons())
+				geometry.getPolygons().add(toTspiPolygon(polygon));
+			geometry.getGmlPolygons().clear();
+			for (Point.Builder point : geometry.getGmlPoints())
+				geometry.getPoints().add(toTspiPoint(point));
+			geometry.getGmlPoints().clear();
+			if (!coverage.getVerticalExtent().isEmpty())
+				drop(path + "/verticalExtent", null);
+			coverage.setVerticalExtent(new VerticalExtent.Builder());
+			PostalAddress.Builder address = coverage.getPostalAddress();
+			if (!address.getStreets().isEmpty() || !Util.isEmpty(address.getCity())
+				|| !Util.isEmpty(address.getState()) || !Util.isEmpty(address.getProvince())
+				|| !Util.isEmpty(address.getPostalCode()) || !address.getCountryCode().isEmpty()) {
+				drop(path + "/postalAddress", "DDMS 5.0 only accepts TSPI addresses");
+				coverage.setPostalAddress(new PostalAddress.Builder());
+			}
+		}
+
+		/**
+		 * Moves an ISO 3166 country code into the matching GENC codespace for DDMS 5.0, and drops any other country
+		 * code which is not already in a GENC codespace.
+		 * 
+		 * @param identifier the Builder
+		 * @param path the path of the Builder
+		 */
+		private void migrateCountryCode(GeographicIdentifier.Builder identifier, String path) {
+			CountryCode.Builder countryCode = identifier.getCountryCode();
+			if (countryCode.isEmpty())
+				return;
+			String qualifier = Util.getNonNullString(countryCode.getQualifier());
+			String value = Util.getNonNullString(countryCode.getValue());
+			if (qualifier.contains("GENC"))
+				return;
+			String type = null;
+			if (qualifier.toLowerCase().replace("-", "").contains("iso3166")) {
+				if (value.matches("^[A-Z]{3}$"))
+					type = "3";
+				else if (value.matches("^[A-Z]{2}$"))
+					type = "2";
+				else if (value.matches("^[0-9]{3}$"))
+					type = "n";
+			}
+			if (type != null) {
+				countryCode.setQualifier(GENC_CODESPACE_PREFIX + type + GENC_CODESPACE_SUFFIX);
+				warn("The ISO 3166 country code " + value + " was assumed to be the same in GENC.", path
+					+ "/countryCode");
+			}
+			else {
+				drop(path + "/countryCode", "DDMS 5.0 only accepts GENC country codes");
+				identifier.setCountryCode(new CountryCode.Builder());
+			}
+		}
+
+		/**
+		 * Converts a ddms:boundingBox into a tspi:Envelope, with the lower corner in the southwest.
+		 * 
+		 * @param boundingBox the bounding box
+		 * @return the Builder for the envelope
+		 */
+		private Envelope.Builder toEnvelope(BoundingBox.Builder boundingBox) {
+			DDMSVersion version = getTargetVersion();
+			String tspiPrefix = PropertyReader.getPrefix("tspi");
+			String gmlPrefix = PropertyReader.getPrefix("gml");
+			StringBuffer xml = new StringBuffer();
+			xml.append("<").append(tspiPrefix).append(":Envelope");
+			appendNamespace(xml, tspiPrefix, version.getTspiNamespace());
+			appendNamespace(xml, gmlPrefix, version.getGmlNamespace());
+			appendNamespace(xml, tspiPrefix + "-core", version.getTspiNamespace() + "/core");
+			appendAttribute(xml, gmlPrefix + ":id", "BoundingBox" + (++_envelopeCount));
+			appendAttribute(xml, "srsName", ENVELOPE_SRS_NAME);
+			xml.append(">");
+			appendCorner(xml, "lowerCorner", boundingBox.getSouthBL(), boundingBox.getWestBL());
+			appendCorner(xml, "upperCorner", boundingBox.getNorthBL(), boundingBox.getEastBL());
+			xml.append("</").append(tspiPrefix).append(":Envelope>");
+			Envelope.Builder envelope = new Envelope.Builder();
+			envelope.setXml(xml.toString());
+			return (envelope);
+		}
+
+		/**
+		 * Converts a GML polygon into a TSPI polygon with the same exterior ring.
+		 * 
+		 * @param polygon the GML polygon
+		 * @return the Builder for the TSPI polygon
+		 */
+		private buri.ddmsence.ddms.summary.tspi.Polygon.Builder toTspiPolygon(Polygon.Builder polygon) {
+			String gmlPrefix = PropertyReader.getPrefix("gml");
+			StringBuffer xml = startShape("Polygon", polygon.getId(), polygon.getSrsAttributes());
+			xml.append("<").append(gmlPrefix).append(":exterior><").append(gmlPrefix).append(":LinearRing>");
+			for (Position.Builder position : polygon.getPositions())
+				appendPosition(xml, position);
+			xml.append("</").append(gmlPrefix).append(":LinearRing></").append(gmlPrefix).append(":exterior>");
+			xml.append("</").append(PropertyReader.getPrefix("tspi")).append(":Polygon>");
+			buri.ddmsence.ddms.summary.tspi.Polygon.Builder shape = new buri.ddmsence.ddms.summary.tspi.Polygon.Builder();
+			shape.setXml(xml.toString());
+			return (shape);
+		}
+
+		/**
+		 * Converts a GML point into a TSPI point at the same position.
+		 * 
+		 * @param point the GML point
+		 * @return the Builder for the TSPI point
+		 */
+		private buri.ddmsence.ddms.summary.tspi.Point.Builder toTspiPoint(Point.Builder point) {
+			StringBuffer xml = startShape("Point", point.getId(), point.getSrsAttributes());
+			appendPosition(xml, point.getPosition());
+			xml.append("</").append(PropertyReader.getPrefix("tspi")).append(":Point>");
+			buri.ddmsence.ddms.summary.tspi.Point.Builder shape = new buri.ddmsence.ddms.summary.tspi.Point.Builder();
+			shape.setXml(xml.toString());
+			return (shape);
+		}
+
+		/**
+		 * Starts the XML of a TSPI shape which was converted from GML. The GSIP coordinate reference systems moved
+		 * from metadata.dod.mil to metadata.ces.mil along with TSPI.
+		 * 
+		 * @param name the local name of the shape
+		 * @param id the gml:id of the shape
+		 * @param srsAttributes the SRS attributes of the GML shape
+		 * @return a buffer holding the start tag
+		 */
+		private StringBuffer startShape(String name, String id, SRSAttributes.Builder srsAttributes) {
+			DDMSVersion version = getTargetVersion();
+			String tspiPrefix = PropertyReader.getPrefix("tspi");
+			String gmlPrefix = PropertyReader.getPrefix("gml");
+			StringBuffer xml = new StringBuffer();
+			xml.append("<").append(tspiPrefix).append(":").append(name);
+			appendNamespace(xml, tspiPrefix, version.getTspiNamespace());
+			appendNamespace(xml, gmlPrefix, version.getGmlNamespace());
+			appendAttribute(xml, gmlPrefix + ":id", id);
+			String srsName = Util.getNonNullString(srsAttributes.getSrsName());
+			if (srsName.startsWith(OLD_CRS_PREFIX))
+				srsName = CRS_PREFIX + srsName.substring(OLD_CRS_PREFIX.length());
+			appendAttribute(xml, "srsName", srsName);
+			if (srsAttributes.getSrsDimension() != null)
+				appendAttribute(xml, "srsDimension", srsAttributes.getSrsDimension().toString());
+			if (!srsAttributes.getAxisLabels().isEmpty())
+				appendAttribute(xml, "axisLabels", Util.getXsList(srsAttributes.getAxisLabels()));
+			if (!srsAttributes.getUomLabels().isEmpty())
+				appendAttribute(xml, "uomLabels", Util.getXsList(srsAttributes.getUomLabels()));
+			xml.append(">");
+			return (xml);
+		}
+
+		/**
+		 * Appends a gml:pos element for a GML position.
+		 * 
+		 * @param xml the buffer
+		 * @param position the position
+		 */
+		private void appendPosition(StringBuffer xml, Position.Builder position) {
+			String gmlPrefix = PropertyReader.getPrefix("gml");
+			xml.append("<").append(gmlPrefix).append(":pos>");
+			List<Position.DoubleBuilder> coordinates = position.getCoordinates();
+			for (int i = 0; i < coordinates.size(); i++) {
+				if (i > 0)
+					xml.append(" ");
+				xml.append(String.valueOf(coordinates.get(i).getValue()));
+			}
+			xml.append("</").append(gmlPrefix).append(":pos>");
+		}
+
+		/**
+		 * Appends a corner of a tspi:Envelope.
+		 * 
+		 * @param xml the buffer
+		 * @param name the local name of the corner
+		 * @param latitude the latitude
+		 * @param longitude the longitude
+		 */
+		private void appendCorner(StringBuffer xml, String name, Double latitude, Double longitude) {
+			String corePrefix = PropertyReader.getPrefix("tspi") + "-core";
+			String gmlPrefix = PropertyReader.getPrefix("gml");
+			xml.append("<").append(corePrefix).append(":").append(name).append(">");
+			xml.append("<").append(gmlPrefix).append(":pos>").append(String.valueOf(latitude)).append(" ");
+			xml.append(String.valueOf(longitude)).append("</").append(gmlPrefix).append(":pos>");
+			xml.append("</").append(corePrefix).append(":").append(name).append(">");
+		}
+
+		/**
+		 * Appends a namespace declaration to a start tag.
+		 * 
+		 * @param xml the buffer
+		 * @param prefix the namespace prefix
+		 * @param namespace the namespace URI
+		 */
+		private void appendNamespace(StringBuffer xml, String prefix, String namespace) {
+			appendAttribute(xml, "xmlns:" + prefix, namespace);
+		}
+
+		/**
+		 * Appends an attribute to a start tag.
+		 * 
+		 * @param xml the buffer
+		 * @param name the qualified name of the attribute
+		 * @param value the unescaped value
+		 */
+		private void appendAttribute(StringBuffer xml, String name, String value) {
+			xml.append(" ").append(name).append("=\"").append(Util.xmlEscape(value)).append("\"");
+		}
+
+		/**
+		 * Converts a producer of any kind into a publisher with the same entity.
+		 * 
+		 * @param producer the producer
+		 * @return the Builder for the publisher
+		 */
+		private Publisher.Builder toPublisher(AbstractProducerRole producer) {
+			Publisher.Builder publisher = new Publisher.Builder();
+			IRoleEntity entity = producer.getEntity();
+			publisher.setEntityType(entity.getName());
+			if (entity instanceof Organization)
+				publisher.setOrganization(new Organization.Builder((Organization) entity));
+			else if (entity instanceof Person)
+				publisher.setPerson(new Person.Builder((Person) entity));
+			else if (entity instanceof Service)
+				publisher.setService(new Service.Builder((Service) entity));
+			else if (entity instanceof Unknown)
+				publisher.setUnknown(new Unknown.Builder((Unknown) entity));
+			publisher.setSecurityAttributes(new SecurityAttributes.Builder(producer.getSecurityAttributes()));
+			return (publisher);
+		}
+
+		/**
+		 * Reads the DES version which the schemas of the target version require.
+		 * 
+		 * @param prefix the namespace prefix of the attribute, ism or ntk
+		 * @return the version, or null if the target version does not use the attribute
+		 */
+		private Integer getDESVersion(String prefix) {
+			String value = PropertyReader.getProperty(getTargetVersion().getVersion() + "." + prefix + ".desVersion");
+			return (Util.isEmpty(value) ? null : Integer.valueOf(value));
+		}
+
+		/**
+		 * Checks whether a version of DDMS is newer than the source version and no newer than the target version.
+		 * 
+		 * @param version the version which introduced a change
+		 * @return true if the migration passes through the version
+		 */
+		private boolean crosses(String version) {
+			return (!_sourceVersion.isAtLeast(version) && getTargetVersion().isAtLeast(version));
+		}
+
+		/**
+		 * Adds a warning for data which has no place in the target version.
+		 * 
+		 * @param path the path of the dropped property
+		 * @param reason an optional reason, if the property still exists in the target version
+		 */
+		private void drop(String path, String reason) {
+			String property = path.substring(path.lastIndexOf('/') + 1);
+			warn("The " + property + " property was dropped, because "
+				+ (reason == null ? "it does not exist in DDMS " + getTargetVersion() : reason) + ".", path);
+		}
+
+		/**
+		 * Adds a warning.
+		 * 
+		 * @param text the text of the warning
+		 * @param path the path of the affected property
+		 */
+		private void warn(String text, String path) {
+			_warnings.add(ValidationMessage.newWarning(text, path));
+		}
+
+		/**
+		 * Accessor for the Builder
+		 */
+		private Resource.Builder getBuilder() {
+			return (_builder);
+		}
+	}
+}
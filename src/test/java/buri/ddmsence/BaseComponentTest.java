@@ -19,6 +19,8 @@
  */
 package buri.ddmsence;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -136,6 +138,25 @@ public class BaseComponentTest extends AbstractBaseTestCase {
 		assertEquals("name: 2.0\n", rights.buildOutput(false, "name", otherList));
 	}
 
+	public void testBuildOutputWithPrefix() throws InvalidDDMSException, IOException {
+		StringBuilder text = new StringBuilder();
+		AbstractBaseComponent.buildOutput(text, true, "a&b.", "c<d", "e\"f");
+		assertEquals("<meta name=\"a&amp;b.c&lt;d\" content=\"e&quot;f\" />\n", text.toString());
+		text = new StringBuilder();
+		AbstractBaseComponent.buildOutput(text, false, "parent.", "name", "value");
+		assertEquals(AbstractBaseComponent.buildOutput(false, "parent.name", "value"), text.toString());
+
+		PropertyReader.setProperty("output.indexLevel", "2");
+		Rights rights = new Rights(true, true, true);
+		List<String> stringList = new ArrayList<String>();
+		stringList.add("First");
+		stringList.add("Second");
+		text = new StringBuilder();
+		rights.buildOutput(text, false, "parent.", "name", stringList);
+		assertEquals("parent.name[1]: First\nparent.name[2]: Second\n", text.toString());
+		assertEquals(rights.buildOutput(false, "parent.name", stringList), text.toString());
+	}
+
 	public void testSelfEquality() throws InvalidDDMSException {
 		Rights rights = new Rights(true, true, true);
 		assertEquals(rights, rights);
@@ -200,4 +221,102 @@ public class BaseComponentTest extends AbstractBaseTestCase {
 			expectMessage(e, "A child component, ddms:Organization");
 		}
 	}
+
+	public void testLegacyOutput() throws InvalidDDMSException, IOException {
+		AbstractBaseComponent component = new AbstractBaseComponent() {
+			public String getOutput(boolean isHTML, String prefix, String suffix) {
+				return (prefix + "name" + suffix + ": value\n");
+			}
+		};
+		StringBuilder text = new StringBuilder();
+		component.toText(text);
+		assertEquals("name: value\n", text.toString());
+		text = new StringBuilder();
+		component.writeOutput(text, false, "parent.", "[1]");
+		assertEquals("parent.name[1]: value\n", text.toString());
+	}
+
+	public void testMissingOutput() throws InvalidDDMSException {
+		AbstractBaseComponent component = new AbstractBaseComponent() {};
+		try {
+			component.toText();
+			fail("Allowed a component without output.");
+		}
+		catch (UnsupportedOperationException e) {
+			expectMessage(e, "must override either getOutput() or writeOutput().");
+		}
+		AbstractAttributeGroup attributes = new AbstractAttributeGroup() {};
+		try {
+			attributes.getOutput(true, "");
+			fail("Allowed attributes without output.");
+		}
+		catch (UnsupportedOperationException e) {
+			expectMessage(e, "must override either getOutput() or writeOutput().");
+		}
+	}
+
+	public void testCachedVersion() throws InvalidDDMSException {
+		DDMSVersion.setCurrentVersion("3.1");
+		Rights rights = new Rights(true, true, true);
+		DDMSVersion version = ((AbstractBaseComponent) rights).getDDMSVersion();
+		assertSame(DDMSVersion.getVersionFor("3.1"), version);
+		assertSame(version, ((AbstractBaseComponent) rights).getDDMSVersion());
+
+		// A shared namespace resolves to the newest version
+		DDMSVersion.setCurrentVersion("4.0.1");
+		assertSame(DDMSVersion.getVersionFor("4.1"), ((AbstractBaseComponent) new Rights(true, true, true))
+			.getDDMSVersion());
+	}
+
+	public void testSharedComposition() throws InvalidDDMSException, IOException {
+		DDMSVersion.setCurrentVersion("2.0");
+		Organization org = new Organization(Util.getXsListAsList("DISA"), null, null, null, null, null);
+		String xml = org.toXML();
+		int hashCode = org.hashCode();
+		Creator first = new Creator(org, null, null);
+		assertSame(first.getXOMElement(), org.getXOMElement().getParent());
+
+		// Adoption does not change the child's own output
+		assertEquals(xml, org.toXML());
+		assertEquals(hashCode, org.hashCode());
+		assertEquals(new Organization(Util.getXsListAsList("DISA"), null, null, null, null, null), org);
+		StringWriter writer = new StringWriter();
+		org.writeXML(writer);
+		assertEquals(xml, writer.toString());
+		assertSame(org, first.getEntity());
+
+		// Reusing an attached child falls back to a copy
+		Creator second = new Creator(org, null, null);
+		assertSame(first.getXOMElement(), org.getXOMElement().getParent());
+		assertNotSame(org.getXOMElement(), second.getXOMElement().getChild(0));
+		assertEquals(first, second);
+		assertEquals(first.toXML(), second.toXML());
+	}
+
+	public void testCachedHashCode() throws InvalidDDMSException {
+		Rights rights = new Rights(true, true, true);
+		int hashCode = rights.hashCode();
+		assertEquals(((AbstractBaseComponent) rights).computeHashCode(), hashCode);
+		assertEquals(hashCode, rights.hashCode());
+		assertEquals(new Rights(true, true, true).hashCode(), hashCode);
+		assertFalse(rights.equals(new Rights(true, true, false)));
+	}
+
+	public void testFingerprint() throws InvalidDDMSException {
+		Rights rights = new Rights(true, true, true);
+		String fingerprint = rights.getFingerprint();
+		assertEquals(32, fingerprint.length());
+		assertSame(fingerprint, rights.getFingerprint());
+		assertEquals(fingerprint, new Rights(rights.getXOMElementCopy()).getFingerprint());
+		assertFalse(fingerprint.equals(new Rights(true, true, false).getFingerprint()));
+
+		// Attaching to a parent does not change the fingerprint of a child
+		DDMSVersion.setCurrentVersion("2.0");
+		Organization org = new Organization(Util.getXsListAsList("DISA"), null, null, null, null, null);
+		String orgFingerprint = org.getFingerprint();
+		String orgContentFingerprint = org.getContentFingerprint();
+		new Creator(org, null, null);
+		assertEquals(orgFingerprint, Util.getCanonicalDigest(org.getXOMElement(), "MD5"));
+		assertEquals(orgContentFingerprint, Util.getCanonicalContentDigest(org.getXOMElement(), "SHA-256"));
+	}
 }
@@ -0,0 +1,126 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.summary.Keyword;
+import buri.ddmsence.util.DDMSVersion;
+
+/**
+ * A collection of tests related to the ComponentDiff
+ * 
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public class ComponentDiffTest extends AbstractBaseTestCase {
+
+	public ComponentDiffTest() {
+		super("resource.xml");
+	}
+
+	/**
+	 * Converts a list of changes into their String forms
+	 */
+	private static List<String> toStrings(List<ComponentChange> changes) {
+		List<String> strings = new ArrayList<String>();
+		for (ComponentChange change : changes)
+			strings.add(change.toString());
+		return (strings);
+	}
+
+	public void testIdentical() throws InvalidDDMSException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Resource resource = new Resource(getValidElement(sVersion));
+			assertTrue(ComponentDiff.diff(resource, resource).isEmpty());
+			assertTrue(ComponentDiff.diff(resource, new Resource(getValidElement(sVersion))).isEmpty());
+			assertTrue(ComponentDiff.diff(resource, new Resource.Builder(resource).commit()).isEmpty());
+			assertTrue(ComponentDiff.diff(null, null).isEmpty());
+		}
+	}
+
+	public void testChanges() throws InvalidDDMSException {
+		DDMSVersion.setCurrentVersion("5.0");
+		Resource resource = new Resource(getValidElement("5.0"));
+		Resource.Builder builder = new Resource.Builder(resource);
+		builder.getTitles().get(0).setValue("Changed Title");
+		builder.getSubtitles().clear();
+		builder.getDescription().getSecurityAttributes().setClassification("C");
+		builder.getPublishers().get(0).getPerson().setSurname("Changed");
+		Keyword.Builder keyword = new Keyword.Builder();
+		keyword.setValue("NewKeyword");
+		builder.getSubjectCoverages().get(0).getKeywords().add(keyword);
+		Resource changed = builder.commit();
+
+		List<ComponentChange> changes = ComponentDiff.diff(resource, changed);
+		List<String> expected = new ArrayList<String>();
+		expected.add("Modified: /ddms:resource/ddms:title");
+		expected.add("Modified: /ddms:resource/ddms:description [ism:classification]");
+		expected.add("Modified: /ddms:resource/ddms:publisher/ddms:person");
+		expected.add("Added: /ddms:resource/ddms:subjectCoverage/ddms:keyword");
+		expected.add("Removed: /ddms:resource/ddms:subtitle");
+		assertEquals(expected, toStrings(changes));
+
+		ComponentChange added = changes.get(3);
+		assertEquals(ComponentChange.ADDED_TYPE, added.getType());
+		assertNull(added.getOldComponent());
+		assertEquals("NewKeyword", ((Keyword) added.getNewComponent()).getValue());
+		ComponentChange modified = changes.get(0);
+		assertEquals(resource.getTitles().get(0), modified.getOldComponent());
+		assertEquals(changed.getTitles().get(0), modified.getNewComponent());
+		assertEquals(resource.getSubtitles().get(0), changes.get(4).getOldComponent());
+	}
+
+	public void testListMatching() throws InvalidDDMSException {
+		DDMSVersion.setCurrentVersion("5.0");
+		Resource.Builder builder = new Resource.Builder(new Resource(getValidElement("5.0")));
+		List<Keyword.Builder> keywords = builder.getSubjectCoverages().get(0).getKeywords();
+		for (String value : new String[] { "Second", "Third" }) {
+			Keyword.Builder keyword = new Keyword.Builder();
+			keyword.setValue(value);
+			keywords.add(keyword);
+		}
+		Resource original = builder.commit();
+
+		// Reordering is not a change, and unrelated keywords are not paired with each other
+		keywords.add(keywords.remove(0));
+		keywords.get(0).setValue("Replacement");
+		List<String> changes = toStrings(ComponentDiff.diff(original, builder.commit()));
+		assertEquals(2, changes.size());
+		assertEquals("Added: /ddms:resource/ddms:subjectCoverage/ddms:keyword", changes.get(0));
+		assertEquals("Removed: /ddms:resource/ddms:subjectCoverage/ddms:keyword", changes.get(1));
+	}
+
+	public void testDifferentComponents() throws InvalidDDMSException {
+		DDMSVersion.setCurrentVersion("5.0");
+		Resource resource = new Resource(getValidElement("5.0"));
+		assertEquals("Added: /ddms:resource", toStrings(ComponentDiff.diff(null, resource)).get(0));
+		assertEquals("Removed: /ddms:resource", toStrings(ComponentDiff.diff(resource, null)).get(0));
+
+		List<String> changes = toStrings(ComponentDiff.diff(resource.getTitles().get(0), resource.getDescription()));
+		assertEquals(2, changes.size());
+		assertEquals("Removed: /ddms:title", changes.get(0));
+		assertEquals("Added: /ddms:description", changes.get(1));
+	}
+}
@@ -0,0 +1,91 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.ddms;
+
+import buri.ddmsence.AbstractBaseTestCase;
+import buri.ddmsence.util.DDMSVersion;
+
+/**
+ * <p> Tests related to compact, detached Resources </p>
+ * 
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public class CompactResourceTest extends AbstractBaseTestCase {
+
+	/**
+	 * Constructor
+	 */
+	public CompactResourceTest() {
+		super("resource.xml");
+	}
+
+	public void testRoundTrip() throws InvalidDDMSException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Resource resource = new Resource(getValidElement(sVersion));
+			CompactResource compact = resource.toCompact();
+			assertEquals(sVersion, compact.getDDMSVersion());
+			assertEquals(resource.toXML(), compact.toXML());
+			assertEquals(resource.toXML(), compact.getXOMElementCopy().toXML());
+			assertNotSame(compact.getXOMElementCopy(), compact.getXOMElementCopy());
+
+			String otherVersion = "2.0".equals(sVersion) ? "5.0" : "2.0";
+			DDMSVersion.setCurrentVersion(otherVersion);
+			Resource restored = compact.toResource();
+			assertEquals(otherVersion, DDMSVersion.getCurrentVersion().getVersion());
+			assertEquals(resource, restored);
+		}
+	}
+
+	public void testExtractedValues() throws InvalidDDMSException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Resource resource = new Resource(getValidElement(sVersion));
+			CompactResource compact = resource.toCompact();
+			assertEquals(resource.getTitles().size(), compact.getTitles().size());
+			assertEquals(resource.getTitles().get(0).getValue(), compact.getTitles().get(0));
+			assertEquals(resource.getIdentifiers().get(0).getValue(), compact.getIdentifierValues().get(0));
+			assertEquals("U", compact.getClassification());
+			assertTrue(compact.getSize() > 0);
+			try {
+				compact.getTitles().clear();
+				fail("Allowed modification.");
+			}
+			catch (UnsupportedOperationException e) {
+				// Good
+			}
+		}
+	}
+
+	public void testEquality() throws InvalidDDMSException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Resource resource = new Resource(getValidElement(sVersion));
+			CompactResource compact = resource.toCompact();
+			assertEquals(compact, new CompactResource(resource));
+			assertEquals(compact.hashCode(), new CompactResource(resource).hashCode());
+
+			Resource.Builder builder = new Resource.Builder(resource);
+			builder.getTitles().get(0).setValue("Different");
+			assertFalse(compact.equals(builder.commit().toCompact()));
+		}
+	}
+}
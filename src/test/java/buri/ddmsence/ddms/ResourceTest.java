@@ -21,13 +21,17 @@ package buri.ddmsence.ddms;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import nu.xom.Attribute;
 import nu.xom.Element;
+import nu.xom.Elements;
 import buri.ddmsence.AbstractBaseTestCase;
 import buri.ddmsence.ddms.extensible.ExtensibleAttributes;
 import buri.ddmsence.ddms.extensible.ExtensibleAttributesTest;
@@ -66,6 +70,7 @@ import buri.ddmsence.ddms.resource.Unknown;
 import buri.ddmsence.ddms.security.SecurityTest;
 import buri.ddmsence.ddms.security.ism.SecurityAttributes;
 import buri.ddmsence.ddms.security.ism.SecurityAttributesTest;
+import buri.ddmsence.ddms.summary.Description;
 import buri.ddmsence.ddms.summary.DescriptionTest;
 import buri.ddmsence.ddms.summary.GeospatialCoverage;
 import buri.ddmsence.ddms.summary.GeospatialCoverageTest;
@@ -1012,6 +1017,73 @@ public class ResourceTest extends AbstractBaseTestCase {
 		}
 	}
 
+	public void testAppendableOutput() throws InvalidDDMSException, IOException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Resource component = getInstance(getValidElement(sVersion), SUCCESS);
+			StringWriter html = new StringWriter();
+			component.toHTML(html);
+			assertEquals(getExpectedOutput(true), html.toString());
+			StringBuilder text = new StringBuilder("Existing\n");
+			component.toText(text);
+			assertEquals("Existing\n" + getExpectedOutput(false), text.toString());
+		}
+	}
+
+	/**
+	 * Renames the DDMS prefix throughout an element and indents its children, without changing its content.
+	 */
+	private static void reformat(Element element, String namespace) {
+		if (namespace.equals(element.getNamespaceURI()))
+			element.setNamespacePrefix("d");
+		for (int i = 0; i < element.getAttributeCount(); i++) {
+			Attribute attribute = element.getAttribute(i);
+			if (namespace.equals(attribute.getNamespaceURI()))
+				attribute.setNamespace("d", namespace);
+		}
+		Elements children = element.getChildElements();
+		for (int i = 0; i < children.size(); i++) {
+			element.insertChild("\n\t", element.indexOf(children.get(i)));
+			reformat(children.get(i), namespace);
+		}
+	}
+
+	public void testFingerprint() throws InvalidDDMSException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Resource component = getInstance(getValidElement(sVersion), SUCCESS);
+			String fingerprint = component.getFingerprint();
+			assertEquals(32, fingerprint.length());
+			assertSame(fingerprint, component.getFingerprint());
+			assertEquals(fingerprint, Util.getCanonicalDigest(component.getXOMElementCopy(), "MD5"));
+			String contentFingerprint = component.getContentFingerprint();
+			assertEquals(64, contentFingerprint.length());
+			assertSame(contentFingerprint, component.getContentFingerprint());
+			assertEquals(contentFingerprint, Util.getDigest(component.getCanonicalBytes(), "SHA-256"));
+
+			// The canonical bytes are cached, and each call returns a copy
+			byte[] bytes = component.getCanonicalBytes();
+			assertNotSame(bytes, component.getCanonicalBytes());
+			bytes[0] = 0;
+			assertFalse(Arrays.equals(bytes, component.getCanonicalBytes()));
+
+			// Only the content fingerprint ignores prefixes and whitespace
+			Element element = component.getXOMElementCopy();
+			reformat(element, component.getNamespace());
+			Resource reformatted = new Resource(element);
+			assertFalse(component.toXML().equals(reformatted.toXML()));
+			assertTrue(Arrays.equals(component.getCanonicalBytes(), reformatted.getCanonicalBytes()));
+			assertEquals(contentFingerprint, reformatted.getContentFingerprint());
+			assertFalse(fingerprint.equals(reformatted.getFingerprint()));
+
+			Resource.Builder builder = new Resource.Builder(component);
+			builder.getTitles().get(0).setValue("A different title");
+			Resource changed = builder.commit();
+			assertFalse(fingerprint.equals(changed.getFingerprint()));
+			assertFalse(contentFingerprint.equals(changed.getContentFingerprint()));
+		}
+	}
+
 	public void testBuilderIsEmpty() throws InvalidDDMSException {
 		for (String sVersion : getSupportedVersions()) {
 			DDMSVersion.setCurrentVersion(sVersion);
@@ -1189,6 +1261,115 @@ public class ResourceTest extends AbstractBaseTestCase {
 		getInstance(builder, SUCCESS);
 	}
 
+	public void testDeferredSchemaValidation() throws InvalidDDMSException {
+		DDMSVersion.setCurrentVersion("3.0");
+		Resource.Builder builder = getBaseBuilder();
+		DDMSVersion.setCurrentVersion("3.1");
+		try {
+			PropertyReader.setProperty(Resource.SCHEMA_VALIDATION_PROPERTY, "false");
+			Resource resource = builder.commit();
+			try {
+				resource.validateWithSchema();
+				fail("Allowed invalid data.");
+			}
+			catch (InvalidDDMSException e) {
+				expectMessage(e, "nu.xom.ValidityException: cvc-attribute.4");
+				assertEquals("/" + resource.getQualifiedName(), e.getLocator());
+			}
+		}
+		finally {
+			PropertyReader.setProperty(Resource.SCHEMA_VALIDATION_PROPERTY, "true");
+		}
+		builder.setIsmDESVersion(Integer.valueOf(5));
+		builder.commit().validateWithSchema();
+	}
+
+	public void testLazyView() throws Exception {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Resource eager = getInstance(getValidElement(sVersion), SUCCESS);
+			final Resource lazy = new Resource(getValidElement(sVersion), true);
+			assertEquals(eager.getIdentifiers(), lazy.getIdentifiers());
+			assertEquals(eager.getSecurity(), lazy.getSecurity());
+			assertEquals(eager.getValidationWarnings(), lazy.getValidationWarnings());
+			assertEquals(eager, lazy);
+			assertEquals(eager.hashCode(), lazy.hashCode());
+			assertEquals(eager.toXML(), lazy.toXML());
+			assertEquals(eager.toText(), lazy.toText());
+
+			// Sets are built once, even under concurrent access
+			final Resource shared = new Resource(getValidElement(sVersion), true);
+			final List<List<IDDMSComponent>> results = new ArrayList<List<IDDMSComponent>>();
+			List<Thread> threads = new ArrayList<Thread>();
+			for (int i = 0; i < 4; i++) {
+				threads.add(new Thread() {
+					public void run() {
+						List<IDDMSComponent> components = shared.getTopLevelComponents();
+						synchronized (results) {
+							results.add(components);
+						}
+					}
+				});
+			}
+			for (Thread thread : threads)
+				thread.start();
+			for (Thread thread : threads)
+				thread.join();
+			assertEquals(4, results.size());
+			for (List<IDDMSComponent> components : results) {
+				assertEquals(eager.getTopLevelComponents().size(), components.size());
+				for (int i = 0; i < components.size(); i++)
+					assertSame(results.get(0).get(i), components.get(i));
+			}
+		}
+	}
+
+	public void testLazyViewVersionSwitch() throws InvalidDDMSException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Resource eager = getInstance(getValidElement(sVersion), SUCCESS);
+			Resource lazy = new Resource(getValidElement(sVersion), true);
+
+			// Sets are built under the version of the resource, not the current version
+			String otherVersion = "2.0".equals(sVersion) ? "5.0" : "2.0";
+			DDMSVersion.setCurrentVersion(otherVersion);
+			assertEquals(eager.getTopLevelComponents(), lazy.getTopLevelComponents());
+			assertEquals(eager.getValidationWarnings(), lazy.getValidationWarnings());
+			assertEquals(otherVersion, DDMSVersion.getCurrentVersion().getVersion());
+		}
+	}
+
+	public void testLazyViewStructure() {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+
+			// Missing title is caught before any component is built
+			Element element = new Element(getValidElement(sVersion));
+			element.removeChild(element.getFirstChildElement(Title.getName(DDMSVersion.getCurrentVersion()),
+				DDMSVersion.getCurrentVersion().getNamespace()));
+			try {
+				new Resource(element, true);
+				fail("Allowed invalid data.");
+			}
+			catch (InvalidDDMSException e) {
+				expectMessage(e, "At least 1 title must exist.");
+			}
+
+			// Too many descriptions are caught by counting the children
+			element = new Element(getValidElement(sVersion));
+			Element description = element.getFirstChildElement(Description.getName(DDMSVersion.getCurrentVersion()),
+				DDMSVersion.getCurrentVersion().getNamespace());
+			element.insertChild(new Element(description), element.indexOf(description));
+			try {
+				new Resource(element, true);
+				fail("Allowed invalid data.");
+			}
+			catch (InvalidDDMSException e) {
+				expectMessage(e, "No more than 1 description");
+			}
+		}
+	}
+
 	public void testLoad31Commit41() throws InvalidDDMSException {
 		// Direct mapping works
 		DDMSVersion.setCurrentVersion("3.1");
@@ -24,7 +24,9 @@ import buri.ddmsence.ddms.resource.Person;
 import buri.ddmsence.util.DDMSReader;
 import buri.ddmsence.util.DDMSVersion;
 import buri.ddmsence.util.PropertyReader;
+import buri.ddmsence.util.Util;
 import nu.xom.xslt.XSLException;
+import nu.xom.xslt.XSLTransform;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -32,8 +34,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * <p> Tests related to Schematron validation of Resources </p>
@@ -133,6 +137,79 @@ public class SchematronValidationTest extends AbstractBaseTestCase {
         }
     }
 
+    public void testSchematronValidationPhase() throws InvalidDDMSException, IOException, XSLException {
+        PropertyReader.setProperty("xml.transform.TransformerFactory", "net.sf.saxon.TransformerFactoryImpl");
+        for (String sVersion : getSupportedVersions()) {
+            DDMSVersion version = DDMSVersion.getVersionFor(sVersion);
+            Resource resource = versionToResourceMap.get(sVersion);
+            File file = new File("src/main/resources/data/test/" + sVersion + "/testSchematronXslt1.sch");
+
+            // The Producers phase only activates the FixedSurname pattern.
+            List<ValidationMessage> messages = resource.validateWithSchematron(file, "Producers", null);
+            assertEquals(version.isAtLeast("4.0.1") ? 2 : 1, messages.size());
+            for (ValidationMessage message : messages)
+                assertEquals(ValidationMessage.WARNING_TYPE, message.getType());
+
+            // #ALL overrides any default phase
+            messages = resource.validateWithSchematron(file, "#ALL", null);
+            assertEquals(version.isAtLeast("4.0.1") ? 3 : 2, messages.size());
+        }
+    }
+
+    public void testSchematronValidationPatternSubset() throws InvalidDDMSException, IOException, XSLException {
+        PropertyReader.setProperty("xml.transform.TransformerFactory", "net.sf.saxon.TransformerFactoryImpl");
+        for (String sVersion : getSupportedVersions()) {
+            DDMSVersion version = DDMSVersion.getVersionFor(sVersion);
+            Resource resource = versionToResourceMap.get(sVersion);
+            String resourceName = Resource.getName(version);
+            File file = new File("src/main/resources/data/test/" + sVersion + "/testSchematronXslt1.sch");
+
+            Set<String> patternIds = new HashSet<String>();
+            patternIds.add("SampleFailure");
+            List<ValidationMessage> messages = resource.validateWithSchematron(file, null, patternIds);
+            assertEquals(1, messages.size());
+            String locator = "/*[local-name()='" + resourceName + "' and namespace-uri()='" + resource.getNamespace()
+                    + "']";
+            assertErrorEquality("A DDMS Resource must have an unknownElement child.", locator, messages.get(0));
+
+            // Subset and phase do not overlap
+            messages = resource.validateWithSchematron(file, "Producers", patternIds);
+            assertTrue(messages.isEmpty());
+
+            // Empty subset
+            messages = resource.validateWithSchematron(file, null, new HashSet<String>());
+            assertTrue(messages.isEmpty());
+        }
+    }
+
+    public void testSchematronValidationUnknownPhase() throws InvalidDDMSException, IOException, XSLException {
+        PropertyReader.setProperty("xml.transform.TransformerFactory", "net.sf.saxon.TransformerFactoryImpl");
+        for (String sVersion : getSupportedVersions()) {
+            Resource resource = versionToResourceMap.get(sVersion);
+            File file = new File("src/main/resources/data/test/" + sVersion + "/testSchematronXslt1.sch");
+            try {
+                resource.validateWithSchematron(file, "MissingPhase", null);
+                fail("Allowed invalid data.");
+            } catch (IllegalArgumentException e) {
+                expectMessage(e, "No phase named \"MissingPhase\" exists");
+            }
+        }
+    }
+
+    public void testSchematronValidationCompiledTransform() throws InvalidDDMSException, IOException, XSLException {
+        PropertyReader.setProperty("xml.transform.TransformerFactory", "net.sf.saxon.TransformerFactoryImpl");
+        for (String sVersion : getSupportedVersions()) {
+            DDMSVersion version = DDMSVersion.getVersionFor(sVersion);
+            Resource resource = versionToResourceMap.get(sVersion);
+            File file = new File("src/main/resources/data/test/" + sVersion + "/testSchematronXslt1.sch");
+            XSLTransform transform = Util.buildSchematronTransform(new FileInputStream(file), "Producers", null);
+            List<ValidationMessage> first = resource.validateWithSchematron(transform);
+            List<ValidationMessage> second = resource.validateWithSchematron(transform);
+            assertEquals(version.isAtLeast("4.0.1") ? 2 : 1, first.size());
+            assertEquals(first, second);
+        }
+    }
+
     public void testSchematronValidationInvalid() throws InvalidDDMSException, IOException, XSLException {
         String[] supportedXslt1Processors = new String[]{"net.sf.saxon.TransformerFactoryImpl"};
         for (String processor : supportedXslt1Processors) {
@@ -0,0 +1,179 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.ddms.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import buri.ddmsence.AbstractBaseTestCase;
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.ValidationMessage;
+import buri.ddmsence.ddms.resource.Creator;
+import buri.ddmsence.ddms.resource.Title;
+import buri.ddmsence.ddms.summary.TemporalCoverage;
+import buri.ddmsence.util.DDMSVersion;
+
+/**
+ * <p> Tests related to Java-based business rules </p>
+ * 
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public class CommonRulesTest extends AbstractBaseTestCase {
+
+	/**
+	 * Constructor
+	 */
+	public CommonRulesTest() {
+		super("resource.xml");
+	}
+
+	/**
+	 * Returns a Builder for the valid test resource of the current version.
+	 */
+	private Resource.Builder getBuilder(String version) throws InvalidDDMSException {
+		return (new Resource.Builder(new Resource(getValidElement(version))));
+	}
+
+	public void testValidResource() throws InvalidDDMSException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Resource resource = new Resource(getValidElement(sVersion));
+			List<IRule> rules = new ArrayList<IRule>();
+			rules.add(CommonRules.temporalCoverageOrder());
+			rules.add(CommonRules.classificationCeiling());
+			rules.add(CommonRules.requiredProducer(Creator.class));
+			assertTrue(resource.validateWithRules(rules).isEmpty());
+		}
+	}
+
+	public void testTemporalCoverageOrder() throws InvalidDDMSException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion version = DDMSVersion.setCurrentVersion(sVersion);
+			Resource.Builder builder = getBuilder(sVersion);
+			builder.getTemporalCoverages().get(0).setStartString("2010-01-01");
+			builder.getTemporalCoverages().get(0).setEndString("2000-01-01");
+			Resource resource = builder.commit();
+			List<ValidationMessage> messages = CommonRules.temporalCoverageOrder().validate(resource);
+			assertEquals(1, messages.size());
+			String locator = Resource.getName(version).equals("resource") ? "ddms:resource" : "ddms:Resource";
+			assertErrorEquality("The start date of a temporalCoverage must not be after its end date.", locator
+				+ "/ddms:" + TemporalCoverage.getName(version), messages.get(0));
+
+			// Equal dates
+			builder.getTemporalCoverages().get(0).setEndString("2010-01-01");
+			assertTrue(CommonRules.temporalCoverageOrder().validate(builder.commit()).isEmpty());
+
+			// Non-dates are skipped
+			builder.getTemporalCoverages().get(0).setEndString("Unknown");
+			assertTrue(CommonRules.temporalCoverageOrder().validate(builder.commit()).isEmpty());
+
+			// ddms:DateHourMinType
+			if (version.isAtLeast("4.1")) {
+				builder.getTemporalCoverages().get(0).setStartString("2010-01-01T10:30Z");
+				builder.getTemporalCoverages().get(0).setEndString("2010-01-01T10:15Z");
+				assertEquals(1, CommonRules.temporalCoverageOrder().validate(builder.commit()).size());
+			}
+		}
+	}
+
+	public void testClassificationCeiling() throws InvalidDDMSException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion version = DDMSVersion.setCurrentVersion(sVersion);
+			if (!version.isAtLeast("3.0"))
+				continue;
+			Resource.Builder builder = getBuilder(sVersion);
+			builder.getTitles().get(0).getSecurityAttributes().setClassification("S");
+			Resource resource = builder.commit();
+			List<ValidationMessage> messages = CommonRules.classificationCeiling().validate(resource);
+			assertEquals(1, messages.size());
+			assertEquals(ValidationMessage.ERROR_TYPE, messages.get(0).getType());
+			assertTrue(messages.get(0).getLocator().endsWith("/ddms:" + Title.getName(version)));
+			assertTrue(messages.get(0).getText().contains("The component is marked S, but the resource is marked U."));
+
+			// Matching ceiling
+			builder.getTitles().get(0).getSecurityAttributes().setClassification("U");
+			assertTrue(CommonRules.classificationCeiling().validate(builder.commit()).isEmpty());
+		}
+	}
+
+	public void testRequiredProducer() throws InvalidDDMSException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Resource.Builder builder = getBuilder(sVersion);
+			builder.getCreators().clear();
+			Resource resource = builder.commit();
+			IRule rule = CommonRules.requiredProducer(Creator.class);
+			assertEquals("RequiredProducerCreator", rule.getId());
+			List<ValidationMessage> messages = rule.validate(resource);
+			assertEquals(1, messages.size());
+			assertErrorEquality("At least 1 creator must exist.", resource.getQualifiedName(), messages.get(0));
+		}
+	}
+
+	public void testInvalidProducerType() {
+		try {
+			CommonRules.requiredProducer(Title.class);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "is not a producer type.");
+		}
+	}
+
+	public void testCustomRule() throws InvalidDDMSException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Resource resource = new Resource(getValidElement(sVersion));
+			IRule rule = new AbstractComponentRule<Title>("ShortTitle", ValidationMessage.WARNING_TYPE,
+				"Titles should be shorter than 5 characters.") {
+				protected List<Title> getContext(Resource resource) {
+					return (resource.getTitles());
+				}
+
+				protected boolean test(Resource resource, Title title) {
+					return (title.getValue().length() < 5);
+				}
+			};
+			List<ValidationMessage> messages = resource.validateWithRules(java.util.Collections.singletonList(rule));
+			assertEquals(1, messages.size());
+			assertEquals(ValidationMessage.WARNING_TYPE, messages.get(0).getType());
+		}
+	}
+
+	public void testInvalidRuleType() {
+		try {
+			new AbstractComponentRule<Title>("Id", "Info", "Text") {
+				protected List<Title> getContext(Resource resource) {
+					return (resource.getTitles());
+				}
+
+				protected boolean test(Resource resource, Title title) {
+					return (true);
+				}
+			};
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "The type must be either");
+		}
+	}
+}
@@ -22,6 +22,7 @@ package buri.ddmsence.ddms.security;
 import nu.xom.Element;
 import buri.ddmsence.AbstractBaseTestCase;
 import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.security.ism.Notice;
 import buri.ddmsence.ddms.security.ism.SecurityAttributes;
 import buri.ddmsence.ddms.security.ism.SecurityAttributesTest;
 import buri.ddmsence.ddms.security.ntk.Access;
@@ -290,6 +291,23 @@ public class SecurityTest extends AbstractBaseTestCase {
 		}
 	}
 	
+	public void testNestedWarningsRenderedOnRequest() throws InvalidDDMSException {
+		DDMSVersion.setCurrentVersion("4.1");
+		Security component = getInstance(getValidElement("4.1"), SUCCESS);
+		Notice notice = component.getNoticeList().getNotices().get(0);
+
+		// Each level renders the full path from itself
+		assertWarningEquality("The ism:externalNotice", "ism:Notice", notice.getValidationWarnings().get(0));
+		assertWarningEquality("The ism:externalNotice", "ddms:noticeList/ism:Notice", component.getNoticeList()
+			.getValidationWarnings().get(0));
+		assertWarningEquality("The ism:externalNotice", "ddms:security/ddms:noticeList/ism:Notice", component
+			.getValidationWarnings().get(0));
+
+		// Rendered once and reused
+		assertSame(component.getValidationWarnings(), component.getValidationWarnings());
+		assertSame(notice.getValidationWarnings().get(0), notice.getValidationWarnings().get(0));
+	}
+
 	public void testEquality() throws InvalidDDMSException {
 		for (String sVersion : getSupportedVersions()) {
 			DDMSVersion version = DDMSVersion.setCurrentVersion(sVersion);
@@ -457,6 +457,17 @@ public class TemporalCoverageTest extends AbstractBaseTestCase {
 		}
 	}
 
+	public void testMemoizedAccessors() {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			TemporalCoverage component = getInstance(getValidElement(sVersion), SUCCESS);
+			String start = component.getStartString();
+			assertSame(start, component.getStartString());
+			assertSame(component.getEndString(), component.getEndString());
+			assertEquals(TEST_START, start);
+		}
+	}
+
 	public void testDeprecatedAccessors() throws InvalidDDMSException {
 		for (String sVersion : getSupportedVersions()) {
 			DDMSVersion.setCurrentVersion(sVersion);
@@ -19,7 +19,9 @@
  */
 package buri.ddmsence.ddms.summary.gml;
 
+import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import nu.xom.Element;
@@ -333,6 +335,53 @@ public class PolygonTest extends AbstractBaseTestCase {
 		}
 	}
 
+	/**
+	 * Checks whether a Polygon has built its Position components yet
+	 */
+	private static boolean hasBuiltPositions(Polygon polygon) throws Exception {
+		Field field = Polygon.class.getDeclaredField("_positions");
+		field.setAccessible(true);
+		return (field.get(polygon) != null);
+	}
+
+	public void testPackedCoordinates() throws Exception {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion version = DDMSVersion.setCurrentVersion(sVersion);
+			String gmlNamespace = version.getGmlNamespace();
+			List<Position> positions = new ArrayList<Position>();
+			positions.add(new Position(PositionTest.TEST_COORDS, null));
+			positions.add(new Position(PositionTest.TEST_COORDS_2, null));
+			positions.add(new Position(PositionTest.TEST_COORDS_3, null));
+			positions.add(new Position(PositionTest.TEST_COORDS, null));
+			Polygon dataComponent = new Polygon(positions, SRSAttributesTest.getFixture(), TEST_ID);
+
+			// Parsed, validated, compared and hashed without building positions
+			Polygon elementComponent = getInstance(dataComponent.getXOMElementCopy(), SUCCESS);
+			double[] expected = new double[] { 32.1, 40.1, 42.1, 40.1, 42.1, 50.1, 32.1, 40.1 };
+			assertTrue(Arrays.equals(expected, elementComponent.getCoordinateArray()));
+			assertTrue(Arrays.equals(expected, dataComponent.getCoordinateArray()));
+			assertEquals(dataComponent, elementComponent);
+			assertEquals(elementComponent, getInstance(dataComponent.getXOMElementCopy(), SUCCESS));
+			assertEquals(dataComponent.hashCode(), elementComponent.hashCode());
+			assertTrue(elementComponent.getValidationWarnings().isEmpty());
+			assertFalse(hasBuiltPositions(elementComponent));
+
+			// Positions are built on request
+			assertEquals(positions, elementComponent.getPositions());
+			assertTrue(hasBuiltPositions(elementComponent));
+			assertSame(elementComponent.getPositions().get(0), elementComponent.getPositions().get(0));
+
+			// An invalid position is still reported by the Position
+			Element element = dataComponent.getXOMElementCopy();
+			Element ringElement = element.getFirstChildElement("exterior", gmlNamespace).getFirstChildElement(
+				"LinearRing", gmlNamespace);
+			Element posElement = ringElement.getChildElements().get(1);
+			posElement.removeChildren();
+			posElement.appendChild("95.0 40.1");
+			getInstance(element, "A latitude value must be between -90 and 90 degrees: 95.0");
+		}
+	}
+
 	public void testVersionSpecific() throws InvalidDDMSException {
 		// No tests.
 	}
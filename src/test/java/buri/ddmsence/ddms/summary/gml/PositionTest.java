@@ -20,6 +20,7 @@
 package buri.ddmsence.ddms.summary.gml;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import nu.xom.Element;
@@ -295,6 +296,20 @@ public class PositionTest extends AbstractBaseTestCase {
 		}
 	}
 	
+	public void testCoordinateArray() throws InvalidDDMSException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Position component = getInstance(getValidElement(sVersion), SUCCESS);
+			double[] coordinates = component.getCoordinateArray();
+			assertTrue(Arrays.equals(new double[] { 32.1, 40.1 }, coordinates));
+			assertEquals(TEST_COORDS, component.getCoordinates());
+
+			// Returns a copy
+			coordinates[0] = 0;
+			assertEquals(32.1, component.getCoordinateArray()[0], 0);
+		}
+	}
+
 	public void testVersionSpecific() {
 		// No tests.
 	}
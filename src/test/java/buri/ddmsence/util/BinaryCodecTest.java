@@ -0,0 +1,136 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.util.Arrays;
+
+import nu.xom.Attribute;
+import nu.xom.Comment;
+import nu.xom.Element;
+import nu.xom.ProcessingInstruction;
+import buri.ddmsence.AbstractBaseTestCase;
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.resource.Title;
+
+/**
+ * A collection of tests related to the BinaryCodec
+ * 
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public class BinaryCodecTest extends AbstractBaseTestCase {
+
+	public BinaryCodecTest() {
+		super("resource.xml");
+	}
+
+	public void testResourceRoundTrip() throws Exception {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Resource resource = new Resource(getValidElement(sVersion));
+			byte[] record = resource.toBinary();
+			assertTrue(record.length < resource.toXML().getBytes("UTF-8").length);
+			String version = DDMSVersion.getVersionForNamespace(resource.getNamespace()).getVersion();
+			assertEquals(version, BinaryCodec.getDDMSVersion(record));
+
+			DDMSVersion.setCurrentVersion("2.0".equals(sVersion) ? "5.0" : "2.0");
+			Resource restored = BinaryCodec.decodeResource(record);
+			assertEquals(version, DDMSVersion.getCurrentVersion().getVersion());
+			assertEquals(resource, restored);
+			assertEquals(resource.toXML(), restored.toXML());
+			assertTrue(Arrays.equals(record, restored.toBinary()));
+		}
+	}
+
+	public void testComponentRoundTrip() throws InvalidDDMSException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Title title = new Resource(getValidElement(sVersion)).getTitles().get(0);
+			byte[] record = BinaryCodec.encode(title);
+			assertEquals(title, new Title(BinaryCodec.decodeElement(record)));
+		}
+	}
+
+	public void testLosslessNodes() throws InvalidDDMSException {
+		Element element = new Element("ext:root", "urn:ext");
+		element.addNamespaceDeclaration("unused", "urn:unused");
+		element.addAttribute(new Attribute("ext:flag", "urn:ext", "true"));
+		element.addAttribute(new Attribute("plain", "é & <value>"));
+		Element child = new Element("child", "urn:default");
+		child.appendChild("Text with \r\n line breaks and 😀");
+		child.appendChild(new Comment(" A comment "));
+		child.appendChild(new ProcessingInstruction("target", "data"));
+		Element grandchild = new Element("noNamespace");
+		grandchild.addAttribute(new Attribute("xml:lang", "http://www.w3.org/XML/1998/namespace", "en"));
+		child.appendChild(grandchild);
+		element.appendChild(child);
+
+		Element restored = BinaryCodec.decodeElement(BinaryCodec.encode("5.0", element));
+		assertEquals(element.toXML(), restored.toXML());
+		assertNull(restored.getParent());
+	}
+
+	public void testDictionary() throws Exception {
+		Element element = Util.buildDDMSElement("subjectCoverage", null);
+		for (int i = 0; i < 50; i++) {
+			Element keyword = Util.buildDDMSElement("keyword", null);
+			Util.addDDMSAttribute(keyword, "value", "RepeatedKeyword");
+			element.appendChild(keyword);
+		}
+		byte[] record = BinaryCodec.encode("5.0", element);
+		String contents = new String(record, "ISO-8859-1");
+		assertEquals(contents.indexOf("RepeatedKeyword"), contents.lastIndexOf("RepeatedKeyword"));
+		assertEquals(contents.indexOf(":keyword"), contents.lastIndexOf(":keyword"));
+		assertTrue(record.length * 4 < element.toXML().length());
+	}
+
+	public void testMalformedRecords() throws InvalidDDMSException {
+		byte[] record = BinaryCodec.encode("5.0", Util.buildDDMSElement("title", "Value"));
+		byte[] wrongMagic = record.clone();
+		wrongMagic[0] = 'X';
+		byte[] wrongFormat = record.clone();
+		wrongFormat[4] = (byte) (BinaryCodec.FORMAT_VERSION + 1);
+		byte[] truncated = Arrays.copyOf(record, record.length - 2);
+
+		// The version string in the header is an inline string: a 0 reference, then its length
+		byte[] negativeLength = Arrays.copyOf(record, 11);
+		negativeLength[5] = 0;
+		System.arraycopy(new byte[] { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F }, 0, negativeLength, 6,
+			5);
+		byte[] longLength = Arrays.copyOf(record, 8);
+		longLength[5] = 0;
+		longLength[6] = (byte) 0xFF;
+		longLength[7] = 0x7F;
+		String[] messages = new String[] { "The record is not a DDMSence binary record.",
+			"Unsupported binary format version: " + (BinaryCodec.FORMAT_VERSION + 1), "The binary record is truncated.",
+			"Invalid integer in binary record.", "The binary record is truncated." };
+		byte[][] records = new byte[][] { wrongMagic, wrongFormat, truncated, negativeLength, longLength };
+		for (int i = 0; i < records.length; i++) {
+			try {
+				BinaryCodec.decodeElement(records[i]);
+				fail("Allowed invalid data.");
+			}
+			catch (InvalidDDMSException e) {
+				expectMessage(e, messages[i]);
+			}
+		}
+	}
+}
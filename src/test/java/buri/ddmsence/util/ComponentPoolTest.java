@@ -0,0 +1,128 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import nu.xom.Element;
+import buri.ddmsence.AbstractBaseTestCase;
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.resource.Language;
+import buri.ddmsence.ddms.resource.Rights;
+
+/**
+ * A collection of tests related to the ComponentPool
+ * 
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public class ComponentPoolTest extends AbstractBaseTestCase {
+
+	public ComponentPoolTest() {
+		super("resource.xml");
+	}
+
+	/**
+	 * Returns the value of a DDMS attribute on the first element with a local name, searching depth-first
+	 */
+	private static String getAttributeValue(Element element, String localName, String attributeName) {
+		if (localName.equals(element.getLocalName()))
+			return (element.getAttributeValue(attributeName, element.getNamespaceURI()));
+		for (int i = 0; i < element.getChildElements().size(); i++) {
+			String value = getAttributeValue(element.getChildElements().get(i), localName, attributeName);
+			if (value != null)
+				return (value);
+		}
+		return (null);
+	}
+
+	public void testIntern() throws InvalidDDMSException {
+		ComponentPool pool = new ComponentPool();
+		Rights first = new Rights(true, true, false);
+		Rights second = new Rights(true, true, false);
+		Rights shared = pool.intern(first);
+		assertEquals(first, shared);
+		assertSame(shared, pool.intern(second));
+		assertSame(shared, pool.intern(shared));
+		assertEquals(1, pool.size());
+
+		Rights different = pool.intern(new Rights(false, false, false));
+		assertNotSame(shared, different);
+		assertEquals(2, pool.size());
+		assertNull(pool.intern(null));
+
+		pool.clear();
+		assertEquals(0, pool.size());
+	}
+
+	public void testSameContentDifferentClass() throws InvalidDDMSException {
+		ComponentPool pool = new ComponentPool();
+		Language language = pool.intern(new Language("qualifier", "en"));
+		assertSame(language, pool.intern(new Language("qualifier", "en")));
+		assertNotSame(language, pool.intern(new Language("qualifier", "fr")));
+	}
+
+	public void testBuilderCommit() throws InvalidDDMSException {
+		ComponentPool pool = new ComponentPool();
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Resource resource = new Resource(getValidElement(sVersion));
+			Resource.Builder builder = new Resource.Builder(resource);
+			builder.setComponentPool(pool);
+			Resource first = builder.commit();
+			Resource second = builder.commit();
+			assertEquals(resource, first);
+			assertEquals(first, second);
+			assertEquals(first.toXML(), second.toXML());
+			assertSame(first.getRights(), second.getRights());
+			assertSame(first.getCreators().get(0), second.getCreators().get(0));
+		}
+	}
+
+	public void testSharedValues() throws InvalidDDMSException {
+		ComponentPool pool = new ComponentPool();
+		DDMSVersion.setCurrentVersion("5.0");
+		Resource resource = new Resource(getValidElement("5.0"));
+		List<Resource> resources = new ArrayList<Resource>();
+		for (int i = 0; i < 2; i++) {
+			Resource.Builder builder = new Resource.Builder(resource);
+			builder.setComponentPool(pool);
+			builder.getLanguages().get(0).setValue(new String("en"));
+			resources.add(builder.commit());
+		}
+
+		// Each Resource has its own XOM nodes, but the values in both trees are the same instances.
+		Element first = resources.get(0).getXOMElementCopy();
+		Element second = resources.get(1).getXOMElementCopy();
+		assertNotSame(first, second);
+		assertEquals("en", getAttributeValue(first, "language", "value"));
+		assertSame(getAttributeValue(first, "language", "value"), getAttributeValue(second, "language", "value"));
+		assertSame(resources.get(0).getLanguages().get(0), resources.get(1).getLanguages().get(0));
+
+		// Values are also shared between different components.
+		Language english = pool.intern(new Language("qualifier", new String("en")));
+		Language otherEnglish = pool.intern(new Language("otherQualifier", new String("en")));
+		assertNotSame(english, otherEnglish);
+		assertSame(english.getValue(), otherEnglish.getValue());
+		assertSame(english.getValue(), getAttributeValue(first, "language", "value"));
+	}
+}
@@ -27,6 +27,8 @@ import java.io.InputStream;
 import java.io.LineNumberReader;
 import java.io.Reader;
 
+import nu.xom.Element;
+
 import org.xml.sax.SAXException;
 
 import buri.ddmsence.AbstractBaseTestCase;
@@ -213,6 +215,24 @@ public class DDMSReaderTest extends AbstractBaseTestCase {
 			new FileReader(new File(PropertyReader.getProperty("test.unit.data"), "3.0/resource.xml")));
 	}
 
+	public void testValidateElementWithSchema() throws InvalidDDMSException, IOException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion version = DDMSVersion.getVersionFor(sVersion);
+			Element element = getReader(sVersion).getElement(
+				new File(PropertyReader.getProperty("test.unit.data"), sVersion + "/resource.xml"));
+			DDMSReader.validateWithSchema(version, element);
+
+			element.removeChild(element.getFirstChildElement("title", version.getNamespace()));
+			try {
+				DDMSReader.validateWithSchema(version, element);
+				fail("Allowed invalid data.");
+			}
+			catch (InvalidDDMSException e) {
+				expectMessage(e, "nu.xom.ValidityException");
+			}
+		}
+	}
+
 	public void testGetExternalSchemaLocation() {
 		String externalLocations = getReader("3.0").getExternalSchemaLocations();
 		assertEquals(4, externalLocations.split(" ").length);
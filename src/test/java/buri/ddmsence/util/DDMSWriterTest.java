@@ -0,0 +1,204 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import nu.xom.Builder;
+import nu.xom.Element;
+import nu.xom.Elements;
+import nu.xom.ParsingException;
+import buri.ddmsence.AbstractBaseTestCase;
+import buri.ddmsence.ddms.IDDMSComponent;
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.resource.Title;
+
+/**
+ * A collection of tests related to the DDMSWriter
+ * 
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public class DDMSWriterTest extends AbstractBaseTestCase {
+
+	public DDMSWriterTest() {
+		super("resource.xml");
+	}
+
+	/**
+	 * Parses a string without validation
+	 */
+	private static Element parse(String xml) throws ParsingException, IOException {
+		return (new Builder().build(new StringReader(xml)).getRootElement());
+	}
+
+	public void testMatchesToXML() throws InvalidDDMSException, IOException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Resource resource = new Resource(getValidElement(sVersion));
+			StringWriter writer = new StringWriter();
+			resource.writeXML(writer);
+			assertEquals(resource.toXML(), writer.toString());
+
+			ByteArrayOutputStream stream = new ByteArrayOutputStream();
+			resource.writeXML(stream, Charset.forName("UTF-8"));
+			assertEquals(resource.toXML(), new String(stream.toByteArray(), "UTF-8"));
+		}
+	}
+
+	public void testNestedComponent() throws Exception {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Resource resource = new Resource(getValidElement(sVersion));
+			Title title = resource.getTitles().get(0);
+			StringWriter writer = new StringWriter();
+			title.writeXML(writer);
+			assertEquals(title.getXOMElementCopy().toXML(), writer.toString());
+			assertEquals(title, new Title(parse(writer.toString())));
+
+			// Every nested component, whether parsed or adopted by a Builder, writes the same XML as toXML()
+			Resource built = new Resource.Builder(resource).commit();
+			List<IDDMSComponent> components = new ArrayList<IDDMSComponent>(resource.getTopLevelComponents());
+			components.addAll(built.getTopLevelComponents());
+			for (IDDMSComponent component : components) {
+				writer = new StringWriter();
+				component.writeXML(writer);
+				assertEquals(component.toXML(), writer.toString());
+			}
+		}
+	}
+
+	public void testUnencodableCharacters() throws IOException {
+		Element element = Util.buildDDMSElement("title", "café 😀");
+		Util.addAttribute(element, "", "note", "", "é\t\"");
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		DDMSWriter writer = new DDMSWriter(stream, Charset.forName("US-ASCII"));
+		writer.write(element);
+		writer.flush();
+		String output = new String(stream.toByteArray(), "US-ASCII");
+		assertTrue(output.contains(" note=\"&#xE9;&#x09;&quot;\">caf&#xE9; &#x1F600;</"));
+
+		stream = new ByteArrayOutputStream();
+		writer = new DDMSWriter(stream, Charset.forName("UTF-8"));
+		writer.write(element);
+		writer.flush();
+		assertEquals(element.toXML(), new String(stream.toByteArray(), "UTF-8"));
+	}
+
+	public void testIndent() throws IOException {
+		Element parent = Util.buildDDMSElement("subjectCoverage", null);
+		Element keyword = Util.buildDDMSElement("keyword", null);
+		parent.appendChild(keyword);
+		Element title = Util.buildDDMSElement("title", " Text ");
+		parent.appendChild(title);
+		Element empty = Util.buildDDMSElement("description", null);
+		empty.appendChild("\n  ");
+		empty.appendChild(Util.buildDDMSElement("keyword", null));
+		parent.appendChild(empty);
+
+		StringWriter output = new StringWriter();
+		DDMSWriter writer = new DDMSWriter(output);
+		writer.setIndent(2);
+		assertEquals(2, writer.getIndent());
+		writer.write(parent);
+		writer.flush();
+		String prefix = PropertyReader.getPrefix("ddms");
+		String expected = "<" + prefix + ":subjectCoverage xmlns:" + prefix + "=\""
+			+ DDMSVersion.getCurrentVersion().getNamespace() + "\">\n  <" + prefix + ":keyword />\n  <" + prefix
+			+ ":title> Text </" + prefix + ":title>\n  <" + prefix + ":description>\n    <" + prefix + ":keyword />\n  </"
+			+ prefix + ":description>\n</" + prefix + ":subjectCoverage>";
+		assertEquals(expected, output.toString());
+	}
+
+	public void testInvalidIndent() {
+		try {
+			new DDMSWriter(new StringWriter()).setIndent(-1);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "The indent must be a non-negative integer.");
+		}
+	}
+
+	public void testCanonicalNamespaces() throws IOException {
+		Element parent = new Element("b:parent", "urn:b");
+		Element child = new Element("a:child", "urn:a");
+		child.addAttribute(new nu.xom.Attribute("c:note", "urn:c", "value"));
+		parent.appendChild(child);
+
+		StringWriter output = new StringWriter();
+		DDMSWriter writer = new DDMSWriter(output);
+		writer.setCanonicalNamespaces(true);
+		assertTrue(writer.isCanonicalNamespaces());
+		writer.write(parent);
+		writer.flush();
+		assertEquals("<b:parent xmlns:a=\"urn:a\" xmlns:b=\"urn:b\" xmlns:c=\"urn:c\"><a:child c:note=\"value\" />"
+			+ "</b:parent>", output.toString());
+	}
+
+	public void testBatch() throws Exception {
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		DDMSWriter writer = new DDMSWriter(stream, Charset.forName("UTF-8"));
+		writer.startDocument("ddms:resources", "urn:batch");
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			writer.write(new Resource(getValidElement(sVersion)));
+		}
+		writer.endDocument();
+		String output = new String(stream.toByteArray(), "UTF-8");
+		assertTrue(output.startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+			+ "<ddms:resources xmlns:ddms=\"urn:batch\">"));
+		assertTrue(output.endsWith("</ddms:resources>\n"));
+
+		Elements resources = parse(output).getChildElements();
+		assertEquals(getSupportedVersions().size(), resources.size());
+		for (int i = 0; i < resources.size(); i++) {
+			String sVersion = getSupportedVersions().get(i);
+			DDMSVersion.setCurrentVersion(sVersion);
+			assertEquals(new Resource(getValidElement(sVersion)), new Resource(resources.get(i)));
+		}
+	}
+
+	public void testDocumentState() throws IOException {
+		DDMSWriter writer = new DDMSWriter(new StringWriter());
+		try {
+			writer.endDocument();
+			fail("Allowed invalid state.");
+		}
+		catch (IllegalStateException e) {
+			expectMessage(e, "No wrapper document has been started.");
+		}
+		writer.startDocument("resources", null);
+		try {
+			writer.startDocument("resources", null);
+			fail("Allowed invalid state.");
+		}
+		catch (IllegalStateException e) {
+			expectMessage(e, "A wrapper document has already been started.");
+		}
+	}
+}
@@ -0,0 +1,214 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import nu.xom.Element;
+import nu.xom.Nodes;
+import nu.xom.Text;
+import nu.xom.XPathContext;
+
+import buri.ddmsence.AbstractBaseTestCase;
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.resource.Title;
+import buri.ddmsence.ddms.summary.VerticalExtent;
+
+/**
+ * A collection of tests related to the JSONWriter and JSONReader
+ * 
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public class JSONWriterTest extends AbstractBaseTestCase {
+
+	private static final String[] SAMPLE_FILES = new String[] { "2.0-earlierVersionExample.xml",
+		"3.0-extensibleLayerExample.xml", "3.1-boundingGeometryExample.xml", "3.1-identifierPostalAddressExample.xml",
+		"4.1-ddmsenceExample.xml", "4.1-irmExample.xml", "5.0-ddmsenceExample.xml" };
+
+	public JSONWriterTest() {
+		super("resource.xml");
+	}
+
+	/**
+	 * Reads the single Resource from some JSON
+	 */
+	private static Resource read(String json) throws Exception {
+		JSONReader reader = new JSONReader(new StringReader(json));
+		Resource resource = reader.readResource();
+		assertNull(reader.readResource());
+		return (resource);
+	}
+
+	/**
+	 * Checks that a Resource survives a round trip through JSON, under a different current version
+	 */
+	private static void assertRoundTrip(Resource resource, Resource expected) throws Exception {
+		String version = DDMSVersion.getVersionForNamespace(resource.getNamespace()).getVersion();
+		String json = resource.toJSON();
+		assertTrue(json.startsWith("{\"ddmsVersion\":\"" + version + "\","));
+		assertTrue(json.endsWith("]}\n"));
+
+		DDMSVersion.setCurrentVersion("2.0".equals(version) ? "5.0" : "2.0");
+		Resource restored = read(json);
+		assertEquals(version, DDMSVersion.getCurrentVersion().getVersion());
+		assertEquals(expected, restored);
+		assertEquals(json, restored.toJSON());
+	}
+
+	public void testRoundTrip() throws Exception {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Resource resource = new Resource(getValidElement(sVersion));
+			assertRoundTrip(resource, resource);
+		}
+	}
+
+	public void testSampleRoundTrip() throws Exception {
+		for (String file : SAMPLE_FILES) {
+			DDMSVersion version = DDMSVersion.getVersionFor(file.substring(0, 3));
+			DDMSVersion.setCurrentVersion(version.getVersion());
+			Resource resource = new DDMSReader(version).getDDMSResource(new File("src/main/resources/data/sample/"
+				+ file));
+			// Extensible elements only compare equal when their namespace declarations match, as with any Builder.
+			assertRoundTrip(resource, new Resource.Builder(resource).commit());
+		}
+	}
+
+	public void testComponentNames() throws Exception {
+		DDMSVersion.setCurrentVersion("5.0");
+		String json = new Resource(getValidElement("5.0")).toJSON();
+		assertTrue(json.contains("{\"metacardInfo\":{"));
+		assertTrue(json.contains("{\"title\":{"));
+		assertTrue(json.contains("{\"pointOfContact\":{"));
+		assertFalse(json.contains("\"componentPool\""));
+		assertFalse(json.contains("\"producers\""));
+	}
+
+	public void testMultipleResources() throws Exception {
+		StringWriter output = new StringWriter();
+		JSONWriter writer = new JSONWriter(output);
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			writer.write(new Resource(getValidElement(sVersion)));
+		}
+		writer.flush();
+		String lines = output.toString();
+		String array = "[" + lines.trim().replace("\n", ",\n") + "]";
+		for (String json : new String[] { lines, array }) {
+			JSONReader reader = new JSONReader(new StringReader(json));
+			for (String sVersion : getSupportedVersions()) {
+				Resource resource = reader.readResource();
+				assertEquals(sVersion, DDMSVersion.getCurrentVersion().getVersion());
+				assertEquals(new Resource(getValidElement(sVersion)), resource);
+			}
+			assertNull(reader.readResource());
+		}
+		assertNull(new JSONReader(new StringReader(" [ ] ")).readResource());
+	}
+
+	public void testEscaping() throws Exception {
+		DDMSVersion.setCurrentVersion("5.0");
+		Resource.Builder builder = new Resource.Builder(new Resource(getValidElement("5.0")));
+		String value = "Quote \" slash \\ tab \t line\n  é 😀";
+		builder.getTitles().get(0).setValue(value);
+		Resource resource = builder.commit();
+		String json = resource.toJSON();
+		assertTrue(json.contains("\"Quote \\\" slash \\\\ tab \\t line\\n\\u2028 é 😀\""));
+		assertEquals(value, read(json).getTitles().get(0).getValue());
+
+		String escaped = json.replace("Quote", "\\u0051uote\\/");
+		assertEquals("Quote/" + value.substring(5), read(escaped).getTitles().get(0).getValue());
+	}
+
+	public void testNonFiniteNumbers() throws Exception {
+		DDMSVersion.setCurrentVersion("4.1");
+		Resource.Builder builder = new Resource.Builder(new Resource(getValidElement("4.1")));
+		VerticalExtent.Builder extent = builder.getGeospatialCoverages().get(0).getVerticalExtent();
+		extent.setMinVerticalExtent(Double.valueOf(1.1));
+		extent.setMaxVerticalExtent(Double.valueOf(2.2));
+		extent.setUnitOfMeasure("Meter");
+		extent.setDatum("HAE");
+
+		// NaN is a valid xs:double
+		Element element = builder.commit().getXOMElementCopy();
+		Nodes values = element.query("//ddms:minVerticalExtent/text() | //ddms:maxVerticalExtent/text()",
+			new XPathContext("ddms", element.getNamespaceURI()));
+		assertEquals(2, values.size());
+		for (int i = 0; i < values.size(); i++)
+			((Text) values.get(i)).setValue("NaN");
+		Resource resource = new Resource(element);
+		String json = resource.toJSON();
+		assertTrue(json.contains("\"maxVerticalExtent\":\"NaN\",\"minVerticalExtent\":\"NaN\""));
+		Resource copy = read(json);
+		assertEquals(resource, copy);
+		assertTrue(copy.getGeospatialCoverages().get(0).getVerticalExtent().getMinVerticalExtent().isNaN());
+
+		// Infinite values are not valid xs:doubles in a Resource, but are still read back into a Builder
+		json = json.replace("\"maxVerticalExtent\":\"NaN\",\"minVerticalExtent\":\"NaN\"",
+			"\"maxVerticalExtent\":\"Infinity\",\"minVerticalExtent\":\"-Infinity\"");
+		VerticalExtent.Builder readExtent = new JSONReader(new StringReader(json)).readBuilder()
+			.getGeospatialCoverages().get(0).getVerticalExtent();
+		assertEquals(Double.valueOf(Double.NEGATIVE_INFINITY), readExtent.getMinVerticalExtent());
+		assertEquals(Double.valueOf(Double.POSITIVE_INFINITY), readExtent.getMaxVerticalExtent());
+
+		try {
+			read(json.replace("\"Infinity\"", "\"Big\""));
+			fail("Allowed invalid data.");
+		}
+		catch (InvalidDDMSException e) {
+			expectMessage(e, "The JSON property maxVerticalExtent must be a number: Big");
+		}
+	}
+
+	public void testFeedsBuilder() throws Exception {
+		DDMSVersion.setCurrentVersion("4.1");
+		String json = new Resource(getValidElement("4.1")).toJSON();
+		DDMSVersion.setCurrentVersion("5.0");
+		Resource.Builder builder = new JSONReader(new StringReader(json)).readBuilder();
+		assertEquals("4.1", DDMSVersion.getCurrentVersion().getVersion());
+		assertEquals(new Title.Builder(new Resource(getValidElement("4.1")).getTitles().get(0)).getValue(),
+			builder.getTitles().get(0).getValue());
+	}
+
+	public void testMalformedJSON() throws Exception {
+		DDMSVersion.setCurrentVersion("5.0");
+		String json = new Resource(getValidElement("5.0")).toJSON();
+		String[] inputs = new String[] { json.substring(0, json.length() - 3),
+			json.replace("\"metacardInfo\":", "\"metacard\":"), json.replace("\"ddmsVersion\":\"5.0\",", ""),
+			json.replace("\"ddmsVersion\":\"5.0\"", "\"ddmsVersion\":\"9.9\""), "{\"ddmsVersion\":\"5.0\",\"title\":[]}",
+			"{\"ddmsVersion\":\"5.0\",\"ntkDESVersion\":1.5}", "{\"ddmsVersion\":\"5.0\" \"components\":[]}" };
+		String[] messages = new String[] { "Malformed JSON at character", "Unknown JSON component: metacard",
+			"The JSON resource does not specify a ddmsVersion.", "9.9", "Unknown JSON property for a resource: title",
+			"The JSON property ntkDESVersion must be an integer: 1.5", "expected ',' or '}' but found '\"'" };
+		for (int i = 0; i < inputs.length; i++) {
+			try {
+				read(inputs[i]);
+				fail("Allowed invalid data.");
+			}
+			catch (InvalidDDMSException e) {
+				assertTrue(e.getMessage(), e.getMessage().contains(messages[i]));
+			}
+		}
+	}
+}
@@ -0,0 +1,156 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import buri.ddmsence.AbstractBaseTestCase;
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.summary.Category;
+import buri.ddmsence.ddms.summary.Keyword;
+import buri.ddmsence.ddms.summary.SubjectCoverage;
+import buri.ddmsence.util.ResourceIndex.Term;
+
+/**
+ * A collection of tests related to the ResourceIndex
+ * 
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public class ResourceIndexTest extends AbstractBaseTestCase {
+
+	public ResourceIndexTest() {
+		super("resource.xml");
+	}
+
+	/**
+	 * Returns a copy of the test resource with a different identifier and set of keywords
+	 */
+	private Resource getResource(String identifier, String... keywords) throws InvalidDDMSException {
+		DDMSVersion.setCurrentVersion("5.0");
+		Resource.Builder builder = new Resource.Builder(new Resource(getValidElement("5.0")));
+		builder.getIdentifiers().get(0).setValue(identifier);
+		List<Keyword.Builder> builders = builder.getSubjectCoverages().get(0).getKeywords();
+		builders.clear();
+		for (String value : keywords) {
+			Keyword.Builder keyword = new Keyword.Builder();
+			keyword.setValue(value);
+			builders.add(keyword);
+		}
+		return (builder.commit());
+	}
+
+	/**
+	 * Builds a list of identifiers
+	 */
+	private static List<String> ids(String... identifiers) {
+		List<String> list = new ArrayList<String>();
+		for (String identifier : identifiers)
+			list.add(identifier);
+		return (list);
+	}
+
+	public void testFields() throws InvalidDDMSException {
+		ResourceIndex index = new ResourceIndex();
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Resource resource = new Resource(getValidElement(sVersion));
+			String identifier = index.add(resource);
+			assertEquals(resource.getIdentifiers().get(0).getValue(), identifier);
+			for (SubjectCoverage coverage : resource.getSubjectCoverages()) {
+				for (Keyword keyword : coverage.getKeywords())
+					assertTrue(index.find(ResourceIndex.KEYWORD_FIELD, keyword.getValue()).contains(identifier));
+				for (Category category : coverage.getCategories()) {
+					assertTrue(index.find(ResourceIndex.CATEGORY_QUALIFIER_FIELD, category.getQualifier()).contains(
+						identifier));
+					assertTrue(index.find(ResourceIndex.CATEGORY_CODE_FIELD, category.getCode()).contains(identifier));
+					assertTrue(index.find(ResourceIndex.CATEGORY_LABEL_FIELD, category.getLabel())
+						.contains(identifier));
+				}
+			}
+		}
+
+		Resource.Builder builder = new Resource.Builder(new Resource(getValidElement("5.0")));
+		builder.getIdentifiers().get(0).setValue("urn:actor");
+		builder.getSubjectCoverages().get(0).getNonStateActors().get(0).setValue("Laotian Monks");
+		index.add(builder.commit());
+		assertEquals(ids("urn:actor"), index.find(ResourceIndex.NON_STATE_ACTOR_FIELD, "Laotian Monks"));
+		assertTrue(index.find(ResourceIndex.KEYWORD_FIELD, "ddmsence").isEmpty());
+	}
+
+	public void testQueries() throws InvalidDDMSException {
+		ResourceIndex index = new ResourceIndex();
+		index.add(getResource("urn:1", "red", "green"));
+		index.add(getResource("urn:2", "red", "blue", "red"));
+		index.add(getResource("urn:3", "green", "blue"));
+		index.add(getResource("urn:4", "red", "green", "blue"));
+		Term red = new Term(ResourceIndex.KEYWORD_FIELD, "red");
+		Term green = new Term(ResourceIndex.KEYWORD_FIELD, "green");
+		Term blue = new Term(ResourceIndex.KEYWORD_FIELD, "blue");
+		Term missing = new Term(ResourceIndex.KEYWORD_FIELD, "missing");
+
+		assertEquals(ids("urn:1", "urn:2", "urn:4"), index.find(ResourceIndex.KEYWORD_FIELD, "red"));
+		assertEquals(ids("urn:1", "urn:4"), index.findAll(red, green));
+		assertEquals(ids("urn:4"), index.findAll(blue, green, red));
+		assertEquals(ids(), index.findAll(red, missing));
+		assertEquals(ids(), index.findAll());
+		assertEquals(ids("urn:2", "urn:3", "urn:4"), index.findAny(blue, missing));
+		assertEquals(ids("urn:1", "urn:2", "urn:3", "urn:4"), index.findAny(red, blue));
+		assertEquals(ids(), index.findAny(missing));
+		assertEquals(4, index.size());
+		assertEquals("keyword:red", red.toString());
+		assertEquals(red, new Term(ResourceIndex.KEYWORD_FIELD, "red"));
+		try {
+			new Term("title", "red");
+			fail("Allowed an unknown field.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "Unknown index field: title");
+		}
+	}
+
+	public void testChanges() throws InvalidDDMSException {
+		ResourceIndex index = new ResourceIndex();
+		for (int i = 0; i < 200; i++)
+			index.add(getResource("urn:" + i, "all", (i % 2 == 0 ? "even" : "odd")));
+		Term all = new Term(ResourceIndex.KEYWORD_FIELD, "all");
+		Term even = new Term(ResourceIndex.KEYWORD_FIELD, "even");
+
+		// Replacing moves a Resource to the end of the order.
+		index.add(getResource("urn:0", "all", "odd"));
+		assertEquals(99, index.findAll(all, even).size());
+		assertEquals("urn:0", index.find(ResourceIndex.KEYWORD_FIELD, "odd").get(100));
+		assertTrue(index.remove("urn:1"));
+		assertFalse(index.remove("urn:1"));
+		assertFalse(index.contains("urn:1"));
+
+		// Removing most Resources renumbers the rest.
+		for (int i = 2; i < 190; i++)
+			index.remove("urn:" + i);
+		assertEquals(11, index.size());
+		assertEquals(ids("urn:190", "urn:192", "urn:194", "urn:196", "urn:198"), index.findAll(even, all));
+		assertEquals(11, index.findAny(all).size());
+		index.add(getResource("urn:new", "even"));
+		assertEquals("urn:new", index.find(ResourceIndex.KEYWORD_FIELD, "even").get(5));
+		assertTrue(index.find(ResourceIndex.KEYWORD_FIELD, "odd").contains("urn:0"));
+	}
+}
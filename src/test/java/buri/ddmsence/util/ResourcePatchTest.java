@@ -0,0 +1,198 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import buri.ddmsence.AbstractBaseTestCase;
+import buri.ddmsence.ComponentChange;
+import buri.ddmsence.ComponentDiff;
+import buri.ddmsence.ddms.IDDMSComponent;
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.resource.Subtitle;
+import buri.ddmsence.ddms.resource.Title;
+import buri.ddmsence.ddms.summary.Keyword;
+
+/**
+ * A collection of tests related to the ResourcePatch
+ * 
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public class ResourcePatchTest extends AbstractBaseTestCase {
+
+	public ResourcePatchTest() {
+		super("resource.xml");
+	}
+
+	/**
+	 * Converts the differences between two resources into their String forms
+	 */
+	private static List<String> diff(Resource original, Resource changed) {
+		List<String> strings = new ArrayList<String>();
+		for (ComponentChange change : ComponentDiff.diff(original, changed))
+			strings.add(change.toString());
+		return (strings);
+	}
+
+	public void testSharedComponents() throws InvalidDDMSException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Resource resource = new Resource(getValidElement(sVersion));
+			String original = resource.toXML();
+			ResourcePatch patch = new ResourcePatch().set("titles[0]/value", "Patched Title");
+			patch.add("subjectCoverages/keywords", new Keyword("Patched", null));
+			Resource patched = patch.applyTo(resource);
+
+			Resource.Builder builder = new Resource.Builder(resource);
+			builder.getTitles().get(0).setValue("Patched Title");
+			Keyword.Builder keyword = new Keyword.Builder();
+			keyword.setValue("Patched");
+			builder.getSubjectCoverages().get(0).getKeywords().add(keyword);
+			assertEquals(builder.commit(), patched);
+			assertEquals(original, resource.toXML());
+
+			List<IDDMSComponent> components = patched.getTopLevelComponents();
+			assertEquals(resource.getTopLevelComponents().size(), components.size());
+			for (int i = 0; i < components.size(); i++) {
+				IDDMSComponent component = components.get(i);
+				if (component instanceof Title || component == patched.getSubjectCoverages().get(0))
+					assertNotSame(resource.getTopLevelComponents().get(i), component);
+				else
+					assertSame(resource.getTopLevelComponents().get(i), component);
+			}
+		}
+	}
+
+	public void testAddAndRemove() throws InvalidDDMSException {
+		DDMSVersion.setCurrentVersion("5.0");
+		Resource resource = new Resource(getValidElement("5.0"));
+		Subtitle subtitle = new Subtitle("Second Subtitle", resource.getTitles().get(0).getSecurityAttributes());
+		ResourcePatch patch = new ResourcePatch().remove("subtitles[0]").add("subtitles", subtitle);
+		patch.add("metacardInfo/securityAttributes/ownerProducers", "AUS");
+		patch.remove("metacardInfo/securityAttributes/ownerProducers", "USA");
+		Resource patched = patch.applyTo(resource);
+		assertEquals(4, patch.size());
+		assertSame(subtitle, patched.getSubtitles().get(0));
+		assertEquals(1, patched.getSubtitles().size());
+		assertEquals("[AUS]", patched.getMetacardInfo().getSecurityAttributes().getOwnerProducers().toString());
+
+		List<String> changes = diff(resource, patched);
+		assertEquals(2, changes.size());
+		assertEquals("Modified: /ddms:resource/ddms:metacardInfo [ism:ownerProducer]", changes.get(0));
+		assertEquals("Modified: /ddms:resource/ddms:subtitle", changes.get(1));
+
+		// Setting a single top-level component replaces it, and an empty component is removed.
+		Title title = new Title("Replaced", subtitle.getSecurityAttributes());
+		patched = new ResourcePatch().set("titles", title).remove("description").applyTo(resource);
+		assertEquals("Replaced", patched.getTitles().get(0).getValue());
+		assertNull(patched.getDescription());
+		assertSame(resource.getDates(), patched.getDates());
+	}
+
+	public void testResourceAttributes() throws InvalidDDMSException {
+		DDMSVersion.setCurrentVersion("4.1");
+		Resource resource = new Resource(getValidElement("4.1"));
+		DDMSVersion.setCurrentVersion("5.0");
+		ResourcePatch patch = new ResourcePatch().set("createDate", "2012-01-01");
+		patch.set("securityAttributes/classification", "C").remove("ismDESVersion");
+		patch.set("ismDESVersion", Integer.valueOf(9));
+		Resource patched = patch.applyTo(resource);
+		assertEquals("5.0", DDMSVersion.getCurrentVersion().getVersion());
+		assertEquals("2012-01-01", patched.getCreateDate().toXMLFormat());
+		assertEquals("C", patched.getSecurityAttributes().getClassification());
+		assertEquals(Integer.valueOf(9), patched.getIsmDESVersion());
+		for (int i = 0; i < patched.getTopLevelComponents().size(); i++)
+			assertSame(resource.getTopLevelComponents().get(i), patched.getTopLevelComponents().get(i));
+		assertSame(resource, new ResourcePatch().applyTo(resource));
+	}
+
+	public void testInvalidOperations() {
+		ResourcePatch patch = new ResourcePatch();
+		String[] paths = new String[] { "title", "titles[0]/missing", "titles[x]/value", "titles[0]/value/extra",
+			"description[0]/abstract", "extensibleAttributes/attributes" };
+		for (String path : paths) {
+			try {
+				patch.set(path, "value");
+				fail("Allowed invalid path: " + path);
+			}
+			catch (IllegalArgumentException e) {
+				assertTrue(e.getMessage(), e.getMessage().endsWith(path));
+			}
+		}
+		try {
+			patch.set("ismDESVersion", "9");
+			fail("Allowed invalid value.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "A Integer is required for ismDESVersion");
+		}
+		try {
+			patch.add("titles/value", "value");
+			fail("Allowed invalid operation.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "Values can only be added to a list: titles/value");
+		}
+		try {
+			patch.add("titles", "value");
+			fail("Allowed invalid value.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "A Title is required for titles");
+		}
+		assertEquals(0, patch.size());
+	}
+
+	public void testInvalidResults() throws InvalidDDMSException {
+		DDMSVersion.setCurrentVersion("5.0");
+		Resource resource = new Resource(getValidElement("5.0"));
+		try {
+			new ResourcePatch().set("titles[3]/value", "value").applyTo(resource);
+			fail("Allowed invalid index.");
+		}
+		catch (InvalidDDMSException e) {
+			expectMessage(e, "No component exists at the path: titles[3]/value");
+		}
+		try {
+			new ResourcePatch().remove("subjectCoverages/keywords[5]").applyTo(resource);
+			fail("Allowed invalid index.");
+		}
+		catch (InvalidDDMSException e) {
+			expectMessage(e, "No component exists at the path: subjectCoverages/keywords[5]");
+		}
+		try {
+			new ResourcePatch().remove("titles[0]").applyTo(resource);
+			fail("Allowed invalid resource.");
+		}
+		catch (InvalidDDMSException e) {
+			expectMessage(e, "title");
+		}
+		try {
+			new ResourcePatch().set("titles[0]/securityAttributes/classification", "Z").applyTo(resource);
+			fail("Allowed invalid component.");
+		}
+		catch (InvalidDDMSException e) {
+			expectMessage(e, "Z is not a valid enumeration token");
+		}
+	}
+}
@@ -0,0 +1,170 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import buri.ddmsence.AbstractBaseTestCase;
+import buri.ddmsence.ddms.Resource;
+
+/**
+ * A collection of tests related to the ResourceStore
+ * 
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public class ResourceStoreTest extends AbstractBaseTestCase {
+
+	private File _directory;
+
+	public ResourceStoreTest() {
+		super("resource.xml");
+	}
+
+	/**
+	 * Creates an empty directory for each store
+	 */
+	protected void setUp() throws Exception {
+		super.setUp();
+		_directory = File.createTempFile("store", "");
+		assertTrue(_directory.delete() && _directory.mkdir());
+	}
+
+	/**
+	 * Deletes the store directory
+	 */
+	protected void tearDown() throws Exception {
+		File[] files = _directory.listFiles();
+		for (int i = 0; files != null && i < files.length; i++)
+			files[i].delete();
+		_directory.delete();
+		super.tearDown();
+	}
+
+	/**
+	 * Returns a copy of a resource with a different first identifier
+	 */
+	private Resource getResource(String sVersion, String identifier) throws Exception {
+		DDMSVersion.setCurrentVersion(sVersion);
+		Resource.Builder builder = new Resource.Builder(new Resource(getValidElement(sVersion)));
+		builder.getIdentifiers().get(0).setValue(identifier);
+		return (builder.commit());
+	}
+
+	public void testRoundTrip() throws Exception {
+		ResourceStore store = new ResourceStore(_directory);
+		List<Resource> resources = new ArrayList<Resource>();
+		for (String sVersion : getSupportedVersions()) {
+			resources.add(getResource(sVersion, "urn:test:" + sVersion));
+			Resource resource = new Resource(getValidElement(sVersion));
+			assertEquals(resource.getIdentifiers().get(0).getValue(), store.put(resource));
+		}
+		for (Resource resource : resources)
+			store.put(resource);
+		assertEquals(resources.size() + 1, store.size());
+		for (Resource resource : resources) {
+			String identifier = resource.getIdentifiers().get(0).getValue();
+			assertTrue(store.contains(identifier));
+			assertEquals(resource, store.get(identifier));
+			assertEquals(resource.toXML(), store.get(identifier).toXML());
+		}
+		assertNull(store.get("urn:missing"));
+		assertNull(store.getRecord("urn:missing"));
+		store.close();
+		store.close();
+		try {
+			store.getRecord("urn:test:5.0");
+			fail("Allowed a closed store.");
+		}
+		catch (IllegalStateException e) {
+			expectMessage(e, "The store is closed.");
+		}
+	}
+
+	public void testReopen() throws Exception {
+		ResourceStore store = new ResourceStore(_directory, 4096);
+		for (int i = 0; i < 20; i++)
+			store.put(getResource("5.0", "urn:test:" + i));
+		Resource replacement = getResource("4.1", "urn:test:3");
+		store.put(replacement);
+		assertTrue(store.remove("urn:test:7"));
+		assertFalse(store.remove("urn:test:7"));
+		store.close();
+		assertTrue(_directory.listFiles().length > 1);
+
+		store = new ResourceStore(_directory, 4096);
+		assertEquals(19, store.size());
+		assertFalse(store.contains("urn:test:7"));
+		assertEquals(replacement, store.get("urn:test:3"));
+		assertEquals("4.1", DDMSVersion.getCurrentVersion().getVersion());
+		assertEquals(getResource("5.0", "urn:test:19"), store.get("urn:test:19"));
+		assertEquals(19, store.getIdentifiers().size());
+		store.close();
+	}
+
+	public void testLargeRecord() throws Exception {
+		ResourceStore store = new ResourceStore(_directory, 64);
+		Resource resource = getResource("5.0", "urn:test:large");
+		store.put(resource);
+		store.put(getResource("5.0", "urn:test:next"));
+		assertEquals(2, _directory.listFiles().length);
+		assertEquals(resource, store.get("urn:test:large"));
+		store.close();
+		try {
+			new ResourceStore(_directory, 16);
+			fail("Allowed a small segment size.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "The segment size must be larger than 17 bytes.");
+		}
+	}
+
+	public void testInterruptedWrite() throws Exception {
+		ResourceStore store = new ResourceStore(_directory);
+		store.put(getResource("5.0", "urn:test:first"));
+		store.put(getResource("5.0", "urn:test:second"));
+		int secondOffset = getResource("5.0", "urn:test:first").toBinary().length + "urn:test:first".length() + 13;
+		store.close();
+
+		// Damage the payload of the second record, as if the process had died while writing it.
+		File segment = _directory.listFiles()[0];
+		RandomAccessFile file = new RandomAccessFile(segment, "rw");
+		file.seek(secondOffset + 20);
+		int value = file.read();
+		file.seek(secondOffset + 20);
+		file.write(~value);
+		file.close();
+
+		store = new ResourceStore(_directory);
+		assertEquals(1, store.size());
+		assertTrue(store.contains("urn:test:first"));
+		Resource third = getResource("3.1", "urn:test:third");
+		store.put(third);
+		store.close();
+
+		store = new ResourceStore(_directory);
+		assertEquals(2, store.size());
+		assertEquals(third, store.get("urn:test:third"));
+		store.close();
+	}
+}
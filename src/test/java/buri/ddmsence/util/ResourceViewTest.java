@@ -0,0 +1,185 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import buri.ddmsence.AbstractBaseTestCase;
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.summary.Keyword;
+import buri.ddmsence.ddms.summary.SubjectCoverage;
+
+/**
+ * A collection of tests related to the ResourceView
+ * 
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public class ResourceViewTest extends AbstractBaseTestCase {
+
+	public ResourceViewTest() {
+		super("resource.xml");
+	}
+
+	/**
+	 * Returns the classification which marks a resource as a whole
+	 */
+	private static String getClassification(Resource resource) {
+		if (resource.getMetacardInfo() != null && Util.isEmpty(resource.getSecurityAttributes().getClassification()))
+			return (resource.getMetacardInfo().getSecurityAttributes().getClassification());
+		if (Util.isEmpty(resource.getSecurityAttributes().getClassification()))
+			return (resource.getSecurity().getSecurityAttributes().getClassification());
+		return (resource.getSecurityAttributes().getClassification());
+	}
+
+	public void testValues() throws InvalidDDMSException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Resource resource = new Resource(getValidElement(sVersion));
+			ResourceView view = new ResourceView(resource.toBinary());
+			assertEquals(sVersion, view.getDDMSVersion().getVersion());
+			assertEquals(Arrays.asList(resource.getFormat().getMimeType()), view.getMimeTypes());
+			List<String> keywords = new ArrayList<String>();
+			for (SubjectCoverage coverage : resource.getSubjectCoverages()) {
+				for (Keyword keyword : coverage.getKeywords())
+					keywords.add(keyword.getValue());
+			}
+			assertEquals(keywords, view.getKeywords());
+			assertEquals(resource.getTitles().get(0).getValue(), view.getTitles().get(0));
+			assertTrue(view.getIdentifiers().contains(resource.getIdentifiers().get(0).getValue()));
+			assertEquals(getClassification(resource), view.getClassification());
+			assertEquals(resource, view.toResource());
+			assertTrue(view.getValues("unknownElement").isEmpty());
+			assertTrue(view.getAttributeValues("keyword", "unknownAttribute").isEmpty());
+		}
+	}
+
+	public void testSamples() throws Exception {
+		File[] files = new File("src/main/resources/data/sample/").listFiles();
+		for (File file : files) {
+			if (!file.getName().endsWith(".xml") || file.getName().contains("invalid"))
+				continue;
+			DDMSVersion version = DDMSVersion.getVersionFor(file.getName().substring(0, 3));
+			Resource resource = new DDMSReader(version).getDDMSResource(file);
+			ResourceView view = new ResourceView(resource.toBinary());
+			assertEquals(resource.getFormat() == null ? 0 : 1, view.getMimeTypes().size());
+			assertEquals(getClassification(resource), view.getClassification());
+			assertEquals(resource.getTitles().size(), view.getTitles().size());
+		}
+	}
+
+	public void testBuffer() throws Exception {
+		DDMSVersion.setCurrentVersion("5.0");
+		Resource resource = new Resource(getValidElement("5.0"));
+		byte[] record = resource.toBinary();
+		ByteBuffer buffer = ByteBuffer.allocateDirect(record.length + 10);
+		buffer.position(5);
+		buffer.put(record);
+		buffer.position(5);
+		buffer.limit(5 + record.length);
+		ResourceView view = new ResourceView(buffer);
+		assertEquals(5, buffer.position());
+		assertEquals("[DDMSence]", view.getKeywords().toString());
+
+		File directory = File.createTempFile("store", "");
+		assertTrue(directory.delete());
+		ResourceStore store = new ResourceStore(directory);
+		String identifier = store.put(resource);
+		view = store.getView(identifier);
+		assertNull(store.getView("urn:missing"));
+		store.close();
+		assertEquals(view.getMimeTypes(), new ResourceView(record).getMimeTypes());
+		assertEquals(resource, view.toResource());
+		new File(directory, "segment-00000.ddmb").delete();
+		directory.delete();
+	}
+
+	public void testInvalidRecords() throws InvalidDDMSException {
+		DDMSVersion.setCurrentVersion("5.0");
+		Resource resource = new Resource(getValidElement("5.0"));
+		byte[] record = resource.toBinary();
+		try {
+			new ResourceView(Arrays.copyOf(record, record.length / 2));
+			fail("Allowed a truncated record.");
+		}
+		catch (InvalidDDMSException e) {
+			expectMessage(e, "The binary record is truncated.");
+		}
+		try {
+			new ResourceView("Not a record".getBytes());
+			fail("Allowed an invalid record.");
+		}
+		catch (InvalidDDMSException e) {
+			expectMessage(e, "The record is not a DDMSence binary record.");
+		}
+		try {
+			new ResourceView(BinaryCodec.encode(resource.getTitles().get(0)));
+			fail("Allowed a record without a resource.");
+		}
+		catch (InvalidDDMSException e) {
+			expectMessage(e, "The record does not contain a DDMS resource.");
+		}
+	}
+
+	public void testMalformedRecords() throws InvalidDDMSException {
+		DDMSVersion.setCurrentVersion("5.0");
+		byte[] record = new Resource(getValidElement("5.0")).toBinary();
+		byte[] wrongFormat = record.clone();
+		wrongFormat[4] = (byte) (BinaryCodec.FORMAT_VERSION + 1);
+
+		// The version string in the header is an inline string: a 0 reference, then its length
+		byte[] negativeLength = Arrays.copyOf(record, 11);
+		negativeLength[5] = 0;
+		System.arraycopy(new byte[] { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F }, 0, negativeLength, 6,
+			5);
+		byte[] longLength = Arrays.copyOf(record, 8);
+		longLength[5] = 0;
+		longLength[6] = (byte) 0xFF;
+		longLength[7] = 0x7F;
+		byte[] longInteger = Arrays.copyOf(record, 12);
+		longInteger[5] = 0;
+		Arrays.fill(longInteger, 6, 12, (byte) 0x80);
+		String[] messages = new String[] {
+			"Unsupported binary format version: " + (BinaryCodec.FORMAT_VERSION + 1),
+			"Invalid integer in binary record.", "The binary record is truncated.", "Invalid integer in binary record." };
+		byte[][] records = new byte[][] { wrongFormat, negativeLength, longLength, longInteger };
+		for (int i = 0; i < records.length; i++) {
+			try {
+				new ResourceView(records[i]);
+				fail("Allowed invalid data.");
+			}
+			catch (InvalidDDMSException e) {
+				expectMessage(e, messages[i]);
+			}
+			try {
+				BinaryCodec.decodeResource(records[i]);
+				fail("Allowed invalid data.");
+			}
+			catch (InvalidDDMSException e) {
+				expectMessage(e, messages[i]);
+			}
+		}
+	}
+}
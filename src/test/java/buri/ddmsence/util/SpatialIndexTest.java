@@ -0,0 +1,243 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import buri.ddmsence.AbstractBaseTestCase;
+import buri.ddmsence.ddms.ITspiShape;
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.summary.BoundingBox;
+import buri.ddmsence.ddms.summary.BoundingGeometry;
+import buri.ddmsence.ddms.summary.GeospatialCoverage;
+import buri.ddmsence.ddms.summary.gml.Polygon;
+import buri.ddmsence.ddms.summary.gml.Position;
+import buri.ddmsence.ddms.summary.gml.SRSAttributes;
+import buri.ddmsence.ddms.summary.tspi.Circle;
+import buri.ddmsence.ddms.summary.tspi.Envelope;
+
+/**
+ * A collection of tests related to the SpatialIndex
+ * 
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public class SpatialIndexTest extends AbstractBaseTestCase {
+
+	private static final String TSPI_NAMESPACES = "xmlns:tspi=\"http://metadata.ces.mil/mdr/ns/GSIP/tspi/2.0\" "
+		+ "xmlns:gml=\"http://www.opengis.net/gml/3.2\" "
+		+ "xmlns:tspi-core=\"http://metadata.ces.mil/mdr/ns/GSIP/tspi/2.0/core\" "
+		+ "xmlns:gmlce=\"http://www.opengis.net/gml/3.3/ce\" "
+		+ "srsName=\"http://metadata.ces.mil/mdr/ns/GSIP/crs/WGS84E_2D\"";
+
+	public SpatialIndexTest() {
+		super("resource.xml");
+	}
+
+	/**
+	 * Returns a copy of the DDMS 4.1 test resource with a different identifier and a set of geospatial coverages
+	 */
+	private Resource getResource(String identifier, GeospatialCoverage... coverages) throws InvalidDDMSException {
+		DDMSVersion.setCurrentVersion("4.1");
+		Resource.Builder builder = new Resource.Builder(new Resource(getValidElement("4.1")));
+		builder.getIdentifiers().get(0).setValue(identifier);
+		builder.getGeospatialCoverages().clear();
+		for (GeospatialCoverage coverage : coverages)
+			builder.getGeospatialCoverages().add(new GeospatialCoverage.Builder(coverage));
+		return (builder.commit());
+	}
+
+	/**
+	 * Builds a DDMS 4.1 coverage with a bounding box
+	 */
+	private static GeospatialCoverage getBox(double west, double east, double south, double north)
+		throws InvalidDDMSException {
+		DDMSVersion.setCurrentVersion("4.1");
+		return (new GeospatialCoverage(null, new BoundingBox(west, east, south, north), null, null, null, null, null,
+			null));
+	}
+
+	/**
+	 * Builds a DDMS 4.1 coverage with a closed polygon, from pairs of latitudes and longitudes
+	 */
+	private static GeospatialCoverage getPolygon(double... coordinates) throws InvalidDDMSException {
+		DDMSVersion.setCurrentVersion("4.1");
+		SRSAttributes srsAttributes = new SRSAttributes("http://metadata.dod.mil/mdr/ns/GSIP/crs/WGS84E_2D", null,
+			null, null);
+		List<Position> positions = new ArrayList<Position>();
+		for (int i = 0; i <= coordinates.length; i += 2) {
+			List<Double> position = new ArrayList<Double>();
+			position.add(Double.valueOf(coordinates[i % coordinates.length]));
+			position.add(Double.valueOf(coordinates[(i + 1) % coordinates.length]));
+			positions.add(new Position(position, null));
+		}
+		List<Polygon> polygons = new ArrayList<Polygon>();
+		polygons.add(new Polygon(positions, srsAttributes, TEST_ID));
+		return (new GeospatialCoverage(null, null, new BoundingGeometry(polygons, null), null, null, null, null, null));
+	}
+
+	/**
+	 * Builds a list of identifiers
+	 */
+	private static List<String> ids(String... identifiers) {
+		List<String> list = new ArrayList<String>();
+		for (String identifier : identifiers)
+			list.add(identifier);
+		return (list);
+	}
+
+	public void testShapes() throws InvalidDDMSException {
+		// Every test resource has a point at 32.1 N, 40.1 E.
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			SpatialIndex index = new SpatialIndex();
+			String identifier = index.add(new Resource(getValidElement(sVersion)));
+			assertEquals(ids(identifier), index.findIntersecting(40, 41, 32, 33));
+			assertEquals(ids(identifier), index.findContaining(40.1, 40.1, 32.1, 32.1));
+			assertEquals(ids(identifier), index.findWithin(40, 41, 32, 33));
+			assertEquals(ids(identifier), index.findNearest(0, 0, 5));
+			assertTrue(index.findIntersecting(41, 42, 32, 33).isEmpty());
+			assertTrue(index.findContaining(40, 41, 32, 33).isEmpty());
+		}
+
+		DDMSVersion.setCurrentVersion("5.0");
+		Resource.Builder builder = new Resource.Builder(new Resource(getValidElement("5.0")));
+		builder.getIdentifiers().get(0).setValue("urn:tspi");
+		List<ITspiShape> shapes = new ArrayList<ITspiShape>();
+		Envelope.Builder envelope = new Envelope.Builder();
+		envelope.setXml("<tspi:Envelope " + TSPI_NAMESPACES + " gml:id=\"EnvelopeExample\"><tspi-core:lowerCorner>"
+			+ "<gml:pos>51.0667 -1.8</gml:pos></tspi-core:lowerCorner><tspi-core:upperCorner><gml:pos>52.75 -1.2"
+			+ "</gml:pos></tspi-core:upperCorner></tspi:Envelope>");
+		shapes.add(envelope.commit());
+		Circle.Builder circle = new Circle.Builder();
+		circle.setXml("<tspi:Circle " + TSPI_NAMESPACES + " gml:id=\"CircleExample\" numArc=\"1\" "
+			+ "interpolation=\"circularArcCenterPointWithRadius\"><gml:pos>10.0 20.0</gml:pos><gmlce:radius "
+			+ "uom=\"http://metadata.ces.mil/mdr/ns/GSIP/uom/length/kilometre\">20</gmlce:radius><gmlce:startAngle "
+			+ "uom=\"http://metadata.ces.mil/mdr/ns/GSIP/uom/planeAngle/arcDegree\">0</gmlce:startAngle><gmlce:endAngle "
+			+ "uom=\"http://metadata.ces.mil/mdr/ns/GSIP/uom/planeAngle/arcDegree\">360</gmlce:endAngle></tspi:Circle>");
+		shapes.add(circle.commit());
+		builder.getGeospatialCoverages().get(0).setBoundingGeometry(
+			new BoundingGeometry.Builder(new BoundingGeometry(shapes)));
+		SpatialIndex index = new SpatialIndex();
+		index.add(builder.commit());
+		assertEquals(ids("urn:tspi"), index.findContaining(-1.5, -1.5, 52, 52));
+		assertEquals(ids("urn:tspi"), index.findIntersecting(20.1, 20.2, 10.1, 10.15));
+		assertTrue(index.findIntersecting(20.1, 20.2, 10.2, 10.3).isEmpty());
+		assertEquals("urn:tspi", index.findNearest(10.5, 20, 1).get(0));
+	}
+
+	public void testAntimeridian() throws InvalidDDMSException {
+		SpatialIndex index = new SpatialIndex();
+		index.add(getResource("urn:box", getBox(170, -170, -10, 10)));
+		index.add(getResource("urn:polygon", getPolygon(20, 175, 20, -175, 30, -175, 30, 175)));
+		index.add(getResource("urn:prime", getBox(-5, 5, -10, 10)));
+
+		assertEquals(ids("urn:box"), index.findIntersecting(175, 176, 0, 1));
+		assertEquals(ids("urn:box"), index.findIntersecting(-175, -174, 0, 1));
+		assertEquals(ids("urn:box", "urn:polygon"), index.findIntersecting(179, -179, 0, 25));
+		assertEquals(ids("urn:prime"), index.findIntersecting(0, 1, 0, 1));
+		assertEquals(ids("urn:box"), index.findContaining(178, -178, -1, 1));
+		assertEquals(ids("urn:polygon"), index.findContaining(179, -179, 24, 26));
+		assertTrue(index.findContaining(160, -178, -1, 1).isEmpty());
+		assertEquals(ids("urn:box", "urn:polygon"), index.findWithin(160, -160, -20, 40));
+		assertEquals(ids("urn:box", "urn:polygon", "urn:prime"), index.findWithin(-180, 180, -90, 90));
+		assertEquals(ids("urn:box", "urn:polygon", "urn:prime"), index.findNearest(12, -179, 3));
+		assertEquals(ids("urn:polygon", "urn:box"), index.findNearest(25, 179, 2));
+	}
+
+	public void testPolygons() throws InvalidDDMSException {
+		SpatialIndex index = new SpatialIndex();
+
+		// A triangle whose envelope covers 0 to 10 in both directions.
+		index.add(getResource("urn:triangle", getPolygon(0, 0, 0, 10, 10, 0)));
+		assertEquals(ids("urn:triangle"), index.findIntersecting(1, 2, 1, 2));
+		assertEquals(ids("urn:triangle"), index.findContaining(1, 2, 1, 2));
+		assertEquals(ids("urn:triangle"), index.findIntersecting(4, 6, 4, 6));
+		assertTrue(index.findContaining(4, 6, 4, 6).isEmpty());
+		assertTrue(index.findIntersecting(8, 9, 8, 9).isEmpty());
+		assertTrue(index.findContaining(8, 8, 8, 8).isEmpty());
+		assertEquals(ids("urn:triangle"), index.findIntersecting(-1, 11, -1, 11));
+		assertEquals(ids("urn:triangle"), index.findWithin(0, 10, 0, 10));
+		assertTrue(index.findWithin(0, 9, 0, 10).isEmpty());
+
+		// The nearest shape is measured to the polygon, not to its envelope.
+		index.add(getResource("urn:box", getBox(9.5, 10.5, 9.5, 10.5)));
+		assertEquals(ids("urn:box", "urn:triangle"), index.findNearest(8, 8, 2));
+		assertEquals(ids("urn:triangle"), index.findNearest(2, 2, 1));
+		try {
+			index.findIntersecting(0, 1, 2, 1);
+			fail("Allowed an invalid area.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "Latitude values must be between -90 and 90 degrees");
+		}
+	}
+
+	public void testPacking() throws InvalidDDMSException {
+		SpatialIndex index = new SpatialIndex();
+		Random random = new Random(42);
+		List<double[]> boxes = new ArrayList<double[]>();
+		for (int i = 0; i < 300; i++) {
+			double west = random.nextDouble() * 340 - 170;
+			double south = random.nextDouble() * 160 - 80;
+			double[] box = new double[] { west, west + random.nextDouble() * 10, south, south + random.nextDouble() * 10 };
+			boxes.add(box);
+			index.add(getResource("urn:" + i, getBox(box[0], box[1], box[2], box[3])));
+		}
+		index.add(getResource("urn:empty"));
+		assertEquals(301, index.size());
+
+		// Every query agrees with a test of every box.
+		for (int i = 0; i < 50; i++) {
+			double west = random.nextDouble() * 300 - 150;
+			double south = random.nextDouble() * 120 - 60;
+			double east = west + random.nextDouble() * 30;
+			double north = south + random.nextDouble() * 30;
+			List<String> intersecting = new ArrayList<String>();
+			List<String> within = new ArrayList<String>();
+			for (int j = 0; j < boxes.size(); j++) {
+				double[] box = boxes.get(j);
+				if (box[0] <= east && box[1] >= west && box[2] <= north && box[3] >= south)
+					intersecting.add("urn:" + j);
+				if (box[0] >= west && box[1] <= east && box[2] >= south && box[3] <= north)
+					within.add("urn:" + j);
+			}
+			assertEquals(intersecting, index.findIntersecting(west, east, south, north));
+			assertEquals(within, index.findWithin(west, east, south, north));
+		}
+
+		// Changes are seen by the next query.
+		double[] first = boxes.get(0);
+		double longitude = (first[0] + first[1]) / 2;
+		double latitude = (first[2] + first[3]) / 2;
+		assertTrue(index.findContaining(longitude, longitude, latitude, latitude).contains("urn:0"));
+		assertTrue(index.remove("urn:0"));
+		assertFalse(index.remove("urn:0"));
+		assertFalse(index.findContaining(longitude, longitude, latitude, latitude).contains("urn:0"));
+		index.add(getResource("urn:1", getBox(first[0], first[1], first[2], first[3])));
+		assertTrue(index.findContaining(longitude, longitude, latitude, latitude).contains("urn:1"));
+		assertEquals(300, index.size());
+		assertTrue(index.contains("urn:empty"));
+		assertEquals(299, index.findWithin(-180, 180, -90, 90).size());
+	}
+}
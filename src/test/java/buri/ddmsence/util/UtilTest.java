@@ -20,6 +20,7 @@
 package buri.ddmsence.util;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -28,8 +29,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 import nu.xom.Attribute;
+import nu.xom.Comment;
 import nu.xom.Document;
 import nu.xom.Element;
+import nu.xom.ProcessingInstruction;
+import nu.xom.canonical.Canonicalizer;
 import buri.ddmsence.AbstractBaseTestCase;
 import buri.ddmsence.ddms.InvalidDDMSException;
 import buri.ddmsence.ddms.resource.Identifier;
@@ -817,6 +821,74 @@ public class UtilTest extends AbstractBaseTestCase {
 		assertEquals(null, Util.xmlEscape(null));
 	}
 
+	public void testXmlEscapeAppendable() throws IOException {
+		StringBuilder output = new StringBuilder("a");
+		Util.xmlEscape(output, "<b>'c' & \"d\"");
+		Util.xmlEscape(output, "plain");
+		Util.xmlEscape(output, null);
+		assertEquals("a&lt;b&gt;&apos;c&apos; &amp; &quot;d&quot;plain", output.toString());
+		String plain = "No special characters";
+		assertSame(plain, Util.xmlEscape(plain));
+	}
+
+	public void testCanonicalContent() throws IOException {
+		Element element = new Element("b:root", "urn:b");
+		element.addAttribute(new Attribute("z", "1"));
+		element.addAttribute(new Attribute("a:flag", "urn:a", "true"));
+		element.appendChild("\n  ");
+		Element child = new Element("b:child", "urn:b");
+		child.appendChild(" Value ");
+		child.appendChild(new Comment("Ignored"));
+		element.appendChild(child);
+		element.appendChild("\n");
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Util.writeCanonicalContent(element, out);
+		String expected = "<ns0:root xmlns:ns0=\"urn:b\" xmlns:ns1=\"urn:a\" z=\"1\" ns1:flag=\"true\">"
+			+ "<ns0:child> Value </ns0:child></ns0:root>";
+		assertEquals(expected, new String(out.toByteArray(), "UTF-8"));
+		assertEquals(Util.getDigest(out.toByteArray(), "SHA-256"), Util.getCanonicalContentDigest(element, "SHA-256"));
+
+		ByteArrayOutputStream exclusive = new ByteArrayOutputStream();
+		new Canonicalizer(exclusive, Canonicalizer.EXCLUSIVE_XML_CANONICALIZATION).write(element);
+		assertEquals(Util.getDigest(exclusive.toByteArray(), "MD5"), Util.getCanonicalDigest(element, "MD5"));
+	}
+
+	public void testCanonicalContentMatchesCanonicalizer() throws IOException {
+		Element element = new Element("x:root", "urn:x");
+		element.addNamespaceDeclaration("unused", "urn:unused");
+		element.addAttribute(new Attribute("x:value", "urn:x", "<\"a\" & b>\t\n\r"));
+		Element first = new Element("y:first", "urn:y");
+		first.addAttribute(new Attribute("xml:lang", "http://www.w3.org/XML/1998/namespace", "en"));
+		first.appendChild("Text <with> & \r\n");
+		first.appendChild(new ProcessingInstruction("target", "data"));
+		first.appendChild(new ProcessingInstruction("empty", ""));
+		Element second = new Element("z:second", "urn:y");
+		second.appendChild(new Element("plain"));
+		element.appendChild("\n\t");
+		element.appendChild(first);
+		element.appendChild(second);
+
+		// The same content, written with the normalized prefixes and no whitespace between elements
+		Element normalized = new Element("ns0:root", "urn:x");
+		normalized.addAttribute(new Attribute("ns0:value", "urn:x", "<\"a\" & b>\t\n\r"));
+		Element normalizedFirst = new Element("ns1:first", "urn:y");
+		normalizedFirst.addAttribute(new Attribute("xml:lang", "http://www.w3.org/XML/1998/namespace", "en"));
+		normalizedFirst.appendChild("Text <with> & \r\n");
+		normalizedFirst.appendChild(new ProcessingInstruction("target", "data"));
+		normalizedFirst.appendChild(new ProcessingInstruction("empty", ""));
+		Element normalizedSecond = new Element("ns1:second", "urn:y");
+		normalizedSecond.appendChild(new Element("plain"));
+		normalized.appendChild(normalizedFirst);
+		normalized.appendChild(normalizedSecond);
+
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		new Canonicalizer(expected, Canonicalizer.EXCLUSIVE_XML_CANONICALIZATION).write(normalized);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		Util.writeCanonicalContent(element, out);
+		assertEquals(new String(expected.toByteArray(), "UTF-8"), new String(out.toByteArray(), "UTF-8"));
+	}
+
 	public void testCapitalizeEmpty() {
 		assertEquals(null, Util.capitalize(null));
 	}
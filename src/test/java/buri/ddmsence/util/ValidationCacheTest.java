@@ -0,0 +1,166 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import nu.xom.Element;
+import buri.ddmsence.AbstractBaseTestCase;
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.ValidationMessage;
+
+/**
+ * A collection of tests related to the ValidationCache
+ * 
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public class ValidationCacheTest extends AbstractBaseTestCase {
+
+	public ValidationCacheTest() {
+		super(null);
+	}
+
+	/**
+	 * Validator which counts invocations and returns a fixed outcome
+	 */
+	private static class CountingValidator implements ValidationCache.IValidator {
+		private int _count = 0;
+		private boolean _fail;
+
+		public CountingValidator(boolean fail) {
+			_fail = fail;
+		}
+
+		public List<ValidationMessage> validate() throws InvalidDDMSException {
+			_count++;
+			if (_fail)
+				throw new InvalidDDMSException("Invalid record.");
+			List<ValidationMessage> messages = new ArrayList<ValidationMessage>();
+			messages.add(ValidationMessage.newWarning("Warning.", "/ddms:resource"));
+			return (messages);
+		}
+	}
+
+	public void testInvalidSize() {
+		try {
+			new ValidationCache(0);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "The maximum size must be a positive integer.");
+		}
+	}
+
+	public void testCachedWarnings() throws InvalidDDMSException {
+		ValidationCache cache = new ValidationCache(10);
+		CountingValidator validator = new CountingValidator(false);
+		String key = cache.getKey(ValidationCache.digest("<record />"), DDMSVersion.getVersionFor("4.1"), null);
+		List<ValidationMessage> first = cache.validate(key, validator);
+		List<ValidationMessage> second = cache.validate(key, validator);
+		assertEquals(1, validator._count);
+		assertEquals(1, second.size());
+		assertEquals(first, second);
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		try {
+			second.clear();
+			fail("Allowed modification.");
+		}
+		catch (UnsupportedOperationException e) {
+			// Good
+		}
+	}
+
+	public void testCachedException() {
+		ValidationCache cache = new ValidationCache(10);
+		CountingValidator validator = new CountingValidator(true);
+		String key = cache.getKey(ValidationCache.digest("<record />"), DDMSVersion.getVersionFor("4.1"), null);
+		InvalidDDMSException first = null;
+		for (int i = 0; i < 2; i++) {
+			try {
+				cache.validate(key, validator);
+				fail("Allowed invalid data.");
+			}
+			catch (InvalidDDMSException e) {
+				expectMessage(e, "Invalid record.");
+				assertNotSame(first, e);
+				assertNotNull(e.getCause());
+				e.setLocator("changed");
+				first = e;
+			}
+		}
+		assertEquals(1, validator._count);
+		try {
+			cache.validate(key, validator);
+			fail("Allowed invalid data.");
+		}
+		catch (InvalidDDMSException e) {
+			assertFalse(e.getLocator().contains("changed"));
+		}
+	}
+
+	public void testEviction() throws InvalidDDMSException {
+		ValidationCache cache = new ValidationCache(2);
+		CountingValidator validator = new CountingValidator(false);
+		cache.validate("a", validator);
+		cache.validate("b", validator);
+		cache.validate("a", validator);
+		cache.validate("c", validator);
+		assertEquals(2, cache.size());
+		cache.validate("a", validator);
+		assertEquals(3, validator._count);
+		cache.validate("b", validator);
+		assertEquals(4, validator._count);
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getHits());
+	}
+
+	public void testKeyConfiguration() {
+		ValidationCache cache = new ValidationCache(10);
+		String digest = ValidationCache.digest("<record />");
+		DDMSVersion version41 = DDMSVersion.getVersionFor("4.1");
+		String key41 = cache.getKey(digest, version41, "abc");
+		assertFalse(key41.equals(cache.getKey(digest, version41, "def")));
+		assertFalse(key41.equals(cache.getKey(digest, version41, null)));
+		assertFalse(key41.equals(cache.getKey(digest, DDMSVersion.getVersionFor("5.0"), "abc")));
+
+		// The key of a XOM record follows its own namespace, not the current version.
+		DDMSVersion.setCurrentVersion("4.1");
+		Element record = Util.buildDDMSElement("resource", null);
+		DDMSVersion.setCurrentVersion("5.0");
+		assertEquals(cache.getKey(ValidationCache.digest(record), version41, null), cache.getKey(record, null));
+	}
+
+	public void testElementDigest() {
+		Element element1 = Util.buildDDMSElement("title", "Value");
+		Util.addAttribute(element1, "", "a", "", "1");
+		Util.addAttribute(element1, "", "b", "", "2");
+		Element element2 = Util.buildDDMSElement("title", "Value");
+		Util.addAttribute(element2, "", "b", "", "2");
+		Util.addAttribute(element2, "", "a", "", "1");
+		assertEquals(ValidationCache.digest(element1), ValidationCache.digest(element2));
+		element2.appendChild("s");
+		assertFalse(ValidationCache.digest(element1).equals(ValidationCache.digest(element2)));
+		assertEquals(64, ValidationCache.digest(element1).length());
+	}
+}
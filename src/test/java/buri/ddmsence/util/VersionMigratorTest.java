@@ -0,0 +1,236 @@
+/* Copyright 2010 - 2013 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at http://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import buri.ddmsence.AbstractBaseTestCase;
+import buri.ddmsence.AbstractTspiShape;
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.ValidationMessage;
+import buri.ddmsence.ddms.metacard.MetacardInfo;
+import buri.ddmsence.ddms.summary.GeospatialCoverage;
+import buri.ddmsence.ddms.summary.gml.Point;
+
+/**
+ * A collection of tests related to the VersionMigrator
+ * 
+ * @author Brian Uri!
+ * @since 2.3.0
+ */
+public class VersionMigratorTest extends AbstractBaseTestCase {
+
+	private File _output = null;
+	private File _broken = null;
+
+	public VersionMigratorTest() {
+		super("resource.xml");
+	}
+
+	/**
+	 * Deletes any files written by a batch migration
+	 */
+	protected void tearDown() throws Exception {
+		if (_output != null) {
+			File[] files = _output.listFiles();
+			for (int i = 0; files != null && i < files.length; i++)
+				files[i].delete();
+			_output.delete();
+			_output = null;
+		}
+		if (_broken != null) {
+			_broken.delete();
+			_broken = null;
+		}
+		super.tearDown();
+	}
+
+	/**
+	 * Reads a sample file in its own version
+	 */
+	private static Resource getSample(String name) throws Exception {
+		DDMSVersion version = DDMSVersion.getVersionFor(name.substring(0, 3));
+		DDMSVersion.setCurrentVersion(version.getVersion());
+		return (new DDMSReader(version).getDDMSResource(new File("src/main/resources/data/sample/" + name)));
+	}
+
+	/**
+	 * Collects the locators of a list of warnings
+	 */
+	private static List<String> getLocators(List<ValidationMessage> warnings) {
+		List<String> locators = new ArrayList<String>();
+		for (ValidationMessage warning : warnings)
+			locators.add(warning.getLocator());
+		return (locators);
+	}
+
+	public void testEveryUpgrade() throws InvalidDDMSException {
+		List<String> versions = getSupportedVersions();
+		for (int i = 0; i < versions.size(); i++) {
+			DDMSVersion.setCurrentVersion(versions.get(i));
+			Resource resource = new Resource(getValidElement(versions.get(i)));
+			for (int j = i + 1; j < versions.size(); j++) {
+				MigrationResult result = new VersionMigrator(versions.get(j)).migrate(resource);
+				assertEquals(versions.get(i), result.getSourceVersion().getVersion());
+				assertEquals(versions.get(j), result.getTargetVersion().getVersion());
+				assertEquals(versions.get(i), DDMSVersion.getCurrentVersion().getVersion());
+				assertEquals(resource.getTitles().get(0).getValue(), result.getResource().getTitles().get(0).getValue());
+			}
+		}
+	}
+
+	public void testSameVersion() throws InvalidDDMSException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Resource resource = new Resource(getValidElement(sVersion));
+			MigrationResult result = new VersionMigrator(sVersion).migrate(resource);
+			assertSame(resource, result.getResource());
+			assertTrue(result.getWarnings().isEmpty());
+		}
+	}
+
+	public void testDowngrade() throws InvalidDDMSException {
+		DDMSVersion.setCurrentVersion("5.0");
+		Resource resource = new Resource(getValidElement("5.0"));
+		try {
+			new VersionMigrator("4.1").migrate(resource);
+			fail("Allowed a downgrade.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "A DDMS 5.0 resource cannot be migrated to the earlier DDMS 4.1.");
+		}
+	}
+
+	public void testResourceAttributes() throws InvalidDDMSException {
+		DDMSVersion.setCurrentVersion("2.0");
+		Resource resource = new Resource(getValidElement("2.0"));
+		MigrationResult result = new VersionMigrator("3.1").migrate(resource);
+		Resource migrated = result.getResource();
+		assertEquals(Boolean.TRUE, migrated.isResourceElement());
+		assertNotNull(migrated.getCreateDate());
+		assertEquals(Integer.valueOf(5), migrated.getIsmDESVersion());
+		assertEquals(resource.getSecurity().getSecurityAttributes(), migrated.getSecurityAttributes());
+		assertEquals("[/createDate]", getLocators(result.getWarnings()).toString());
+
+		DDMSVersion.setCurrentVersion("3.0");
+		migrated = new VersionMigrator("4.1").migrate(new Resource(getValidElement("3.0"))).getResource();
+		assertEquals(Integer.valueOf(9), migrated.getIsmDESVersion());
+		assertEquals(Integer.valueOf(7), migrated.getNtkDESVersion());
+	}
+
+	public void testMetacardInfo() throws Exception {
+		DDMSVersion.setCurrentVersion("3.1");
+		Resource resource = new Resource(getValidElement("3.1"));
+		MigrationResult result = new VersionMigrator("4.1").migrate(resource);
+		MetacardInfo metacardInfo = result.getResource().getMetacardInfo();
+		assertEquals(resource.getIdentifiers().get(0).getValue(), metacardInfo.getIdentifiers().get(0).getValue());
+		assertEquals(resource.getCreateDate().toXMLFormat(), metacardInfo.getDates().getCreated().toXMLFormat());
+		assertEquals(resource.getPublishers().get(0).getEntity().getNames(), metacardInfo.getPublishers().get(0)
+			.getEntity().getNames());
+		assertEquals(resource.getSecurityAttributes(), metacardInfo.getSecurityAttributes());
+		assertEquals("[/metacardInfo]", getLocators(result.getWarnings()).toString());
+
+		// A resource without publishers borrows its first producer.
+		result = new VersionMigrator("4.1").migrate(getSample("2.0-earlierVersionExample.xml"));
+		assertEquals("person", result.getResource().getMetacardInfo().getPublishers().get(0).getEntity()
+			.getName());
+		assertTrue(getLocators(result.getWarnings()).contains("/metacardInfo/publishers"));
+	}
+
+	public void testVersion5() throws Exception {
+		Resource resource = getSample("4.1-irmExample.xml");
+		MigrationResult result = new VersionMigrator("5.0").migrate(resource);
+		Resource migrated = result.getResource();
+		assertNull(migrated.getCreateDate());
+		assertNull(migrated.getIsmDESVersion());
+		assertTrue(migrated.getSecurityAttributes().isEmpty());
+		assertEquals(resource.getCompliesWiths(), migrated.getCompliesWiths());
+		assertEquals(resource.getSecurityAttributes().getClassification(), migrated.getMetacardInfo()
+			.getSecurityAttributes().getClassification());
+		List<String> locators = getLocators(result.getWarnings());
+		assertTrue(locators.contains("/security/noticeList"));
+		assertTrue(locators.contains("/metacardInfo/noticeList"));
+		GeospatialCoverage coverage = migrated.getGeospatialCoverages().get(1);
+		assertEquals(1, coverage.getBoundingGeometry().getTspiShapes().size());
+		String xml = coverage.getBoundingGeometry().getTspiShapes().get(0).toXML();
+		assertTrue(xml.contains("<tspi-core:lowerCorner><gml:pos>29.0 39.0</gml:pos></tspi-core:lowerCorner>"));
+
+		DDMSVersion.setCurrentVersion("4.1");
+		resource = new Resource(getValidElement("4.1"));
+		Point point = resource.getGeospatialCoverages().get(0).getBoundingGeometry().getGmlPoints().get(0);
+		coverage = new VersionMigrator("5.0").migrate(resource).getResource().getGeospatialCoverages().get(0);
+		AbstractTspiShape shape = (AbstractTspiShape) coverage.getBoundingGeometry().getTspiShapes().get(0);
+		assertEquals(point.getId(), shape.getId());
+		assertEquals("http://metadata.ces.mil/mdr/ns/GSIP/crs/WGS84E_2D", shape.getSRSAttributes().getSrsName());
+		assertTrue(shape.toXML().contains("<gml:pos>32.1 40.1</gml:pos>"));
+	}
+
+	public void testDroppedContent() throws Exception {
+		MigrationResult result = new VersionMigrator("5.0").migrate(getSample("3.0-extensibleLayerExample.xml"));
+		assertTrue(result.getResource().getExtensibleElements().isEmpty());
+		List<String> locators = getLocators(result.getWarnings());
+		assertTrue(locators.contains("/extensibleElements[0]"));
+		assertTrue(locators.contains("/creators[0]/person/extensibleAttributes"));
+
+		result = new VersionMigrator("5.0").migrate(getSample("3.1-boundingGeometryExample.xml"));
+		ValidationMessage warning = result.getWarnings().get(result.getWarnings().size() - 1);
+		assertEquals("/geospatialCoverages[0]/geographicIdentifier/countryCode", warning.getLocator());
+		assertEquals("The countryCode property was dropped, because DDMS 5.0 only accepts GENC country codes.",
+			warning.getText());
+		assertNull(result.getResource().getGeospatialCoverages().get(0).getGeographicIdentifier().getCountryCode());
+	}
+
+	public void testBatch() throws Exception {
+		_output = File.createTempFile("migrated", "");
+		assertTrue(_output.delete() && _output.mkdir());
+		List<File> files = new ArrayList<File>();
+		String[] names = new String[] { "3.1-boundingGeometryExample.xml", "3.1-identifierPostalAddressExample.xml",
+			"4.1-ddmsenceExample.xml" };
+		for (String name : names)
+			files.add(new File("src/main/resources/data/sample/" + name));
+		files.add(new File(PropertyReader.getProperty("test.unit.data") + "3.1/", "resource.xml"));
+		_broken = File.createTempFile("broken", ".xml");
+		FileWriter writer = new FileWriter(_broken);
+		writer.write("<notXml");
+		writer.close();
+		files.add(_broken);
+
+		DDMSVersion.setCurrentVersion("2.0");
+		Map<File, List<ValidationMessage>> report = new VersionMigrator("5.0").migrate(files, "3.1", _output, 2);
+		assertEquals("2.0", DDMSVersion.getCurrentVersion().getVersion());
+		assertEquals(5, report.size());
+		assertEquals(ValidationMessage.WARNING_TYPE, report.get(files.get(0)).get(0).getType());
+		assertEquals(ValidationMessage.WARNING_TYPE, report.get(files.get(1)).get(0).getType());
+		assertEquals(ValidationMessage.ERROR_TYPE, report.get(files.get(2)).get(0).getType());
+		assertEquals(ValidationMessage.ERROR_TYPE, report.get(_broken).get(0).getType());
+		for (int i = 0; i < 2; i++) {
+			Resource migrated = new DDMSReader(DDMSVersion.getVersionFor("5.0")).getDDMSResource(new File(_output,
+				names[i]));
+			assertEquals("5.0", DDMSVersion.getVersionForNamespace(migrated.getNamespace()).getVersion());
+		}
+		assertTrue(new File(_output, "resource.xml").exists());
+		assertFalse(new File(_output, names[2]).exists());
+	}
+}